@@ -0,0 +1,151 @@
+package indy;
+
+import javafx.application.Platform;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The AnalysisService class runs the Engine, or the MctsEngine if the Game chose it, on the
+ * position of a Game in the background, so the JavaFX thread never waits for a search. The
+ * JavaFX thread only hands over positions: each new position stops the search of the one
+ * before, and the updates of a stopped search are thrown away. The Engine uses every core,
+ * but its threads run at the lowest priority, so the JavaFX thread still gets a core when it
+ * needs one.
+ * Updates are shown through Platform.runLater. While one update is still waiting for the
+ * JavaFX thread, newer ones replace it instead of queueing behind it, so a fast search can
+ * never flood the JavaFX thread with work.
+ */
+public class AnalysisService {
+    private volatile Searcher engine;
+    private String engineKind;
+    private final ExecutorService executor;
+    private final AtomicInteger generation;
+    private final AtomicReference<AnalysisUpdate> pending;
+    private final Listener listener;
+
+    /**
+     * The Listener interface is told about each update on the JavaFX thread.
+     */
+    public interface Listener {
+
+        /**
+         * Called with the newest update of the current analysis.
+         */
+        void onUpdate(AnalysisUpdate update);
+    }
+
+    /**
+     * Constructs an AnalysisService with its own search thread. The search thread is a daemon,
+     * and so are the Engine's helper threads it starts, so an analysis never keeps the program
+     * running. The Engine, its hash table, and the tables of the rules are only set up by the
+     * first analysis, on the search thread, so constructing an AnalysisService does not slow
+     * down the first frame of the game.
+     *
+     * @param listener The Listener told about updates on the JavaFX thread.
+     */
+    public AnalysisService(Listener listener) {
+        this.engine = null;
+        this.engineKind = null;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analysis");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.generation = new AtomicInteger();
+        this.pending = new AtomicReference<>();
+        this.listener = listener;
+    }
+
+    /**
+     * Stops the current analysis and starts analysing the Position. Returns at once.
+     *
+     * @param position   The Position to analyse, which must not be changed afterwards.
+     * @param isSilly    Whether the game is played with silly rules.
+     * @param engineKind ENGINE_ALPHA_BETA or ENGINE_MCTS, the engine to analyse with.
+     */
+    public void analyze(Position position, boolean isSilly, String engineKind) {
+        int id = this.generation.incrementAndGet();
+        this.stopEngine();
+        this.executor.execute(() -> this.run(id, position, isSilly, engineKind));
+    }
+
+    /**
+     * Stops the current analysis without starting another.
+     */
+    public void cancel() {
+        this.generation.incrementAndGet();
+        this.stopEngine();
+    }
+
+    /**
+     * Stops the search of the Engine, if the Engine has been set up yet.
+     */
+    private void stopEngine() {
+        Searcher current = this.engine;
+        if (current != null) {
+            current.stop();
+        }
+    }
+
+    /**
+     * Returns the engine of the kind, setting it up on the first call and again whenever the
+     * kind changes. Only called on the search thread.
+     */
+    private Searcher getEngine(String kind) {
+        if (this.engine == null || !kind.equals(this.engineKind)) {
+            Searcher created = Searcher.create(kind);
+            created.setThreads(Math.min(Runtime.getRuntime().availableProcessors(), Constants.MAX_THREADS));
+            created.setHash(Constants.ANALYSIS_HASH);
+            this.engine = created;
+            this.engineKind = kind;
+        }
+        return this.engine;
+    }
+
+    /**
+     * Stops the current analysis and the search thread for good.
+     */
+    public void shutdown() {
+        this.cancel();
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Searches the Position on the search thread until the search ends or a newer analysis
+     * stops it. An analysis that was replaced before its turn came is skipped.
+     */
+    private void run(int id, Position position, boolean isSilly, String engineKind) {
+        if (id != this.generation.get()) {
+            return;
+        }
+        boolean white = position.isWhiteToMove();
+        Searcher searching = this.getEngine(engineKind);
+        searching.setSilly(isSilly);
+        searching.search(position, Constants.MAX_PLY - 1, 0, 0, (depth, score, nodes, millis, pv, pvLength) -> {
+            if (id != this.generation.get()) {
+                // replaced between the check above and the start of the search
+                searching.stop();
+                return;
+            }
+            this.post(new AnalysisUpdate(id, depth, white ? score : -score, pvLength > 0 ? pv[0] : 0, nodes));
+        });
+    }
+
+    /**
+     * Hands an update to the JavaFX thread. A runLater is only queued if none is waiting, and
+     * it shows whichever update is newest when it runs.
+     */
+    private void post(AnalysisUpdate update) {
+        if (this.pending.getAndSet(update) == null) {
+            Platform.runLater(() -> {
+                AnalysisUpdate latest = this.pending.getAndSet(null);
+                if (latest != null && latest.getGeneration() == this.generation.get()) {
+                    this.listener.onUpdate(latest);
+                }
+            });
+        }
+    }
+}
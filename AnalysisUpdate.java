@@ -0,0 +1,82 @@
+package indy;
+
+/**
+ * The AnalysisUpdate class is one result of the background analysis of a Game: the best move
+ * and score after a finished depth. The score is seen from white's side, so a positive score
+ * is good for white whoever is to move.
+ */
+public class AnalysisUpdate {
+    private final int generation;
+    private final int depth;
+    private final int score;
+    private final int bestMove;
+    private final long nodes;
+
+    /**
+     * Constructs an AnalysisUpdate.
+     *
+     * @param generation The number of the analysis this update belongs to.
+     * @param depth      The depth searched.
+     * @param score      The score for white, in centipawns or a mate score.
+     * @param bestMove   The best move, or 0 if there is none.
+     * @param nodes      The nodes searched so far.
+     */
+    public AnalysisUpdate(int generation, int depth, int score, int bestMove, long nodes) {
+        this.generation = generation;
+        this.depth = depth;
+        this.score = score;
+        this.bestMove = bestMove;
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns true if the score is a forced mate for either side.
+     */
+    public boolean isMate() {
+        return Math.abs(this.score) > Constants.MATE_SCORE - Constants.MAX_PLY;
+    }
+
+    /**
+     * Returns the number of moves to mate, positive if white mates and negative if black
+     * mates. Only meaningful if isMate is true.
+     */
+    public int getMateIn() {
+        int plies = Constants.MATE_SCORE - Math.abs(this.score);
+        return this.score > 0 ? (plies + 1) / 2 : -((plies + 1) / 2);
+    }
+
+    /**
+     * Accessor method for the number of the analysis this update belongs to.
+     */
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Accessor method for the depth searched.
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Accessor method for the score for white.
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Accessor method for the best move.
+     */
+    public int getBestMove() {
+        return this.bestMove;
+    }
+
+    /**
+     * Accessor method for the nodes searched.
+     */
+    public long getNodes() {
+        return this.nodes;
+    }
+}
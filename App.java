@@ -21,6 +21,8 @@ public class App extends Application {
         // This instantiates the top-level object, sets up the scene and title, and shows the stage.
         PaneOrganizer organizer = new PaneOrganizer();
         Scene scene = new Scene(organizer.getRoot(), Constants.SCENE_WIDTH, Constants.SCENE_HEIGHT);
+        Metrics.watchLayout(scene);
+        Startup.watchFirstFrame(scene);
         stage.setTitle("stupid chess");
         stage.setScene(scene);
         stage.show();
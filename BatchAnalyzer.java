@@ -0,0 +1,306 @@
+package indy;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The BatchAnalyzer class searches every position of game archives and FEN files to a fixed
+ * depth and writes the results to a columnar file (see BatchResults). The calling thread
+ * streams the positions: it replays each game of an archive, silly events included, and
+ * hands the position before every move to the worker threads through a bounded queue, so
+ * reading waits for the searches and memory stays flat no matter how big the input is.
+ * Every worker has its own single-threaded Engine and fills its own block of results, which
+ * is only locked against the other workers while it is written out, so the workers share
+ * nothing while they search and more cores analyse proportionally more positions.
+ * Rows are written in the order the workers finish, so they carry the game and ply.
+ * If a worker fails (say the results file cannot be written), the reading stops, the other
+ * workers are interrupted, and analyse throws the worker's exception.
+ * Running the main method analyses its inputs (archives end in .scr, anything else is read
+ * as one FEN per line): BatchAnalyzer output.sca depth threads input...
+ */
+public class BatchAnalyzer {
+    private static final Job END = new Job(null, 0, 0, 0, false);
+    private final int depth;
+    private final int threads;
+    private final AtomicLong analysed;
+    private final AtomicLong skipped;
+    private final AtomicReference<Exception> failure;
+    private int source;
+
+    /**
+     * The Job class is one position waiting in the queue, as a FEN string with where it
+     * came from.
+     */
+    private static final class Job {
+        private final String fen;
+        private final int source;
+        private final int ply;
+        private final int played;
+        private final boolean isSilly;
+
+        /**
+         * Constructs a Job.
+         *
+         * @param fen     The position.
+         * @param source  The game number or FEN line number.
+         * @param ply     The moves played before the position.
+         * @param played  The move played from the position in the game, or 0.
+         * @param isSilly Whether the position is played with silly rules.
+         */
+        Job(String fen, int source, int ply, int played, boolean isSilly) {
+            this.fen = fen;
+            this.source = source;
+            this.ply = ply;
+            this.played = played;
+            this.isSilly = isSilly;
+        }
+    }
+
+    /**
+     * Constructs a BatchAnalyzer that searches to the depth on the number of worker threads.
+     *
+     * @param depth   The depth of every search.
+     * @param threads The number of worker threads, each with its own Engine.
+     */
+    public BatchAnalyzer(int depth, int threads) {
+        this.depth = Math.max(1, Math.min(depth, Constants.MAX_PLY - 1));
+        this.threads = Math.max(1, threads);
+        this.analysed = new AtomicLong();
+        this.skipped = new AtomicLong();
+        this.failure = new AtomicReference<>();
+        this.source = 0;
+    }
+
+    /**
+     * Analyses every input and writes the results file. Returns once every position has been
+     * searched and written.
+     *
+     * @param output The results file to write.
+     * @param inputs The game archives (ending in .scr) and FEN files to read.
+     * @throws IOException if an input cannot be read or the results cannot be written.
+     */
+    public void analyse(String output, String... inputs) throws IOException, InterruptedException {
+        this.failure.set(null);
+        BlockingQueue<Job> queue = new ArrayBlockingQueue<>(Constants.BATCH_QUEUE_PER_THREAD * this.threads);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(output)))) {
+            out.writeInt(Constants.BATCH_MAGIC);
+            Thread[] workers = new Thread[this.threads];
+            for (int i = 0; i < this.threads; i++) {
+                workers[i] = new Thread(() -> this.work(queue, out), "batch-" + i);
+                workers[i].start();
+            }
+            try {
+                for (String input : inputs) {
+                    if (input.endsWith(Constants.ARCHIVE_EXTENSION)) {
+                        this.readArchive(input, queue);
+                    } else {
+                        this.readFens(input, queue);
+                    }
+                }
+            } finally {
+                this.finish(queue, workers);
+            }
+        }
+        this.checkFailure();
+    }
+
+    /**
+     * Queues an end marker for every worker and waits for them to finish. If a worker has
+     * failed, the markers may never be taken, so the workers are interrupted instead.
+     */
+    private void finish(BlockingQueue<Job> queue, Thread[] workers) throws InterruptedException {
+        int ended = 0;
+        while (ended < workers.length && this.failure.get() == null) {
+            if (queue.offer(END, Constants.BATCH_OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                ended++;
+            }
+        }
+        for (Thread worker : workers) {
+            if (this.failure.get() != null) {
+                worker.interrupt();
+            }
+            worker.join();
+        }
+    }
+
+    /**
+     * Queues a position, waiting while the queue is full. Throws the failure of a worker
+     * instead of waiting for workers that are gone.
+     */
+    private void put(BlockingQueue<Job> queue, Job job) throws IOException, InterruptedException {
+        while (!queue.offer(job, Constants.BATCH_OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+            this.checkFailure();
+        }
+    }
+
+    /**
+     * Throws the exception a worker failed with, if one did.
+     */
+    private void checkFailure() throws IOException {
+        Exception failed = this.failure.get();
+        if (failed instanceof IOException) {
+            throw (IOException) failed;
+        } else if (failed != null) {
+            throw (RuntimeException) failed;
+        }
+    }
+
+    /**
+     * Replays every game of an archive and queues the position before each of its moves.
+     */
+    private void readArchive(String archive, BlockingQueue<Job> queue) throws IOException, InterruptedException {
+        try (GameRecordReader reader = new GameRecordReader(archive)) {
+            while (reader.nextGame()) {
+                try {
+                    this.readGame(reader.getCursor(), reader.isSilly(), queue);
+                } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                    // a broken record, the positions before the break are still analysed
+                    this.skipped.incrementAndGet();
+                }
+                this.source++;
+            }
+        }
+    }
+
+    /**
+     * Replays the events of one game and queues the position before each of its moves.
+     */
+    private void readGame(RecordCursor cursor, boolean isSilly, BlockingQueue<Job> queue)
+            throws IOException, InterruptedException {
+        Position position = Position.startPosition();
+        int ply = 0;
+        int tag = cursor.next();
+        while (tag != 0) {
+            switch (tag) {
+                case Constants.TAG_SETUP:
+                    position = Position.fromFen(cursor.getSetup());
+                    break;
+                case Constants.TAG_MOVE:
+                    this.put(queue, new Job(position.toFen(), this.source, ply, cursor.getMove(), isSilly));
+                    position.makeMove(cursor.getMove());
+                    ply++;
+                    break;
+                case Constants.TAG_SHIFT:
+                    position.shift(cursor.getDirection());
+                    break;
+                case Constants.TAG_TRANSFORM:
+                    position.transform(cursor.getSquare(), cursor.isWhite() ? cursor.getCode() : -cursor.getCode());
+                    break;
+            }
+            tag = cursor.next();
+        }
+    }
+
+    /**
+     * Queues the position of every line of a FEN file. Blank lines are skipped.
+     */
+    private void readFens(String path, BlockingQueue<Job> queue) throws IOException, InterruptedException {
+        try (BufferedReader in = new BufferedReader(new FileReader(path))) {
+            String line = in.readLine();
+            while (line != null) {
+                if (!line.trim().isEmpty()) {
+                    this.put(queue, new Job(line, this.source, 0, 0, false));
+                }
+                this.source++;
+                line = in.readLine();
+            }
+        }
+    }
+
+    /**
+     * Takes positions from the queue and searches them until the end marker is taken. The
+     * results are collected in the worker's own block, which is written out when it is full
+     * and once more at the end. If the worker fails, its exception is kept for analyse to
+     * throw.
+     */
+    private void work(BlockingQueue<Job> queue, DataOutputStream out) {
+        Engine engine = new Engine();
+        engine.setHash(Constants.BATCH_HASH);
+        BatchResults block = new BatchResults();
+        int[] score = new int[2];
+        try {
+            Job job = queue.take();
+            while (job != END) {
+                try {
+                    Position position = Position.fromFen(job.fen);
+                    engine.setSilly(job.isSilly);
+                    score[0] = 0;
+                    score[1] = 0;
+                    int best = engine.search(position, this.depth, 0, 0, (d, s, nodes, millis, pv, pvLength) -> {
+                        score[0] = s;
+                        score[1] = d;
+                    });
+                    block.add(job.source, job.ply, position.getHash(), job.played, best,
+                            position.isWhiteToMove() ? score[0] : -score[0], score[1], engine.getNodes());
+                    this.analysed.incrementAndGet();
+                    if (block.isFull()) {
+                        this.write(block, out);
+                    }
+                } catch (IllegalArgumentException e) {
+                    this.skipped.incrementAndGet();
+                }
+                job = queue.take();
+            }
+            this.write(block, out);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            this.failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * Writes a worker's block to the results file and empties it. Only one block is written
+     * at a time.
+     */
+    private void write(BatchResults block, DataOutputStream out) throws IOException {
+        if (block.getRows() == 0) {
+            return;
+        }
+        synchronized (out) {
+            block.writeTo(out);
+        }
+        block.clear();
+    }
+
+    /**
+     * Accessor method for the number of positions searched.
+     */
+    public long getAnalysed() {
+        return this.analysed.get();
+    }
+
+    /**
+     * Accessor method for the number of FEN lines and games that could not be read.
+     */
+    public long getSkipped() {
+        return this.skipped.get();
+    }
+
+    /**
+     * Analyses the inputs into a results file and prints how long it took.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.err.println("usage: BatchAnalyzer output.sca depth threads input...");
+            return;
+        }
+        String[] inputs = new String[args.length - 3];
+        System.arraycopy(args, 3, inputs, 0, inputs.length);
+        BatchAnalyzer analyzer = new BatchAnalyzer(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+        long start = System.currentTimeMillis();
+        analyzer.analyse(args[0], inputs);
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        System.out.println(analyzer.getAnalysed() + " positions analysed, " + analyzer.getSkipped() + " skipped, "
+                + millis + " ms, " + analyzer.getAnalysed() * 1000 / millis + " positions/s");
+    }
+}
@@ -0,0 +1,230 @@
+package indy;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * The BatchResults class holds one block of the rows a BatchAnalyzer writes, stored by
+ * column: each column is its own array, and a block is written as its row count followed by
+ * every column in turn. Tools that only need a few columns (the scores, say) can then read
+ * them in one go, and a results file of any size is read one block at a time.
+ * A row is one searched position: where it came from (the game or line number and the ply),
+ * its hash, the move played there in the game (0 for a FEN line), the Engine's best move,
+ * the score for white in centipawns (or a mate score), the depth reached, and the nodes.
+ * Running the main method prints a results file as text: BatchResults results.sca
+ */
+public class BatchResults {
+    private final int[] sources;
+    private final int[] plies;
+    private final long[] hashes;
+    private final int[] played;
+    private final int[] bestMoves;
+    private final int[] scores;
+    private final int[] depths;
+    private final long[] nodes;
+    private int rows;
+
+    /**
+     * Constructs an empty block with room for BATCH_BLOCK_ROWS rows.
+     */
+    public BatchResults() {
+        this.sources = new int[Constants.BATCH_BLOCK_ROWS];
+        this.plies = new int[Constants.BATCH_BLOCK_ROWS];
+        this.hashes = new long[Constants.BATCH_BLOCK_ROWS];
+        this.played = new int[Constants.BATCH_BLOCK_ROWS];
+        this.bestMoves = new int[Constants.BATCH_BLOCK_ROWS];
+        this.scores = new int[Constants.BATCH_BLOCK_ROWS];
+        this.depths = new int[Constants.BATCH_BLOCK_ROWS];
+        this.nodes = new long[Constants.BATCH_BLOCK_ROWS];
+        this.rows = 0;
+    }
+
+    /**
+     * Adds a row to the block, which must not be full.
+     */
+    public void add(int source, int ply, long hash, int playedMove, int bestMove, int score, int depth, long nodeCount) {
+        this.sources[this.rows] = source;
+        this.plies[this.rows] = ply;
+        this.hashes[this.rows] = hash;
+        this.played[this.rows] = playedMove;
+        this.bestMoves[this.rows] = bestMove;
+        this.scores[this.rows] = score;
+        this.depths[this.rows] = depth;
+        this.nodes[this.rows] = nodeCount;
+        this.rows++;
+    }
+
+    /**
+     * Returns true if the block has no room for another row.
+     */
+    public boolean isFull() {
+        return this.rows == Constants.BATCH_BLOCK_ROWS;
+    }
+
+    /**
+     * Empties the block so it can be filled again.
+     */
+    public void clear() {
+        this.rows = 0;
+    }
+
+    /**
+     * Writes the row count and then each column of the block.
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(this.rows);
+        writeColumn(out, this.sources, this.rows);
+        writeColumn(out, this.plies, this.rows);
+        for (int i = 0; i < this.rows; i++) {
+            out.writeLong(this.hashes[i]);
+        }
+        writeColumn(out, this.played, this.rows);
+        writeColumn(out, this.bestMoves, this.rows);
+        writeColumn(out, this.scores, this.rows);
+        writeColumn(out, this.depths, this.rows);
+        for (int i = 0; i < this.rows; i++) {
+            out.writeLong(this.nodes[i]);
+        }
+    }
+
+    /**
+     * Reads the next block of a results file into this one. Returns false at the end of the
+     * file.
+     */
+    public boolean readFrom(DataInputStream in) throws IOException {
+        int count;
+        try {
+            count = in.readInt();
+        } catch (EOFException e) {
+            return false;
+        }
+        if (count < 0 || count > Constants.BATCH_BLOCK_ROWS) {
+            throw new IOException("bad block of " + count + " rows");
+        }
+        this.rows = count;
+        readColumn(in, this.sources, count);
+        readColumn(in, this.plies, count);
+        for (int i = 0; i < count; i++) {
+            this.hashes[i] = in.readLong();
+        }
+        readColumn(in, this.played, count);
+        readColumn(in, this.bestMoves, count);
+        readColumn(in, this.scores, count);
+        readColumn(in, this.depths, count);
+        for (int i = 0; i < count; i++) {
+            this.nodes[i] = in.readLong();
+        }
+        return true;
+    }
+
+    /**
+     * Writes the first count values of an int column.
+     */
+    private static void writeColumn(DataOutputStream out, int[] column, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeInt(column[i]);
+        }
+    }
+
+    /**
+     * Reads count values into an int column.
+     */
+    private static void readColumn(DataInputStream in, int[] column, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            column[i] = in.readInt();
+        }
+    }
+
+    /**
+     * Accessor method for the number of rows in the block.
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Returns the game number, or the line number of a FEN file, of a row.
+     */
+    public int getSource(int row) {
+        return this.sources[row];
+    }
+
+    /**
+     * Returns the ply of a row, the number of moves played before its position.
+     */
+    public int getPly(int row) {
+        return this.plies[row];
+    }
+
+    /**
+     * Returns the Zobrist hash of the position of a row.
+     */
+    public long getHash(int row) {
+        return this.hashes[row];
+    }
+
+    /**
+     * Returns the move played in the game from the position of a row, or 0.
+     */
+    public int getPlayed(int row) {
+        return this.played[row];
+    }
+
+    /**
+     * Returns the Engine's best move in the position of a row, or 0 if there is none.
+     */
+    public int getBestMove(int row) {
+        return this.bestMoves[row];
+    }
+
+    /**
+     * Returns the score of a row for white, in centipawns or a mate score.
+     */
+    public int getScore(int row) {
+        return this.scores[row];
+    }
+
+    /**
+     * Returns the depth the search of a row reached.
+     */
+    public int getDepth(int row) {
+        return this.depths[row];
+    }
+
+    /**
+     * Returns the nodes the search of a row took.
+     */
+    public long getNodes(int row) {
+        return this.nodes[row];
+    }
+
+    /**
+     * Prints every row of a results file as tab separated text.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: BatchResults results.sca");
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args[0])))) {
+            if (in.readInt() != Constants.BATCH_MAGIC) {
+                throw new IOException(args[0] + " is not a results file");
+            }
+            System.out.println("source\tply\thash\tplayed\tbest\tscore\tdepth\tnodes");
+            BatchResults block = new BatchResults();
+            while (block.readFrom(in)) {
+                for (int i = 0; i < block.getRows(); i++) {
+                    System.out.println(block.getSource(i) + "\t" + block.getPly(i) + "\t"
+                            + Long.toHexString(block.getHash(i)) + "\t"
+                            + (block.getPlayed(i) == 0 ? "-" : Move.toString(block.getPlayed(i))) + "\t"
+                            + (block.getBestMove(i) == 0 ? "-" : Move.toString(block.getBestMove(i))) + "\t"
+                            + block.getScore(i) + "\t" + block.getDepth(i) + "\t" + block.getNodes(i));
+                }
+            }
+        }
+    }
+}
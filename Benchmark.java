@@ -0,0 +1,150 @@
+package indy;
+
+import java.util.function.Consumer;
+
+/**
+ * The Benchmark class measures the speed of the Position rules core and of the Engine, so
+ * changes to either can be compared. Running the main method prints:
+ * perft [depth] -> the leaf count, time, and nodes per second of move generation
+ * search [depth] [threads] -> for each bench position the nodes, time, and effective
+ * branching factor of a fixed depth search, then the totals
+ * features [depth] -> the search totals with the plain alpha-beta search, with the pruning
+ * techniques switched off one at a time, and with all of them, in basic and silly mode
+ * With no arguments perft and search are run at their default depths.
+ */
+public final class Benchmark {
+    private static final String[] POSITIONS = {
+        Position.START_FEN,
+        "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w - - 4 4",
+        "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w - - 0 1",
+        "4rrk1/pp1n3p/3q2pQ/2p1pb2/2PP4/2P3N1/P2B2PP/4RRK1 b - - 7 19",
+        "r1b2rk1/2q1bppp/p2p1n2/np2p3/3PP3/5N1P/PPBN1PP1/R1BQR1K1 w - - 0 1",
+        "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"
+    };
+
+    /**
+     * The Benchmark class only contains static methods and is never instantiated.
+     */
+    private Benchmark() {
+    }
+
+    /**
+     * Counts the leaves of the legal move tree of the given depth.
+     */
+    public static long perft(Position position, int depth) {
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = position.legalMoves(moves);
+        if (depth <= 1) {
+            return depth == 1 ? count : 1;
+        }
+        long leaves = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            leaves += perft(position, depth - 1);
+            position.undo();
+        }
+        return leaves;
+    }
+
+    /**
+     * Prints the perft of the start position.
+     */
+    private static void benchPerft(int depth) {
+        long start = System.nanoTime();
+        long leaves = perft(Position.startPosition(), depth);
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("perft %d: %d leaves, %d ms, %d nodes/s%n", depth, leaves, millis, leaves * 1000 / millis);
+    }
+
+    /**
+     * Searches every bench position to the depth with a new Engine and prints the nodes,
+     * the time, and the effective branching factor. The effective branching factor is how
+     * many times more nodes one more depth costs, taken over the last two depths so the
+     * odd and even depths even out.
+     */
+    private static void benchSearch(int depth, int threads) {
+        String totals = benchSearch(depth, threads, engine -> { }, true);
+        System.out.println("search depth " + depth + ": " + totals);
+    }
+
+    /**
+     * Prints the search totals of each Engine setup, so every pruning technique can be
+     * compared with the plain search and with the others.
+     */
+    private static void benchFeatures(int depth) {
+        System.out.printf("%-28s %s%n", "plain", benchSearch(depth, 1, engine -> {
+            engine.setQuiescence(false);
+            engine.setNullMove(false);
+            engine.setLateMoveReductions(false);
+            engine.setFutility(false);
+        }, false));
+        System.out.printf("%-28s %s%n", "quiescence only", benchSearch(depth, 1, engine -> {
+            engine.setNullMove(false);
+            engine.setLateMoveReductions(false);
+            engine.setFutility(false);
+        }, false));
+        System.out.printf("%-28s %s%n", "all but null move", benchSearch(depth, 1, engine -> engine.setNullMove(false), false));
+        System.out.printf("%-28s %s%n", "all but late move reductions",
+                benchSearch(depth, 1, engine -> engine.setLateMoveReductions(false), false));
+        System.out.printf("%-28s %s%n", "all but futility", benchSearch(depth, 1, engine -> engine.setFutility(false), false));
+        System.out.printf("%-28s %s%n", "all", benchSearch(depth, 1, engine -> { }, false));
+        System.out.printf("%-28s %s%n", "all, silly", benchSearch(depth, 1, engine -> engine.setSilly(true), false));
+    }
+
+    /**
+     * Searches every bench position with a new Engine set up by the setup and returns the
+     * totals, printing each position too if verbose is true.
+     */
+    private static String benchSearch(int depth, int threads, Consumer<Engine> setup, boolean verbose) {
+        long totalNodes = 0;
+        long totalMillis = 0;
+        double branchingProduct = 1.0;
+        for (String fen : POSITIONS) {
+            Engine engine = new Engine();
+            engine.setThreads(threads);
+            setup.accept(engine);
+            long[] nodesAt = new long[depth + 1];
+            long start = System.nanoTime();
+            int best = engine.search(Position.fromFen(fen), depth, 0, 0,
+                    (d, score, nodes, millis, pv, pvLength) -> nodesAt[d] = nodes);
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            long nodes = engine.getNodes();
+            double branching = branchingFactor(nodesAt, depth);
+            totalNodes += nodes;
+            totalMillis += millis;
+            branchingProduct *= branching;
+            if (verbose) {
+                System.out.printf("%-70s %-6s %10d nodes %6d ms  ebf %.2f%n", fen, Move.toString(best), nodes, millis, branching);
+            }
+        }
+        return String.format("%d nodes, %d ms, %d nodes/s, ebf %.2f", totalNodes, totalMillis,
+                totalNodes * 1000 / totalMillis, Math.pow(branchingProduct, 1.0 / POSITIONS.length));
+    }
+
+    /**
+     * Returns the effective branching factor from the nodes counted after each depth.
+     */
+    private static double branchingFactor(long[] nodesAt, int depth) {
+        if (depth < 3 || nodesAt[depth - 2] == 0) {
+            return 0.0;
+        }
+        return Math.sqrt((double) nodesAt[depth] / nodesAt[depth - 2]);
+    }
+
+    /**
+     * Runs the benchmarks named by the arguments.
+     */
+    public static void main(String[] args) {
+        String which = args.length > 0 ? args[0] : "all";
+        if (which.equals("perft") || which.equals("all")) {
+            benchPerft(args.length > 1 && which.equals("perft") ? Integer.parseInt(args[1]) : Constants.BENCH_PERFT_DEPTH);
+        }
+        if (which.equals("search") || which.equals("all")) {
+            int depth = args.length > 1 && which.equals("search") ? Integer.parseInt(args[1]) : Constants.BENCH_SEARCH_DEPTH;
+            benchSearch(depth, args.length > 2 ? Integer.parseInt(args[2]) : 1);
+        }
+        if (which.equals("features")) {
+            benchFeatures(args.length > 1 ? Integer.parseInt(args[1]) : Constants.BENCH_SEARCH_DEPTH);
+        }
+    }
+}
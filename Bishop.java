@@ -28,57 +28,19 @@ public class Bishop extends Piece {
      * Takes in the current and intended rows and columns of the piece and checks if
      * the object can move there depending on its specific move rules in chess.
      * Bishops can move in any direction diagonally as long as the squares between
-     * the old and new locations are unoccupied. If the target location is occupied,
-     * check if the Bishop can capture the occupying piece. Returns true if satisfied.
+     * the old and new locations are unoccupied, so the new location must be one of the squares
+     * Bitboards.bishopAttacks finds for the occupied squares of the Board. If the target
+     * location is occupied, check if the Bishop can capture the occupying piece. Returns true
+     * if satisfied.
      */
     @Override
     public boolean moveValidity(int oldRow, int oldCol, int newRow, int newCol) {
-        boolean check = true;
-        if (newRow >= 0 && newRow < Constants.BOARD_WIDTH && newCol >= 0 && newCol < Constants.BOARD_WIDTH) {
-            if (Math.abs(newRow - oldRow) != Math.abs(newCol - oldCol)) {
-                return false;
-            }
-            if (Math.min(oldCol, newCol) == oldCol && (Math.min(oldRow, newRow) == oldRow)) {
-                int row = oldRow;
-                for (int col = oldCol + 1; col < newCol; col++) {
-                    row++;
-                    if (this.board.getBoard()[row][col].getIsOccupied()) {
-                        check = false;
-                    }
-                }
-            }
-            if (Math.min(oldCol, newCol) == newCol && (Math.min(oldRow, newRow) == oldRow)) {
-                int row = oldRow;
-                for (int col = oldCol - 1; col > newCol; col--) {
-                    row++;
-                    if (this.board.getBoard()[row][col].getIsOccupied()) {
-                        check = false;
-                    }
-                }
-            }
-            if (Math.min(oldCol, newCol) == oldCol && (Math.min(oldRow, newRow) == newRow)) {
-                int row = oldRow;
-                for (int col = oldCol + 1; col < newCol; col++) {
-                    row--;
-                    if (this.board.getBoard()[row][col].getIsOccupied()) {
-                        check = false;
-                    }
-                }
-            }
-            if (Math.min(oldCol, newCol) == newCol && (Math.min(oldRow, newRow) == newRow)) {
-                int row = oldRow;
-                for (int col = oldCol - 1; col > newCol; col--) {
-                    row--;
-                    if (this.board.getBoard()[row][col].getIsOccupied()) {
-                        check = false;
-                    }
-                }
-            }
-            if (!this.captureValidity(newRow, newCol)) {
-                check = false;
-            }
+        boolean inBounds = newRow >= 0 && newRow < Constants.BOARD_WIDTH && newCol >= 0 && newCol < Constants.BOARD_WIDTH;
+        if (!inBounds) {
+            return false;
         }
-        return check;
+        long attacks = Bitboards.bishopAttacks(Move.square(oldRow, oldCol), this.board.getOccupied());
+        return (attacks & Bitboards.bit(Move.square(newRow, newCol))) != 0 && this.captureValidity(newRow, newCol);
     }
 
     /**
@@ -0,0 +1,313 @@
+package indy;
+
+import java.util.Random;
+
+/**
+ * The Bitboards class holds the attack tables used by the headless Position. A bitboard is a
+ * long with one bit per square, using the same square index as Move (col * BOARD_WIDTH + row).
+ * Knight, king, and pawn attacks are precomputed for every square. Rook and bishop attacks
+ * depend on the occupied squares, so they are looked up with magic bitboards: only the
+ * squares that can block a slider (its relevant occupancy, the edges left out) matter, and
+ * multiplying them by a magic number for the square gathers those bits into the top bits of
+ * the product, which index a table of every attack set the square can have. The magics were
+ * found by trying random sparse numbers from a fixed seed until one maps no two occupancies
+ * with different attacks to the same entry (see main), and the tables are filled on the
+ * first lookup, each square's just as big as its number of relevant squares needs (fancy
+ * magics). It is plain Java, one multiplication, shift, and array read per lookup.
+ * BETWEEN is precomputed for every pair of squares on a common row, column, or diagonal, so
+ * the squares a check can be blocked on are one lookup, and whether a piece can block it is
+ * one AND with the squares the piece can move to.
+ */
+public final class Bitboards {
+    public static final long ROW_0 = 0x0101010101010101L;
+    public static final long ROW_7 = ROW_0 << 7;
+    public static final long COL_0 = 0xFFL;
+    public static final long COL_7 = COL_0 << 56;
+    public static final long[] KNIGHT_ATTACKS = new long[64];
+    public static final long[] KING_ATTACKS = new long[64];
+    // PAWN_ATTACKS[0] holds white pawn attacks, PAWN_ATTACKS[1] holds black pawn attacks
+    public static final long[][] PAWN_ATTACKS = new long[2][64];
+    // BETWEEN[a][b] holds the squares strictly between a and b, or nothing if they are not on a line
+    public static final long[][] BETWEEN = new long[64][64];
+    private static final int[][] KNIGHT_STEPS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int[][] KING_STEPS = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+    private static final int[][] ROOK_STEPS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_STEPS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    // found by running the main method, which searches them again from Constants.MAGIC_SEED
+    private static final long[] ROOK_MAGICS = {
+            0x0180042412400080L, 0x1480200140028110L, 0x0C80081002200082L, 0x4080080080100004L,
+            0x2080030800800400L, 0x0100040002010008L, 0xA5000100120000C4L, 0x0200008020420104L,
+            0xC200800080204004L, 0x0000802000400084L, 0x1080808010002000L, 0x0001000821001001L,
+            0x0002000810220004L, 0x0000808002000400L, 0x9602000401080200L, 0x0001000061000082L,
+            0x0400208010400082L, 0x8210004000200040L, 0x0000410015002000L, 0x0101010010002008L,
+            0x1440808004000800L, 0x0001010004000802L, 0x0000040088210250L, 0x2908020014108041L,
+            0x0120400080008020L, 0x3120008280400120L, 0x0108408200201200L, 0x020021010010000AL,
+            0x0080080080800400L, 0x0000040801201040L, 0x0301000100040200L, 0x2040044A00140081L,
+            0x000080C001800027L, 0x1040201000C00048L, 0x0800801000802000L, 0x0004120022004008L,
+            0x0880040080800800L, 0x0046001002000904L, 0x0C00B20104000810L, 0x402004450A000084L,
+            0x00024002800A8022L, 0x001000412004C000L, 0xA0D5200100110040L, 0x8098002010010100L,
+            0x0848010009110004L, 0x5008040002008080L, 0x0F05000200010004L, 0x0100008041220004L,
+            0xA114800821004100L, 0x4640088040200880L, 0x0010100088200080L, 0x5000082100100100L,
+            0x8000080100100500L, 0x2000020080040080L, 0x9005500281084400L, 0x002D014D04288200L,
+            0x4000402010800101L, 0x0042150084420222L, 0x0001001020000841L, 0x148C050008201001L,
+            0x043B001008000423L, 0x0209008814000231L, 0x0000010082100804L, 0x4A00040021108042L
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x1020828208030250L, 0xB020A10400808000L, 0x00108C0088210000L, 0x21220A020000600CL,
+            0x1004050409020200L, 0x281209100A010012L, 0x801402020220180CL, 0x0101002804020801L,
+            0x0000846002022600L, 0x0008500401041020L, 0x0000A20084048020L, 0x0000082040500000L,
+            0x0058020210400504L, 0x4001010403400090L, 0x0081010098144004L, 0x006008240208B400L,
+            0x40A0324002220A40L, 0x1690208822408C08L, 0x8030041808805230L, 0x2000880802044008L,
+            0x080C020600A22200L, 0x1820405E02422040L, 0x0482005041442000L, 0x5005000824020200L,
+            0x00041004041010A0L, 0x8241044008F00403L, 0x0000405004010A00L, 0x0820202008008020L,
+            0x9051001001004000L, 0x0002002004100800L, 0x0024008800421000L, 0x020109020204410CL,
+            0x0048424210C80804L, 0x70190402101010A2L, 0x9004241004210102L, 0x0000020080080080L,
+            0x0180408020120200L, 0x1141610700420040L, 0x0010012209071098L, 0x041809091019C142L,
+            0xC002611008004000L, 0x0000941042080810L, 0x0000414050002040L, 0x0002001144020800L,
+            0x0000040408200400L, 0x8001010931000600L, 0x001004010070C400L, 0x440202020204002CL,
+            0x1062010420050040L, 0x0004420804020040L, 0x044418A605100400L, 0x20440063A1880100L,
+            0x0000F04110410001L, 0x0046840408820000L, 0x4020841010810004L, 0x0810524821002002L,
+            0x8092820490140260L, 0x8644402101101008L, 0x0006020042080490L, 0x0001010040208800L,
+            0x40100002A120410EL, 0x0014802021024085L, 0x2210040910240080L, 0x0340010404004840L
+    };
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT_ATTACKS[square] = stepAttacks(square, KNIGHT_STEPS);
+            KING_ATTACKS[square] = stepAttacks(square, KING_STEPS);
+            PAWN_ATTACKS[0][square] = stepAttacks(square, new int[][]{{-1, -1}, {1, -1}});
+            PAWN_ATTACKS[1][square] = stepAttacks(square, new int[][]{{-1, 1}, {1, 1}});
+            setupLines(square, ROOK_STEPS);
+            setupLines(square, BISHOP_STEPS);
+        }
+    }
+
+    /**
+     * The Sliders class holds the magic tables, which are most of the memory and startup time
+     * of Bitboards. The JVM initializes a class the first time it is used, so the tables are
+     * only filled on the first slider lookup, and the cheap tables above are ready without
+     * waiting for them (see Startup, which fills them in the background).
+     */
+    private static final class Sliders {
+        private static final long[] ROOK_MASKS = new long[64];
+        private static final int[] ROOK_SHIFTS = new int[64];
+        private static final long[][] ROOK_TABLES = new long[64][];
+        private static final long[] BISHOP_MASKS = new long[64];
+        private static final int[] BISHOP_SHIFTS = new int[64];
+        private static final long[][] BISHOP_TABLES = new long[64][];
+
+        static {
+            for (int square = 0; square < 64; square++) {
+                setupMagic(square, ROOK_STEPS, ROOK_MAGICS[square], ROOK_MASKS, ROOK_SHIFTS, ROOK_TABLES);
+                setupMagic(square, BISHOP_STEPS, BISHOP_MAGICS[square], BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_TABLES);
+            }
+        }
+    }
+
+    /**
+     * The Bitboards class only contains static tables and helpers and is never instantiated.
+     */
+    private Bitboards() {
+    }
+
+    /**
+     * Returns the squares a rook on the given square attacks, given the occupied squares.
+     */
+    public static long rookAttacks(int square, long occupied) {
+        return Sliders.ROOK_TABLES[square][(int) (((occupied & Sliders.ROOK_MASKS[square]) * ROOK_MAGICS[square])
+                >>> Sliders.ROOK_SHIFTS[square])];
+    }
+
+    /**
+     * Returns the squares a bishop on the given square attacks, given the occupied squares.
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        return Sliders.BISHOP_TABLES[square][(int) (((occupied & Sliders.BISHOP_MASKS[square]) * BISHOP_MAGICS[square])
+                >>> Sliders.BISHOP_SHIFTS[square])];
+    }
+
+    /**
+     * Returns the squares a queen on the given square attacks, given the occupied squares.
+     */
+    public static long queenAttacks(int square, long occupied) {
+        return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+    }
+
+    /**
+     * Returns the bitboard with only the given square set.
+     */
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Fills the table of a slider on the square: the attacks for every subset of the relevant
+     * squares (the carry-rippler trick counts through them) are stored where the magic sends
+     * the subset.
+     */
+    private static void setupMagic(int square, int[][] steps, long magic, long[] masks, int[] shifts,
+                                   long[][] tables) {
+        long mask = relevantSquares(square, steps);
+        int shift = Long.SIZE - Long.bitCount(mask);
+        long[] table = new long[1 << Long.bitCount(mask)];
+        long subset = 0L;
+        do {
+            table[(int) ((subset * magic) >>> shift)] = slideAttacks(square, subset, steps);
+            subset = (subset - mask) & mask;
+        } while (subset != 0L);
+        masks[square] = mask;
+        shifts[square] = shift;
+        tables[square] = table;
+    }
+
+    /**
+     * Searches a magic for a slider on the square. Random sparse candidates are tried until
+     * one sends every subset of the relevant squares to an entry that is either unused in
+     * this try or already holds the same attacks.
+     */
+    private static long findMagic(int square, int[][] steps, Random random) {
+        long mask = relevantSquares(square, steps);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0L;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = slideAttacks(square, subset, steps);
+            subset = (subset - mask) & mask;
+        }
+        long[] table = new long[size];
+        int[] used = new int[size];
+        int shift = Long.SIZE - bits;
+        for (int attempt = 1; ; attempt++) {
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            if (Long.bitCount((mask * magic) >>> (Long.SIZE - Byte.SIZE)) < Constants.MAGIC_MIN_TOP_BITS) {
+                continue;
+            }
+            boolean fits = true;
+            for (int i = 0; i < size && fits; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> shift);
+                if (used[index] != attempt) {
+                    used[index] = attempt;
+                    table[index] = attacks[i];
+                } else if (table[index] != attacks[i]) {
+                    fits = false;
+                }
+            }
+            if (fits) {
+                return magic;
+            }
+        }
+    }
+
+    /**
+     * Searches the magics again and prints them in the form of ROOK_MAGICS and BISHOP_MAGICS.
+     * The search takes a few seconds, which is why the program starts from the printed ones.
+     */
+    public static void main(String[] args) {
+        Random random = new Random(Constants.MAGIC_SEED);
+        long[] rookMagics = new long[64];
+        long[] bishopMagics = new long[64];
+        for (int square = 0; square < 64; square++) {
+            rookMagics[square] = findMagic(square, ROOK_STEPS, random);
+            bishopMagics[square] = findMagic(square, BISHOP_STEPS, random);
+        }
+        printMagics("ROOK_MAGICS", rookMagics);
+        printMagics("BISHOP_MAGICS", bishopMagics);
+    }
+
+    /**
+     * Prints an array of magics as a Java array initializer, four to a line.
+     */
+    private static void printMagics(String name, long[] magics) {
+        System.out.println("    private static final long[] " + name + " = {");
+        for (int square = 0; square < magics.length; square += 4) {
+            StringBuilder line = new StringBuilder("           ");
+            for (int i = square; i < square + 4; i++) {
+                line.append(String.format(" 0x%016XL", magics[i])).append(i < magics.length - 1 ? "," : "");
+            }
+            System.out.println(line);
+        }
+        System.out.println("    };");
+    }
+
+    /**
+     * Returns the squares that can block a slider on the square: its attacks on an empty
+     * board without the last square in each direction, since a piece there blocks nothing.
+     */
+    private static long relevantSquares(int square, int[][] steps) {
+        long mask = 0L;
+        for (int[] step : steps) {
+            int r = Move.row(square) + step[0];
+            int c = Move.col(square) + step[1];
+            while (r + step[0] >= 0 && r + step[0] < Constants.BOARD_WIDTH
+                    && c + step[1] >= 0 && c + step[1] < Constants.BOARD_WIDTH) {
+                mask |= bit(Move.square(r, c));
+                r += step[0];
+                c += step[1];
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Walks each direction from the square, adding squares until the edge of the board or
+     * an occupied square is reached. The occupied square is included since it can be captured.
+     * Only used to fill the tables.
+     */
+    private static long slideAttacks(int square, long occupied, int[][] steps) {
+        long attacks = 0L;
+        int row = Move.row(square);
+        int col = Move.col(square);
+        for (int[] step : steps) {
+            int r = row + step[0];
+            int c = col + step[1];
+            while (r >= 0 && r < Constants.BOARD_WIDTH && c >= 0 && c < Constants.BOARD_WIDTH) {
+                long target = bit(Move.square(r, c));
+                attacks |= target;
+                if ((occupied & target) != 0) {
+                    break;
+                }
+                r += step[0];
+                c += step[1];
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * Fills BETWEEN for the square and every square on its lines in the directions.
+     */
+    private static void setupLines(int square, int[][] steps) {
+        for (int[] step : steps) {
+            long between = 0L;
+            int r = Move.row(square) + step[0];
+            int c = Move.col(square) + step[1];
+            while (r >= 0 && r < Constants.BOARD_WIDTH && c >= 0 && c < Constants.BOARD_WIDTH) {
+                int target = Move.square(r, c);
+                BETWEEN[square][target] = between;
+                between |= bit(target);
+                r += step[0];
+                c += step[1];
+            }
+        }
+    }
+
+    /**
+     * Adds the squares one step away from the given square in each of the directions.
+     */
+    private static long stepAttacks(int square, int[][] steps) {
+        long attacks = 0L;
+        int row = Move.row(square);
+        int col = Move.col(square);
+        for (int[] step : steps) {
+            int r = row + step[0];
+            int c = col + step[1];
+            if (r >= 0 && r < Constants.BOARD_WIDTH && c >= 0 && c < Constants.BOARD_WIDTH) {
+                attacks |= bit(Move.square(r, c));
+            }
+        }
+        return attacks;
+    }
+}
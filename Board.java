@@ -1,5 +1,6 @@
 package indy;
 
+import javafx.application.Platform;
 import javafx.scene.layout.Pane;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -8,6 +9,10 @@ import java.util.LinkedList;
 /**
  * The Board class represents the chessboard in the Chess game. It contains the squares,
  * pieces, and methods to manage and update the state of the game board.
+ * When the program is run with -Dindy.canvas=true, the Board is drawn by a BoardCanvas
+ * instead: the Rectangles of the MySquares and the ImageViews of the Pieces are kept out of
+ * the pane, every change of a square asks for one redraw after the current event, and a
+ * click on the canvas is passed to the Game as a click on a Piece or on a MySquare.
  */
 public class Board {
     private MySquare[][] board;
@@ -19,6 +24,14 @@ public class Board {
     private boolean bInCheck;
     private Piece checking;
     private int numCheck;
+    private CheckTracker checks;
+    private long occupied;
+    private ArrayList<Piece> startingPieces;
+    private int[] startingRows;
+    private int[] startingCols;
+    private BoardCanvas canvas;
+    private int[] canvasPieces;
+    private boolean redrawQueued;
 
     /**
      * Constructs a new Board object with the specified game pane and game. Calls helper
@@ -38,10 +51,65 @@ public class Board {
         this.bInCheck = false;
         this.checking = null;
         this.numCheck = 0;
+        this.checks = new CheckTracker(this);
+        this.occupied = 0L;
+        if (Boolean.getBoolean(Constants.CANVAS_PROPERTY)) {
+            this.setupCanvas();
+        }
         this.setupBoardLayout();
         this.setupWhitePieces();
         this.setupBlackPieces();
+        this.saveStartingPieces();
+    }
+
+    /**
+     * Remembers the Pieces of the starting position and their squares, so that reset can put
+     * the same Pieces back without creating new ones.
+     */
+    private void saveStartingPieces() {
+        this.startingPieces = new ArrayList<>(this.whitePieces);
+        this.startingPieces.addAll(this.blackPieces);
+        this.startingRows = new int[this.startingPieces.size()];
+        this.startingCols = new int[this.startingPieces.size()];
+        for (int i = 0; i < this.startingPieces.size(); i++) {
+            this.startingRows[i] = this.startingPieces.get(i).getOldRow();
+            this.startingCols[i] = this.startingPieces.get(i).getOldCol();
+        }
+    }
 
+    /**
+     * Puts the Board back in the starting position in place. The squares, the starting Pieces,
+     * and their image views are reused, so nothing is instantiated and no image is loaded.
+     * Pieces created by silly transformations are removed from the pane and dropped.
+     */
+    public void reset() {
+        for (int i = 0; i < Constants.BOARD_WIDTH; i++) {
+            for (int j = 0; j < Constants.BOARD_WIDTH; j++) {
+                this.board[i][j].removeOccupying();
+                this.board[i][j].getMySquare().setMouseTransparent(false);
+            }
+        }
+        for (Piece piece : this.whitePieces) {
+            piece.removeFromPane();
+        }
+        for (Piece piece : this.blackPieces) {
+            piece.removeFromPane();
+        }
+        this.whitePieces.clear();
+        this.blackPieces.clear();
+        for (int i = 0; i < this.startingPieces.size(); i++) {
+            Piece piece = this.startingPieces.get(i);
+            MySquare square = this.board[this.startingRows[i]][this.startingCols[i]];
+            piece.resetState();
+            square.setOccupying(piece, square);
+            this.addPieceLogically(piece);
+        }
+        this.wInCheck = false;
+        this.bInCheck = false;
+        this.checking = null;
+        this.numCheck = 0;
+        this.checks.invalidate();
+        this.setCanvasMouseTransparent(false);
     }
 
     /**
@@ -87,43 +155,27 @@ public class Board {
     }
 
     /**
-     * This checks if the opposite color of the passed argument is in check. By looping
-     * through each Piece of the player and each valid square of each Piece, this method
-     * returns true if the valid squares of the Pieces are located where the opposite
-     * King is located.
+     * This checks if the opposite color of the passed argument is in check. The Pieces giving
+     * check to the opposite King are read from the CheckTracker, which only walks the lines
+     * of the Kings that the last move changed, instead of the valid squares of every Piece of
+     * the player. Returns true if there is at least one.
      */
     public boolean isInCheck(String player) {
+        long start = Metrics.start();
         this.wInCheck = false;
         this.bInCheck = false;
-        this.numCheck = 0;
-        this.checking = null;
-        LinkedList<Piece> currentPlayerPieces = this.getPieces(player);
-        Piece king = null;
-        if (player.equals(Constants.WHITE)) {
-            king = this.game.getBlackKing();
-        }
-        else {
-            king = this.game.getWhiteKing();
-        }
-        for (Piece piece : currentPlayerPieces) {
-            piece.setValidSquares();
-            ArrayList<MySquare> validSquares = piece.getValidSquares();
-
-            for (MySquare square : validSquares) {
-                int newRow = square.getRow();
-                int newCol = square.getCol();
-                if (newCol == king.getOldCol() && newRow == king.getOldRow()) {
-                    if (player.equals(Constants.WHITE)) {
-                        this.bInCheck = true;
-                    }
-                    else {
-                        this.wInCheck = true;
-                    }
-                    this.checking = piece;
-                    this.numCheck++;
-                }
+        boolean whiteKing = !player.equals(Constants.WHITE);
+        this.numCheck = this.checks.getCheckCount(whiteKing);
+        this.checking = this.checks.getChecker(whiteKing);
+        if (this.numCheck > 0) {
+            if (whiteKing) {
+                this.wInCheck = true;
+            }
+            else {
+                this.bInCheck = true;
             }
         }
+        Metrics.IS_IN_CHECK.stop(start);
         return (this.bInCheck || this.wInCheck);
     }
 
@@ -137,6 +189,23 @@ public class Board {
      * type of Piece the attacker is.
      */
     public boolean isCheckmate(String player) {
+        FlightEvents.CheckmateEvent event = new FlightEvents.CheckmateEvent();
+        event.begin();
+        long start = Metrics.start();
+        boolean checkmate = this.findCheckmate(player);
+        Metrics.IS_CHECKMATE.stop(start);
+        if (event.shouldCommit()) {
+            event.player = player;
+            event.checkmate = checkmate;
+            event.commit();
+        }
+        return checkmate;
+    }
+
+    /**
+     * Does the work of isCheckmate.
+     */
+    private boolean findCheckmate(String player) {
         if (!this.getCheck()) {
             return false;
         }
@@ -229,9 +298,9 @@ public class Board {
 
     /**
      * Checks if any piece of the opponent can block the attacking piece.
-     * By looping through each Piece of the player of the argument and each valid square of each
-     * Piece, this method returns true if the valid squares of the Pieces are located between the
-     * attacker and the King.
+     * By looping through each Piece of the player of the argument, this method returns true if
+     * any valid square of a Piece other than the King is located between the attacker and the
+     * King (see canIntersectPath).
      */
     private boolean canBlockAttacker(String player) {
         int attackersRow = this.checking.getOldRow();
@@ -256,16 +325,10 @@ public class Board {
         }
 
         for (Piece piece : oppPieces) {
-            piece.setValidSquares();
-            ArrayList<MySquare> validSquares = new ArrayList<>(piece.getValidSquares());
-            // Try each valid move
-            for (MySquare square : validSquares) {
-                int newRow = square.getRow();
-                int newCol = square.getCol();
-
-                if ((newRow == attackersRow && newRow == kingsRow)
-                        || (newCol == attackersCol && newCol == kingsCol)) {
-                    return this.canIntersectPath(piece, attackersRow, attackersCol, kingsRow, kingsCol);
+            if (piece != king) {
+                piece.setValidSquares();
+                if (this.canIntersectPath(piece, attackersRow, attackersCol, kingsRow, kingsCol)) {
+                    return true;
                 }
             }
         }
@@ -274,7 +337,9 @@ public class Board {
 
     /**
      * Checks if the path between the attacking piece and the king can be intersected by the Piece
-     * passed in the argument.
+     * passed in the argument. The squares in between come from Bitboards.BETWEEN, which is
+     * empty unless the two are on one row, column, or diagonal, so this is one AND with the
+     * valid squares of the Piece.
      *
      * @param piece          The piece that might intersect the path.
      * @param attackersRow   The row of the attacking piece.
@@ -283,18 +348,8 @@ public class Board {
      * @param kingsCol       The column of the king.
      */
     public boolean canIntersectPath(Piece piece, int attackersRow, int attackersCol, int kingsRow, int kingsCol) {
-        int rowIncrement = Integer.compare(attackersRow, kingsRow);
-        int colIncrement = Integer.compare(attackersCol, kingsCol);
-        for (int row = attackersRow + rowIncrement, col = attackersCol + colIncrement;
-             row != kingsRow || col != kingsCol;
-             row += rowIncrement, col += colIncrement) {
-            if (row >= 0 && row < 8 && col >= 0 && col < 8) {
-                if (piece.getValidSquares().contains(this.board[row][col])) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        long between = Bitboards.BETWEEN[Move.square(attackersRow, attackersCol)][Move.square(kingsRow, kingsCol)];
+        return (piece.getValidBits() & between) != 0;
     }
 
     /**
@@ -306,11 +361,11 @@ public class Board {
             for (int j = 0; j < Constants.BOARD_WIDTH; j++) {
                 if ((i % Constants.IS_EVEN == 1) && (j % Constants.IS_EVEN == 1) ||
                         (i % Constants.IS_EVEN == 0) && (j % Constants.IS_EVEN == 0)) {
-                    this.board[i][j] = new MySquare(i, j, this.gamePane, false);
+                    this.board[i][j] = new MySquare(i, j, this.gamePane, false, this);
                     this.board[i][j].setColor(Constants.BOARD_COLOR.darker().saturate());
                 }
                 else {
-                    this.board[i][j] = new MySquare(i, j, this.gamePane, false);
+                    this.board[i][j] = new MySquare(i, j, this.gamePane, false, this);
                     this.board[i][j].setColor(Constants.BOARD_COLOR);
                 }
                 this.board[i][j].getOccupying();
@@ -489,6 +544,111 @@ public class Board {
         return this.bInCheck;
     }
 
+    /**
+     * Marks a square as occupied or empty in the bitboard of occupied squares. Called by
+     * MySquare whenever it fills or empties, so it also asks the canvas for a redraw.
+     */
+    public void setOccupied(int row, int col, boolean isOccupied) {
+        if (isOccupied) {
+            this.occupied |= Bitboards.bit(Move.square(row, col));
+        }
+        else {
+            this.occupied &= ~Bitboards.bit(Move.square(row, col));
+        }
+        this.queueRedraw();
+    }
+
+    /**
+     * Instantiates the BoardCanvas, adds it to the gamePane, and passes its clicks to the
+     * Game.
+     */
+    private void setupCanvas() {
+        this.canvas = new BoardCanvas();
+        this.canvasPieces = new int[Constants.BOARD_WIDTH * Constants.BOARD_WIDTH];
+        this.redrawQueued = false;
+        this.canvas.getNode().setOnMouseClicked(event -> this.handleCanvasClick(event.getX(), event.getY()));
+        this.gamePane.getChildren().add(this.canvas.getNode());
+    }
+
+    /**
+     * Asks for the canvas to be redrawn once the current event is handled, unless it already
+     * was. A move with a silly shift changes most squares, and they are all drawn together.
+     */
+    private void queueRedraw() {
+        if (this.canvas != null && !this.redrawQueued) {
+            this.redrawQueued = true;
+            Platform.runLater(this::redraw);
+        }
+    }
+
+    /**
+     * Draws the Pieces now on the MySquares on the canvas.
+     */
+    private void redraw() {
+        this.redrawQueued = false;
+        for (int i = 0; i < Constants.BOARD_WIDTH; i++) {
+            for (int j = 0; j < Constants.BOARD_WIDTH; j++) {
+                Piece piece = this.board[i][j].getOccupying();
+                int code = piece == null ? Constants.EMPTY_CODE : GameRecord.pieceCode(piece.getType());
+                this.canvasPieces[Move.square(i, j)] = piece != null && piece.getColor().equals(Constants.WHITE)
+                        ? code : -code;
+            }
+        }
+        this.canvas.draw(this.canvasPieces);
+    }
+
+    /**
+     * Passes a click on the canvas to the Game the way the scene graph would: a click on the
+     * visible part of a Piece is a click on the Piece, and any other click on the board is a
+     * click on the MySquare under it.
+     */
+    private void handleCanvasClick(double x, double y) {
+        int square = this.canvas.squareAt(x, y);
+        if (square < 0) {
+            return;
+        }
+        MySquare clicked = this.board[Move.row(square)][Move.col(square)];
+        if (clicked.getOccupying() != null && this.canvas.isOnPiece(x, y)) {
+            this.game.handlePieceClick(clicked.getOccupying());
+        } else {
+            this.game.handleSquareClick(clicked);
+        }
+    }
+
+    /**
+     * Returns true if the Board is drawn by a BoardCanvas, so the Rectangles of the MySquares
+     * and the ImageViews of the Pieces are not added to the pane.
+     */
+    public boolean isCanvas() {
+        return this.canvas != null;
+    }
+
+    /**
+     * Sets whether the canvas ignores clicks, like the Rectangles and ImageViews do when the
+     * game is over. Does nothing if the Board is not drawn by a BoardCanvas.
+     */
+    public void setCanvasMouseTransparent(boolean transparent) {
+        if (this.canvas != null) {
+            this.canvas.getNode().setMouseTransparent(transparent);
+        }
+    }
+
+    /**
+     * Returns the occupied squares as a bitboard (see Bitboards), for the slider attack lookups
+     * of Rook, Bishop, and Queen.
+     */
+    public long getOccupied() {
+        return this.occupied;
+    }
+
+    /**
+     * Accessor method for the CheckTracker, which has to be told about every change of the
+     * Board.
+     */
+    public CheckTracker getCheckTracker() {
+        return this.checks;
+    }
+
     /**
      * Accessor method for the Game.
      */
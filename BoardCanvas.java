@@ -0,0 +1,103 @@
+package indy;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * The BoardCanvas class draws a board on a single Canvas, in place of the Rectangle of each
+ * MySquare and the ImageView of each Piece, so a board is one node of the scene graph
+ * instead of about a hundred. That matters once a window shows several boards. It draws the
+ * squares in the colors of Board.setupBoardLayout and the pieces from the shared
+ * SpriteSheet, at the size and place their ImageViews would have.
+ * It draws an array of signed piece codes indexed like Move, and only redraws the squares
+ * whose piece changed since the last draw. For clicks, squareAt turns a point into a
+ * square and isOnPiece tells whether the point is on the visible part of the piece there.
+ */
+public class BoardCanvas {
+    private static final int SQUARES = Constants.BOARD_WIDTH * Constants.BOARD_WIDTH;
+    private final Canvas canvas;
+    private final GraphicsContext graphics;
+    private final SpriteSheet sprites;
+    private final int[] drawn;
+    private boolean isDrawn;
+
+    /**
+     * Constructs a BoardCanvas the size of the board. Nothing is drawn until draw is called.
+     */
+    public BoardCanvas() {
+        int width = Constants.BOARD_WIDTH * Constants.SQUARE_WIDTH;
+        this.canvas = new Canvas(width, width);
+        this.graphics = this.canvas.getGraphicsContext2D();
+        this.sprites = SpriteSheet.shared();
+        this.drawn = new int[SQUARES];
+        this.isDrawn = false;
+    }
+
+    /**
+     * Draws the pieces, redrawing only the squares that changed since the last draw.
+     *
+     * @param pieces The signed piece code of each square, indexed like Move.
+     */
+    public void draw(int[] pieces) {
+        for (int square = 0; square < SQUARES; square++) {
+            if (!this.isDrawn || pieces[square] != this.drawn[square]) {
+                this.drawSquare(square, pieces[square]);
+                this.drawn[square] = pieces[square];
+            }
+        }
+        this.isDrawn = true;
+    }
+
+    /**
+     * Draws one square, outlined like a MySquare, and the piece on it if there is one.
+     */
+    private void drawSquare(int square, int piece) {
+        int row = Move.row(square);
+        int col = Move.col(square);
+        double x = row * Constants.SQUARE_WIDTH;
+        double y = col * Constants.SQUARE_WIDTH;
+        this.graphics.setFill(row % Constants.IS_EVEN == col % Constants.IS_EVEN
+                ? Constants.BOARD_COLOR.darker().saturate() : Constants.BOARD_COLOR);
+        this.graphics.fillRect(x, y, Constants.SQUARE_WIDTH, Constants.SQUARE_WIDTH);
+        this.graphics.setStroke(Color.GREY);
+        this.graphics.strokeRect(x, y, Constants.SQUARE_WIDTH, Constants.SQUARE_WIDTH);
+        if (piece != Constants.EMPTY_CODE) {
+            this.sprites.draw(this.graphics, piece, x, y, Constants.SQUARE_WIDTH - 10);
+        }
+    }
+
+    /**
+     * Returns the square under the point of the canvas, indexed like Move, or -1 if the
+     * point is off the board.
+     */
+    public int squareAt(double x, double y) {
+        int row = (int) Math.floor(x / Constants.SQUARE_WIDTH);
+        int col = (int) Math.floor(y / Constants.SQUARE_WIDTH);
+        if (row < 0 || row >= Constants.BOARD_WIDTH || col < 0 || col >= Constants.BOARD_WIDTH) {
+            return -1;
+        }
+        return Move.square(row, col);
+    }
+
+    /**
+     * Returns true if the point of the canvas is on a visible pixel of the piece drawn on
+     * its square. A piece is drawn in the top left of its square, so the edges of the square
+     * and the transparent parts of the image are not on the piece.
+     */
+    public boolean isOnPiece(double x, double y) {
+        int square = this.squareAt(x, y);
+        if (square < 0 || this.drawn[square] == Constants.EMPTY_CODE) {
+            return false;
+        }
+        return this.sprites.isOpaque(this.drawn[square], x - Move.row(square) * Constants.SQUARE_WIDTH,
+                y - Move.col(square) * Constants.SQUARE_WIDTH, Constants.SQUARE_WIDTH - 10);
+    }
+
+    /**
+     * Accessor method for the Canvas to add to a pane.
+     */
+    public Canvas getNode() {
+        return this.canvas;
+    }
+}
@@ -0,0 +1,303 @@
+package indy;
+
+import java.util.ArrayList;
+
+/**
+ * The CheckTracker class keeps, for each King on the Board, the Pieces giving it check and
+ * the Pieces of its own color pinned to it, so that Board.isInCheck and
+ * Game.notMovingAProtector no longer work out the valid squares of every Piece after every
+ * move. A King can only be attacked along one of its eight lines (by a Rook, Bishop, or Queen
+ * sliding in, or by a Pawn or the other King one square away) or from one of its eight Knight
+ * squares, and a Piece can only be pinned on one of those lines.
+ * A move only changes the squares it moves from and to, so after a move the CheckTracker is
+ * told those squares (see touch), and only the lines of each King through them are walked
+ * again, plus the Knight squares if one of them is a Knight's jump away. A King that moved
+ * has all of its lines walked again. After a silly shift, a castle, an en passant capture,
+ * an undo or redo, or a restart, everything is worked out from scratch (see invalidate).
+ * The work is done lazily, the first time the check state is asked for.
+ */
+public class CheckTracker {
+    private static final int[][] LINE_STEPS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_STEPS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int MAX_TOUCHED = 4;
+    private final Board board;
+    private final KingLines white;
+    private final KingLines black;
+    private final int[] touchedRows;
+    private final int[] touchedCols;
+    private int touched;
+
+    /**
+     * The KingLines class is what the CheckTracker knows about one King: where it stood when
+     * its lines were last walked, and per line the Piece giving check along it and the Piece
+     * pinned on it with its pinner.
+     */
+    private static final class KingLines {
+        private final boolean isWhite;
+        private final Piece[] checkers;
+        private final Piece[] pinned;
+        private final Piece[] pinners;
+        private final ArrayList<Piece> knights;
+        private Piece king;
+        private int row;
+        private int col;
+        private boolean stale;
+
+        /**
+         * Constructs the KingLines of the King of a color, to be worked out from scratch.
+         */
+        KingLines(boolean isWhite) {
+            this.isWhite = isWhite;
+            this.checkers = new Piece[LINE_STEPS.length];
+            this.pinned = new Piece[LINE_STEPS.length];
+            this.pinners = new Piece[LINE_STEPS.length];
+            this.knights = new ArrayList<>();
+            this.stale = true;
+        }
+    }
+
+    /**
+     * Constructs a CheckTracker for the Board. Nothing is worked out until it is asked for.
+     *
+     * @param board The Board whose Kings are tracked.
+     */
+    public CheckTracker(Board board) {
+        this.board = board;
+        this.white = new KingLines(true);
+        this.black = new KingLines(false);
+        this.touchedRows = new int[MAX_TOUCHED];
+        this.touchedCols = new int[MAX_TOUCHED];
+        this.touched = 0;
+    }
+
+    /**
+     * Tells the CheckTracker that the occupant of a square changed. If more squares are
+     * touched between two questions than are remembered, everything is worked out again.
+     */
+    public void touch(int row, int col) {
+        if (this.touched == MAX_TOUCHED) {
+            this.invalidate();
+            return;
+        }
+        this.touchedRows[this.touched] = row;
+        this.touchedCols[this.touched] = col;
+        this.touched++;
+    }
+
+    /**
+     * Makes the CheckTracker work out everything from scratch the next time it is asked,
+     * for changes that are not a plain move from one square to another.
+     */
+    public void invalidate() {
+        this.white.stale = true;
+        this.black.stale = true;
+        this.touched = 0;
+    }
+
+    /**
+     * Returns the number of Pieces giving check to the King of the color.
+     */
+    public int getCheckCount(boolean isWhite) {
+        KingLines lines = this.refresh(isWhite);
+        int count = lines.knights.size();
+        for (Piece checker : lines.checkers) {
+            if (checker != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a Piece giving check to the King of the color, or null if it is not in check.
+     * If there are several, the last one found is returned, a Knight before any line.
+     */
+    public Piece getChecker(boolean isWhite) {
+        KingLines lines = this.refresh(isWhite);
+        Piece checker = null;
+        for (Piece piece : lines.checkers) {
+            if (piece != null) {
+                checker = piece;
+            }
+        }
+        if (checker == null && !lines.knights.isEmpty()) {
+            checker = lines.knights.get(lines.knights.size() - 1);
+        }
+        return checker;
+    }
+
+    /**
+     * Returns the Piece that would give check to the King of the Piece's color if the Piece
+     * moved away, or null if the Piece is not pinned.
+     */
+    public Piece getPinner(Piece piece) {
+        KingLines lines = this.refresh(piece.getColor().equals(Constants.WHITE));
+        for (int i = 0; i < lines.pinned.length; i++) {
+            if (lines.pinned[i] == piece) {
+                return lines.pinners[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Brings both Kings up to date with the squares touched since the last question, and
+     * returns the KingLines of the King of the color.
+     */
+    private KingLines refresh(boolean isWhite) {
+        if (this.touched > 0 || this.white.stale || this.black.stale) {
+            this.refresh(this.white, this.board.getGame().getWhiteKing());
+            this.refresh(this.black, this.board.getGame().getBlackKing());
+            this.touched = 0;
+        }
+        return isWhite ? this.white : this.black;
+    }
+
+    /**
+     * Brings one King up to date. All its lines are walked if it is stale or moved, and
+     * otherwise only the lines and Knight squares the touched squares lie on.
+     */
+    private void refresh(KingLines lines, Piece king) {
+        if (king == null) {
+            // a captured King gives and gets no check, and pins nothing
+            for (int i = 0; i < LINE_STEPS.length; i++) {
+                lines.checkers[i] = null;
+                lines.pinned[i] = null;
+                lines.pinners[i] = null;
+            }
+            lines.knights.clear();
+            lines.stale = true;
+            return;
+        }
+        if (lines.stale || lines.king != king || lines.row != king.getOldRow() || lines.col != king.getOldCol()) {
+            lines.king = king;
+            lines.row = king.getOldRow();
+            lines.col = king.getOldCol();
+            for (int i = 0; i < LINE_STEPS.length; i++) {
+                this.walkLine(lines, i);
+            }
+            this.findKnights(lines);
+            lines.stale = false;
+            return;
+        }
+        boolean knights = false;
+        for (int t = 0; t < this.touched; t++) {
+            int rowOffset = this.touchedRows[t] - lines.row;
+            int colOffset = this.touchedCols[t] - lines.col;
+            int line = lineOf(rowOffset, colOffset);
+            if (line >= 0) {
+                this.walkLine(lines, line);
+            }
+            knights |= Math.abs(rowOffset * colOffset) == 2;
+        }
+        if (knights) {
+            this.findKnights(lines);
+        }
+    }
+
+    /**
+     * Returns the line from a King to a square the offsets away, or -1 if the square is not
+     * on any of its lines.
+     */
+    private static int lineOf(int rowOffset, int colOffset) {
+        if (rowOffset == 0 && colOffset == 0) {
+            return -1;
+        }
+        if (rowOffset != 0 && colOffset != 0 && Math.abs(rowOffset) != Math.abs(colOffset)) {
+            return -1;
+        }
+        int rowStep = Integer.signum(rowOffset);
+        int colStep = Integer.signum(colOffset);
+        for (int i = 0; i < LINE_STEPS.length; i++) {
+            if (LINE_STEPS[i][0] == rowStep && LINE_STEPS[i][1] == colStep) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Walks one line away from the King. If the first Piece met is of the other color and
+     * can move along the line onto the King, it gives check. If it is of the King's color and
+     * the next Piece met is of the other color and slides along the line, the first Piece is
+     * pinned.
+     */
+    private void walkLine(KingLines lines, int line) {
+        lines.checkers[line] = null;
+        lines.pinned[line] = null;
+        lines.pinners[line] = null;
+        int rowStep = LINE_STEPS[line][0];
+        int colStep = LINE_STEPS[line][1];
+        Piece blocker = null;
+        int distance = 1;
+        for (int row = lines.row + rowStep, col = lines.col + colStep;
+             row >= 0 && row < Constants.BOARD_WIDTH && col >= 0 && col < Constants.BOARD_WIDTH;
+             row += rowStep, col += colStep, distance++) {
+            MySquare square = this.board.getBoard()[row][col];
+            if (!square.getIsOccupied()) {
+                continue;
+            }
+            Piece piece = square.getOccupying();
+            boolean enemy = piece.getColor().equals(Constants.WHITE) != lines.isWhite;
+            if (blocker != null) {
+                if (enemy && slidesAlong(piece, rowStep, colStep)) {
+                    lines.pinned[line] = blocker;
+                    lines.pinners[line] = piece;
+                }
+                return;
+            }
+            if (!enemy) {
+                blocker = piece;
+            } else {
+                if (slidesAlong(piece, rowStep, colStep) || (distance == 1 && steps(piece, rowStep, colStep))) {
+                    lines.checkers[line] = piece;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns true if the Piece is a Rook, Bishop, or Queen that slides along a line with
+     * the steps.
+     */
+    private static boolean slidesAlong(Piece piece, int rowStep, int colStep) {
+        String type = piece.getType();
+        boolean diagonal = rowStep != 0 && colStep != 0;
+        return type.equals(Constants.QUEEN) || (diagonal ? type.equals(Constants.BISHOP) : type.equals(Constants.ROOK));
+    }
+
+    /**
+     * Returns true if the Piece, one square away from a King in the direction of the steps,
+     * attacks the King: the other King always does, and a Pawn does if it is diagonal and
+     * the King is ahead of it (white Pawns move towards column 0).
+     */
+    private static boolean steps(Piece piece, int rowStep, int colStep) {
+        String type = piece.getType();
+        if (type.equals(Constants.KING)) {
+            return true;
+        }
+        if (type.equals(Constants.PAWN) && rowStep != 0) {
+            return colStep == (piece.getColor().equals(Constants.WHITE) ? 1 : -1);
+        }
+        return false;
+    }
+
+    /**
+     * Finds the Knights of the other color a Knight's jump away from the King.
+     */
+    private void findKnights(KingLines lines) {
+        lines.knights.clear();
+        for (int[] step : KNIGHT_STEPS) {
+            int row = lines.row + step[0];
+            int col = lines.col + step[1];
+            if (row >= 0 && row < Constants.BOARD_WIDTH && col >= 0 && col < Constants.BOARD_WIDTH) {
+                MySquare square = this.board.getBoard()[row][col];
+                if (square.getIsOccupied() && square.getOccupying().getType().equals(Constants.KNIGHT)
+                        && square.getOccupying().getColor().equals(Constants.WHITE) != lines.isWhite) {
+                    lines.knights.add(square.getOccupying());
+                }
+            }
+        }
+    }
+}
@@ -8,7 +8,7 @@ import javafx.scene.paint.Color;
 public class Constants {
     // scene details
     public static final int SCENE_WIDTH = 560; // (UNITS: pixels)
-    public static final int SCENE_HEIGHT = 600; // (UNITS: pixels)
+    public static final int SCENE_HEIGHT = 640; // (UNITS: pixels)
     public static final String SCENE_COLOR = "-fx-background-color: #f5f5f5";
     // bottomPane details
     public static final int BOTTOM_PANE_HEIGHT = 20; // (UNITS: pixels)
@@ -26,6 +26,8 @@ public class Constants {
     // button dimensions
     public static final int BUTTON_WIDTH = 90; // (UNITS: pixels)
     public static final int BUTTON_HEIGHT = 30; // (UNITS: pixels)
+    public static final int NAV_BUTTON_WIDTH = 34; // (UNITS: pixels)
+    public static final int NAV_BUTTON_SPACING = 4; // (UNITS: pixels)
     // component details
     public static final int SQUARE_WIDTH = 70; // (UNITS: pixels)
     public static final int PIECE_WIDTH = 50; // (UNITS: pixels)
@@ -47,6 +49,166 @@ public class Constants {
     public static final int LH_ROOK = 3;
     public static final int LH_BISHOP = 2;
     public static final int LH_KNIGHT = 1;
+    // shift directions
+    public static final int SHIFT_UP = 0;
+    public static final int SHIFT_DOWN = 1;
+    public static final int SHIFT_LEFT = 2;
+    public static final int SHIFT_RIGHT = 3;
+    // piece codes (used by the game record and move encoding)
+    public static final int EMPTY_CODE = 0;
+    public static final int PAWN_CODE = 1;
+    public static final int KNIGHT_CODE = 2;
+    public static final int BISHOP_CODE = 3;
+    public static final int ROOK_CODE = 4;
+    public static final int QUEEN_CODE = 5;
+    public static final int KING_CODE = 6;
+    // move flags (top 4 bits of a 16-bit move)
+    public static final int MOVE_QUIET = 0;
+    public static final int MOVE_CAPTURE = 1;
+    public static final int MOVE_CASTLE = 2;
+    public static final int MOVE_EN_PASSANT = 3;
+    public static final int MOVE_PROMOTION = 4; // 4 to 7 promote to a Knight, Bishop, Rook, or Queen
+    public static final int MOVE_PROMOTION_CAPTURE = 8; // 8 to 11 capture and promote the same way
+    // game record details
+    public static final String GAME_ARCHIVE = "games.scr";
+    public static final String ARCHIVE_EXTENSION = ".scr";
+    public static final int RECORD_MAGIC = 0x53435231; // "SCR1"
+    public static final int TAG_MOVE = 1;
+    public static final int TAG_SHIFT = 2;
+    public static final int TAG_TRANSFORM = 3;
+    public static final int TAG_RESULT = 4;
+    public static final int TAG_SETUP = 5;
+    public static final int RESULT_UNFINISHED = 0;
+    public static final int RESULT_WHITE_WINS = 1;
+    public static final int RESULT_BLACK_WINS = 2;
+    public static final int RESULT_DRAW = 3;
+    public static final int RECORD_MAP_WINDOW = 1 << 30; // (UNITS: bytes)
+    // pgn details
+    public static final int PGN_QUEUE_PER_THREAD = 4;
+    public static final int PGN_OFFER_MILLIS = 100; // how often a blocked reader checks for a failed worker
+    // opening book details
+    public static final String OPENING_BOOK = "book.scb";
+    public static final int BOOK_MAGIC = 0x53434231;
+    public static final int BOOK_HEADER_SIZE = 8; // (UNITS: bytes)
+    public static final int BOOK_ENTRY_SIZE = 16; // (UNITS: bytes)
+    public static final int BOOK_MAX_PLY = 20;
+    public static final int BOOK_MIN_GAMES = 2;
+    // tablebase details
+    public static final String TABLEBASE_DIRECTORY = "tablebases";
+    public static final String TABLEBASE_EXTENSION = ".tb";
+    public static final int TABLEBASE_MAGIC = 0x53435442;
+    public static final int TABLEBASE_HEADER_SIZE = 12; // (UNITS: bytes)
+    public static final int TABLEBASE_MAX_MEN = 4;
+    public static final int TABLEBASE_CHUNK = 1 << 14;
+    public static final int TB_UNKNOWN = -1;
+    public static final int TB_DRAW = 0;
+    public static final int TB_WIN = 1;
+    public static final int TB_LOSS = 2;
+    public static final int TB_ILLEGAL = 3;
+    public static final int DTM_DRAW = 0;
+    public static final int DTM_ILLEGAL = 255;
+    // engine details
+    public static final int MAX_PLY = 64;
+    public static final int MATE_SCORE = 30000;
+    public static final int TABLEBASE_SCORE = 20000;
+    public static final int INFINITE_SCORE = 32000;
+    public static final int DEFAULT_HASH = 16; // (UNITS: megabytes)
+    public static final int MAX_HASH = 1024; // (UNITS: megabytes)
+    public static final int MAX_THREADS = 64;
+    public static final int TIME_CHECK_NODES = 1024;
+    public static final int DEFAULT_MOVES_TO_GO = 30;
+    public static final int MOVE_OVERHEAD = 30; // (UNITS: milliseconds)
+    public static final int BOUND_UPPER = 1;
+    public static final int BOUND_LOWER = 2;
+    public static final int BOUND_EXACT = 3;
+    public static final int HISTORY_LIMIT = 16384;
+    public static final int HISTORY_MAX_BONUS = 400;
+    public static final int NULL_MOVE_MIN_DEPTH = 3;
+    public static final int NULL_MOVE_REDUCTION = 2;
+    public static final int NULL_MOVE_DEPTH_DIVISOR = 4;
+    public static final int LMR_MIN_DEPTH = 3;
+    public static final int LMR_MIN_MOVES = 3;
+    public static final double LMR_BASE = 0.75;
+    public static final double LMR_DIVISOR = 2.25;
+    public static final int FUTILITY_DEPTH = 3;
+    public static final int FUTILITY_MARGIN = 150; // (UNITS: centipawns)
+    public static final int DELTA_MARGIN = 200; // (UNITS: centipawns)
+    // benchmark details
+    public static final int BENCH_PERFT_DEPTH = 5;
+    public static final int BENCH_SEARCH_DEPTH = 7;
+    // analysis details
+    public static final int ANALYSIS_HASH = 64; // (UNITS: megabytes)
+    public static final int EVAL_BAR_WIDTH = 140; // (UNITS: pixels)
+    public static final int EVAL_BAR_HEIGHT = 14; // (UNITS: pixels)
+    public static final double EVAL_BAR_SCALE = 400.0; // (UNITS: centipawns)
+    public static final Color EVAL_BAR_WHITE = Color.WHITE;
+    public static final Color EVAL_BAR_BLACK = Color.DIMGRAY;
+    // batch analyzer details
+    public static final int BATCH_MAGIC = 0x53434131; // "SCA1"
+    public static final int BATCH_QUEUE_PER_THREAD = 16;
+    public static final int BATCH_BLOCK_ROWS = 4096;
+    public static final int BATCH_HASH = 16; // (UNITS: megabytes)
+    public static final int BATCH_OFFER_MILLIS = 100; // how often a blocked reader checks for a failed worker
+    // metrics details
+    public static final String METRICS_PROPERTY = "indy.metrics";
+    public static final String METRICS_DUMP_PROPERTY = "indy.metrics.dump";
+    public static final String METRICS_DUMP_FILE = "metrics.tsv";
+    public static final int METRICS_DUMP_PERIOD = 10; // (UNITS: seconds)
+    // bitboard details
+    public static final long MAGIC_SEED = 0x6D61676963L; // "magic"
+    public static final int MAGIC_MIN_TOP_BITS = 6;
+    // startup details
+    public static final String STARTUP_BENCHMARK_PROPERTY = "indy.startup.benchmark";
+    // simulator details
+    public static final int SIM_MAX_PLY = 400;
+    public static final int SIM_MATE_BUCKET = 20; // (UNITS: plies)
+    public static final int SIM_MAX_FLIPS = 30;
+    public static final int SIM_SWING_STEP = 100; // (UNITS: centipawns)
+    public static final int SIM_SWING_BUCKETS = 12;
+    public static final int SIM_LIGHT_ODDS = 4; // the light policy plays a random move 1 time in 4
+    public static final long SIM_SEED_STEP = 0x9E3779B97F4A7C15L;
+    public static final String SIM_LIGHT = "light";
+    public static final int SIM_CHECKMATE = 0;
+    public static final int SIM_KING_CAPTURE = 1;
+    public static final int SIM_STALEMATE = 2;
+    public static final int SIM_BARE_KINGS = 3;
+    public static final int SIM_PLY_LIMIT = 4;
+    // mcts details
+    public static final String ENGINE_ALPHA_BETA = "alphabeta";
+    public static final String ENGINE_MCTS = "mcts";
+    public static final int MCTS_NODE_BYTES = 34; // (UNITS: bytes)
+    public static final int MCTS_SCORE_UNIT = 1000;
+    public static final double MCTS_EXPLORATION = 1.0;
+    public static final double MCTS_WIDENING = 1.0;
+    public static final double MCTS_WIDENING_POWER = 0.5;
+    public static final int MCTS_ROLLOUT_PLY = 6;
+    public static final double MCTS_EVAL_SCALE = 400.0; // (UNITS: centipawns)
+    public static final int MCTS_MAX_SCORE = 2000; // (UNITS: centipawns)
+    public static final int MCTS_REPORT_PERIOD = 250; // (UNITS: milliseconds)
+    // tournament details
+    public static final String TOURNAMENT_ARCHIVE = "tournament.scr";
+    public static final int TOURNAMENT_HASH = 16; // (UNITS: megabytes)
+    public static final int TOURNAMENT_MAX_PLY = 300;
+    public static final int TOURNAMENT_MAX_ELO = 800;
+    public static final double ELO_SCALE = 400.0;
+    // variant details
+    public static final int VARIANT_MIN_SIZE = 6; // (UNITS: squares)
+    public static final int VARIANT_MAX_SIZE = 12; // (UNITS: squares)
+    public static final int VARIANT_MAX_MOVES = 1024;
+    public static final String VARIANT_SEPARATOR = "/";
+    public static final String SHIFT_WRAP = "wrap";
+    public static final String SHIFT_NO_WRAP = "nowrap";
+    public static final String SHIFT_DIAGONAL = "diagonal";
+    public static final String DEMOTION_STANDARD = "standard";
+    public static final String DEMOTION_ONE_STEP = "onestep";
+    public static final String DEMOTION_PAWNS = "pawns";
+    // replay details
+    public static final int REPLAY_KEYFRAME_INTERVAL = 32; // (UNITS: plies)
+    public static final int[] REPLAY_SPEEDS = {1, 2, 5, 10, 25, 50, 100, 250, 500}; // (UNITS: plies per second)
+    public static final int REPLAY_DEFAULT_SPEED = 1; // index into REPLAY_SPEEDS
+    public static final int REPLAY_SLIDER_WIDTH = 540; // (UNITS: pixels)
+    // canvas details
+    public static final String CANVAS_PROPERTY = "indy.canvas";
     //misc
     public static final int DIRECTIONS = 4;
     public static final int IS_EVEN = 2;
@@ -0,0 +1,89 @@
+package indy;
+
+import java.util.Random;
+
+/**
+ * The DemotionTable class says what a piece may become when a silly transformation picks
+ * it: for each piece code, the lower pieces it is replaced by, one of them chosen at random.
+ * STANDARD is the table of the standard game (Game.generateLowerHierarchyPiece), where a
+ * Queen may become any of the LH pieces below it, a Rook one of LH_ROOK, and so on. ONE_STEP
+ * only takes a piece one step down, and PAWNS turns every piece into a Pawn. A King is never
+ * transformed.
+ */
+public final class DemotionTable {
+    private static final int[] LOWER_PIECES = {Constants.PAWN_CODE, Constants.KNIGHT_CODE,
+            Constants.BISHOP_CODE, Constants.ROOK_CODE};
+    public static final DemotionTable STANDARD = new DemotionTable(Constants.DEMOTION_STANDARD, new int[][]{
+            {}, lowest(1), lowest(Constants.LH_KNIGHT), lowest(Constants.LH_BISHOP), lowest(Constants.LH_ROOK),
+            lowest(Constants.LH), {}});
+    public static final DemotionTable ONE_STEP = new DemotionTable(Constants.DEMOTION_ONE_STEP, new int[][]{
+            {}, {Constants.PAWN_CODE}, {Constants.PAWN_CODE}, {Constants.KNIGHT_CODE}, {Constants.BISHOP_CODE},
+            {Constants.ROOK_CODE}, {}});
+    public static final DemotionTable PAWNS = new DemotionTable(Constants.DEMOTION_PAWNS, new int[][]{
+            {}, lowest(1), lowest(1), lowest(1), lowest(1), lowest(1), {}});
+    private final String name;
+    private final int[][] choices;
+
+    /**
+     * Constructs a DemotionTable.
+     *
+     * @param name    The name of the table, as written in a Variant.
+     * @param choices The lower pieces of each piece code, from EMPTY_CODE to KING_CODE.
+     */
+    private DemotionTable(String name, int[][] choices) {
+        this.name = name;
+        this.choices = choices;
+    }
+
+    /**
+     * Returns the first count pieces of LOWER_PIECES.
+     */
+    private static int[] lowest(int count) {
+        int[] pieces = new int[count];
+        System.arraycopy(LOWER_PIECES, 0, pieces, 0, count);
+        return pieces;
+    }
+
+    /**
+     * Returns the table with the name, or throws an IllegalArgumentException if there is none.
+     */
+    public static DemotionTable forName(String name) {
+        for (DemotionTable table : new DemotionTable[]{STANDARD, ONE_STEP, PAWNS}) {
+            if (table.name.equals(name)) {
+                return table;
+            }
+        }
+        throw new IllegalArgumentException("unknown demotion table: " + name);
+    }
+
+    /**
+     * Accessor method for the name of the table.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns a random lower piece for the piece code. A random number is drawn even when
+     * there is only one choice, so the standard table draws the same numbers as the game
+     * always did.
+     */
+    public int lower(int code, Random random) {
+        int[] lower = this.choices[code];
+        return lower[random.nextInt(lower.length)];
+    }
+
+    /**
+     * Returns how much material changes hands on average when the transformation picks a
+     * piece of the given code: its owner loses the piece, and the other side gains the lower
+     * piece it becomes, whose value is averaged over the choices.
+     */
+    public int swing(int code) {
+        int[] lower = this.choices[code];
+        int total = 0;
+        for (int piece : lower) {
+            total += Evaluation.PIECE_VALUES[piece];
+        }
+        return Evaluation.PIECE_VALUES[code] + total / lower.length;
+    }
+}
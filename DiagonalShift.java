@@ -0,0 +1,53 @@
+package indy;
+
+/**
+ * The DiagonalShift class is the diagonal shift rule: every piece moves one square along a
+ * diagonal, wrapping around both edges it crosses, so the board behaves like a torus. A
+ * piece in a corner wraps around both edges at once. The transformation picks from the row
+ * and column that wrapped around.
+ */
+public final class DiagonalShift implements ShiftRule {
+    public static final DiagonalShift RULE = new DiagonalShift();
+    // up-left, up-right, down-left, down-right
+    private static final int[] DIAGONAL_ROW_STEPS = {-1, 1, -1, 1};
+    private static final int[] DIAGONAL_COL_STEPS = {-1, -1, 1, 1};
+
+    /**
+     * The only DiagonalShift is RULE.
+     */
+    private DiagonalShift() {
+    }
+
+    /**
+     * Returns the name of the rule.
+     */
+    @Override
+    public String getName() {
+        return Constants.SHIFT_DIAGONAL;
+    }
+
+    /**
+     * Returns the four diagonal directions.
+     */
+    @Override
+    public int getDirections() {
+        return DIAGONAL_ROW_STEPS.length;
+    }
+
+    /**
+     * Moves every piece one square along the diagonal with wrap-around.
+     */
+    @Override
+    public int shift(int[] squares, int size, int dir, int[] targets, int[] edge) {
+        for (int square = 0; square < size * size; square++) {
+            if (squares[square] != 0) {
+                int row = (square % size + DIAGONAL_ROW_STEPS[dir] + size) % size;
+                int col = (square / size + DIAGONAL_COL_STEPS[dir] + size) % size;
+                targets[square] = col * size + row;
+            }
+        }
+        int row = DIAGONAL_ROW_STEPS[dir] < 0 ? size - 1 : 0;
+        int col = DIAGONAL_COL_STEPS[dir] < 0 ? size - 1 : 0;
+        return ShiftRule.lineSquares(size, row, col, edge);
+    }
+}
@@ -0,0 +1,71 @@
+package indy;
+
+/**
+ * The EdgeShift class is the shift rule without wrap-around: every piece moves one square up,
+ * down, left, or right if there is room, and the pieces already against the edge stay where
+ * they are, along with every piece queued up behind them. So a shift crowds the pieces
+ * towards one edge instead of sending some of them to the other side, and the
+ * transformation picks from the line against that edge.
+ */
+public final class EdgeShift implements ShiftRule {
+    public static final EdgeShift RULE = new EdgeShift();
+
+    /**
+     * The only EdgeShift is RULE.
+     */
+    private EdgeShift() {
+    }
+
+    /**
+     * Returns the name of the rule.
+     */
+    @Override
+    public String getName() {
+        return Constants.SHIFT_NO_WRAP;
+    }
+
+    /**
+     * Returns the four directions, SHIFT_UP to SHIFT_RIGHT.
+     */
+    @Override
+    public int getDirections() {
+        return Constants.DIRECTIONS;
+    }
+
+    /**
+     * Moves the pieces towards the edge in the direction, one line at a time starting from
+     * the edge, so whether the square ahead of a piece gets free is known before the piece
+     * itself is looked at.
+     */
+    @Override
+    public int shift(int[] squares, int size, int dir, int[] targets, int[] edge) {
+        int step = COL_STEPS[dir] * size + ROW_STEPS[dir];
+        for (int distance = 0; distance < size; distance++) {
+            for (int i = 0; i < size; i++) {
+                int square = this.square(size, dir, distance, i);
+                if (squares[square] == 0) {
+                    continue;
+                }
+                int ahead = square + step;
+                boolean moves = distance > 0 && (squares[ahead] == 0 || targets[ahead] != ahead);
+                targets[square] = moves ? ahead : square;
+            }
+        }
+        int row = ROW_STEPS[dir] == 0 ? -1 : ROW_STEPS[dir] < 0 ? 0 : size - 1;
+        int col = COL_STEPS[dir] == 0 ? -1 : COL_STEPS[dir] < 0 ? 0 : size - 1;
+        return ShiftRule.lineSquares(size, row, col, edge);
+    }
+
+    /**
+     * Returns the i-th square of the line at the distance from the edge the pieces move
+     * towards.
+     */
+    private int square(int size, int dir, int distance, int i) {
+        if (COL_STEPS[dir] != 0) {
+            int col = COL_STEPS[dir] < 0 ? distance : size - 1 - distance;
+            return col * size + i;
+        }
+        int row = ROW_STEPS[dir] < 0 ? distance : size - 1 - distance;
+        return i * size + row;
+    }
+}
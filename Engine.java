@@ -0,0 +1,621 @@
+package indy;
+
+/**
+ * The Engine class searches a Position for the best move. It runs an iterative deepening
+ * alpha-beta (principal variation) search over the Position rules core, with a shared
+ * TranspositionTable. Extra threads search the same position at the same time and share
+ * their results through the table (lazy SMP), while the main thread reports each finished
+ * depth and decides when to stop. Moves are tried in the order of MoveOrdering, which each
+ * thread keeps from one search to the next. The leaves are extended by a quiescence search
+ * of the captures, and null move pruning, late move reductions, and futility pruning cut the
+ * tree down; each of these can be switched off to measure it. In basic mode an OpeningBook
+ * and Tablebases are consulted first when they are set. A search stops at its depth, node,
+ * or time limit, or as soon as stop is called, since every node checks the stop flag.
+ */
+public class Engine implements Searcher {
+    private static final int MATE_BOUND = Constants.MATE_SCORE - Constants.MAX_PLY;
+    private static final int[][] REDUCTIONS = new int[Constants.MAX_PLY][Position.MAX_MOVES];
+    private final TranspositionTable table;
+    private final MoveOrdering[] orderings;
+    private int threads;
+    private boolean isSilly;
+    private OpeningBook book;
+    private Tablebases tablebases;
+    private boolean quiescence;
+    private boolean nullMove;
+    private boolean lateMoveReductions;
+    private boolean futility;
+    private volatile boolean stopped;
+    private long deadline;
+    private long softDeadline;
+    private long maxNodes;
+    private Listener listener;
+    private Worker[] workers;
+
+    static {
+        for (int depth = 1; depth < Constants.MAX_PLY; depth++) {
+            for (int moveNumber = 1; moveNumber < Position.MAX_MOVES; moveNumber++) {
+                REDUCTIONS[depth][moveNumber] = (int) (Constants.LMR_BASE
+                        + Math.log(depth) * Math.log(moveNumber) / Constants.LMR_DIVISOR);
+            }
+        }
+    }
+
+    /**
+     * The Listener interface is told about each depth the main search thread finishes.
+     */
+    public interface Listener {
+
+        /**
+         * Called after a depth is searched.
+         *
+         * @param depth    The depth searched.
+         * @param score    The score for the side to move, in centipawns or a mate score.
+         * @param nodes    The nodes searched by all threads so far.
+         * @param millis   The time since the search started.
+         * @param pv       The principal variation.
+         * @param pvLength The number of moves in the principal variation.
+         */
+        void onIteration(int depth, int score, long nodes, long millis, int[] pv, int pvLength);
+    }
+
+    /**
+     * Constructs an Engine with one thread and a table of DEFAULT_HASH megabytes.
+     */
+    public Engine() {
+        this.table = new TranspositionTable(Constants.DEFAULT_HASH);
+        this.orderings = new MoveOrdering[Constants.MAX_THREADS];
+        this.threads = 1;
+        this.isSilly = false;
+        this.quiescence = true;
+        this.nullMove = true;
+        this.lateMoveReductions = true;
+        this.futility = true;
+        this.workers = new Worker[0];
+    }
+
+    /**
+     * Searches the Position and returns the best move, or 0 if there is no legal move. The
+     * Position itself is not changed.
+     *
+     * @param position The Position to search.
+     * @param maxDepth The deepest depth to search, at most MAX_PLY - 1.
+     * @param millis   The time to search, or 0 for no time limit.
+     * @param maxNodes The nodes to search, or 0 for no node limit.
+     * @param listener The Listener told about each depth, or null.
+     */
+    @Override
+    public int search(Position position, int maxDepth, long millis, long maxNodes, Listener listener) {
+        int[] moves = new int[Position.MAX_MOVES];
+        this.stopped = false;
+        if (!this.isSilly) {
+            int move = this.book == null ? 0 : this.book.pickMove(position, moves);
+            if (move == 0 && this.tablebases != null
+                    && Long.bitCount(position.occupied()) <= Constants.TABLEBASE_MAX_MEN) {
+                move = this.tablebases.bestMove(position, moves);
+            }
+            if (move != 0) {
+                return move;
+            }
+        }
+        long start = System.nanoTime();
+        this.deadline = millis > 0 ? start + millis * 1_000_000L : Long.MAX_VALUE;
+        this.softDeadline = millis > 0 ? start + millis * 500_000L : Long.MAX_VALUE;
+        this.maxNodes = maxNodes;
+        this.listener = listener;
+        this.workers = new Worker[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            if (this.orderings[i] == null) {
+                this.orderings[i] = new MoveOrdering();
+            }
+            this.orderings[i].newSearch();
+            this.workers[i] = new Worker(i, position.copy(), start, this.orderings[i]);
+        }
+        Thread[] helpers = new Thread[this.threads - 1];
+        for (int i = 1; i < this.threads; i++) {
+            Worker helper = this.workers[i];
+            helpers[i - 1] = new Thread(() -> helper.iterate(Math.min(maxDepth, Constants.MAX_PLY - 1)), "search-" + i);
+            helpers[i - 1].start();
+        }
+        this.workers[0].iterate(Math.min(maxDepth, Constants.MAX_PLY - 1));
+        this.stopped = true;
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        int best = this.workers[0].bestMove;
+        if (best == 0 && position.legalMoves(moves) > 0) {
+            best = moves[0];
+        }
+        return best;
+    }
+
+    /**
+     * Stops the search as soon as possible. The best move of the last finished depth is
+     * returned by search.
+     */
+    @Override
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Empties the TranspositionTable and the MoveOrdering of every thread before a new game.
+     */
+    @Override
+    public void newGame() {
+        this.table.clear();
+        for (MoveOrdering ordering : this.orderings) {
+            if (ordering != null) {
+                ordering.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the nodes searched by all threads during the last search.
+     */
+    @Override
+    public long getNodes() {
+        long nodes = 0;
+        for (Worker worker : this.workers) {
+            nodes += worker.nodes;
+        }
+        return nodes;
+    }
+
+    /**
+     * Sets the number of search threads.
+     */
+    @Override
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, Math.min(threads, Constants.MAX_THREADS));
+    }
+
+    /**
+     * Replaces the TranspositionTable by an empty one of the given size in megabytes.
+     */
+    @Override
+    public void setHash(int megabytes) {
+        this.table.resize(Math.max(1, Math.min(megabytes, Constants.MAX_HASH)));
+    }
+
+    /**
+     * Sets whether positions are played with silly rules. The book and the tablebases only
+     * know basic mode, so they are not used in silly mode.
+     */
+    @Override
+    public void setSilly(boolean isSilly) {
+        this.isSilly = isSilly;
+    }
+
+    /**
+     * Sets the OpeningBook to play from, or null for none.
+     */
+    public void setBook(OpeningBook book) {
+        this.book = book;
+    }
+
+    /**
+     * Sets the Tablebases to probe, or null for none.
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * Sets whether the leaves are searched on through the captures (quiescence search) instead
+     * of being scored as they are.
+     */
+    public void setQuiescence(boolean quiescence) {
+        this.quiescence = quiescence;
+    }
+
+    /**
+     * Sets whether a node may be cut off when passing the turn (a null move) still fails high.
+     */
+    public void setNullMove(boolean nullMove) {
+        this.nullMove = nullMove;
+    }
+
+    /**
+     * Sets whether quiet moves late in the move order are searched less deep first.
+     */
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * Sets whether quiet moves near the leaves, and captures in the quiescence search, are
+     * skipped when they cannot bring the score up to alpha.
+     */
+    public void setFutility(boolean futility) {
+        this.futility = futility;
+    }
+
+    /**
+     * Converts a score to the form stored in the table, where mate scores count from the
+     * stored position instead of from the root.
+     */
+    private static int toTable(int score, int ply) {
+        if (score > MATE_BOUND) {
+            return score + ply;
+        } else if (score < -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a score read from the table back to a score counted from the root.
+     */
+    private static int fromTable(int score, int ply) {
+        if (score > MATE_BOUND) {
+            return score - ply;
+        } else if (score < -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * The Worker class is one search thread with its own Position, move lists, and
+     * MoveOrdering.
+     */
+    private class Worker {
+        private final int id;
+        private final Position position;
+        private final long start;
+        private final MoveOrdering ordering;
+        private final int[][] moves;
+        private final int[][] scores;
+        private final int[][] quiets;
+        private final int[] played;
+        private final int[][] pv;
+        private final int[] pvLength;
+        private long nodes;
+        private int bestMove;
+
+        /**
+         * Constructs a Worker that searches its own copy of the root Position.
+         */
+        Worker(int id, Position position, long start, MoveOrdering ordering) {
+            this.id = id;
+            this.position = position;
+            this.start = start;
+            this.ordering = ordering;
+            this.moves = new int[Constants.MAX_PLY][Position.MAX_MOVES];
+            this.scores = new int[Constants.MAX_PLY][Position.MAX_MOVES];
+            this.quiets = new int[Constants.MAX_PLY][Position.MAX_MOVES];
+            this.played = new int[Constants.MAX_PLY];
+            this.pv = new int[Constants.MAX_PLY][Constants.MAX_PLY];
+            this.pvLength = new int[Constants.MAX_PLY];
+        }
+
+        /**
+         * Searches one depth after another until the limits are reached. Helper threads start
+         * at different depths so they do not all search the same tree in lockstep. Every
+         * finished depth is a flight recorder event.
+         */
+        void iterate(int maxDepth) {
+            for (int depth = 1 + this.id % 2; depth <= maxDepth; depth++) {
+                FlightEvents.SearchIterationEvent event = new FlightEvents.SearchIterationEvent();
+                event.begin();
+                long nodesBefore = this.nodes;
+                int score = this.search(depth, -Constants.INFINITE_SCORE, Constants.INFINITE_SCORE, 0);
+                if (Engine.this.stopped && this.bestMove != 0) {
+                    return;
+                }
+                this.bestMove = this.pv[0][0];
+                if (event.shouldCommit()) {
+                    event.thread = this.id;
+                    event.depth = depth;
+                    event.score = score;
+                    event.nodes = this.nodes - nodesBefore;
+                    event.bestMove = this.bestMove == 0 ? "" : Move.toString(this.bestMove);
+                    event.silly = Engine.this.isSilly;
+                    event.commit();
+                }
+                if (this.id == 0) {
+                    if (Engine.this.listener != null) {
+                        Engine.this.listener.onIteration(depth, score, Engine.this.getNodes(),
+                                (System.nanoTime() - this.start) / 1_000_000, this.pv[0], this.pvLength[0]);
+                    }
+                    if (System.nanoTime() > Engine.this.softDeadline || Math.abs(score) > MATE_BOUND) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the score of the position for the side to move, searched to the given
+         * depth with the alpha-beta window. At depth 0 the quiescence search takes over. The
+         * null move, futility, and late move pruning are only used in null window nodes and
+         * never when in check, and captures are never pruned or reduced by them: in silly mode
+         * a capture changes the whole board even when it wins no material.
+         */
+        private int search(int depth, int alpha, int beta, int ply) {
+            if (depth <= 0 && Engine.this.quiescence) {
+                return this.quiesce(alpha, beta, ply);
+            }
+            this.nodes++;
+            if (this.id == 0 && (this.nodes & (Constants.TIME_CHECK_NODES - 1)) == 0) {
+                this.checkLimits();
+            }
+            if (Engine.this.stopped) {
+                return 0;
+            }
+            this.pvLength[ply] = ply;
+            boolean root = ply == 0;
+            if (!root) {
+                if (this.position.isRepetition()) {
+                    return 0;
+                }
+                int tablebaseScore = this.probeTablebases(ply);
+                if (tablebaseScore != Constants.TB_UNKNOWN) {
+                    return tablebaseScore;
+                }
+                if (ply >= Constants.MAX_PLY - 1) {
+                    return Evaluation.evaluate(this.position);
+                }
+            }
+            if (depth <= 0) {
+                return Evaluation.evaluate(this.position);
+            }
+            long key = this.position.getHash();
+            long entry = Engine.this.table.probe(key);
+            int tableMove = 0;
+            if (entry != 0) {
+                tableMove = TranspositionTable.move(entry);
+                int tableScore = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (!root && TranspositionTable.depth(entry) >= depth && (bound == Constants.BOUND_EXACT
+                        || (bound == Constants.BOUND_LOWER && tableScore >= beta)
+                        || (bound == Constants.BOUND_UPPER && tableScore <= alpha))) {
+                    return tableScore;
+                }
+            }
+            boolean pvNode = beta - alpha > 1;
+            boolean inCheck = this.position.isInCheck();
+            int staticEval = inCheck ? -Constants.INFINITE_SCORE : Evaluation.evaluate(this.position);
+            if (Engine.this.nullMove && !root && !pvNode && !inCheck && this.played[ply - 1] != 0
+                    && depth >= Constants.NULL_MOVE_MIN_DEPTH && staticEval >= beta
+                    && Math.abs(beta) < MATE_BOUND && this.hasPieces()) {
+                // a null move that still fails high means a real move would too, except in
+                // zugzwang, which is rare while the side to move has pieces other than Pawns
+                int reduction = Constants.NULL_MOVE_REDUCTION + depth / Constants.NULL_MOVE_DEPTH_DIVISOR;
+                this.position.makeNullMove();
+                this.played[ply] = 0;
+                int score = -this.search(depth - 1 - reduction, -beta, -beta + 1, ply + 1);
+                this.position.undo();
+                if (Engine.this.stopped) {
+                    return 0;
+                }
+                if (score >= beta) {
+                    return score > MATE_BOUND ? beta : score;
+                }
+            }
+            boolean futile = Engine.this.futility && !pvNode && !inCheck && depth <= Constants.FUTILITY_DEPTH
+                    && Math.abs(alpha) < MATE_BOUND && staticEval + Constants.FUTILITY_MARGIN * depth <= alpha;
+            int[] list = this.moves[ply];
+            int count = this.position.generateMoves(list);
+            int previousMove = root ? 0 : this.played[ply - 1];
+            this.ordering.score(this.position, list, this.scores[ply], count, tableMove, ply, previousMove,
+                    Engine.this.isSilly);
+            int originalAlpha = alpha;
+            int best = -Constants.INFINITE_SCORE;
+            int bestMove = 0;
+            int legal = 0;
+            int quietCount = 0;
+            for (int i = 0; i < count; i++) {
+                int move = MoveOrdering.next(list, this.scores[ply], i, count);
+                this.position.makeMove(move);
+                if (this.position.isInCheck(!this.position.isWhiteToMove())) {
+                    this.position.undo();
+                    continue;
+                }
+                legal++;
+                this.played[ply] = move;
+                boolean quiet = !Move.isCapture(move) && !Move.isPromotion(move);
+                boolean givesCheck = this.position.isInCheck();
+                if (futile && quiet && !givesCheck && legal > 1) {
+                    // even a good quiet move will not raise the score up to alpha
+                    this.position.undo();
+                    continue;
+                }
+                int score;
+                if (legal == 1) {
+                    score = -this.search(depth - 1, -beta, -alpha, ply + 1);
+                } else {
+                    int reduction = 0;
+                    if (Engine.this.lateMoveReductions && quiet && !inCheck && !givesCheck
+                            && depth >= Constants.LMR_MIN_DEPTH && legal > Constants.LMR_MIN_MOVES) {
+                        reduction = REDUCTIONS[Math.min(depth, Constants.MAX_PLY - 1)][Math.min(legal, Position.MAX_MOVES - 1)];
+                        reduction = Math.max(0, Math.min(reduction - (pvNode ? 1 : 0), depth - 2));
+                    }
+                    score = -this.search(depth - 1 - reduction, -alpha - 1, -alpha, ply + 1);
+                    if (reduction > 0 && score > alpha) {
+                        score = -this.search(depth - 1, -alpha - 1, -alpha, ply + 1);
+                    }
+                    if (score > alpha && score < beta) {
+                        score = -this.search(depth - 1, -beta, -alpha, ply + 1);
+                    }
+                }
+                this.position.undo();
+                if (Engine.this.stopped) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    bestMove = move;
+                    if (score > alpha) {
+                        alpha = score;
+                        this.updatePv(ply, move);
+                        if (alpha >= beta) {
+                            if (quiet) {
+                                this.ordering.cutoff(this.position, move, ply, depth, previousMove,
+                                        this.quiets[ply], quietCount);
+                            }
+                            break;
+                        }
+                    }
+                }
+                if (quiet) {
+                    this.quiets[ply][quietCount++] = move;
+                }
+            }
+            if (legal == 0) {
+                return inCheck ? -Constants.MATE_SCORE + ply : 0;
+            }
+            int bound = best >= beta ? Constants.BOUND_LOWER
+                    : best > originalAlpha ? Constants.BOUND_EXACT : Constants.BOUND_UPPER;
+            Engine.this.table.store(key, bestMove, toTable(best, ply), depth, bound);
+            return best;
+        }
+
+        /**
+         * Returns the score of the position searching only captures, so the search never
+         * stops in the middle of an exchange. The side to move may stand pat on the static
+         * score instead of capturing, unless it is in check, when every move is searched.
+         * Captures that StaticExchange says lose are skipped, and with futility pruning on so
+         * are captures that cannot win back enough to reach alpha. In silly mode a capture of
+         * a piece that is not a Pawn is never skipped for that, since the silly
+         * transformation can swing the material by more than the captured piece.
+         */
+        private int quiesce(int alpha, int beta, int ply) {
+            this.nodes++;
+            if (this.id == 0 && (this.nodes & (Constants.TIME_CHECK_NODES - 1)) == 0) {
+                this.checkLimits();
+            }
+            if (Engine.this.stopped) {
+                return 0;
+            }
+            this.pvLength[ply] = ply;
+            if (ply >= Constants.MAX_PLY - 1) {
+                return Evaluation.evaluate(this.position);
+            }
+            boolean inCheck = this.position.isInCheck();
+            int best = -Constants.INFINITE_SCORE;
+            if (!inCheck) {
+                best = Evaluation.evaluate(this.position);
+                if (best >= beta) {
+                    return best;
+                }
+                alpha = Math.max(alpha, best);
+            }
+            int[] list = this.moves[ply];
+            int count = inCheck ? this.position.generateMoves(list) : this.position.generateCaptures(list);
+            this.ordering.score(this.position, list, this.scores[ply], count, 0, ply, 0, Engine.this.isSilly);
+            int legal = 0;
+            for (int i = 0; i < count; i++) {
+                int move = MoveOrdering.next(list, this.scores[ply], i, count);
+                if (!inCheck) {
+                    if (this.scores[ply][i] < 0) {
+                        // the rest are losing captures, which MoveOrdering puts last
+                        break;
+                    }
+                    if (Engine.this.futility && this.isDeltaFutile(move, best, alpha)) {
+                        continue;
+                    }
+                }
+                this.position.makeMove(move);
+                if (this.position.isInCheck(!this.position.isWhiteToMove())) {
+                    this.position.undo();
+                    continue;
+                }
+                legal++;
+                int score = -this.quiesce(-beta, -alpha, ply + 1);
+                this.position.undo();
+                if (Engine.this.stopped) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    if (score > alpha) {
+                        alpha = score;
+                        this.updatePv(ply, move);
+                        if (alpha >= beta) {
+                            break;
+                        }
+                    }
+                }
+            }
+            if (inCheck && legal == 0) {
+                return -Constants.MATE_SCORE + ply;
+            }
+            return best;
+        }
+
+        /**
+         * Returns true if winning the captured piece and what a promotion adds, plus a margin,
+         * still leaves the static score at or below alpha.
+         */
+        private boolean isDeltaFutile(int move, int standPat, int alpha) {
+            int victim = Move.flag(move) == Constants.MOVE_EN_PASSANT ? Constants.PAWN_CODE
+                    : Math.abs(this.position.pieceAt(Move.to(move)));
+            if (Engine.this.isSilly && victim > Constants.PAWN_CODE) {
+                return false;
+            }
+            int gain = Evaluation.PIECE_VALUES[victim];
+            if (Move.isPromotion(move)) {
+                gain += Evaluation.PIECE_VALUES[Move.promotion(move)] - Evaluation.PIECE_VALUES[Constants.PAWN_CODE];
+            }
+            return standPat + gain + Constants.DELTA_MARGIN <= alpha;
+        }
+
+        /**
+         * Returns true if the side to move has a piece other than Pawns and its King.
+         */
+        private boolean hasPieces() {
+            long pawnsAndKings = this.position.pieces(Constants.PAWN_CODE) | this.position.pieces(Constants.KING_CODE);
+            return (this.position.pieces(this.position.isWhiteToMove()) & ~pawnsAndKings) != 0;
+        }
+
+        /**
+         * Returns the tablebase score of the position, or TB_UNKNOWN if it is not in a table.
+         * Wins are scored below mates, sooner wins higher.
+         */
+        private int probeTablebases(int ply) {
+            if (Engine.this.tablebases == null || Engine.this.isSilly
+                    || Long.bitCount(this.position.occupied()) > Constants.TABLEBASE_MAX_MEN) {
+                return Constants.TB_UNKNOWN;
+            }
+            int wdl = Engine.this.tablebases.probeWdl(this.position);
+            if (wdl == Constants.TB_WIN) {
+                return Constants.TABLEBASE_SCORE - ply;
+            } else if (wdl == Constants.TB_LOSS) {
+                return -Constants.TABLEBASE_SCORE + ply;
+            } else if (wdl == Constants.TB_DRAW) {
+                return 0;
+            }
+            return Constants.TB_UNKNOWN;
+        }
+
+        /**
+         * Makes the move followed by the principal variation of the next ply the principal
+         * variation of this ply.
+         */
+        private void updatePv(int ply, int move) {
+            this.pv[ply][ply] = move;
+            int length = this.pvLength[ply + 1];
+            for (int i = ply + 1; i < length; i++) {
+                this.pv[ply][i] = this.pv[ply + 1][i];
+            }
+            this.pvLength[ply] = Math.max(length, ply + 1);
+        }
+
+        /**
+         * Stops the search once the time or node limit is reached.
+         */
+        private void checkLimits() {
+            if (System.nanoTime() > Engine.this.deadline
+                    || (Engine.this.maxNodes > 0 && Engine.this.getNodes() >= Engine.this.maxNodes)) {
+                Engine.this.stopped = true;
+            }
+        }
+    }
+}
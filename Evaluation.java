@@ -0,0 +1,113 @@
+package indy;
+
+/**
+ * The Evaluation class scores a Position for the Engine. The score is the material of each
+ * side plus a bonus or penalty for the square each piece stands on, in centipawns, seen from
+ * the side to move. The square tables are written from white's side with rank 8 on the first
+ * line, which is the order of the square indexes, and black looks them up mirrored.
+ * The piece values live here rather than in Constants, since loading Constants loads
+ * JavaFX, and the Engine and the tools built on it run without it.
+ */
+public final class Evaluation {
+    // indexed by piece code
+    public static final int[] PIECE_VALUES = {0, 100, 320, 330, 500, 900, 0}; // (UNITS: centipawns)
+    private static final int MIRROR = 56;
+    private static final int[][] SQUARE_BONUS = {
+        {},
+        {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            50, 50, 50, 50, 50, 50, 50, 50,
+            10, 10, 20, 30, 30, 20, 10, 10,
+            5, 5, 10, 25, 25, 10, 5, 5,
+            0, 0, 0, 20, 20, 0, 0, 0,
+            5, -5, -10, 0, 0, -10, -5, 5,
+            5, 10, 10, -20, -20, 10, 10, 5,
+            0, 0, 0, 0, 0, 0, 0, 0
+        },
+        {
+            -50, -40, -30, -30, -30, -30, -40, -50,
+            -40, -20, 0, 0, 0, 0, -20, -40,
+            -30, 0, 10, 15, 15, 10, 0, -30,
+            -30, 5, 15, 20, 20, 15, 5, -30,
+            -30, 0, 15, 20, 20, 15, 0, -30,
+            -30, 5, 10, 15, 15, 10, 5, -30,
+            -40, -20, 0, 5, 5, 0, -20, -40,
+            -50, -40, -30, -30, -30, -30, -40, -50
+        },
+        {
+            -20, -10, -10, -10, -10, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 10, 10, 5, 0, -10,
+            -10, 5, 5, 10, 10, 5, 5, -10,
+            -10, 0, 10, 10, 10, 10, 0, -10,
+            -10, 10, 10, 10, 10, 10, 10, -10,
+            -10, 5, 0, 0, 0, 0, 5, -10,
+            -20, -10, -10, -10, -10, -10, -10, -20
+        },
+        {
+            0, 0, 0, 0, 0, 0, 0, 0,
+            5, 10, 10, 10, 10, 10, 10, 5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            -5, 0, 0, 0, 0, 0, 0, -5,
+            0, 0, 0, 5, 5, 0, 0, 0
+        },
+        {
+            -20, -10, -10, -5, -5, -10, -10, -20,
+            -10, 0, 0, 0, 0, 0, 0, -10,
+            -10, 0, 5, 5, 5, 5, 0, -10,
+            -5, 0, 5, 5, 5, 5, 0, -5,
+            0, 0, 5, 5, 5, 5, 0, -5,
+            -10, 5, 5, 5, 5, 5, 0, -10,
+            -10, 0, 5, 0, 0, 0, 0, -10,
+            -20, -10, -10, -5, -5, -10, -10, -20
+        },
+        {
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -30, -40, -40, -50, -50, -40, -40, -30,
+            -20, -30, -30, -40, -40, -30, -30, -20,
+            -10, -20, -20, -20, -20, -20, -20, -10,
+            20, 20, 0, 0, 0, 0, 20, 20,
+            20, 30, 10, 0, 0, 10, 30, 20
+        }
+    };
+
+    /**
+     * The Evaluation class only contains static methods and is never instantiated.
+     */
+    private Evaluation() {
+    }
+
+    /**
+     * Returns the score of the Position for the side to move.
+     */
+    public static int evaluate(Position position) {
+        int score = 0;
+        for (int code = Constants.PAWN_CODE; code <= Constants.KING_CODE; code++) {
+            long pieces = position.pieces(code);
+            long white = pieces & position.pieces(true);
+            long black = pieces & ~white;
+            score += (Long.bitCount(white) - Long.bitCount(black)) * PIECE_VALUES[code];
+            while (white != 0) {
+                score += SQUARE_BONUS[code][Long.numberOfTrailingZeros(white)];
+                white &= white - 1;
+            }
+            while (black != 0) {
+                score -= SQUARE_BONUS[code][Long.numberOfTrailingZeros(black) ^ MIRROR];
+                black &= black - 1;
+            }
+        }
+        return position.isWhiteToMove() ? score : -score;
+    }
+
+    /**
+     * Returns the value of a piece code, in centipawns.
+     */
+    public static int pieceValue(int code) {
+        return PIECE_VALUES[Math.abs(code)];
+    }
+}
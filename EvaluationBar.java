@@ -0,0 +1,76 @@
+package indy;
+
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+
+/**
+ * The EvaluationBar class shows the background analysis in the side panel. The bar is white's
+ * share of the game: a white Rectangle over a dark one, half full when the game is level and
+ * full when white mates. Below it a Label shows the score, the depth, and the best move.
+ */
+public class EvaluationBar {
+    private final VBox box;
+    private final Rectangle whiteShare;
+    private final Label scoreLabel;
+
+    /**
+     * Constructs an empty EvaluationBar.
+     */
+    public EvaluationBar() {
+        Rectangle background = new Rectangle(Constants.EVAL_BAR_WIDTH, Constants.EVAL_BAR_HEIGHT);
+        background.setFill(Constants.EVAL_BAR_BLACK);
+        this.whiteShare = new Rectangle(Constants.EVAL_BAR_WIDTH / 2.0, Constants.EVAL_BAR_HEIGHT);
+        this.whiteShare.setFill(Constants.EVAL_BAR_WHITE);
+        this.scoreLabel = new Label("");
+        this.scoreLabel.setFont(Font.font("Courier New"));
+        this.scoreLabel.setAlignment(Pos.CENTER_RIGHT);
+        this.box = new VBox();
+        this.box.getChildren().addAll(new Pane(background, this.whiteShare), this.scoreLabel);
+    }
+
+    /**
+     * Shows an update. Must be called on the JavaFX thread.
+     */
+    public void show(AnalysisUpdate update) {
+        this.whiteShare.setWidth(Constants.EVAL_BAR_WIDTH * whiteFraction(update));
+        String score;
+        if (update.isMate()) {
+            score = "#" + update.getMateIn();
+        } else {
+            score = String.format("%+.2f", update.getScore() / 100.0);
+        }
+        String best = update.getBestMove() == 0 ? "" : " " + Move.toString(update.getBestMove());
+        this.scoreLabel.setText(score + " d" + update.getDepth() + best);
+    }
+
+    /**
+     * Sets the bar back to level with no score, while a new analysis starts.
+     */
+    public void clear() {
+        this.whiteShare.setWidth(Constants.EVAL_BAR_WIDTH / 2.0);
+        this.scoreLabel.setText("");
+    }
+
+    /**
+     * Accessor method for the node added to the side panel.
+     */
+    public VBox getNode() {
+        return this.box;
+    }
+
+    /**
+     * Returns white's share of the bar, from 0 to 1. A centipawn score is turned into an
+     * expected result with the logistic curve used by Elo ratings, so a score of EVAL_BAR_SCALE
+     * fills about nine tenths of the bar.
+     */
+    private static double whiteFraction(AnalysisUpdate update) {
+        if (update.isMate()) {
+            return update.getScore() > 0 ? 1.0 : 0.0;
+        }
+        return 1.0 / (1.0 + Math.pow(10.0, -update.getScore() / Constants.EVAL_BAR_SCALE));
+    }
+}
@@ -0,0 +1,116 @@
+package indy;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The FlightEvents class holds the Java Flight Recorder events of the game and the Engine,
+ * so a recording (java -XX:StartFlightRecording, or jcmd JFR.start) shows the moves, silly
+ * shifts and transformations, checkmate tests, and search iterations next to the garbage
+ * collections and thread stalls that happened at the same time.
+ * Each event is used the same way: construct it, call begin, do the work, and fill in and
+ * commit the event only if shouldCommit says so. While no recording is running JFR leaves the
+ * event classes empty, so begin and shouldCommit do nothing, the event never leaves the
+ * method, and the JIT compiler removes it altogether.
+ */
+public final class FlightEvents {
+
+    /**
+     * The FlightEvents class only holds the event classes and is never instantiated.
+     */
+    private FlightEvents() {
+    }
+
+    /**
+     * The MoveEvent class is a move applied by Game.handleSquareClick, from the move being
+     * accepted to the Board, the check labels, and the analysis being updated.
+     */
+    @Name("indy.Move")
+    @Label("Move")
+    @Category({"Indy", "Game"})
+    @Description("A move applied on the Board")
+    public static class MoveEvent extends Event {
+        @Label("Move")
+        String move;
+        @Label("Piece")
+        String piece;
+        @Label("Capture")
+        boolean capture;
+        @Label("Silly")
+        boolean silly;
+        @Label("Ply")
+        int ply;
+    }
+
+    /**
+     * The ShiftEvent class is a silly shift of the Board, including the transformation that
+     * follows it.
+     */
+    @Name("indy.Shift")
+    @Label("Silly Shift")
+    @Category({"Indy", "Game"})
+    @Description("Every piece shifted one square with wrap-around")
+    public static class ShiftEvent extends Event {
+        @Label("Direction")
+        String direction;
+        @Label("Pieces Relocated")
+        int relocated;
+    }
+
+    /**
+     * The TransformEvent class is a silly transformation of a piece in the wrapped line into
+     * a lower piece of the other color.
+     */
+    @Name("indy.Transform")
+    @Label("Silly Transformation")
+    @Category({"Indy", "Game"})
+    @Description("A piece replaced by a lower piece of the other color")
+    public static class TransformEvent extends Event {
+        @Label("Square")
+        String square;
+        @Label("Old Piece")
+        String oldPiece;
+        @Label("New Piece")
+        String newPiece;
+    }
+
+    /**
+     * The CheckmateEvent class is one call of Board.isCheckmate.
+     */
+    @Name("indy.Checkmate")
+    @Label("Checkmate Test")
+    @Category({"Indy", "Game"})
+    @Description("A test whether a player has checkmated the other")
+    public static class CheckmateEvent extends Event {
+        @Label("Player")
+        String player;
+        @Label("Checkmate")
+        boolean checkmate;
+    }
+
+    /**
+     * The SearchIterationEvent class is one depth of iterative deepening searched by one of
+     * the Engine's threads.
+     */
+    @Name("indy.SearchIteration")
+    @Label("Search Iteration")
+    @Category({"Indy", "Engine"})
+    @Description("One depth of the Engine's iterative deepening on one thread")
+    public static class SearchIterationEvent extends Event {
+        @Label("Thread")
+        int thread;
+        @Label("Depth")
+        int depth;
+        @Label("Score")
+        int score;
+        @Label("Nodes")
+        long nodes;
+        @Label("Best Move")
+        String bestMove;
+        @Label("Silly")
+        boolean silly;
+    }
+}
@@ -7,6 +7,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.LinkedList;
 
@@ -30,10 +31,20 @@ public class Game {
     private Label gameLabel;
     private Label checkLabel;
     private boolean castle;
+    private String promotionChoice;
+    private Label promotionLabel;
+    private String engineKind;
+    private Label engineLabel;
+    private GameRecord record;
+    private MoveHistory history;
+    private final Piece[] snapshot;
+    private final EvaluationBar evaluationBar;
+    private final AnalysisService analysis;
 
     /**
      * Constructs a new Game instance, defines instance variables, and calls helper methods
-     * to set up the gamePane, HBox, and VBox.
+     * to set up the gamePane, HBox, and VBox. The analysis of the start position waits until
+     * the first frame is shown (see Startup).
      *
      * @param hBox      The horizontal box for UI controls.
      * @param vBox      The vertical box for UI labels and information.
@@ -52,9 +63,17 @@ public class Game {
         this.currentPlayer = this.whitePlayer;
         this.isSilly = false;
         this.castle = false;
+        this.promotionChoice = Constants.QUEEN;
+        this.engineKind = Constants.ENGINE_ALPHA_BETA;
+        this.record = new GameRecord(this.isSilly);
+        this.history = new MoveHistory();
+        this.snapshot = new Piece[Constants.BOARD_WIDTH * Constants.BOARD_WIDTH];
+        this.evaluationBar = new EvaluationBar();
+        this.analysis = new AnalysisService(this.evaluationBar::show);
         this.setupGamePane();
         this.setupBottom();
         this.board = new Board(gamePane, this);
+        Startup.afterFirstFrame(this::analyze);
     }
 
     /**
@@ -80,9 +99,14 @@ public class Game {
         this.vBox.setPrefWidth(Constants.VBOX_WIDTH);
         this.setupGameLabel();
         this.setupOverLabel();
+        this.setupNavigationButtons();
+        this.setupPromotionButtons();
+        this.vBox.getChildren().add(this.evaluationBar.getNode());
+        this.setupEngineButtons();
         this.setupBasicButton();
         this.setupSillyButton();
         this.setupRestartButton();
+        this.setupReplayButton();
         this.setupQuitButton();
 
     }
@@ -109,23 +133,100 @@ public class Game {
         this.vBox.getChildren().add(this.checkLabel);
     }
 
+    /**
+     * This instantiates a row of four small Buttons and adds it to the VBox. The Buttons jump
+     * to the start of the game, take back a move, play a taken back move again, and jump to
+     * the last move.
+     */
+    private void setupNavigationButtons() {
+        HBox navigation = new HBox();
+        navigation.setSpacing(Constants.NAV_BUTTON_SPACING);
+        navigation.getChildren().addAll(
+                this.createNavigationButton("|<", () -> this.jumpToPly(0)),
+                this.createNavigationButton("<", this::undoMove),
+                this.createNavigationButton(">", this::redoMove),
+                this.createNavigationButton(">|", () -> this.jumpToPly(this.history.getPlyCount())));
+        this.vBox.getChildren().add(navigation);
+    }
+
+    /**
+     * This instantiates a Label and a row of four small Buttons and adds them to the VBox.
+     * The Buttons choose the piece a Pawn becomes when it reaches the far side of the board:
+     * a Queen, Rook, Bishop, or Knight. The Label shows the current choice.
+     */
+    private void setupPromotionButtons() {
+        this.promotionLabel = new Label("promote to " + this.promotionChoice);
+        this.promotionLabel.setFont(Font.font("Courier New"));
+        HBox promotion = new HBox();
+        promotion.setSpacing(Constants.NAV_BUTTON_SPACING);
+        for (String type : new String[]{Constants.QUEEN, Constants.ROOK, Constants.BISHOP, Constants.KNIGHT}) {
+            promotion.getChildren().add(this.createNavigationButton(type.substring(0, 1), () -> {
+                this.promotionChoice = type;
+                this.promotionLabel.setText("promote to " + type);
+            }));
+        }
+        this.vBox.getChildren().addAll(this.promotionLabel, promotion);
+    }
+
+    /**
+     * This instantiates a Label and two small Buttons in a row and adds them to the VBox. The
+     * Buttons choose the engine that analyses this game: the alpha-beta Engine (AB) or the
+     * MctsEngine (MC), which copes better with the random silly shifts. The analysis starts
+     * over with the chosen engine.
+     */
+    private void setupEngineButtons() {
+        this.engineLabel = new Label("engine " + this.engineKind);
+        this.engineLabel.setFont(Font.font("Courier New"));
+        HBox engine = new HBox();
+        engine.setSpacing(Constants.NAV_BUTTON_SPACING);
+        engine.getChildren().addAll(this.engineLabel,
+                this.createNavigationButton("AB", () -> this.chooseEngine(Constants.ENGINE_ALPHA_BETA)),
+                this.createNavigationButton("MC", () -> this.chooseEngine(Constants.ENGINE_MCTS)));
+        this.vBox.getChildren().add(engine);
+    }
+
+    /**
+     * This helper method sets the engine that analyses the game and analyses the Board again.
+     */
+    private void chooseEngine(String kind) {
+        this.engineKind = kind;
+        this.engineLabel.setText("engine " + kind);
+        this.analyze();
+    }
+
+    /**
+     * Instantiates a small Button with the given text that runs the action when clicked.
+     */
+    private Button createNavigationButton(String text, Runnable action) {
+        Button button = new Button(text);
+        button.setFont(Font.font("Courier New"));
+        button.setPrefSize(Constants.NAV_BUTTON_WIDTH, Constants.BUTTON_HEIGHT);
+        button.setOnAction((ActionEvent e) -> action.run());
+        button.setFocusTraversable(false);
+        return button;
+    }
+
     /**
      * This instantiates, sets size, and sets text to a new Button. When clicked,
-     * this Button exits the program. This Button is added to the HBox.
+     * this Button archives the current game and exits the program. This Button is added
+     * to the HBox.
      */
     private void setupQuitButton() {
         Button button = new Button("quit!");
         button.setFont(Font.font("Courier New"));
         button.setPrefSize(Constants.BUTTON_WIDTH, Constants.BUTTON_HEIGHT);
-        button.setOnAction((ActionEvent e) ->
-                System.exit(0));
+        button.setOnAction((ActionEvent e) -> {
+            this.analysis.shutdown();
+            this.archiveRecord();
+            System.exit(0);
+        });
         button.setFocusTraversable(false);
         this.hBox.getChildren().add(button);
     }
 
     /**
      * This instantiates, sets size, and sets text to a new Button. When clicked,
-     * this Button creates a new Board to restart the game. This Button is added to the HBox.
+     * this Button resets the Board to restart the game. This Button is added to the HBox.
      */
     private void setupRestartButton() {
         Button button = new Button("restart!");
@@ -138,15 +239,51 @@ public class Game {
     }
 
     /**
-     * This helper method creates a new Board to restart the game and resets the current
-     * player to white.
+     * This instantiates, sets size, and sets text to a new Button. When clicked, this Button
+     * opens a ReplayViewer over the archived games and the game being played. This Button is
+     * added to the HBox.
+     */
+    private void setupReplayButton() {
+        Button button = new Button("replay");
+        button.setFont(Font.font("Courier New"));
+        button.setPrefSize(Constants.BUTTON_WIDTH, Constants.BUTTON_HEIGHT);
+        button.setOnAction((ActionEvent e) ->
+                ReplayViewer.open(Constants.GAME_ARCHIVE, this.record));
+        button.setFocusTraversable(false);
+        this.hBox.getChildren().add(button);
+    }
+
+    /**
+     * This helper method archives the finished game, resets the Board in place to restart the
+     * game, and resets the current player to white. A new GameRecord is started for the new
+     * game. The Board keeps its squares, Pieces, and images, so restarting does not build a
+     * new scene. The analysis starts over on the new game.
      */
     private void restart() {
-        this.board = new Board(this.gamePane, this);
+        this.archiveRecord();
+        this.record = new GameRecord(this.isSilly);
+        this.history = new MoveHistory();
+        this.board.reset();
+        this.selectedPiece = null;
+        this.prevSelectedPiece = null;
+        this.castle = false;
         this.checkLabel.setText("");
         this.currentPlayer = this.whitePlayer;
         this.gameLabel.setText(this.currentPlayer + "'s turn!");
+        this.analyze();
+    }
 
+    /**
+     * Appends the current GameRecord to the game archive if any moves were made.
+     */
+    private void archiveRecord() {
+        if (this.record.getPlyCount() > 0) {
+            try (GameRecordWriter writer = new GameRecordWriter(Constants.GAME_ARCHIVE)) {
+                writer.append(this.record);
+            } catch (IOException e) {
+                System.err.println("could not archive game: " + e.getMessage());
+            }
+        }
     }
 
     /**
@@ -210,12 +347,15 @@ public class Game {
      * If a piece is selected, it attempts to move the selected piece to the clicked square
      * based on chess rules. Handles special moves like castling, en passant, and piece transformations.
      * Method also handles if the selected piece's move will endanger their own king.
-     * After the first move, it updates the check label and checks for game over.
+     * A Pawn that reaches the far side of the board is replaced by the chosen promotion piece.
+     * After the first move, it updates the check label and checks for game over. Every applied
+     * move is added to the GameRecord and is a flight recorder event.
      * If the move was invalid, the user must select a new piece and a new square.
      */
     public void handleSquareClick(MySquare clickedSquare) {
         this.clickedSquare = clickedSquare;
         Piece captured = null;
+        boolean enPassant = false;
         int newRow = this.clickedSquare.getRow();
         int newCol = this.clickedSquare.getCol();
 
@@ -231,6 +371,12 @@ public class Game {
             }
 
             if (moveValidity && kingMoveValid && whenInCheck && notMovingAProtector) {
+                FlightEvents.MoveEvent event = new FlightEvents.MoveEvent();
+                event.begin();
+                Piece moved = this.selectedPiece;
+                boolean firstMove = moved.ifFirstMove();
+                Piece prevSelected = this.prevSelectedPiece;
+                PlyDelta.snapshot(this.board, this.snapshot);
                 this.castling(oldRow, oldCol, newRow, newCol);
                 this.board.getBoard()[oldRow][oldCol].removeOccupying();
                 if (this.clickedSquare.getIsOccupied() && !this.castle) {
@@ -239,7 +385,7 @@ public class Game {
                     this.board.removePieceLogically(captured);
                 } else if (this.prevSelectedPiece != null && this.prevSelectedPiece.getType().equals(Constants.PAWN)
                         && this.selectedPiece.getType().equals(Constants.PAWN)) {
-                    this.enPassant(newRow, newCol);
+                    enPassant = this.enPassant(newRow, newCol);
                 }
                 if (!this.castle) {
                     this.clickedSquare.setOccupying(this.selectedPiece, this.clickedSquare);
@@ -248,13 +394,28 @@ public class Game {
                 }
                 this.selectedPiece.setFirstMove(false);
                 this.prevSelectedPiece = this.selectedPiece;
+                int promotion = Constants.EMPTY_CODE;
+                if (!this.castle && this.selectedPiece.getType().equals(Constants.PAWN)
+                        && newCol == Position.lastCol(this.selectedPiece.getColor().equals(Constants.WHITE))) {
+                    this.prevSelectedPiece = this.promote(this.selectedPiece, newRow, newCol);
+                    promotion = GameRecord.pieceCode(this.promotionChoice);
+                }
                 this.selectedPiece = null;
+                this.record.truncate(this.history.getCurrentPly());
+                this.recordMove(oldRow, oldCol, newRow, newCol, captured != null, enPassant, promotion);
+                if (this.castle || enPassant) {
+                    this.board.getCheckTracker().invalidate();
+                } else {
+                    this.board.getCheckTracker().touch(oldRow, oldCol);
+                    this.board.getCheckTracker().touch(newRow, newCol);
+                }
 
                 if (this.isSilly) {
                     if (captured != null) {
                         this.sillyShift(captured);
                     }
                 }
+                this.history.push(new PlyDelta(this.board, this.snapshot, moved, firstMove, prevSelected));
                 this.updateCheck();
 
                 if (this.board.getCheck()) {
@@ -262,6 +423,15 @@ public class Game {
                 }
 
                 this.switchPlayer();
+                this.analyze();
+                if (event.shouldCommit()) {
+                    event.move = Move.squareName(Move.square(oldRow, oldCol)) + Move.squareName(Move.square(newRow, newCol));
+                    event.piece = moved.getType();
+                    event.capture = captured != null || enPassant;
+                    event.silly = this.isSilly;
+                    event.ply = this.history.getCurrentPly();
+                    event.commit();
+                }
 
             } else {
                 this.selectedPiece = null;
@@ -271,11 +441,66 @@ public class Game {
         }
     }
 
+    /**
+     * Adds the move that was just applied to the GameRecord, flagged as a castle, promotion,
+     * capture, en passant capture, or quiet move.
+     */
+    private void recordMove(int oldRow, int oldCol, int newRow, int newCol, boolean capture, boolean enPassant,
+                            int promotion) {
+        int flag = Constants.MOVE_QUIET;
+        if (this.castle) {
+            flag = Constants.MOVE_CASTLE;
+        } else if (promotion != Constants.EMPTY_CODE) {
+            flag = Move.promotionFlag(promotion, capture);
+        } else if (enPassant) {
+            flag = Constants.MOVE_EN_PASSANT;
+        } else if (capture) {
+            flag = Constants.MOVE_CAPTURE;
+        }
+        this.record.addMove(Move.encode(Move.square(oldRow, oldCol), Move.square(newRow, newCol), flag));
+    }
+
+    /**
+     * Replaces a Pawn that reached the far side of the board by a new Piece of the chosen
+     * promotion type and the same color, the way a silly transformation replaces a Piece.
+     * The new Piece has already moved, so a promoted Rook cannot castle. Returns the new Piece.
+     */
+    private Piece promote(Piece pawn, int row, int col) {
+        MySquare square = this.board.getBoard()[row][col];
+        square.removeOccupying();
+        this.board.removePieceLogically(pawn);
+        boolean isWhite = pawn.getColor().equals(Constants.WHITE);
+        Piece promoted;
+        switch (this.promotionChoice) {
+            case Constants.ROOK:
+                promoted = new Rook(this.gamePane, row, col, isWhite, this.board);
+                break;
+            case Constants.BISHOP:
+                promoted = new Bishop(this.gamePane, row, col, isWhite, this.board);
+                break;
+            case Constants.KNIGHT:
+                promoted = new Knight(this.gamePane, row, col, isWhite, this.board);
+                break;
+            default:
+                promoted = new Queen(this.gamePane, row, col, isWhite, this.board);
+                break;
+        }
+        promoted.setFirstMove(false);
+        this.board.addPieceLogically(promoted);
+        promoted.setImage();
+        square.setOccupying(promoted, square);
+        square.setIsOccupied();
+        promoted.movePiece(square);
+        promoted.getImageView().setOnMouseClicked(event -> this.handlePieceClick(promoted));
+        return promoted;
+    }
+
     /**
      * This helper method removes the previously selected piece if the current move
-     * is an en passant capture.
+     * is an en passant capture. Returns true if a piece was captured.
      * */
-    private void enPassant(int newRow, int newCol) {
+    private boolean enPassant(int newRow, int newCol) {
+        boolean isCaptured = false;
         int enPassantCol = newCol + 1;
         int enPassantRowLeft = newRow - 1;
         int enPassantRowRight = newRow + 1;
@@ -293,9 +518,11 @@ public class Game {
                         this.board.getBoard()[newRow][newCol + 1].removeOccupying();
                     }
                     this.board.removePieceLogically(captured);
+                    isCaptured = true;
                 }
             }
         }
+        return isCaptured;
     }
 
     /**
@@ -308,7 +535,7 @@ public class Game {
         if (this.clickedSquare.getIsOccupied()) {
             Piece rook = this.clickedSquare.getOccupying();
             Piece king = this.selectedPiece;
-            boolean kAndR = king.getType().equals(Constants.KING) && rook.getType().equals(Constants.KING);
+            boolean kAndR = king.getType().equals(Constants.KING) && rook.getType().equals(Constants.ROOK);
             boolean sameColor = king.getColor().equals(rook.getColor());
             boolean first = king.ifFirstMove() && rook.ifFirstMove();
             boolean inCheck;
@@ -355,6 +582,7 @@ public class Game {
      * opponent.
      */
     public boolean kingMoveValid(String player, Piece king, MySquare mySquare) {
+        long start = Metrics.start();
         boolean valid = true;
         int oldRow = king.getOldRow();
         int oldCol = king.getOldCol();
@@ -362,9 +590,7 @@ public class Game {
         int newCol = mySquare.getCol();
 
         if (king.getType().equals(Constants.KING)) {
-            if (king.canCastle(oldRow, oldCol, newRow, newCol)) {
-                return true;
-            } else {
+            if (!king.canCastle(oldRow, oldCol, newRow, newCol)) {
                 for (Piece piece : this.board.getPieces(player)) {
                     if (!piece.getType().equals(Constants.PAWN)) {
                         this.board.getBoard()[oldRow][oldCol].removeOccupying();
@@ -384,36 +610,28 @@ public class Game {
                 }
             }
         }
+        Metrics.KING_MOVE_VALID.stop(start);
         return valid;
     }
 
 
     /**
      * Checks if the selected piece, acting as a protector, is not moving into a position
-     * that exposes the player's king to a check. Does so by temporarily removing the protector
-     * and checking the moves of the opposite side to see if its removal will threaten the King.
-     * If its removal will threaten the king, check if the new moves will continue to protect
-     * the King.
+     * that exposes the player's king to a check. The CheckTracker knows which pieces are
+     * pinned to the King and by what, so nothing has to be taken off the Board. If the
+     * protector is pinned, or the King is already in check, check if the protector can move
+     * onto the path of the attacker so it continues to protect the King.
      * Returns true if the move maintains the King's safety.
      */
     public boolean notMovingAProtector(String player) {
-        Piece attacker = null;
+        long start = Metrics.start();
         Piece protector = this.selectedPiece;
         boolean safe = true;
-        if (!this.selectedPiece.getType().equals("King")) {
-            this.board.getBoard()[protector.getOldRow()][protector.getOldCol()].removeOccupying();
-            for (Piece piece : this.board.getPieces(player)) {
-                piece.setValidSquares();
-                for (int i = 0; i < piece.getValidSquares().size(); i++) {
-                    MySquare square = piece.getValidSquares().get(i);
-                    if (square.getRow() == this.getCurrKing().getOldRow() && square.getCol() == this.getCurrKing().getOldCol()) {
-                        attacker = piece;
-                        safe = false;
-                    }
-                }
-                protector.removeFromPane();
-                this.board.getBoard()[protector.getOldRow()][protector.getOldCol()].setOccupying(protector, this.board.getBoard()[protector.getOldRow()][protector.getOldCol()]);
-                protector.movePiece(this.board.getBoard()[protector.getOldRow()][protector.getOldCol()]);
+        if (!protector.getType().equals(Constants.KING)) {
+            CheckTracker checks = this.board.getCheckTracker();
+            Piece attacker = checks.getPinner(protector);
+            if (attacker == null) {
+                attacker = checks.getChecker(!player.equals(Constants.WHITE));
             }
             // ensures that a move to maintain safety is possible, but user has the liberty to make
             // the incorrect move and put king at risk
@@ -422,9 +640,11 @@ public class Game {
                 int attCol = attacker.getOldCol();
                 int kRow = this.getCurrKing().getOldRow();
                 int kCol = this.getCurrKing().getOldCol();
+                protector.setValidSquares();
                 safe = this.board.canIntersectPath(protector, attRow, attCol, kRow, kCol);
             }
         }
+        Metrics.NOT_MOVING_A_PROTECTOR.stop(start);
         return safe;
     }
 
@@ -433,30 +653,42 @@ public class Game {
      */
     public void sillyShift(Piece captured) {
         if (!captured.getType().equals(Constants.PAWN)) {
+            long start = Metrics.start();
             this.shiftBoard();
+            this.board.getCheckTracker().invalidate();
+            Metrics.SILLY_SHIFT.stop(start);
         }
     }
 
     /**
      * A switch statement is used to randomly select a direction in which the board
-     * will shift in.
+     * will shift in. The direction is added to the GameRecord, and the shift is a flight
+     * recorder event.
      */
     private void shiftBoard() {
+        FlightEvents.ShiftEvent event = new FlightEvents.ShiftEvent();
+        event.begin();
         int direction = (int) (Math.random() * Constants.DIRECTIONS);
+        this.record.addShift(direction);
         switch (direction) {
-            case 0:
+            case Constants.SHIFT_UP:
                 this.shiftUp();
                 break;
-            case 1:
+            case Constants.SHIFT_DOWN:
                 this.shiftDown();
                 break;
-            case 2:
+            case Constants.SHIFT_LEFT:
                 this.shiftLeft();
                 break;
-            case 3:
+            case Constants.SHIFT_RIGHT:
                 this.shiftRight();
                 break;
         }
+        if (event.shouldCommit()) {
+            event.direction = Position.SHIFT_NAMES[direction];
+            event.relocated = this.board.getPieces(Constants.WHITE).size() + this.board.getPieces(Constants.BLACK).size();
+            event.commit();
+        }
     }
 
     /**
@@ -703,11 +935,12 @@ public class Game {
      * Transforms a randomly selected piece in the specified column into a lower hierarchy piece.
      * The transformation involves replacing the selected piece with a lower hierarchy piece
      * and updating its properties, color, image, and event handlers. The lower hierarchy piece
-     * switches to its opponent's color.
+     * switches to its opponent's color. The transformation is added to the GameRecord and
+     * is a flight recorder event.
      */
     private void transformRandomPieceInWrappedCol(int col) {
         ArrayList<Integer> occupiedRows = new ArrayList<>();
-        for (int row = 0; row < 8; row++) {
+        for (int row = 0; row < Constants.BOARD_WIDTH; row++) {
             if (this.board.getBoard()[row][col].getIsOccupied()) {
                 if (!this.board.getBoard()[row][col].getOccupying().getType().equals("King")) {
                     occupiedRows.add(row);
@@ -718,19 +951,22 @@ public class Game {
             int randomIndex = (int) (Math.random() * occupiedRows.size());
             int selectedRow = occupiedRows.get(randomIndex);
             if (this.board.getBoard()[selectedRow][col].getIsOccupied()) {
+                FlightEvents.TransformEvent event = new FlightEvents.TransformEvent();
+                event.begin();
                 Piece selectedPiece = this.board.getBoard()[selectedRow][col].getOccupying();
                 this.board.getBoard()[selectedRow][col].removeOccupying();
                 this.board.removePieceLogically(selectedPiece);
                 Piece lowerPiece = this.generateLowerHierarchyPiece(selectedPiece);
                 lowerPiece.setColor(!selectedPiece.getColor().equals("white"));
-                if (lowerPiece.getColor().equals("white")) {
-                    this.board.getPieces(this.whitePlayer).add(lowerPiece);
-                }
+                this.record.addTransform(Move.square(selectedRow, col), GameRecord.pieceCode(lowerPiece.getType()),
+                        lowerPiece.getColor().equals(Constants.WHITE));
+                this.board.addPieceLogically(lowerPiece);
                 lowerPiece.setImage();
                 this.board.getBoard()[selectedRow][col].setOccupying(lowerPiece, this.board.getBoard()[selectedRow][col]);
                 this.board.getBoard()[selectedRow][col].setIsOccupied();
                 lowerPiece.movePiece(this.board.getBoard()[selectedRow][col]);
-                lowerPiece.getImageView().setOnMouseClicked(event -> this.handlePieceClick(lowerPiece));
+                lowerPiece.getImageView().setOnMouseClicked(e -> this.handlePieceClick(lowerPiece));
+                this.commitTransform(event, selectedRow, col, selectedPiece, lowerPiece);
             }
         }
     }
@@ -738,11 +974,12 @@ public class Game {
     /**
      * Transforms a randomly selected piece in the specified row into a lower hierarchy piece.
      * The transformation involves replacing the selected piece with a lower hierarchy piece
-     * and updating its properties, color, image, and event handlers.
+     * and updating its properties, color, image, and event handlers. The transformation is
+     * added to the GameRecord and is a flight recorder event.
      */
     private void transformRandomPieceInWrappedRow(int row) {
         ArrayList<Integer> occupiedCols = new ArrayList<>();
-        for (int col = 0; col < 8; col++) {
+        for (int col = 0; col < Constants.BOARD_WIDTH; col++) {
             if (this.board.getBoard()[row][col].getIsOccupied()) {
                 if (!this.board.getBoard()[row][col].getOccupying().getType().equals(Constants.KING)) {
                     occupiedCols.add(col);
@@ -753,21 +990,37 @@ public class Game {
             int randomIndex = (int) (Math.random() * occupiedCols.size());
             int selectedCol = occupiedCols.get(randomIndex);
             if (this.board.getBoard()[row][selectedCol].getIsOccupied()) {
+                FlightEvents.TransformEvent event = new FlightEvents.TransformEvent();
+                event.begin();
                 Piece selectedPiece = this.board.getBoard()[row][selectedCol].getOccupying();
                 this.board.getBoard()[row][selectedCol].removeOccupying();
+                this.board.removePieceLogically(selectedPiece);
                 Piece lowerPiece = this.generateLowerHierarchyPiece(selectedPiece);
                 lowerPiece.setColor(!selectedPiece.getColor().equals(Constants.WHITE));
-                if (lowerPiece.getColor().equals(Constants.WHITE)) {
-                    this.board.getPieces(this.whitePlayer).add(lowerPiece);
-                }
+                this.record.addTransform(Move.square(row, selectedCol), GameRecord.pieceCode(lowerPiece.getType()),
+                        lowerPiece.getColor().equals(Constants.WHITE));
+                this.board.addPieceLogically(lowerPiece);
                 lowerPiece.setImage();
                 this.board.getBoard()[row][selectedCol].setOccupying(lowerPiece, this.board.getBoard()[row][selectedCol]);
-                lowerPiece.getImageView().setOnMouseClicked(event -> this.handlePieceClick(lowerPiece));
+                lowerPiece.getImageView().setOnMouseClicked(e -> this.handlePieceClick(lowerPiece));
                 lowerPiece.movePiece(this.board.getBoard()[row][selectedCol]);
+                this.commitTransform(event, row, selectedCol, selectedPiece, lowerPiece);
             }
         }
     }
 
+    /**
+     * Fills in and commits the flight recorder event of a transformation, if it is recorded.
+     */
+    private void commitTransform(FlightEvents.TransformEvent event, int row, int col, Piece oldPiece, Piece newPiece) {
+        if (event.shouldCommit()) {
+            event.square = Move.squareName(Move.square(row, col));
+            event.oldPiece = oldPiece.getColor() + " " + oldPiece.getType();
+            event.newPiece = newPiece.getColor() + " " + newPiece.getType();
+            event.commit();
+        }
+    }
+
     /**
      * Updates the check label to display which player is in check. If none,
      * set text to empty.
@@ -786,25 +1039,104 @@ public class Game {
 
     /**
      * If either color is in checkmate, set all piece clicking and square clicking to transparent.
-     * Set the game label and check label to indicate "game over".
+     * Set the game label and check label to indicate "game over". The current player delivered
+     * the checkmate, so they are recorded as the winner.
      */
     private void gameOver() {
         if (this.board.isCheckmate(this.whitePlayer) || this.board.isCheckmate(this.blackPlayer)) {
-            LinkedList<Piece> allPieces = new LinkedList<>(this.board.getPieces(this.whitePlayer));
-            allPieces.addAll(this.board.getPieces(this.blackPlayer));
-            for (Piece all : allPieces) {
-                all.getImageView().setMouseTransparent(true);
-            }
-            for (int i = 0; i < Constants.BOARD_WIDTH; i++) {
-                for (int j = 0; j < Constants.BOARD_WIDTH; j++) {
-                    this.board.getBoard()[i][j].getMySquare().setMouseTransparent(true);
-                }
+            if (this.currentPlayer.equals(this.whitePlayer)) {
+                this.record.setResult(Constants.RESULT_WHITE_WINS);
+            } else {
+                this.record.setResult(Constants.RESULT_BLACK_WINS);
             }
-            this.checkLabel.setText("game over ;)");
-            this.gameLabel.setText("");
+            this.showGameOver();
         }
     }
 
+    /**
+     * Sets all piece clicking and square clicking to transparent and sets the game label and
+     * check label to indicate "game over".
+     */
+    private void showGameOver() {
+        this.setMouseTransparent(true);
+        this.checkLabel.setText("game over ;)");
+        this.gameLabel.setText("");
+    }
+
+    /**
+     * Sets whether the pieces and squares of the Board, or its canvas, ignore clicks.
+     */
+    private void setMouseTransparent(boolean transparent) {
+        this.board.setCanvasMouseTransparent(transparent);
+        LinkedList<Piece> allPieces = new LinkedList<>(this.board.getPieces(this.whitePlayer));
+        allPieces.addAll(this.board.getPieces(this.blackPlayer));
+        for (Piece all : allPieces) {
+            all.getImageView().setMouseTransparent(transparent);
+        }
+        for (int i = 0; i < Constants.BOARD_WIDTH; i++) {
+            for (int j = 0; j < Constants.BOARD_WIDTH; j++) {
+                this.board.getBoard()[i][j].getMySquare().setMouseTransparent(transparent);
+            }
+        }
+    }
+
+    /**
+     * Takes back the last move on the Board, if there is one.
+     */
+    public void undoMove() {
+        this.jumpToPly(this.history.getCurrentPly() - 1);
+    }
+
+    /**
+     * Plays the next taken back move again, if there is one.
+     */
+    public void redoMove() {
+        this.jumpToPly(this.history.getCurrentPly() + 1);
+    }
+
+    /**
+     * Takes back or plays again moves until the given number of moves is on the Board. Each
+     * step applies the stored PlyDelta of one move, so the Board is never rebuilt. The check
+     * and game over labels are updated once at the end.
+     */
+    public void jumpToPly(int ply) {
+        int target = Math.max(0, Math.min(ply, this.history.getPlyCount()));
+        if (target == this.history.getCurrentPly()) {
+            return;
+        }
+        while (this.history.getCurrentPly() > target) {
+            PlyDelta delta = this.history.undo();
+            delta.undo(this.board);
+            this.prevSelectedPiece = delta.getPrevSelectedBefore();
+            this.switchPlayer();
+        }
+        while (this.history.getCurrentPly() < target) {
+            PlyDelta delta = this.history.redo();
+            delta.redo(this.board);
+            this.prevSelectedPiece = delta.getMoved();
+            this.switchPlayer();
+        }
+        this.selectedPiece = null;
+        this.castle = false;
+        this.setMouseTransparent(false);
+        this.board.getCheckTracker().invalidate();
+        this.updateCheck();
+        if (this.board.getCheck()
+                && (this.board.isCheckmate(this.whitePlayer) || this.board.isCheckmate(this.blackPlayer))) {
+            this.showGameOver();
+        }
+        this.analyze();
+    }
+
+    /**
+     * Starts the background analysis of the Board as it is now, replacing the analysis of
+     * the position before. The evaluation bar is levelled until the first update arrives.
+     */
+    private void analyze() {
+        this.evaluationBar.clear();
+        this.analysis.analyze(this.record.toPosition(this.history.getCurrentPly()), this.isSilly, this.engineKind);
+    }
+
     /**
      * Switches the current player to the opposite color and updates the game label to display
      * the updated player's turn.
@@ -868,6 +1200,13 @@ public class Game {
         return null;
     }
 
+    /**
+     * Accessor method for the GameRecord of the current game.
+     */
+    public GameRecord getRecord() {
+        return this.record;
+    }
+
     /**
      * Accessor method for previously selected piece.
      */
@@ -0,0 +1,316 @@
+package indy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The GameRecord class stores the history of a single game as a compact stream of events.
+ * Each event starts with a varint tag. Moves are stored as 16-bit values (see Move), shifts
+ * store their direction, and transformations store the square, the new piece code, and its
+ * color. The result of the game is appended as a final event once it is known. Games that do
+ * not start from the usual position begin with a setup event holding the FEN of their start.
+ * The record grows at the end, so it can be written to an archive at any time. Moves that were
+ * taken back can be dropped with truncate.
+ */
+public class GameRecord {
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int SILLY_FLAG = 1;
+    static final int CODE_SHIFT = 6;
+    static final int COLOR_SHIFT = 9;
+
+    private byte[] events;
+    private int size;
+    private boolean isSilly;
+    private int plyCount;
+    private int[] plyOffsets;
+    private int result;
+
+    /**
+     * Constructs an empty GameRecord for a game in the given mode.
+     *
+     * @param isSilly {@code true} if the game is played with silly rules.
+     */
+    public GameRecord(boolean isSilly) {
+        this.events = new byte[INITIAL_CAPACITY];
+        this.size = 0;
+        this.isSilly = isSilly;
+        this.plyCount = 0;
+        this.plyOffsets = new int[INITIAL_CAPACITY / 2];
+        this.result = Constants.RESULT_UNFINISHED;
+    }
+
+    /**
+     * Appends a setup event holding the FEN string of the position the game starts from.
+     * It should be added before any move.
+     */
+    public void addSetup(String fen) {
+        byte[] bytes = fen.getBytes(StandardCharsets.US_ASCII);
+        this.writeVarInt(Constants.TAG_SETUP);
+        this.writeVarInt(bytes.length);
+        this.ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, this.events, this.size, bytes.length);
+        this.size += bytes.length;
+    }
+
+    /**
+     * Appends a move event holding the given 16-bit move.
+     */
+    public void addMove(int move) {
+        if (this.plyCount == this.plyOffsets.length) {
+            this.plyOffsets = Arrays.copyOf(this.plyOffsets, this.plyCount * 2);
+        }
+        this.plyOffsets[this.plyCount] = this.size;
+        this.writeVarInt(Constants.TAG_MOVE);
+        this.ensureCapacity(2);
+        this.events[this.size++] = (byte) (move >>> 8);
+        this.events[this.size++] = (byte) move;
+        this.plyCount++;
+    }
+
+    /**
+     * Appends a shift event holding the direction the board was shifted in.
+     */
+    public void addShift(int direction) {
+        this.writeVarInt(Constants.TAG_SHIFT);
+        this.writeVarInt(direction);
+    }
+
+    /**
+     * Appends a transformation event. The square is the square of the transformed piece,
+     * and the code and color describe the lower hierarchy piece that replaced it.
+     */
+    public void addTransform(int square, int code, boolean isWhite) {
+        this.writeVarInt(Constants.TAG_TRANSFORM);
+        this.writeVarInt(square | (code << CODE_SHIFT) | ((isWhite ? 1 : 0) << COLOR_SHIFT));
+    }
+
+    /**
+     * Appends the result event. A record holds at most one result.
+     */
+    public void setResult(int result) {
+        if (this.result == Constants.RESULT_UNFINISHED && result != Constants.RESULT_UNFINISHED) {
+            this.result = result;
+            this.writeVarInt(Constants.TAG_RESULT);
+            this.writeVarInt(result);
+        }
+    }
+
+    /**
+     * Drops every event from the move of the given ply onwards, including the result. This is
+     * used when a player takes moves back and plays a different move.
+     */
+    public void truncate(int ply) {
+        if (ply < this.plyCount) {
+            this.size = this.plyOffsets[ply];
+            this.plyCount = ply;
+            this.result = Constants.RESULT_UNFINISHED;
+        }
+    }
+
+    /**
+     * Writes the record to the stream as a length prefixed block: the varint length, the
+     * varint mode flags, and then the events.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        // the flags always fit in a single varint byte
+        byte[] header = new byte[6];
+        int headerLength = putVarInt(header, 0, 1 + this.size);
+        header[headerLength++] = (byte) (this.isSilly ? SILLY_FLAG : 0);
+        out.write(header, 0, headerLength);
+        out.write(this.events, 0, this.size);
+    }
+
+    /**
+     * Returns a cursor over the events of this record.
+     */
+    public RecordCursor cursor() {
+        RecordCursor cursor = new RecordCursor();
+        cursor.reset(ByteBuffer.wrap(this.events, 0, this.size));
+        return cursor;
+    }
+
+    /**
+     * Returns a cursor over the events from the move of the given ply onwards.
+     */
+    public RecordCursor cursor(int ply) {
+        RecordCursor cursor = new RecordCursor();
+        cursor.reset(ByteBuffer.wrap(this.events), this.plyOffsets[ply], this.size);
+        return cursor;
+    }
+
+    /**
+     * Rebuilds a GameRecord from the events of the cursor, starting at its current position.
+     */
+    public static GameRecord copyOf(boolean isSilly, RecordCursor cursor) {
+        GameRecord record = new GameRecord(isSilly);
+        int tag = cursor.next();
+        while (tag != 0) {
+            switch (tag) {
+                case Constants.TAG_MOVE:
+                    record.addMove(cursor.getMove());
+                    break;
+                case Constants.TAG_SHIFT:
+                    record.addShift(cursor.getDirection());
+                    break;
+                case Constants.TAG_TRANSFORM:
+                    record.addTransform(cursor.getSquare(), cursor.getCode(), cursor.isWhite());
+                    break;
+                case Constants.TAG_RESULT:
+                    record.setResult(cursor.getResult());
+                    break;
+                case Constants.TAG_SETUP:
+                    record.addSetup(cursor.getSetup());
+                    break;
+            }
+            tag = cursor.next();
+        }
+        return record;
+    }
+
+    /**
+     * Replays the first moves of the record, with their silly shifts and transformations, onto
+     * a new Position. This is how the Board of a Game is handed to the Engine.
+     *
+     * @param ply The number of moves to replay.
+     */
+    public Position toPosition(int ply) {
+        Position position = Position.startPosition();
+        RecordCursor cursor = this.cursor();
+        int played = 0;
+        int tag = cursor.next();
+        while (tag != 0) {
+            switch (tag) {
+                case Constants.TAG_SETUP:
+                    position = Position.fromFen(cursor.getSetup());
+                    break;
+                case Constants.TAG_MOVE:
+                    if (played == ply) {
+                        return position;
+                    }
+                    position.makeMove(cursor.getMove());
+                    played++;
+                    break;
+                case Constants.TAG_SHIFT:
+                    position.shift(cursor.getDirection());
+                    break;
+                case Constants.TAG_TRANSFORM:
+                    position.transform(cursor.getSquare(), cursor.isWhite() ? cursor.getCode() : -cursor.getCode());
+                    break;
+            }
+            tag = cursor.next();
+        }
+        return position;
+    }
+
+    /**
+     * Returns the piece code for the type name of a Piece.
+     */
+    public static int pieceCode(String type) {
+        switch (type) {
+            case Constants.PAWN:
+                return Constants.PAWN_CODE;
+            case Constants.KNIGHT:
+                return Constants.KNIGHT_CODE;
+            case Constants.BISHOP:
+                return Constants.BISHOP_CODE;
+            case Constants.ROOK:
+                return Constants.ROOK_CODE;
+            case Constants.QUEEN:
+                return Constants.QUEEN_CODE;
+            case Constants.KING:
+                return Constants.KING_CODE;
+            default:
+                return Constants.EMPTY_CODE;
+        }
+    }
+
+    /**
+     * Returns the type name of a Piece for the piece code, the reverse of pieceCode, or null
+     * for EMPTY_CODE.
+     */
+    public static String typeName(int code) {
+        switch (Math.abs(code)) {
+            case Constants.PAWN_CODE:
+                return Constants.PAWN;
+            case Constants.KNIGHT_CODE:
+                return Constants.KNIGHT;
+            case Constants.BISHOP_CODE:
+                return Constants.BISHOP;
+            case Constants.ROOK_CODE:
+                return Constants.ROOK;
+            case Constants.QUEEN_CODE:
+                return Constants.QUEEN;
+            case Constants.KING_CODE:
+                return Constants.KING;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns true if the record has silly mode flags set.
+     */
+    public static boolean isSillyFlag(int flags) {
+        return (flags & SILLY_FLAG) != 0;
+    }
+
+    /**
+     * Accessor method for whether the game was played with silly rules.
+     */
+    public boolean isSilly() {
+        return this.isSilly;
+    }
+
+    /**
+     * Accessor method for the number of moves recorded.
+     */
+    public int getPlyCount() {
+        return this.plyCount;
+    }
+
+    /**
+     * Accessor method for the result of the game.
+     */
+    public int getResult() {
+        return this.result;
+    }
+
+    /**
+     * Accessor method for the number of bytes of events recorded.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Writes an unsigned varint, seven bits at a time, into the event buffer.
+     */
+    private void writeVarInt(int value) {
+        this.ensureCapacity(5);
+        this.size = putVarInt(this.events, this.size, value);
+    }
+
+    /**
+     * Writes an unsigned varint into the array at the offset and returns the new offset.
+     */
+    private static int putVarInt(byte[] bytes, int offset, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+
+    /**
+     * Grows the event buffer so that it can hold the given number of extra bytes.
+     */
+    private void ensureCapacity(int extra) {
+        if (this.size + extra > this.events.length) {
+            this.events = Arrays.copyOf(this.events, Math.max(this.events.length * 2, this.size + extra));
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package indy;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The GameRecordReader class scans a game archive written by GameRecordWriter. The archive
+ * is memory-mapped in windows of RECORD_MAP_WINDOW bytes, so archives larger than a single
+ * mapping can be read, and games are decoded straight from the mapping without copying.
+ * A typical scan calls nextGame until it returns false and walks the events of each game
+ * with the shared cursor.
+ */
+public class GameRecordReader implements Closeable {
+    private static final int MAX_HEADER = 6; // (UNITS: bytes)
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private long fileSize;
+    private long gameStart;
+    private int gameEnd;
+    private boolean isSilly;
+    private RecordCursor cursor;
+
+    /**
+     * Opens the archive at the given path and checks its magic number.
+     *
+     * @param path The path of the archive file.
+     */
+    public GameRecordReader(String path) throws IOException {
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        this.fileSize = this.channel.size();
+        this.cursor = new RecordCursor();
+        this.map(0);
+        if (this.fileSize < Integer.BYTES || this.window.getInt() != Constants.RECORD_MAGIC) {
+            this.channel.close();
+            throw new IOException(path + " is not a game archive");
+        }
+        this.gameStart = Integer.BYTES;
+        this.gameEnd = Integer.BYTES;
+    }
+
+    /**
+     * Advances to the next game of the archive. Returns false once every game has been read.
+     * The events of the game can then be read through getCursor.
+     */
+    public boolean nextGame() throws IOException {
+        long next = this.windowStart + this.gameEnd;
+        if (next >= this.fileSize) {
+            return false;
+        }
+        if (next + MAX_HEADER > this.windowStart + this.window.limit()) {
+            this.map(next);
+        }
+        this.window.position((int) (next - this.windowStart));
+        int length = RecordCursor.readVarInt(this.window);
+        long bodyStart = this.windowStart + this.window.position();
+        if (bodyStart + length > this.fileSize) {
+            throw new IOException("truncated game at offset " + next);
+        }
+        if (bodyStart + length > this.windowStart + this.window.limit()) {
+            this.map(next);
+            this.window.position((int) (next - this.windowStart));
+            RecordCursor.readVarInt(this.window);
+        }
+        this.gameStart = next;
+        this.isSilly = GameRecord.isSillyFlag(this.window.get());
+        this.gameEnd = (int) (bodyStart - this.windowStart) + length;
+        this.cursor.reset(this.window, this.window.position(), this.gameEnd);
+        return true;
+    }
+
+    /**
+     * Returns the cursor over the events of the current game. The cursor is reused for every
+     * game, so it should not be kept after calling nextGame again.
+     */
+    public RecordCursor getCursor() {
+        return this.cursor;
+    }
+
+    /**
+     * Copies the remaining events of the current game into a new GameRecord.
+     */
+    public GameRecord readGame() {
+        return GameRecord.copyOf(this.isSilly, this.cursor);
+    }
+
+    /**
+     * Returns true if the current game was played with silly rules.
+     */
+    public boolean isSilly() {
+        return this.isSilly;
+    }
+
+    /**
+     * Returns the byte offset of the current game in the archive.
+     */
+    public long getGameOffset() {
+        return this.gameStart;
+    }
+
+    /**
+     * Maps the window of the archive that starts at the given byte offset.
+     */
+    private void map(long start) throws IOException {
+        long length = Math.min(Constants.RECORD_MAP_WINDOW, this.fileSize - start);
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        this.windowStart = start;
+    }
+
+    /**
+     * Closes the archive file. The mapping is released once it is garbage collected.
+     */
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
@@ -0,0 +1,66 @@
+package indy;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/**
+ * The GameRecordWriter class appends finished games to a game archive. An archive starts
+ * with a 4 byte magic number followed by one length prefixed block per game (see
+ * GameRecord.writeTo). The archive is only ever appended to, so a writer can be opened on an
+ * existing archive and games from several sessions end up in the same file.
+ */
+public class GameRecordWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16; // (UNITS: bytes)
+    private DataOutputStream out;
+    private long gameCount;
+
+    /**
+     * Opens the archive at the given path for appending. If the archive is new or empty,
+     * the magic number is written first.
+     *
+     * @param path The path of the archive file.
+     */
+    public GameRecordWriter(String path) throws IOException {
+        File file = new File(path);
+        boolean isNew = !file.exists() || file.length() == 0;
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE));
+        this.gameCount = 0;
+        if (isNew) {
+            this.out.writeInt(Constants.RECORD_MAGIC);
+        }
+    }
+
+    /**
+     * Appends a game to the archive.
+     */
+    public void append(GameRecord record) throws IOException {
+        record.writeTo(this.out);
+        this.gameCount++;
+    }
+
+    /**
+     * Flushes buffered games to the archive file.
+     */
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    /**
+     * Accessor method for the number of games appended by this writer.
+     */
+    public long getGameCount() {
+        return this.gameCount;
+    }
+
+    /**
+     * Flushes and closes the archive file.
+     */
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+}
@@ -0,0 +1,206 @@
+package indy;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The GameServer class hosts many basic and silly games at once without a window. Clients
+ * talk to it one line at a time, over a local socket or through stdin and stdout, and every
+ * socket session runs on its own virtual thread, so thousands of sessions only cost a few
+ * carrier threads. A game is a ServerGame, which any session may play by its number.
+ * Commands (each answered with one line, or "error message"):
+ * new [basic|silly] -> game id
+ * move id e2e4 -> ok id e2e4 [shift direction] [transform square piece] [result winner]
+ * fen id, moves id, state id, resign id, close id, count, quit
+ * Closed games are appended to the archive. The protocol has no passwords, so the socket
+ * only listens on the loopback address unless remote connections are asked for.
+ * Running the main method starts a server:
+ * GameServer [port [remote]] (with no port, the server reads commands from stdin)
+ */
+public class GameServer {
+    private final ConcurrentHashMap<Integer, ServerGame> games;
+    private final AtomicInteger nextId;
+    private final AtomicInteger sessions;
+    private final GameRecordWriter archive;
+    private final ReentrantLock archiveLock;
+
+    /**
+     * Constructs a GameServer with no games.
+     *
+     * @param archive The writer closed games are appended to, or null to drop them.
+     */
+    public GameServer(GameRecordWriter archive) {
+        this.games = new ConcurrentHashMap<>();
+        this.nextId = new AtomicInteger(1);
+        this.sessions = new AtomicInteger();
+        this.archive = archive;
+        this.archiveLock = new ReentrantLock();
+    }
+
+    /**
+     * Accepts socket connections from this machine on the port forever, starting a virtual
+     * thread for each.
+     */
+    public void serve(int port) throws IOException {
+        this.serve(port, false);
+    }
+
+    /**
+     * Accepts socket connections on the port forever, starting a virtual thread for each.
+     *
+     * @param port   The port to listen on.
+     * @param remote Whether to listen on every network interface instead of only the
+     *               loopback address. Anyone who can reach the port can then play.
+     */
+    public void serve(int port, boolean remote) throws IOException {
+        InetAddress address = remote ? null : InetAddress.getLoopbackAddress();
+        try (ServerSocket server = new ServerSocket(port, 0, address)) {
+            while (true) {
+                Socket socket = server.accept();
+                Thread.ofVirtual().name("session-" + this.sessions.incrementAndGet()).start(() -> this.session(socket));
+            }
+        }
+    }
+
+    /**
+     * Runs the session of one socket until the client quits or disconnects.
+     */
+    private void session(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()))) {
+            this.session(in, out);
+        } catch (IOException e) {
+            // the client went away, and its games stay on the server
+        }
+    }
+
+    /**
+     * Answers the commands read from the reader until it ends or the client quits.
+     */
+    public void session(BufferedReader in, Writer out) throws IOException {
+        String line = in.readLine();
+        while (line != null) {
+            String reply = this.handle(line.trim());
+            if (reply == null) {
+                return;
+            }
+            out.write(reply);
+            out.write('\n');
+            out.flush();
+            line = in.readLine();
+        }
+    }
+
+    /**
+     * Carries out one command and returns the reply, or null if the client quits.
+     */
+    public String handle(String line) {
+        String[] words = line.split("\\s+");
+        try {
+            switch (words[0]) {
+                case "new":
+                    return this.newGame(words.length > 1 && words[1].equals("silly"));
+                case "move":
+                    if (words.length < 3) {
+                        throw new IllegalArgumentException("usage: move id e2e4");
+                    }
+                    return "ok " + words[1] + " " + this.game(words).play(words[2]);
+                case "fen":
+                    return "fen " + words[1] + " " + this.game(words).fen();
+                case "moves":
+                    return "moves " + words[1] + " " + this.game(words).legalMoves();
+                case "state":
+                    return "state " + words[1] + " " + this.game(words).state();
+                case "resign":
+                    this.game(words).resign();
+                    return "state " + words[1] + " " + this.game(words).state();
+                case "close":
+                    this.close(this.game(words));
+                    return "closed " + words[1];
+                case "count":
+                    return "games " + this.games.size();
+                case "quit":
+                    return null;
+                default:
+                    return "error unknown command " + words[0];
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return "error " + e.getMessage();
+        }
+    }
+
+    /**
+     * Starts a new game and returns the reply with its number.
+     */
+    private String newGame(boolean isSilly) {
+        int id = this.nextId.getAndIncrement();
+        this.games.put(id, new ServerGame(id, isSilly, System.nanoTime() ^ id));
+        return "game " + id;
+    }
+
+    /**
+     * Returns the game whose number is the second word of the command.
+     */
+    private ServerGame game(String[] words) {
+        if (words.length < 2) {
+            throw new IllegalArgumentException("missing game number");
+        }
+        ServerGame game = this.games.get(Integer.parseInt(words[1]));
+        if (game == null) {
+            throw new IllegalArgumentException("no game " + words[1]);
+        }
+        return game;
+    }
+
+    /**
+     * Removes a game from the server and appends it to the archive if it has any moves.
+     */
+    private void close(ServerGame game) {
+        if (this.games.remove(game.getId()) == null || this.archive == null || game.getRecord().getPlyCount() == 0) {
+            return;
+        }
+        this.archiveLock.lock();
+        try {
+            this.archive.append(game.getRecord());
+            this.archive.flush();
+        } catch (IOException e) {
+            System.err.println("could not archive game " + game.getId() + ": " + e.getMessage());
+        } finally {
+            this.archiveLock.unlock();
+        }
+    }
+
+    /**
+     * Accessor method for the number of games on the server.
+     */
+    public int getGameCount() {
+        return this.games.size();
+    }
+
+    /**
+     * Starts a server on the given port, or on stdin and stdout if there is no port. The
+     * server only takes connections from other machines if "remote" follows the port.
+     */
+    public static void main(String[] args) throws IOException {
+        try (GameRecordWriter archive = new GameRecordWriter(Constants.GAME_ARCHIVE)) {
+            GameServer server = new GameServer(archive);
+            if (args.length > 0) {
+                server.serve(Integer.parseInt(args[0]), args.length > 1 && args[1].equals("remote"));
+            } else {
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out));
+                server.session(new BufferedReader(new InputStreamReader(System.in)), out);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package indy;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The LatencyHistogram class counts the calls of one hot path and how long they took. Times
+ * are sorted into buckets by their highest bit, so bucket b holds the calls that took from
+ * 2^(b-1) up to 2^b nanoseconds, which is exact enough to tell a microsecond from a
+ * millisecond and needs no locking. Every count is a LongAdder, which spreads the updates of
+ * different threads over separate cells, so the UI thread and the search threads do not
+ * fight over one counter.
+ * Recording does nothing unless Metrics.ENABLED is set (see Metrics).
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+    private static final int PERCENT = 100;
+    private static final int MEDIAN = 50;
+    private static final int P99 = 99;
+    private final String name;
+    private final LongAdder count;
+    private final LongAdder totalNanos;
+    private final LongAccumulator maxNanos;
+    private final LongAdder[] buckets;
+
+    /**
+     * Constructs an empty LatencyHistogram.
+     *
+     * @param name The name it is shown under in JMX and in the dump file.
+     */
+    public LatencyHistogram(String name) {
+        this.name = name;
+        this.count = new LongAdder();
+        this.totalNanos = new LongAdder();
+        this.maxNanos = new LongAccumulator(Math::max, 0L);
+        this.buckets = new LongAdder[Long.SIZE + 1];
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a call that started at the given Metrics.start time and ends now.
+     */
+    public void stop(long start) {
+        if (!Metrics.ENABLED) {
+            return;
+        }
+        this.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Records a call that took the given time.
+     */
+    public void record(long nanos) {
+        long time = Math.max(0L, nanos);
+        this.count.increment();
+        this.totalNanos.add(time);
+        this.maxNanos.accumulate(time);
+        this.buckets[Long.SIZE - Long.numberOfLeadingZeros(time)].increment();
+    }
+
+    /**
+     * Accessor method for the name.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Returns the number of calls recorded.
+     */
+    @Override
+    public long getCount() {
+        return this.count.sum();
+    }
+
+    /**
+     * Returns the time of all the calls together.
+     */
+    @Override
+    public long getTotalNanos() {
+        return this.totalNanos.sum();
+    }
+
+    /**
+     * Returns the average time of a call, or 0 if there was none.
+     */
+    @Override
+    public long getMeanNanos() {
+        long calls = this.count.sum();
+        return calls == 0 ? 0L : this.totalNanos.sum() / calls;
+    }
+
+    /**
+     * Returns the longest call.
+     */
+    @Override
+    public long getMaxNanos() {
+        return this.maxNanos.get();
+    }
+
+    /**
+     * Returns the time half of the calls took at most.
+     */
+    @Override
+    public long getP50Nanos() {
+        return this.percentile(MEDIAN);
+    }
+
+    /**
+     * Returns the time 99 out of 100 calls took at most.
+     */
+    @Override
+    public long getP99Nanos() {
+        return this.percentile(P99);
+    }
+
+    /**
+     * Forgets every call recorded so far.
+     */
+    @Override
+    public void reset() {
+        this.count.reset();
+        this.totalNanos.reset();
+        this.maxNanos.reset();
+        for (LongAdder bucket : this.buckets) {
+            bucket.reset();
+        }
+    }
+
+    /**
+     * Returns the upper bound of the bucket the given percent of the calls fall into, or 0
+     * if there was no call. The buckets are read one by one while other threads may still
+     * record, so the result is only as exact as a snapshot can be.
+     */
+    private long percentile(int percent) {
+        long[] counts = new long[this.buckets.length];
+        long calls = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = this.buckets[i].sum();
+            calls += counts[i];
+        }
+        long wanted = (calls * percent + PERCENT - 1) / PERCENT;
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= wanted && seen > 0) {
+                return i == 0 ? 0L : i >= Long.SIZE - 1 ? Long.MAX_VALUE : 1L << i;
+            }
+        }
+        return 0L;
+    }
+}
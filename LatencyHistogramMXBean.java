@@ -0,0 +1,43 @@
+package indy;
+
+/**
+ * The LatencyHistogramMXBean interface is what JMX tools like JConsole see of a
+ * LatencyHistogram. Every time is in nanoseconds.
+ */
+public interface LatencyHistogramMXBean {
+
+    /**
+     * Returns the number of calls recorded.
+     */
+    long getCount();
+
+    /**
+     * Returns the time of all the calls together.
+     */
+    long getTotalNanos();
+
+    /**
+     * Returns the average time of a call, or 0 if there was none.
+     */
+    long getMeanNanos();
+
+    /**
+     * Returns the longest call.
+     */
+    long getMaxNanos();
+
+    /**
+     * Returns the time half of the calls took at most, rounded up to a power of 2.
+     */
+    long getP50Nanos();
+
+    /**
+     * Returns the time 99 out of 100 calls took at most, rounded up to a power of 2.
+     */
+    long getP99Nanos();
+
+    /**
+     * Forgets every call recorded so far.
+     */
+    void reset();
+}
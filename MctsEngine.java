@@ -0,0 +1,593 @@
+package indy;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The MctsEngine class searches a Position by Monte Carlo tree search, as the other choice
+ * next to the alpha-beta Engine. The alpha-beta search cannot see past a silly shift, since
+ * where the board goes and which piece changes color is random; the tree here treats each
+ * shift as a chance node whose children are the outcomes drawn so far. Every iteration walks
+ * down the tree by UCT at the nodes where a side chooses a move, draws the outcome at each
+ * chance node, adds one new node, plays a short playout from it (see SillySimulator's light
+ * policy), scores the end of the playout with Evaluation, and adds the result to every node
+ * on the way back up.
+ * A node where a side chooses gets one child per iteration until every legal move has one,
+ * captures first. A chance node only gets a new outcome while it has fewer than
+ * MCTS_WIDENING * visits ^ MCTS_WIDENING_POWER of them (progressive widening); after that
+ * its outcomes are revisited in proportion to their visits, so the tree goes deep instead of
+ * listing every shift.
+ * All threads grow the same tree (tree parallelism). A thread counts its visit on the way
+ * down and its result on the way back up, so until it is back, its path looks like a lost
+ * game to the other threads (a virtual loss) and they spread out over other moves. The nodes
+ * live in parallel arrays of ints, longs, and bytes sized by setHash (an arena), updated with
+ * atomic VarHandle operations, so a search allocates no objects per node and the garbage
+ * collector has nothing to do. Once the arena is full the tree stops growing and the
+ * iterations only refine the nodes it has.
+ */
+public final class MctsEngine implements Searcher {
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final int NONE = -1;
+    private static final int UNCOUNTED = -1;
+    private static final byte CHOICE = 0;
+    private static final byte CHANCE = 1;
+    private static final byte OPEN = 0;
+    private static final byte WON = 1;
+    private static final byte LOST = 2;
+    private static final byte DRAWN = 3;
+    private static final int CAPTURE_PRIORITY = 100;
+    private static final int PROMOTION_PRIORITY = 90;
+    private final AtomicInteger size;
+    private final AtomicLong playouts;
+    private final AtomicInteger deepest;
+    private int capacity;
+    private int[] moves;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] childCount;
+    private int[] moveTotal;
+    private int[] visits;
+    private long[] scores;
+    private byte[] kinds;
+    private byte[] terminal;
+    private int threads;
+    private boolean isSilly;
+    private volatile boolean stopped;
+    private long deadline;
+    private long maxPlayouts;
+    private int maxDepth;
+    private Engine.Listener listener;
+
+    /**
+     * Constructs an MctsEngine with one thread and an arena of DEFAULT_HASH megabytes. The
+     * arena is only allocated by the first search.
+     */
+    public MctsEngine() {
+        this.size = new AtomicInteger();
+        this.playouts = new AtomicLong();
+        this.deepest = new AtomicInteger();
+        this.threads = 1;
+        this.isSilly = false;
+        this.setHash(Constants.DEFAULT_HASH);
+    }
+
+    /**
+     * Searches the Position and returns the most visited move, or 0 if there is no legal
+     * move. The Position itself is not changed. The tree is grown until the time or playout
+     * (node) limit, until a line of the tree is longer than maxDepth, or until stop.
+     *
+     * @param position The Position to search.
+     * @param maxDepth The longest line of moves to grow, at most MAX_PLY - 1.
+     * @param millis   The time to search, or 0 for no time limit.
+     * @param maxNodes The playouts to play, or 0 for no limit.
+     * @param listener The Listener told about the search as the tree grows, or null.
+     */
+    @Override
+    public int search(Position position, int maxDepth, long millis, long maxNodes, Engine.Listener listener) {
+        if (this.moves == null || this.moves.length != this.capacity) {
+            this.allocate();
+        }
+        this.stopped = false;
+        long start = System.nanoTime();
+        this.deadline = millis > 0 ? start + millis * 1_000_000L : Long.MAX_VALUE;
+        this.maxPlayouts = maxNodes;
+        this.maxDepth = Math.min(maxDepth, Constants.MAX_PLY - 1);
+        this.listener = listener;
+        this.size.set(0);
+        this.playouts.set(0);
+        this.deepest.set(0);
+        this.newNode(0, CHOICE);
+        Worker[] workers = new Worker[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            workers[i] = new Worker(i, position.copy(), start);
+        }
+        Thread[] helpers = new Thread[this.threads - 1];
+        for (int i = 1; i < this.threads; i++) {
+            helpers[i - 1] = new Thread(workers[i]::iterate, "mcts-" + i);
+            helpers[i - 1].start();
+        }
+        workers[0].iterate();
+        this.stopped = true;
+        for (Thread helper : helpers) {
+            try {
+                helper.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers[0].report();
+        int best = this.mostVisited(0);
+        if (best != NONE) {
+            return this.moves[best];
+        }
+        int[] legal = new int[Position.MAX_MOVES];
+        return position.legalMoves(legal) > 0 ? legal[0] : 0;
+    }
+
+    /**
+     * Stops the search as soon as possible. The most visited move so far is returned by search.
+     */
+    @Override
+    public void stop() {
+        this.stopped = true;
+    }
+
+    /**
+     * Does nothing, since the tree is grown from scratch by every search.
+     */
+    @Override
+    public void newGame() {
+    }
+
+    /**
+     * Returns the playouts of all threads during the last search.
+     */
+    @Override
+    public long getNodes() {
+        return this.playouts.get();
+    }
+
+    /**
+     * Sets the number of threads growing the tree.
+     */
+    @Override
+    public void setThreads(int threads) {
+        this.threads = Math.max(1, Math.min(threads, Constants.MAX_THREADS));
+    }
+
+    /**
+     * Sets the size of the arena in megabytes. It is allocated again by the next search.
+     */
+    @Override
+    public void setHash(int megabytes) {
+        long bytes = (long) Math.max(1, Math.min(megabytes, Constants.MAX_HASH)) << 20;
+        this.capacity = (int) Math.min(bytes / Constants.MCTS_NODE_BYTES, Integer.MAX_VALUE - 1);
+    }
+
+    /**
+     * Sets whether positions are played with silly rules, which adds the chance nodes.
+     */
+    @Override
+    public void setSilly(boolean isSilly) {
+        this.isSilly = isSilly;
+    }
+
+    /**
+     * Allocates the arrays of the arena.
+     */
+    private void allocate() {
+        this.moves = new int[this.capacity];
+        this.firstChild = new int[this.capacity];
+        this.nextSibling = new int[this.capacity];
+        this.childCount = new int[this.capacity];
+        this.moveTotal = new int[this.capacity];
+        this.visits = new int[this.capacity];
+        this.scores = new long[this.capacity];
+        this.kinds = new byte[this.capacity];
+        this.terminal = new byte[this.capacity];
+    }
+
+    /**
+     * Takes the next node of the arena and sets it up with one visit, the one of the thread
+     * that adds it. Returns NONE if the arena is full.
+     *
+     * @param move The move into the node, or for the child of a chance node, its outcome.
+     * @param kind CHOICE or CHANCE.
+     */
+    private int newNode(int move, byte kind) {
+        if (this.size.get() >= this.capacity) {
+            return NONE;
+        }
+        int node = this.size.getAndIncrement();
+        if (node >= this.capacity) {
+            return NONE;
+        }
+        this.moves[node] = move;
+        this.kinds[node] = kind;
+        this.firstChild[node] = NONE;
+        this.nextSibling[node] = NONE;
+        this.childCount[node] = 0;
+        this.moveTotal[node] = UNCOUNTED;
+        this.terminal[node] = OPEN;
+        this.visits[node] = 1;
+        this.scores[node] = 0L;
+        return node;
+    }
+
+    /**
+     * Adds a new node to the front of the children of the parent. The compare-and-set
+     * publishes the fields of the child set before it to every thread that reads the list.
+     */
+    private void link(int parent, int child) {
+        int head;
+        do {
+            head = (int) INTS.getAcquire(this.firstChild, parent);
+            this.nextSibling[child] = head;
+        } while (!INTS.compareAndSet(this.firstChild, parent, head, child));
+    }
+
+    /**
+     * Returns the child with the most visits, or NONE if the node has no children.
+     */
+    private int mostVisited(int node) {
+        int best = NONE;
+        int bestVisits = -1;
+        for (int child = (int) INTS.getAcquire(this.firstChild, node); child != NONE; child = this.nextSibling[child]) {
+            int count = (int) INTS.getOpaque(this.visits, child);
+            if (count > bestVisits) {
+                best = child;
+                bestVisits = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the share of the results of a node won by the side that moved into it, from 0
+     * to 1.
+     */
+    private double value(int node) {
+        int count = (int) INTS.getOpaque(this.visits, node);
+        long score = (long) LONGS.getOpaque(this.scores, node);
+        return count == 0 ? 0.5 : score / ((double) Constants.MCTS_SCORE_UNIT * count);
+    }
+
+    /**
+     * The Worker class is one thread growing the tree, with its own Position, Random, and
+     * path from the root.
+     */
+    private class Worker {
+        private final int id;
+        private final Position position;
+        private final int rootPly;
+        private final long start;
+        private final Random random;
+        private final int[] list;
+        private final int[] priorities;
+        private final int[] path;
+        private final boolean[] pathWhite;
+        private int reportedDepth;
+        private long reportedAt;
+        private boolean grown;
+
+        /**
+         * Constructs a Worker on its own copy of the root Position.
+         */
+        Worker(int id, Position position, long start) {
+            this.id = id;
+            this.position = position;
+            this.rootPly = position.getPlyCount();
+            this.start = start;
+            this.random = new Random();
+            this.list = new int[Position.MAX_MOVES];
+            this.priorities = new int[Position.MAX_MOVES];
+            this.path = new int[Constants.MAX_PLY];
+            this.pathWhite = new boolean[Constants.MAX_PLY];
+            this.reportedDepth = 0;
+            this.reportedAt = start;
+        }
+
+        /**
+         * Runs iterations until the search is stopped. The first thread also checks the
+         * limits and reports to the Listener when the tree gets deeper, or every
+         * MCTS_REPORT_PERIOD milliseconds.
+         */
+        void iterate() {
+            while (!MctsEngine.this.stopped) {
+                this.iteration();
+                long played = MctsEngine.this.playouts.incrementAndGet();
+                if (this.id != 0) {
+                    continue;
+                }
+                long now = System.nanoTime();
+                int depth = MctsEngine.this.deepest.get();
+                if (now > MctsEngine.this.deadline || depth > MctsEngine.this.maxDepth
+                        || (MctsEngine.this.maxPlayouts > 0 && played >= MctsEngine.this.maxPlayouts)) {
+                    MctsEngine.this.stopped = true;
+                } else if (depth > this.reportedDepth
+                        || now - this.reportedAt > Constants.MCTS_REPORT_PERIOD * 1_000_000L) {
+                    this.report();
+                }
+            }
+        }
+
+        /**
+         * Tells the Listener the depth of the tree, the score of the most visited move, and
+         * the line of most visited moves up to the first chance node.
+         */
+        void report() {
+            this.reportedDepth = MctsEngine.this.deepest.get();
+            this.reportedAt = System.nanoTime();
+            Engine.Listener told = MctsEngine.this.listener;
+            int best = MctsEngine.this.mostVisited(0);
+            if (told == null || best == NONE) {
+                return;
+            }
+            int[] pv = new int[Constants.MAX_PLY];
+            int pvLength = 0;
+            int node = best;
+            while (node != NONE && pvLength < pv.length) {
+                pv[pvLength++] = MctsEngine.this.moves[node];
+                if (MctsEngine.this.kinds[node] == CHANCE) {
+                    break;
+                }
+                node = MctsEngine.this.mostVisited(node);
+            }
+            double value = MctsEngine.this.value(best);
+            double odds = Math.max(value, Double.MIN_NORMAL) / Math.max(1.0 - value, Double.MIN_NORMAL);
+            int score = (int) Math.round(Constants.MCTS_EVAL_SCALE * Math.log10(odds));
+            score = Math.max(-Constants.MCTS_MAX_SCORE, Math.min(score, Constants.MCTS_MAX_SCORE));
+            told.onIteration(this.reportedDepth, score, MctsEngine.this.playouts.get(),
+                    (this.reportedAt - this.start) / 1_000_000, pv, pvLength);
+        }
+
+        /**
+         * Walks from the root to a new node or an end of the game, counting a visit on every
+         * node passed, plays a playout if the game goes on, adds the result to the nodes on
+         * the path, and takes the moves back.
+         */
+        private void iteration() {
+            int node = 0;
+            int length = 0;
+            int depth = 0;
+            int result = NONE;
+            this.grown = false;
+            INTS.getAndAdd(MctsEngine.this.visits, 0, 1);
+            while (!this.grown && length < this.path.length) {
+                this.path[length] = node;
+                this.pathWhite[length] = this.position.isWhiteToMove();
+                length++;
+                int child;
+                if (MctsEngine.this.kinds[node] == CHANCE) {
+                    int outcome = SillyRules.randomOutcome(this.position, this.random);
+                    child = length < this.path.length ? this.chooseOutcome(node, outcome) : NONE;
+                    SillyRules.applyOutcome(this.position, child == NONE ? outcome : MctsEngine.this.moves[child], null);
+                } else {
+                    result = this.terminalResult(node);
+                    if (result != NONE || length == this.path.length) {
+                        break;
+                    }
+                    child = this.expand(node);
+                    if (child == NONE) {
+                        child = this.select(node);
+                    }
+                    if (child != NONE) {
+                        this.position.makeMove(MctsEngine.this.moves[child]);
+                        depth++;
+                    }
+                }
+                if (child == NONE) {
+                    break;
+                }
+                node = child;
+            }
+            if (this.grown) {
+                this.path[length] = node;
+                this.pathWhite[length] = this.position.isWhiteToMove();
+                length++;
+                if (MctsEngine.this.kinds[node] == CHANCE) {
+                    SillyRules.applyOutcome(this.position, SillyRules.randomOutcome(this.position, this.random), null);
+                }
+            }
+            if (result == NONE) {
+                result = this.playout();
+            }
+            for (int i = 0; i < length; i++) {
+                // each node keeps the results of the side that moved into it
+                int score = this.pathWhite[i] ? Constants.MCTS_SCORE_UNIT - result : result;
+                LONGS.getAndAdd(MctsEngine.this.scores, this.path[i], (long) score);
+            }
+            MctsEngine.this.deepest.accumulateAndGet(depth, Math::max);
+            while (this.position.getPlyCount() > this.rootPly) {
+                this.position.undo();
+            }
+        }
+
+        /**
+         * Returns the result of the game at a node where a side chooses, for white, if it is
+         * over (a King left to be taken after a shift, checkmate, stalemate, bare Kings, or a
+         * repetition in basic mode), or NONE if it goes on. The legal moves are counted the
+         * first time the node is reached.
+         */
+        private int terminalResult(int node) {
+            int total = (int) INTS.getAcquire(MctsEngine.this.moveTotal, node);
+            if (total == UNCOUNTED) {
+                byte state = OPEN;
+                boolean white = this.position.isWhiteToMove();
+                total = this.position.legalMoves(this.list);
+                if (MctsEngine.this.isSilly && this.position.isInCheck(!white)) {
+                    state = WON;
+                } else if (total == 0) {
+                    state = this.position.isInCheck() ? LOST : DRAWN;
+                } else if (this.position.occupied() == this.position.pieces(Constants.KING_CODE)
+                        || (!MctsEngine.this.isSilly && this.position.isRepetition())) {
+                    state = DRAWN;
+                }
+                MctsEngine.this.terminal[node] = state;
+                INTS.setRelease(MctsEngine.this.moveTotal, node, total);
+            }
+            byte state = MctsEngine.this.terminal[node];
+            if (state == OPEN) {
+                return NONE;
+            }
+            boolean whiteWins = this.position.isWhiteToMove() == (state == WON);
+            return state == DRAWN ? Constants.MCTS_SCORE_UNIT / 2 : whiteWins ? Constants.MCTS_SCORE_UNIT : 0;
+        }
+
+        /**
+         * Adds the next move of the node as a child, if it has moves without one and this
+         * thread wins the race for it, and returns the child. Returns NONE if nothing was
+         * added. The moves are taken in a fixed order, captures of the most valuable pieces
+         * first, so every thread agrees on which move comes next.
+         */
+        private int expand(int node) {
+            int total = MctsEngine.this.moveTotal[node];
+            int count = (int) INTS.getVolatile(MctsEngine.this.childCount, node);
+            if (count >= total || !INTS.compareAndSet(MctsEngine.this.childCount, node, count, count + 1)) {
+                return NONE;
+            }
+            int move = this.orderedMove(count);
+            byte kind = MctsEngine.this.isSilly && SillyRules.isShiftingCapture(this.position, move) ? CHANCE : CHOICE;
+            int child = MctsEngine.this.newNode(move, kind);
+            if (child != NONE) {
+                MctsEngine.this.link(node, child);
+                this.grown = true;
+            }
+            return child;
+        }
+
+        /**
+         * Returns the legal move at the index, in order of priority: captures by the value of
+         * the piece taken, then promotions, then the rest in the order they were generated.
+         */
+        private int orderedMove(int index) {
+            int count = this.position.legalMoves(this.list);
+            for (int i = 0; i < count; i++) {
+                int move = this.list[i];
+                int priority = 0;
+                if (Move.isCapture(move)) {
+                    priority = CAPTURE_PRIORITY + Evaluation.pieceValue(this.position.pieceAt(Move.to(move)))
+                            / Evaluation.PIECE_VALUES[Constants.PAWN_CODE];
+                } else if (Move.isPromotion(move)) {
+                    priority = PROMOTION_PRIORITY;
+                }
+                int j = i;
+                while (j > 0 && this.priorities[j - 1] < priority) {
+                    this.list[j] = this.list[j - 1];
+                    this.priorities[j] = this.priorities[j - 1];
+                    j--;
+                }
+                this.list[j] = move;
+                this.priorities[j] = priority;
+            }
+            return this.list[Math.min(index, count - 1)];
+        }
+
+        /**
+         * Returns the child of the node with the best UCT value: its share of the results
+         * plus MCTS_EXPLORATION * sqrt(ln(visits of the node) / visits of the child), and
+         * counts its visit. Returns NONE if the node has no child yet.
+         */
+        private int select(int node) {
+            double logVisits = Math.log((int) INTS.getOpaque(MctsEngine.this.visits, node));
+            int best = NONE;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (int child = (int) INTS.getAcquire(MctsEngine.this.firstChild, node); child != NONE;
+                 child = MctsEngine.this.nextSibling[child]) {
+                int count = Math.max(1, (int) INTS.getOpaque(MctsEngine.this.visits, child));
+                double value = MctsEngine.this.value(child) + Constants.MCTS_EXPLORATION * Math.sqrt(logVisits / count);
+                if (value > bestValue) {
+                    best = child;
+                    bestValue = value;
+                }
+            }
+            if (best != NONE) {
+                INTS.getAndAdd(MctsEngine.this.visits, best, 1);
+            }
+            return best;
+        }
+
+        /**
+         * Returns the child of a chance node to go on with, and counts its visit. The drawn
+         * outcome is taken if a child already has it, or added as a new child if the node may
+         * still widen. Otherwise a child is picked in proportion to its visits. Returns NONE
+         * if the node has no child to go to.
+         */
+        private int chooseOutcome(int node, int outcome) {
+            int total = 0;
+            for (int child = (int) INTS.getAcquire(MctsEngine.this.firstChild, node); child != NONE;
+                 child = MctsEngine.this.nextSibling[child]) {
+                if (MctsEngine.this.moves[child] == outcome) {
+                    INTS.getAndAdd(MctsEngine.this.visits, child, 1);
+                    return child;
+                }
+                total += (int) INTS.getOpaque(MctsEngine.this.visits, child);
+            }
+            int visited = (int) INTS.getOpaque(MctsEngine.this.visits, node);
+            int allowed = (int) Math.ceil(Constants.MCTS_WIDENING * Math.pow(visited, Constants.MCTS_WIDENING_POWER));
+            int count = (int) INTS.getVolatile(MctsEngine.this.childCount, node);
+            if (count < allowed && INTS.compareAndSet(MctsEngine.this.childCount, node, count, count + 1)) {
+                int child = MctsEngine.this.newNode(outcome, CHOICE);
+                if (child != NONE) {
+                    MctsEngine.this.link(node, child);
+                    this.grown = true;
+                    return child;
+                }
+            }
+            if (total == 0) {
+                return NONE;
+            }
+            int pick = this.random.nextInt(total);
+            for (int child = (int) INTS.getAcquire(MctsEngine.this.firstChild, node); child != NONE;
+                 child = MctsEngine.this.nextSibling[child]) {
+                pick -= (int) INTS.getOpaque(MctsEngine.this.visits, child);
+                if (pick < 0) {
+                    INTS.getAndAdd(MctsEngine.this.visits, child, 1);
+                    return child;
+                }
+            }
+            return NONE;
+        }
+
+        /**
+         * Plays up to MCTS_ROLLOUT_PLY moves of the light policy from the Position and returns
+         * the result for white: the end of the game if it comes, and otherwise the Evaluation
+         * of the last position turned into a share of a win.
+         */
+        private int playout() {
+            for (int ply = 0; ply <= Constants.MCTS_ROLLOUT_PLY; ply++) {
+                boolean white = this.position.isWhiteToMove();
+                if (MctsEngine.this.isSilly && this.position.isInCheck(!white)) {
+                    return white ? Constants.MCTS_SCORE_UNIT : 0;
+                }
+                if (ply == Constants.MCTS_ROLLOUT_PLY) {
+                    break;
+                }
+                int move = this.random.nextInt(Constants.SIM_LIGHT_ODDS) != 0
+                        ? SillySimulator.bestCapture(this.position, this.list) : 0;
+                if (move == 0) {
+                    move = SillySimulator.randomMove(this.position, this.list, this.random);
+                }
+                if (move == 0) {
+                    if (!this.position.isInCheck()) {
+                        return Constants.MCTS_SCORE_UNIT / 2;
+                    }
+                    return white ? 0 : Constants.MCTS_SCORE_UNIT;
+                }
+                if (MctsEngine.this.isSilly) {
+                    SillyRules.play(this.position, move, this.random, null);
+                } else {
+                    this.position.makeMove(move);
+                }
+            }
+            int score = Evaluation.evaluate(this.position);
+            double win = 1.0 / (1.0 + Math.pow(10.0, -score / Constants.MCTS_EVAL_SCALE));
+            int result = (int) Math.round(win * Constants.MCTS_SCORE_UNIT);
+            return this.position.isWhiteToMove() ? result : Constants.MCTS_SCORE_UNIT - result;
+        }
+    }
+}
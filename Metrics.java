@@ -0,0 +1,116 @@
+package indy;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.Scene;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The Metrics class holds a LatencyHistogram for each hot path of the rules in Game, Board,
+ * and Piece, and for the JavaFX layout of the scene. They are switched on by starting the
+ * program with -Dindy.metrics=true, and then registered with JMX under indy:type=Metrics and
+ * appended to a dump file (metrics.tsv, or the file named by -Dindy.metrics.dump) every
+ * METRICS_DUMP_PERIOD seconds.
+ * ENABLED is a static final field, which the JIT compiler treats as a constant, so when the
+ * metrics are off the timing code around each hot path is compiled away and costs nothing.
+ * A hot path is measured like this:
+ * long start = Metrics.start(); ... Metrics.IS_IN_CHECK.stop(start);
+ */
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean(Constants.METRICS_PROPERTY);
+    public static final LatencyHistogram SET_VALID_SQUARES = new LatencyHistogram("setValidSquares");
+    public static final LatencyHistogram IS_IN_CHECK = new LatencyHistogram("isInCheck");
+    public static final LatencyHistogram IS_CHECKMATE = new LatencyHistogram("isCheckmate");
+    public static final LatencyHistogram KING_MOVE_VALID = new LatencyHistogram("kingMoveValid");
+    public static final LatencyHistogram NOT_MOVING_A_PROTECTOR = new LatencyHistogram("notMovingAProtector");
+    public static final LatencyHistogram SILLY_SHIFT = new LatencyHistogram("sillyShift");
+    public static final LatencyHistogram LAYOUT = new LatencyHistogram("layout");
+    private static final LatencyHistogram[] HISTOGRAMS = {SET_VALID_SQUARES, IS_IN_CHECK, IS_CHECKMATE,
+            KING_MOVE_VALID, NOT_MOVING_A_PROTECTOR, SILLY_SHIFT, LAYOUT};
+
+    static {
+        if (ENABLED) {
+            register();
+            startDump(System.getProperty(Constants.METRICS_DUMP_PROPERTY, Constants.METRICS_DUMP_FILE));
+        }
+    }
+
+    /**
+     * The Metrics class only contains static members and is never instantiated.
+     */
+    private Metrics() {
+    }
+
+    /**
+     * Returns the start time of a call to measure, or 0 when the metrics are off.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Measures every layout pass of the scene: the time from just before JavaFX lays out the
+     * nodes (and applies CSS) to just after.
+     */
+    public static void watchLayout(Scene scene) {
+        if (!ENABLED) {
+            return;
+        }
+        long[] layoutStart = new long[1];
+        scene.addPreLayoutPulseListener(() -> layoutStart[0] = System.nanoTime());
+        scene.addPostLayoutPulseListener(() -> LAYOUT.stop(layoutStart[0]));
+    }
+
+    /**
+     * Registers every histogram with the platform MBeanServer, so JConsole and other JMX
+     * tools can read and reset them.
+     */
+    private static void register() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            try {
+                server.registerMBean(histogram, new ObjectName("indy:type=Metrics,name=" + histogram.getName()));
+            } catch (JMException e) {
+                System.err.println("could not register metrics: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Starts a daemon thread that appends a snapshot of every histogram to the dump file
+     * every METRICS_DUMP_PERIOD seconds.
+     */
+    private static void startDump(String path) {
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dumper.scheduleAtFixedRate(() -> dump(path), Constants.METRICS_DUMP_PERIOD, Constants.METRICS_DUMP_PERIOD,
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Appends one tab separated line per histogram to the file: the time, the name, the
+     * count, and the total, mean, median, 99th percentile, and longest time in nanoseconds.
+     */
+    public static void dump(String path) {
+        try (PrintWriter out = new PrintWriter(new FileWriter(path, true))) {
+            long now = System.currentTimeMillis();
+            for (LatencyHistogram histogram : HISTOGRAMS) {
+                out.println(now + "\t" + histogram.getName() + "\t" + histogram.getCount() + "\t"
+                        + histogram.getTotalNanos() + "\t" + histogram.getMeanNanos() + "\t"
+                        + histogram.getP50Nanos() + "\t" + histogram.getP99Nanos() + "\t" + histogram.getMaxNanos());
+            }
+        } catch (IOException e) {
+            System.err.println("could not dump metrics: " + e.getMessage());
+        }
+    }
+}
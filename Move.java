@@ -0,0 +1,185 @@
+package indy;
+
+/**
+ * The Move class packs a chess move into 16 bits so that it can be stored compactly in game
+ * records. The low 6 bits hold the origin square, the next 6 bits hold the target square, and
+ * the top 4 bits hold a flag describing the kind of move (quiet, capture, castle, en passant,
+ * or a promotion, with or without a capture, to one of the four pieces a Pawn may become).
+ * Squares are indexed as col * BOARD_WIDTH + row, which follows the column row major layout
+ * of the Board array. For a castle, the target square is the square of the Rook, since that is
+ * the square the player clicks.
+ */
+public final class Move {
+    private static final int SQUARE_BITS = 6;
+    private static final int SQUARE_MASK = 0x3F;
+    private static final int FLAG_SHIFT = 12;
+    private static final int FLAG_MASK = 0xF;
+
+    /**
+     * The Move class only contains static helpers and is never instantiated.
+     */
+    private Move() {
+    }
+
+    /**
+     * Packs the origin square, target square, and flag into a 16-bit move.
+     */
+    public static int encode(int from, int to, int flag) {
+        return (from & SQUARE_MASK) | ((to & SQUARE_MASK) << SQUARE_BITS) | ((flag & FLAG_MASK) << FLAG_SHIFT);
+    }
+
+    /**
+     * Returns the origin square of the move.
+     */
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the target square of the move.
+     */
+    public static int to(int move) {
+        return (move >>> SQUARE_BITS) & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the flag of the move.
+     */
+    public static int flag(int move) {
+        return (move >>> FLAG_SHIFT) & FLAG_MASK;
+    }
+
+    /**
+     * Returns the flag of a promotion to the piece code (KNIGHT_CODE to QUEEN_CODE).
+     */
+    public static int promotionFlag(int code, boolean capture) {
+        int base = capture ? Constants.MOVE_PROMOTION_CAPTURE : Constants.MOVE_PROMOTION;
+        return base + code - Constants.KNIGHT_CODE;
+    }
+
+    /**
+     * Returns true if the move is a promotion.
+     */
+    public static boolean isPromotion(int move) {
+        return flag(move) >= Constants.MOVE_PROMOTION;
+    }
+
+    /**
+     * Returns the piece code the move promotes to, or EMPTY_CODE if it is not a promotion.
+     */
+    public static int promotion(int move) {
+        int flag = flag(move);
+        if (flag < Constants.MOVE_PROMOTION) {
+            return Constants.EMPTY_CODE;
+        }
+        int base = flag >= Constants.MOVE_PROMOTION_CAPTURE ? Constants.MOVE_PROMOTION_CAPTURE : Constants.MOVE_PROMOTION;
+        return flag - base + Constants.KNIGHT_CODE;
+    }
+
+    /**
+     * Returns true if the move captures a piece, including en passant and capturing promotions.
+     */
+    public static boolean isCapture(int move) {
+        int flag = flag(move);
+        return flag == Constants.MOVE_CAPTURE || flag == Constants.MOVE_EN_PASSANT
+                || flag >= Constants.MOVE_PROMOTION_CAPTURE;
+    }
+
+    /**
+     * Returns the square index of the given row and column.
+     */
+    public static int square(int row, int col) {
+        return col * Constants.BOARD_WIDTH + row;
+    }
+
+    /**
+     * Returns the row of the given square index.
+     */
+    public static int row(int square) {
+        return square % Constants.BOARD_WIDTH;
+    }
+
+    /**
+     * Returns the column of the given square index.
+     */
+    public static int col(int square) {
+        return square / Constants.BOARD_WIDTH;
+    }
+
+    /**
+     * Returns the algebraic name of a square, such as e4. Rows are files a to h and columns
+     * are ranks 8 down to 1, so white starts on ranks 1 and 2.
+     */
+    public static String squareName(int square) {
+        char file = (char) ('a' + row(square));
+        int rank = Constants.BOARD_WIDTH - col(square);
+        return file + String.valueOf(rank);
+    }
+
+    /**
+     * Returns the square index of an algebraic square name, or -1 if the name is not a square.
+     */
+    public static int parseSquare(String name) {
+        if (name.length() < 2) {
+            return -1;
+        }
+        int row = name.charAt(0) - 'a';
+        int rank;
+        try {
+            rank = Integer.parseInt(name.substring(1));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        int col = Constants.BOARD_WIDTH - rank;
+        if (row < 0 || row >= Constants.BOARD_WIDTH || col < 0 || col >= Constants.BOARD_WIDTH) {
+            return -1;
+        }
+        return square(row, col);
+    }
+
+    /**
+     * Returns the move in coordinate notation, such as e2e4. Castles are written as the King
+     * moving onto its Rook, and promotions end with the lower case letter of the new piece,
+     * such as e7e8q.
+     */
+    public static String toString(int move) {
+        String text = squareName(from(move)) + squareName(to(move));
+        int promotion = promotion(move);
+        return promotion == Constants.EMPTY_CODE ? text : text + Character.toLowerCase(Position.pieceLetter(promotion));
+    }
+
+    /**
+     * Returns the legal move of the Position written in coordinate notation, or 0 if there is
+     * none. A castle may be written as the King moving onto its Rook or onto its landing square,
+     * and a promotion with no letter for the new piece is taken to be to a Queen.
+     *
+     * @param position The Position the move is played in.
+     * @param text     The move, such as e2e4.
+     * @param moves    A scratch array of at least MAX_MOVES moves.
+     */
+    public static int parse(Position position, String text, int[] moves) {
+        if (text.length() < 4) {
+            return 0;
+        }
+        int from = parseSquare(text.substring(0, 2));
+        int to = parseSquare(text.substring(2, 4));
+        int promotion = text.length() > 4 ? Position.pieceCode(text.charAt(4)) : Constants.QUEEN_CODE;
+        int count = position.legalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            if (from(move) != from) {
+                continue;
+            }
+            if (to(move) == to && (!isPromotion(move) || promotion(move) == promotion)) {
+                return move;
+            }
+            if (flag(move) == Constants.MOVE_CASTLE) {
+                int step = row(to(move)) > row(from) ? 1 : -1;
+                if (to == from + 2 * step) {
+                    return move;
+                }
+            }
+        }
+        return 0;
+    }
+}
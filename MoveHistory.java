@@ -0,0 +1,77 @@
+package indy;
+
+import java.util.ArrayList;
+
+/**
+ * The MoveHistory class is the undo stack of a Game. It keeps a PlyDelta for every move and
+ * the current ply, which is the number of moves currently on the Board. Moves after the
+ * current ply have been taken back and can be played again until a new move is made.
+ */
+public class MoveHistory {
+    private final ArrayList<PlyDelta> deltas;
+    private int currentPly;
+
+    /**
+     * Constructs an empty MoveHistory.
+     */
+    public MoveHistory() {
+        this.deltas = new ArrayList<>();
+        this.currentPly = 0;
+    }
+
+    /**
+     * Adds the delta of a new move. Moves that were taken back are dropped first.
+     */
+    public void push(PlyDelta delta) {
+        while (this.deltas.size() > this.currentPly) {
+            this.deltas.remove(this.deltas.size() - 1);
+        }
+        this.deltas.add(delta);
+        this.currentPly++;
+    }
+
+    /**
+     * Returns the delta of the last move on the Board and steps the current ply back.
+     */
+    public PlyDelta undo() {
+        this.currentPly--;
+        return this.deltas.get(this.currentPly);
+    }
+
+    /**
+     * Returns the delta of the next move that was taken back and steps the current ply forward.
+     */
+    public PlyDelta redo() {
+        PlyDelta delta = this.deltas.get(this.currentPly);
+        this.currentPly++;
+        return delta;
+    }
+
+    /**
+     * Returns true if there is a move to take back.
+     */
+    public boolean canUndo() {
+        return this.currentPly > 0;
+    }
+
+    /**
+     * Returns true if there is a move that was taken back.
+     */
+    public boolean canRedo() {
+        return this.currentPly < this.deltas.size();
+    }
+
+    /**
+     * Accessor method for the number of moves currently on the Board.
+     */
+    public int getCurrentPly() {
+        return this.currentPly;
+    }
+
+    /**
+     * Accessor method for the number of moves in the history, including taken back moves.
+     */
+    public int getPlyCount() {
+        return this.deltas.size();
+    }
+}
@@ -0,0 +1,194 @@
+package indy;
+
+import java.util.Arrays;
+
+/**
+ * The MoveOrdering class decides in which order the Engine tries the moves of a position,
+ * since alpha-beta cuts off the most when the best move comes first. The order is: the
+ * TranspositionTable move, captures and promotions to a Queen by MVV-LVA (the most valuable
+ * victim first, and of those the least valuable attacker, by the hierarchy queen, rook,
+ * bishop, knight, pawn, where a promotion counts as winning its new piece), the two
+ * killer moves of the ply, the counter-move of the opponent's last move, the other quiet
+ * moves by their butterfly history, and last the captures that StaticExchange says lose.
+ * Every search thread has its own MoveOrdering. All of it is kept in int arrays that are
+ * made once, so ordering never allocates during a search.
+ */
+public class MoveOrdering {
+    private static final int TABLE_SCORE = Integer.MAX_VALUE;
+    private static final int CAPTURE_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 27;
+    private static final int COUNTER_SCORE = KILLER_SCORE - 2;
+    private static final int LOSING_CAPTURE_SCORE = -CAPTURE_SCORE;
+    private static final int PIECES = 2 * Constants.KING_CODE + 1;
+    private static final int[][] MVV_LVA = new int[Constants.KING_CODE + 1][Constants.KING_CODE + 1];
+    private final int[] killers;
+    private final int[] history;
+    private final int[] counterMoves;
+
+    static {
+        for (int victim = Constants.PAWN_CODE; victim <= Constants.KING_CODE; victim++) {
+            for (int attacker = Constants.PAWN_CODE; attacker <= Constants.KING_CODE; attacker++) {
+                MVV_LVA[victim][attacker] = victim * (Constants.KING_CODE + 1) + Constants.KING_CODE - attacker;
+            }
+        }
+    }
+
+    /**
+     * Constructs an empty MoveOrdering.
+     */
+    public MoveOrdering() {
+        this.killers = new int[Constants.MAX_PLY * 2];
+        this.history = new int[2 * Constants.BOARD_WIDTH * Constants.BOARD_WIDTH * Constants.BOARD_WIDTH
+                * Constants.BOARD_WIDTH];
+        this.counterMoves = new int[PIECES * Constants.BOARD_WIDTH * Constants.BOARD_WIDTH];
+    }
+
+    /**
+     * Gets ready for a new search. The killers are forgotten and the history is halved, so
+     * what was learned in the last search still counts but newer results soon outweigh it.
+     */
+    public void newSearch() {
+        Arrays.fill(this.killers, 0);
+        for (int i = 0; i < this.history.length; i++) {
+            this.history[i] /= 2;
+        }
+    }
+
+    /**
+     * Forgets everything, before a new game.
+     */
+    public void clear() {
+        Arrays.fill(this.killers, 0);
+        Arrays.fill(this.history, 0);
+        Arrays.fill(this.counterMoves, 0);
+    }
+
+    /**
+     * Gives each move its ordering score.
+     *
+     * @param position     The position the moves are played from.
+     * @param list         The moves.
+     * @param scores       Where the scores are written, one per move.
+     * @param count        The number of moves.
+     * @param tableMove    The TranspositionTable move, or 0.
+     * @param ply          The distance from the root.
+     * @param previousMove The opponent's last move, or 0.
+     * @param isSilly      Whether captures also pay the expected silly penalty.
+     */
+    public void score(Position position, int[] list, int[] scores, int count, int tableMove, int ply,
+                      int previousMove, boolean isSilly) {
+        int side = position.isWhiteToMove() ? 0 : 1;
+        int counter = this.counterMove(position, previousMove);
+        int killer1 = this.killers[ply * 2];
+        int killer2 = this.killers[ply * 2 + 1];
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            if (move == tableMove) {
+                scores[i] = TABLE_SCORE;
+            } else if (Move.isCapture(move) || Move.promotion(move) == Constants.QUEEN_CODE) {
+                boolean losing = StaticExchange.isLosing(position, move, isSilly);
+                scores[i] = (losing ? LOSING_CAPTURE_SCORE : CAPTURE_SCORE) + captureScore(position, move);
+            } else if (move == killer1) {
+                scores[i] = KILLER_SCORE;
+            } else if (move == killer2) {
+                scores[i] = KILLER_SCORE - 1;
+            } else if (move == counter) {
+                scores[i] = COUNTER_SCORE;
+            } else {
+                scores[i] = this.history[historyIndex(side, move)];
+            }
+        }
+    }
+
+    /**
+     * Moves the best scored move from index i onwards to index i and returns it. Picking one
+     * move at a time is cheaper than sorting, since most nodes cut off after a few moves.
+     */
+    public static int next(int[] list, int[] scores, int i, int count) {
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[best]) {
+                best = j;
+            }
+        }
+        int move = list[best];
+        list[best] = list[i];
+        list[i] = move;
+        int score = scores[best];
+        scores[best] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    /**
+     * Learns from a quiet move that caused a beta cutoff. The move becomes a killer of the
+     * ply and the counter-move of the opponent's last move, its history goes up, and the
+     * history of the quiet moves tried before it goes down.
+     *
+     * @param position     The position the move was played from.
+     * @param move         The move that cut off.
+     * @param ply          The distance from the root.
+     * @param depth        The depth left, since deeper cutoffs are worth more.
+     * @param previousMove The opponent's last move, or 0.
+     * @param tried        The quiet moves tried before the move.
+     * @param triedCount   The number of quiet moves tried before the move.
+     */
+    public void cutoff(Position position, int move, int ply, int depth, int previousMove, int[] tried, int triedCount) {
+        if (this.killers[ply * 2] != move) {
+            this.killers[ply * 2 + 1] = this.killers[ply * 2];
+            this.killers[ply * 2] = move;
+        }
+        if (previousMove != 0) {
+            this.counterMoves[counterIndex(position, previousMove)] = move;
+        }
+        int side = position.isWhiteToMove() ? 0 : 1;
+        int bonus = Math.min(depth * depth, Constants.HISTORY_MAX_BONUS);
+        this.addHistory(historyIndex(side, move), bonus);
+        for (int i = 0; i < triedCount; i++) {
+            this.addHistory(historyIndex(side, tried[i]), -bonus);
+        }
+    }
+
+    /**
+     * Returns the MVV-LVA score of a capture or promotion, higher for better captures.
+     */
+    public static int captureScore(Position position, int move) {
+        int victim = Move.flag(move) == Constants.MOVE_EN_PASSANT ? Constants.PAWN_CODE
+                : Math.abs(position.pieceAt(Move.to(move)));
+        victim = Math.max(victim, Move.promotion(move));
+        return MVV_LVA[victim][Math.abs(position.pieceAt(Move.from(move)))];
+    }
+
+    /**
+     * Adds to a history score, scaled so it never grows past HISTORY_LIMIT: the closer a
+     * score is to the limit, the less a bonus moves it.
+     */
+    private void addHistory(int index, int bonus) {
+        this.history[index] += bonus - this.history[index] * Math.abs(bonus) / Constants.HISTORY_LIMIT;
+    }
+
+    /**
+     * Returns the counter-move stored for the opponent's last move, or 0.
+     */
+    private int counterMove(Position position, int previousMove) {
+        return previousMove == 0 ? 0 : this.counterMoves[counterIndex(position, previousMove)];
+    }
+
+    /**
+     * Returns the index of the counter-move of a move, by the piece that moved and where it
+     * went. The move has already been played, so the piece stands on its to square (a castle
+     * leaves the square empty, which is still a usable index).
+     */
+    private static int counterIndex(Position position, int previousMove) {
+        int to = Move.to(previousMove);
+        return (position.pieceAt(to) + Constants.KING_CODE) * Constants.BOARD_WIDTH * Constants.BOARD_WIDTH + to;
+    }
+
+    /**
+     * Returns the index of a move in the butterfly history, by side, from square and to square.
+     */
+    private static int historyIndex(int side, int move) {
+        return (side * Constants.BOARD_WIDTH * Constants.BOARD_WIDTH + Move.from(move))
+                * Constants.BOARD_WIDTH * Constants.BOARD_WIDTH + Move.to(move);
+    }
+}
@@ -14,25 +14,31 @@ public class MySquare {
     private int row;
     private int col;
     private boolean isOccupied;
+    private Board board;
 
     /**
      * Constructs a MySquare object with the specified row, column, game pane, and occupied status.
-     * Instantiates a new Rectangle for each MySquare and adds it graphically to the gamePane.
+     * Instantiates a new Rectangle for each MySquare and adds it graphically to the gamePane,
+     * unless the Board is drawn by a BoardCanvas.
      *
      * @param row        The row of the square.
      * @param col        The column of the square.
      * @param gamePane   The pane in which the square is displayed.
      * @param isOccupied The initial occupied status of the square.
+     * @param board      The Board the square belongs to, which is told when it fills or empties.
      */
-    public MySquare(int row, int col, Pane gamePane, boolean isOccupied) {
+    public MySquare(int row, int col, Pane gamePane, boolean isOccupied, Board board) {
         this.gamePane = gamePane;
         this.row = row;
         this.col = col;
-        this.isOccupied = isOccupied;
+        this.board = board;
+        this.setOccupied(isOccupied);
         this.occupying = null;
         this.mySquare = new Rectangle(this.row * Constants.SQUARE_WIDTH, this.col * Constants.SQUARE_WIDTH, Constants.SQUARE_WIDTH, Constants.SQUARE_WIDTH);
         this.mySquare.setStroke(Color.GREY);
-        this.gamePane.getChildren().add(this.mySquare);
+        if (!this.board.isCanvas()) {
+            this.gamePane.getChildren().add(this.mySquare);
+        }
     }
 
 
@@ -42,7 +48,7 @@ public class MySquare {
      */
     public void setOccupying(Piece occupying, MySquare clickedSquare) {
         if (clickedSquare != null) {
-            this.isOccupied = true;
+            this.setOccupied(true);
             this.occupying = occupying;
             this.occupying.setX(clickedSquare.getRow() * Constants.SQUARE_WIDTH);
             this.occupying.setY(clickedSquare.getCol() * Constants.SQUARE_WIDTH);
@@ -54,7 +60,7 @@ public class MySquare {
      * Sets the square as unoccupied.
      */
     public void setEmpty() {
-        this.isOccupied = false;
+        this.setOccupied(false);
         this.occupying = null;
     }
 
@@ -66,7 +72,7 @@ public class MySquare {
             this.occupying.removeFromPane();
         }
         this.occupying = null;
-        this.isOccupied = false;
+        this.setOccupied(false);
     }
 
     /**
@@ -87,7 +93,15 @@ public class MySquare {
      * Mutator method to set the square as occupied.
      */
     public void setIsOccupied() {
-        this.isOccupied = true;
+        this.setOccupied(true);
+    }
+
+    /**
+     * Sets whether the square is occupied and updates the occupied squares of the Board.
+     */
+    private void setOccupied(boolean isOccupied) {
+        this.isOccupied = isOccupied;
+        this.board.setOccupied(this.row, this.col, isOccupied);
     }
 
     /**
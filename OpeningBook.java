@@ -0,0 +1,148 @@
+package indy;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The OpeningBook class looks up book moves for basic mode positions. A book file is written
+ * by OpeningBookBuilder and holds a header (BOOK_MAGIC and the number of entries) followed by
+ * entries of BOOK_ENTRY_SIZE bytes: the Zobrist hash of a Position, a move, and its weight.
+ * The entries are sorted by hash, so a lookup is a binary search straight on the memory
+ * mapping and does not create any objects. The mapping is read only, so one OpeningBook can
+ * be shared by several threads.
+ */
+public class OpeningBook {
+    private static final int MOVE_OFFSET = 8; // (UNITS: bytes)
+    private static final int WEIGHT_OFFSET = 12; // (UNITS: bytes)
+    private final MappedByteBuffer entries;
+    private final int entryCount;
+
+    /**
+     * Opens the book at the given path and maps it into memory.
+     *
+     * @param path The path of the book file.
+     */
+    public OpeningBook(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < Constants.BOOK_HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException(path + " is not an opening book");
+            }
+            this.entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        this.entryCount = this.entries.getInt(Integer.BYTES);
+        if (this.entries.getInt(0) != Constants.BOOK_MAGIC
+                || Constants.BOOK_HEADER_SIZE + (long) this.entryCount * Constants.BOOK_ENTRY_SIZE > this.entries.limit()) {
+            throw new IOException(path + " is not an opening book");
+        }
+    }
+
+    /**
+     * Picks a book move for the hash at random, where moves with a higher weight are picked
+     * more often. Returns 0 if the position is not in the book.
+     */
+    public int probe(long key) {
+        int first = this.lowerBound(key);
+        int total = 0;
+        for (int i = first; i < this.entryCount && this.key(i) == key; i++) {
+            total += this.weight(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        int pick = ThreadLocalRandom.current().nextInt(total);
+        int i = first;
+        pick -= this.weight(i);
+        while (pick >= 0) {
+            i++;
+            pick -= this.weight(i);
+        }
+        return this.move(i);
+    }
+
+    /**
+     * Returns the book move with the highest weight for the hash, or 0 if the position is not
+     * in the book.
+     */
+    public int bestMove(long key) {
+        int best = 0;
+        int bestWeight = -1;
+        for (int i = this.lowerBound(key); i < this.entryCount && this.key(i) == key; i++) {
+            if (this.weight(i) > bestWeight) {
+                best = this.move(i);
+                bestWeight = this.weight(i);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Picks a book move for the Position and checks that it is legal there, so a hash
+     * collision can never return a wrong move. Returns 0 if there is no book move.
+     *
+     * @param position The Position to look up.
+     * @param moves    A scratch array of at least MAX_MOVES moves.
+     */
+    public int pickMove(Position position, int[] moves) {
+        int move = this.probe(position.getHash());
+        if (move != 0) {
+            int count = position.legalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                if (moves[i] == move) {
+                    return move;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the index of the first entry whose hash is not smaller than the key. Hashes
+     * are compared as unsigned numbers, which is how OpeningBookBuilder sorts them.
+     */
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = this.entryCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(this.key(middle), key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the hash of the entry at the index.
+     */
+    private long key(int index) {
+        return this.entries.getLong(Constants.BOOK_HEADER_SIZE + index * Constants.BOOK_ENTRY_SIZE);
+    }
+
+    /**
+     * Returns the move of the entry at the index.
+     */
+    private int move(int index) {
+        return this.entries.getInt(Constants.BOOK_HEADER_SIZE + index * Constants.BOOK_ENTRY_SIZE + MOVE_OFFSET);
+    }
+
+    /**
+     * Returns the weight of the entry at the index.
+     */
+    private int weight(int index) {
+        return this.entries.getInt(Constants.BOOK_HEADER_SIZE + index * Constants.BOOK_ENTRY_SIZE + WEIGHT_OFFSET);
+    }
+
+    /**
+     * Accessor method for the number of entries in the book.
+     */
+    public int getEntryCount() {
+        return this.entryCount;
+    }
+}
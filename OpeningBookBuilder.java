@@ -0,0 +1,156 @@
+package indy;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The OpeningBookBuilder class builds an OpeningBook from game archives. Every basic mode
+ * game that starts from the usual position is replayed through a Position, and the first
+ * BOOK_MAX_PLY moves are counted for the hash of the position they were played in. A move
+ * gets 2 points each time its side went on to win and 1 point for a draw or an unfinished
+ * game. Moves played in fewer than BOOK_MIN_GAMES games, or that never scored, are left out.
+ * Silly games are skipped, since a shift can change the position after any capture.
+ * Running the main method builds a book: OpeningBookBuilder output.scb input.scr...
+ */
+public class OpeningBookBuilder {
+    private final HashMap<Long, HashMap<Integer, int[]>> positions;
+    private final Position position;
+    private final long[] keys;
+    private final int[] moves;
+    private long gamesUsed;
+
+    /**
+     * Constructs an empty OpeningBookBuilder.
+     */
+    public OpeningBookBuilder() {
+        this.positions = new HashMap<>();
+        this.position = Position.startPosition();
+        this.keys = new long[Constants.BOOK_MAX_PLY];
+        this.moves = new int[Constants.BOOK_MAX_PLY];
+        this.gamesUsed = 0;
+    }
+
+    /**
+     * Counts the opening moves of every usable game of the archive.
+     */
+    public void addArchive(String archive) throws IOException {
+        try (GameRecordReader reader = new GameRecordReader(archive)) {
+            while (reader.nextGame()) {
+                if (!reader.isSilly()) {
+                    this.addGame(reader.getCursor());
+                }
+            }
+        }
+    }
+
+    /**
+     * Replays the opening of one game and counts its moves once the result is known. Games
+     * set up from another position, or with silly events, are skipped.
+     */
+    private void addGame(RecordCursor cursor) {
+        while (this.position.undo()) {
+            // back to the start position
+        }
+        int ply = 0;
+        int result = Constants.RESULT_UNFINISHED;
+        int tag = cursor.next();
+        while (tag != 0) {
+            if (tag == Constants.TAG_MOVE) {
+                if (ply < Constants.BOOK_MAX_PLY) {
+                    this.keys[ply] = this.position.getHash();
+                    this.moves[ply] = cursor.getMove();
+                    this.position.makeMove(cursor.getMove());
+                    ply++;
+                }
+            } else if (tag == Constants.TAG_RESULT) {
+                result = cursor.getResult();
+            } else if (tag != Constants.TAG_SETUP || !cursor.getSetup().equals(Position.START_FEN)) {
+                return;
+            }
+            tag = cursor.next();
+        }
+        this.gamesUsed++;
+        for (int i = 0; i < ply; i++) {
+            int[] counts = this.positions.computeIfAbsent(this.keys[i], key -> new HashMap<>())
+                    .computeIfAbsent(this.moves[i], move -> new int[2]);
+            counts[0]++;
+            counts[1] += score(result, i % 2 == 0);
+        }
+    }
+
+    /**
+     * Returns the points a move of the given side gets from the result of its game.
+     */
+    private static int score(int result, boolean white) {
+        if (result == Constants.RESULT_WHITE_WINS) {
+            return white ? 2 : 0;
+        } else if (result == Constants.RESULT_BLACK_WINS) {
+            return white ? 0 : 2;
+        }
+        return 1;
+    }
+
+    /**
+     * Writes the book sorted by hash and returns the number of entries written.
+     */
+    public int write(String path) throws IOException {
+        long[] sorted = new long[this.positions.size()];
+        int size = 0;
+        for (long key : this.positions.keySet()) {
+            sorted[size++] = key ^ Long.MIN_VALUE;
+        }
+        Arrays.sort(sorted);
+        int count = 0;
+        for (HashMap<Integer, int[]> bookMoves : this.positions.values()) {
+            for (int[] counts : bookMoves.values()) {
+                if (counts[0] >= Constants.BOOK_MIN_GAMES && counts[1] > 0) {
+                    count++;
+                }
+            }
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(Constants.BOOK_MAGIC);
+            out.writeInt(count);
+            for (long flipped : sorted) {
+                long key = flipped ^ Long.MIN_VALUE;
+                for (Map.Entry<Integer, int[]> entry : this.positions.get(key).entrySet()) {
+                    int[] counts = entry.getValue();
+                    if (counts[0] >= Constants.BOOK_MIN_GAMES && counts[1] > 0) {
+                        out.writeLong(key);
+                        out.writeInt(entry.getKey());
+                        out.writeInt(counts[1]);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Accessor method for the number of games whose moves were counted.
+     */
+    public long getGamesUsed() {
+        return this.gamesUsed;
+    }
+
+    /**
+     * Builds an opening book from one or more game archives.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: OpeningBookBuilder output.scb input.scr...");
+            return;
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder();
+        for (int i = 1; i < args.length; i++) {
+            builder.addArchive(args[i]);
+        }
+        int entries = builder.write(args[0]);
+        System.out.println(entries + " book moves from " + builder.getGamesUsed() + " games");
+    }
+}
@@ -7,7 +7,9 @@ import javafx.scene.layout.Pane;
  * It extends the abstract Piece class and defines the specific move behavior of a Pawn.
  * Pawns move in towards its opponent's side by one or two squares. It may move two squares if
  * it is its first move. Pawns have a diagonal capturing mechanism, and they can perform
- * an en passant capture under specific conditions.
+ * an en passant capture under specific conditions. A Pawn that reaches the far side of the
+ * board is promoted by Game to a Queen, Rook, Bishop, or Knight. A Pawn that a silly shift or
+ * transformation leaves on the far side cannot move until another shift moves it away.
  */
 public class Pawn extends Piece {
     private boolean isWhite;
@@ -83,6 +85,16 @@ public class Pawn extends Piece {
         return null;
     }
 
+    /**
+     * Puts the Pawn back in the state it had at the start of a game and forgets its en
+     * passant square.
+     */
+    @Override
+    public void resetState() {
+        super.resetState();
+        this.EPSquare = null;
+    }
+
     /**
      * Returns a String value of the type of Piece: Pawn.
      */
@@ -0,0 +1,425 @@
+package indy;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The Pgn class converts single games between GameRecords and PGN text. Moves are written in
+ * standard algebraic notation (SAN) by replaying the record through a Position. Since the
+ * Board does not start from the standard chess position (the white King and Queen are
+ * swapped), every game carries SetUp and FEN tags. Silly shifts and transformations are
+ * written as comments holding [%shift direction] and [%transform square piece] commands after
+ * the move that caused them, so other tools skip them and reading the PGN back gives the same
+ * record.
+ */
+public final class Pgn {
+    private static final int LINE_WIDTH = 79;
+    private static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+    private static final String STANDARD_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final Pattern TAG = Pattern.compile("\\[(\\w+)\\s+\"((?:[^\"\\\\]|\\\\.)*)\"\\]");
+    private static final Pattern SHIFT = Pattern.compile("\\[%shift\\s+(up|down|left|right)\\]");
+    private static final Pattern TRANSFORM = Pattern.compile("\\[%transform\\s+([a-h][1-8])\\s+([pnbrqPNBRQ])\\]");
+    private static final Pattern COMMAND = Pattern.compile("\\[%(shift|transform)[^\\]]*\\]");
+
+    /**
+     * The Pgn class only contains static helpers and is never instantiated.
+     */
+    private Pgn() {
+    }
+
+    /**
+     * Writes a game record as a PGN game, including its tag section and a blank line after
+     * the movetext.
+     *
+     * @param record The game to write.
+     * @param event  The value of the Event tag.
+     * @param out    Where the PGN text is written.
+     */
+    public static void write(GameRecord record, String event, Appendable out) throws IOException {
+        StringBuilder movetext = new StringBuilder();
+        int lineStart = 0;
+        Position position = Position.startPosition();
+        String fen = Position.START_FEN;
+        StringBuilder comment = new StringBuilder();
+        int[] moves = new int[Position.MAX_MOVES];
+        RecordCursor cursor = record.cursor();
+        int tag = cursor.next();
+        while (tag != 0) {
+            String token = null;
+            switch (tag) {
+                case Constants.TAG_SETUP:
+                    fen = cursor.getSetup();
+                    position = Position.fromFen(fen);
+                    break;
+                case Constants.TAG_MOVE:
+                    token = flushComment(comment);
+                    int move = cursor.getMove();
+                    String san = toSan(position, move, moves);
+                    if (position.isWhiteToMove()) {
+                        san = (position.getPlyCount() / 2 + 1) + ". " + san;
+                    } else if (token != null || movetext.length() == 0) {
+                        san = (position.getPlyCount() / 2 + 1) + "... " + san;
+                    }
+                    position.makeMove(move);
+                    token = token == null ? san : token + " " + san;
+                    break;
+                case Constants.TAG_SHIFT:
+                    position.shift(cursor.getDirection());
+                    comment.append(comment.length() == 0 ? "" : " ")
+                            .append("[%shift ").append(Position.SHIFT_NAMES[cursor.getDirection()]).append(']');
+                    break;
+                case Constants.TAG_TRANSFORM:
+                    int piece = cursor.isWhite() ? cursor.getCode() : -cursor.getCode();
+                    position.transform(cursor.getSquare(), piece);
+                    char letter = Position.pieceLetter(piece);
+                    comment.append(comment.length() == 0 ? "" : " ").append("[%transform ")
+                            .append(Move.squareName(cursor.getSquare())).append(' ')
+                            .append(piece > 0 ? letter : Character.toLowerCase(letter)).append(']');
+                    break;
+            }
+            if (token != null) {
+                lineStart = appendWrapped(movetext, lineStart, token);
+            }
+            tag = cursor.next();
+        }
+        String last = flushComment(comment);
+        if (last != null) {
+            lineStart = appendWrapped(movetext, lineStart, last);
+        }
+        String result = RESULTS[record.getResult()];
+        appendWrapped(movetext, lineStart, result);
+
+        out.append("[Event \"").append(event).append("\"]\n");
+        out.append("[Site \"?\"]\n[Date \"????.??.??\"]\n[Round \"?\"]\n");
+        out.append("[White \"").append(Constants.WHITE).append("\"]\n");
+        out.append("[Black \"").append(Constants.BLACK).append("\"]\n");
+        out.append("[Result \"").append(result).append("\"]\n");
+        if (record.isSilly()) {
+            out.append("[Variant \"Silly\"]\n");
+        }
+        out.append("[SetUp \"1\"]\n");
+        out.append("[FEN \"").append(fen).append("\"]\n\n");
+        out.append(movetext).append("\n\n");
+    }
+
+    /**
+     * Returns the pending silly commands as a PGN comment and clears them, or returns null if
+     * there are none.
+     */
+    private static String flushComment(StringBuilder comment) {
+        if (comment.length() == 0) {
+            return null;
+        }
+        String text = "{" + comment + "}";
+        comment.setLength(0);
+        return text;
+    }
+
+    /**
+     * Appends a token to the movetext, starting a new line when the line would get longer
+     * than LINE_WIDTH. Returns the index where the current line starts.
+     */
+    private static int appendWrapped(StringBuilder movetext, int lineStart, String token) {
+        if (movetext.length() > lineStart) {
+            if (movetext.length() - lineStart + 1 + token.length() > LINE_WIDTH) {
+                movetext.append('\n');
+                lineStart = movetext.length();
+            } else {
+                movetext.append(' ');
+            }
+        }
+        movetext.append(token);
+        return lineStart;
+    }
+
+    /**
+     * Returns the SAN of a move in the given position, such as Nbd2, exd6, O-O, e8=Q, or Qh5#.
+     * The array is used as scratch space for the moves of the position.
+     */
+    public static String toSan(Position position, int move, int[] moves) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flag = Move.flag(move);
+        StringBuilder san = new StringBuilder();
+        if (flag == Constants.MOVE_CASTLE) {
+            san.append(Move.row(to) > Move.row(from) ? "O-O" : "O-O-O");
+        } else {
+            int type = Math.abs(position.pieceAt(from));
+            boolean capture = Move.isCapture(move);
+            if (type == Constants.PAWN_CODE) {
+                if (capture) {
+                    san.append((char) ('a' + Move.row(from)));
+                }
+            } else {
+                san.append(Position.pieceLetter(type));
+                san.append(disambiguation(position, move, type, moves));
+            }
+            if (capture) {
+                san.append('x');
+            }
+            san.append(Move.squareName(to));
+            if (Move.isPromotion(move)) {
+                san.append('=').append(Position.pieceLetter(Move.promotion(move)));
+            }
+        }
+        position.makeMove(move);
+        if (position.isInCheck()) {
+            san.append(position.hasLegalMove() ? '+' : '#');
+        }
+        position.undo();
+        return san.toString();
+    }
+
+    /**
+     * Returns the file, rank, or square needed to tell the move apart from other moves of the
+     * same kind of piece to the same square. Legal moves are compared when the move is
+     * legal, and pseudo-legal moves otherwise, which matches how parseSan searches.
+     */
+    private static String disambiguation(Position position, int move, int type, int[] moves) {
+        boolean legal = position.isLegal(move);
+        int count = legal ? position.legalMoves(moves) : position.generateMoves(moves);
+        int from = Move.from(move);
+        boolean ambiguous = false;
+        boolean sameRow = false;
+        boolean sameCol = false;
+        for (int i = 0; i < count; i++) {
+            int other = Move.from(moves[i]);
+            if (Move.to(moves[i]) == Move.to(move) && other != from && Math.abs(position.pieceAt(other)) == type
+                    && Move.flag(moves[i]) != Constants.MOVE_CASTLE) {
+                ambiguous = true;
+                sameRow |= Move.row(other) == Move.row(from);
+                sameCol |= Move.col(other) == Move.col(from);
+            }
+        }
+        if (!ambiguous) {
+            return "";
+        }
+        String name = Move.squareName(from);
+        if (!sameRow) {
+            return name.substring(0, 1);
+        }
+        if (!sameCol) {
+            return name.substring(1);
+        }
+        return name;
+    }
+
+    /**
+     * Returns the move of the position that the SAN describes. Legal moves are searched
+     * first. Since Game lets a player leave their King in check, pseudo-legal moves are
+     * searched if no legal move matches. Check marks, annotations, and the e.p. that some
+     * tools write after an en passant capture are ignored.
+     *
+     * @throws IllegalArgumentException if no move or more than one move matches.
+     */
+    public static int parseSan(Position position, String san, int[] moves) {
+        String text = san.replaceAll("(e\\.p\\.|[+#!?])+$", "");
+        int move = findSan(position, text, moves, position.legalMoves(moves));
+        if (move < 0) {
+            move = findSan(position, text, moves, position.generateMoves(moves));
+        }
+        if (move < 0) {
+            throw new IllegalArgumentException("no move matches " + san + " in " + position.toFen());
+        }
+        return move;
+    }
+
+    /**
+     * Searches the first count moves of the array for the move the SAN describes. Returns -1
+     * if there is no match.
+     */
+    private static int findSan(Position position, String text, int[] moves, int count) {
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            boolean longCastle = text.length() > 3;
+            for (int i = 0; i < count; i++) {
+                int move = moves[i];
+                if (Move.flag(move) == Constants.MOVE_CASTLE
+                        && (Move.row(Move.to(move)) < Move.row(Move.from(move))) == longCastle) {
+                    return move;
+                }
+            }
+            return -1;
+        }
+        int type = Constants.PAWN_CODE;
+        int start = 0;
+        if (!text.isEmpty() && Character.isUpperCase(text.charAt(0))) {
+            type = Position.pieceCode(text.charAt(0));
+            start = 1;
+        }
+        String body = text.substring(start).replace("x", "").replace("-", "").replace("=", "");
+        int promotion = Constants.EMPTY_CODE;
+        if (!body.isEmpty() && Character.isUpperCase(body.charAt(body.length() - 1))) {
+            promotion = Position.pieceCode(body.charAt(body.length() - 1));
+            body = body.substring(0, body.length() - 1);
+        }
+        if (body.length() < 2) {
+            throw new IllegalArgumentException("bad SAN " + text);
+        }
+        int to = Move.parseSquare(body.substring(body.length() - 2));
+        String hint = body.substring(0, body.length() - 2);
+        int found = -1;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = Move.from(move);
+            if (Move.to(move) != to || Move.flag(move) == Constants.MOVE_CASTLE
+                    || Math.abs(position.pieceAt(from)) != type || !matchesHint(from, hint)
+                    || Move.promotion(move) != promotion) {
+                continue;
+            }
+            if (found >= 0) {
+                throw new IllegalArgumentException("ambiguous SAN " + text + " in " + position.toFen());
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * Returns true if every character of the disambiguation hint matches the file or rank
+     * of the square.
+     */
+    private static boolean matchesHint(int square, String hint) {
+        String name = Move.squareName(square);
+        for (char c : hint.toCharArray()) {
+            if (name.indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a single PGN game and replays it through a Position, returning its GameRecord.
+     * Games with a Variant "Silly" tag are recorded as silly games, and the shift and
+     * transform commands in their comments are replayed too. A game without a FEN tag starts
+     * from the standard chess position, as the PGN standard says, not from the Board's.
+     *
+     * @throws IllegalArgumentException if a move cannot be read.
+     */
+    public static GameRecord parse(String text) {
+        Matcher tags = TAG.matcher(text);
+        boolean isSilly = false;
+        String fen = null;
+        int movetextStart = 0;
+        while (tags.find()) {
+            String name = tags.group(1);
+            String value = tags.group(2);
+            if (name.equals("Variant") && value.equalsIgnoreCase("silly")) {
+                isSilly = true;
+            } else if (name.equals("FEN")) {
+                fen = value;
+            }
+            movetextStart = tags.end();
+        }
+        GameRecord record = new GameRecord(isSilly);
+        Position position = Position.startPosition();
+        if (fen == null) {
+            fen = STANDARD_FEN;
+        }
+        if (!fen.equals(Position.START_FEN)) {
+            position = Position.fromFen(fen);
+            record.addSetup(fen);
+        }
+        int[] moves = new int[Position.MAX_MOVES];
+        int i = movetextStart;
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '{') {
+                int end = text.indexOf('}', i);
+                end = end < 0 ? length : end;
+                applyComment(text.substring(i + 1, end), position, record);
+                i = end + 1;
+            } else if (c == ';') {
+                int end = text.indexOf('\n', i);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '(') {
+                i = skipVariation(text, i);
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(text.charAt(end)) && "{}();".indexOf(text.charAt(end)) < 0) {
+                    end++;
+                }
+                applyToken(text.substring(i, end), position, record, moves);
+                i = end;
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Applies one movetext token: a move number, a NAG, a result, or a move in SAN. An e.p.
+     * written apart from its en passant capture is skipped.
+     */
+    private static void applyToken(String token, Position position, GameRecord record, int[] moves) {
+        String san = token.replaceFirst("^\\d+\\.+", "");
+        if (san.isEmpty() || san.startsWith("$") || san.matches("e\\.p\\.[+#!?]*")) {
+            return;
+        }
+        for (int result = 1; result < RESULTS.length; result++) {
+            if (san.equals(RESULTS[result])) {
+                record.setResult(result);
+                return;
+            }
+        }
+        if (san.equals("*")) {
+            return;
+        }
+        int move = parseSan(position, san, moves);
+        position.makeMove(move);
+        record.addMove(move);
+    }
+
+    /**
+     * Applies the silly shift and transform commands of a comment, in the order they appear.
+     */
+    private static void applyComment(String comment, Position position, GameRecord record) {
+        Matcher commands = COMMAND.matcher(comment);
+        while (commands.find()) {
+            String command = commands.group();
+            Matcher shift = SHIFT.matcher(command);
+            Matcher transform = TRANSFORM.matcher(command);
+            if (shift.matches()) {
+                int direction = Arrays.asList(Position.SHIFT_NAMES).indexOf(shift.group(1));
+                position.shift(direction);
+                record.addShift(direction);
+            } else if (transform.matches()) {
+                int square = Move.parseSquare(transform.group(1));
+                char letter = transform.group(2).charAt(0);
+                int code = Position.pieceCode(letter);
+                boolean white = Character.isUpperCase(letter);
+                position.transform(square, white ? code : -code);
+                record.addTransform(square, code, white);
+            }
+        }
+    }
+
+    /**
+     * Skips a variation in parentheses, including nested variations and comments, and returns
+     * the index after it.
+     */
+    private static int skipVariation(String text, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '{') {
+                int end = text.indexOf('}', i);
+                i = end < 0 ? text.length() : end;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,41 @@
+package indy;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * The PgnExporter class writes every game of a game archive as PGN, so games played in
+ * Game can be opened in other chess tools. Running the main method converts an archive:
+ * PgnExporter input.scr output.pgn
+ */
+public class PgnExporter {
+
+    /**
+     * Writes every game of the archive to the writer and returns the number of games written.
+     */
+    public static long export(String archive, Writer out) throws IOException {
+        long count = 0;
+        try (GameRecordReader reader = new GameRecordReader(archive)) {
+            while (reader.nextGame()) {
+                count++;
+                Pgn.write(reader.readGame(), "silly chess game " + count, out);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Converts a game archive into a PGN file.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: PgnExporter input.scr output.pgn");
+            return;
+        }
+        try (Writer out = new BufferedWriter(new FileWriter(args[1]))) {
+            System.out.println(export(args[0], out) + " games exported");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package indy;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * The PgnImporter class reads large multi-game PGN files into GameRecords. The calling thread
+ * splits the stream into games with a PgnReader and hands them to worker threads through a
+ * bounded queue, so memory stays constant no matter how large the file is. Each worker parses
+ * its games and replays the moves through a Position. Games that cannot be read are counted
+ * and skipped. If the sink throws, the reading stops, the other workers are interrupted, and
+ * importGames throws the sink's exception.
+ * Running the main method converts a PGN file into a game archive:
+ * PgnImporter input.pgn output.scr [threads]
+ */
+public class PgnImporter {
+    private static final PendingGame END = new PendingGame(null);
+    private final int threads;
+    private final AtomicLong imported;
+    private final AtomicLong skipped;
+    private final AtomicReference<RuntimeException> failure;
+
+    /**
+     * The PendingGame class is the text of one PGN game waiting in the queue. The END marker
+     * is the only PendingGame without text.
+     */
+    private static final class PendingGame {
+        private final String text;
+
+        /**
+         * Constructs a PendingGame.
+         *
+         * @param text The PGN text of the game.
+         */
+        PendingGame(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * Constructs a PgnImporter that parses games on the given number of worker threads.
+     *
+     * @param threads The number of worker threads.
+     */
+    public PgnImporter(int threads) {
+        this.threads = Math.max(1, threads);
+        this.imported = new AtomicLong();
+        this.skipped = new AtomicLong();
+        this.failure = new AtomicReference<>();
+    }
+
+    /**
+     * Reads every game of the stream and passes its GameRecord to the sink. The sink is
+     * called from the worker threads, so it must be thread safe, and games may reach it out
+     * of order. Returns once every game has been passed to the sink.
+     *
+     * @throws IOException if the stream cannot be read, or the sink threw an
+     *                     UncheckedIOException, whose cause is thrown.
+     */
+    public void importGames(Reader in, Consumer<GameRecord> sink) throws IOException, InterruptedException {
+        this.failure.set(null);
+        BlockingQueue<PendingGame> queue = new ArrayBlockingQueue<>(Constants.PGN_QUEUE_PER_THREAD * this.threads);
+        Thread[] workers = new Thread[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            workers[i] = new Thread(() -> this.work(queue, sink), "pgn-import-" + i);
+            workers[i].start();
+        }
+        try (PgnReader reader = new PgnReader(in)) {
+            String game = reader.nextGame();
+            while (game != null) {
+                PendingGame pending = new PendingGame(game);
+                while (!queue.offer(pending, Constants.PGN_OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                    this.checkFailure();
+                }
+                game = reader.nextGame();
+            }
+        } finally {
+            this.finish(queue, workers);
+        }
+        this.checkFailure();
+    }
+
+    /**
+     * Queues an end marker for every worker and waits for them to finish. If a worker has
+     * failed, the markers may never be taken, so the workers are interrupted instead.
+     */
+    private void finish(BlockingQueue<PendingGame> queue, Thread[] workers) throws InterruptedException {
+        int ended = 0;
+        while (ended < workers.length && this.failure.get() == null) {
+            if (queue.offer(END, Constants.PGN_OFFER_MILLIS, TimeUnit.MILLISECONDS)) {
+                ended++;
+            }
+        }
+        for (Thread worker : workers) {
+            if (this.failure.get() != null) {
+                worker.interrupt();
+            }
+            worker.join();
+        }
+    }
+
+    /**
+     * Throws the exception a worker failed with, if one did. The IOException inside an
+     * UncheckedIOException is thrown as it is.
+     */
+    private void checkFailure() throws IOException {
+        RuntimeException failed = this.failure.get();
+        if (failed instanceof UncheckedIOException) {
+            throw ((UncheckedIOException) failed).getCause();
+        } else if (failed != null) {
+            throw failed;
+        }
+    }
+
+    /**
+     * Takes games from the queue and parses them until the end marker is taken. If the sink
+     * throws, its exception is kept for importGames to throw.
+     */
+    private void work(BlockingQueue<PendingGame> queue, Consumer<GameRecord> sink) {
+        try {
+            PendingGame game = queue.take();
+            while (game != END) {
+                GameRecord record = null;
+                try {
+                    record = Pgn.parse(game.text);
+                } catch (IllegalArgumentException e) {
+                    this.skipped.incrementAndGet();
+                }
+                if (record != null) {
+                    sink.accept(record);
+                    this.imported.incrementAndGet();
+                }
+                game = queue.take();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            this.failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * Accessor method for the number of games imported.
+     */
+    public long getImported() {
+        return this.imported.get();
+    }
+
+    /**
+     * Accessor method for the number of games that could not be read.
+     */
+    public long getSkipped() {
+        return this.skipped.get();
+    }
+
+    /**
+     * Converts a PGN file into a game archive.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("usage: PgnImporter input.pgn output.scr [threads]");
+            return;
+        }
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        PgnImporter importer = new PgnImporter(threads);
+        try (GameRecordWriter writer = new GameRecordWriter(args[1]); Reader in = new FileReader(args[0])) {
+            importer.importGames(in, record -> {
+                synchronized (writer) {
+                    try {
+                        writer.append(record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+        System.out.println(importer.getImported() + " games imported, " + importer.getSkipped() + " skipped");
+    }
+}
@@ -0,0 +1,72 @@
+package indy;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * The PgnReader class splits a multi-game PGN stream into the text of single games. Only
+ * one game is held in memory at a time, so files of any size can be read. A new game starts
+ * at the first tag line that comes after movetext. Lines starting with % are escape lines and
+ * are skipped by PGN readers.
+ */
+public class PgnReader implements Closeable {
+    private final BufferedReader in;
+    private String pendingLine;
+    private long gameCount;
+
+    /**
+     * Constructs a PgnReader over the given stream.
+     *
+     * @param in The PGN text to read.
+     */
+    public PgnReader(Reader in) {
+        this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        this.pendingLine = null;
+        this.gameCount = 0;
+    }
+
+    /**
+     * Returns the text of the next game, or null once the stream has no more games.
+     */
+    public String nextGame() throws IOException {
+        StringBuilder game = new StringBuilder();
+        boolean inMovetext = false;
+        String line = this.pendingLine != null ? this.pendingLine : this.in.readLine();
+        this.pendingLine = null;
+        while (line != null) {
+            String trimmed = line.trim();
+            boolean tagLine = trimmed.startsWith("[") && !trimmed.startsWith("[%");
+            if (tagLine && inMovetext) {
+                this.pendingLine = line;
+                break;
+            }
+            if (!trimmed.startsWith("%")) {
+                inMovetext |= !trimmed.isEmpty() && !tagLine;
+                game.append(line).append('\n');
+            }
+            line = this.in.readLine();
+        }
+        if (game.toString().trim().isEmpty()) {
+            return null;
+        }
+        this.gameCount++;
+        return game.toString();
+    }
+
+    /**
+     * Accessor method for the number of games read so far.
+     */
+    public long getGameCount() {
+        return this.gameCount;
+    }
+
+    /**
+     * Closes the underlying stream.
+     */
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+}
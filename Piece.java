@@ -5,6 +5,7 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.Pane;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * Abstract class representing a chess piece. Contains general methods defining
@@ -12,6 +13,8 @@ import java.util.ArrayList;
  * subclasses.
  */
 public abstract class Piece {
+    // images are shared by every Piece of the same color and type, so each PNG is loaded once
+    private static final HashMap<String, Image> IMAGES = new HashMap<>();
     private Pane gamePane;
     private boolean isWhite;
     private Image image;
@@ -21,6 +24,7 @@ public abstract class Piece {
     private int oldRow;
     private int oldCol;
     private ArrayList<MySquare> validSquares;
+    private long validBits;
 
 
     /**
@@ -42,20 +46,32 @@ public abstract class Piece {
         this.oldRow = oldRow;
         this.oldCol = oldCol;
         this.validSquares = new ArrayList<>();
+        this.validBits = 0L;
     }
 
     /**
      * Sets the image for the piece by getting the image correlating the color and type of the
-     * Piece. Sets height and width.
+     * Piece. Sets height and width. The image is loaded the first time it is needed and then
+     * shared with every other Piece of the same color and type.
      */
     public void setImage() {
-        this.image = new Image("indy/pieces/" + this.getColor() + this.getType() + ".png", Constants.PIECE_WIDTH, Constants.PIECE_WIDTH, true, true);
+        this.image = image(this.getColor() + this.getType());
         this.imageView = new ImageView(this.image);
         this.imageView.setFitHeight(Constants.SQUARE_WIDTH-10);
         this.imageView.setFitWidth(Constants.SQUARE_WIDTH-10);
         this.imageView.setImage(this.image);
     }
 
+    /**
+     * Returns the shared image of the pieces with the given color and type, such as
+     * whitePawn, loading it the first time it is asked for. The ReplayViewer draws its
+     * pieces with the same images.
+     */
+    public static Image image(String name) {
+        return IMAGES.computeIfAbsent(name, key ->
+                new Image("indy/pieces/" + key + ".png", Constants.PIECE_WIDTH, Constants.PIECE_WIDTH, true, true));
+    }
+
     /**
      * Moves the piece to the specified square by setting the X and Y locations.
      */
@@ -73,18 +89,23 @@ public abstract class Piece {
 
     /**
      * Sets the valid squares for the piece to move to by checking move validity
-     * for each square on the board.
+     * for each square on the board. They are also kept as a bitboard (see Bitboards), so
+     * they can be compared with a set of squares in one step.
      */
     public void setValidSquares() {
+        long start = Metrics.start();
         this.validSquares.clear();
+        this.validBits = 0L;
         for (int i = 0; i < Constants.BOARD_WIDTH; i++) {
             for (int j = 0; j < Constants.BOARD_WIDTH; j++) {
                 if (this.moveValidity(this.oldRow, this.oldCol, i, j)) {
                     MySquare square = this.board.getBoard()[i][j];
                     this.validSquares.add(square);
+                    this.validBits |= Bitboards.bit(Move.square(i, j));
                 }
             }
         }
+        Metrics.SET_VALID_SQUARES.stop(start);
     }
 
     /**
@@ -108,6 +129,7 @@ public abstract class Piece {
 
     /**
      * Checks if the piece is in check and evaluates the move's impact on the check status.
+     * The squares the check can be blocked on are looked up in Bitboards.BETWEEN.
      *
      * @param oldRow The current row of the piece.
      * @param oldCol The current column of the piece.
@@ -130,18 +152,10 @@ public abstract class Piece {
                 oppPlayer = "black";
             }
             if (attacker != null) {
-                int attackersRow = attacker.getOldRow();
-                int attackersCol = attacker.getOldCol();
-                int rowIncrement = Integer.compare(attackersRow, kingsRow);
-                int colIncrement = Integer.compare(attackersCol, kingsCol);
-                for (int row = attackersRow + rowIncrement, col = attackersCol + colIncrement;
-                     row != kingsRow || col != kingsCol;
-                     row += rowIncrement, col += colIncrement) {
-                    if (row >= 0 && row < 8 && col >= 0 && col < 8) {
-                        if (newRow != row || newCol != col) {
-                            block = false;
-                        }
-                    }
+                long between = Bitboards.BETWEEN[Move.square(attacker.getOldRow(), attacker.getOldCol())]
+                        [Move.square(kingsRow, kingsCol)];
+                if ((between & Bitboards.bit(Move.square(newRow, newCol))) == 0) {
+                    block = false;
                 }
                 if (!this.moveValidity(oldRow, oldCol, attacker.getOldRow(), attacker.getOldCol())) {
                     capture = false;
@@ -154,6 +168,15 @@ public abstract class Piece {
         return capture || block || escape;
     }
 
+    /**
+     * Puts the Piece back in the state it had at the start of a game, so it can be reused
+     * when the game restarts. Overridden in Pawn.
+     */
+    public void resetState() {
+        this.isFirstMove = true;
+        this.imageView.setMouseTransparent(false);
+    }
+
     /**
      * Returns true if Piece still has its first move.
      */
@@ -196,6 +219,14 @@ public abstract class Piece {
         return this.validSquares;
     }
 
+    /**
+     * Accessor method for the valid squares as a bitboard, with the bit of Move.square set
+     * for each of them.
+     */
+    public long getValidBits() {
+        return this.validBits;
+    }
+
     /**
      * Returns a square for en passant capture. Overridden in Pawn.
      */
@@ -211,17 +242,20 @@ public abstract class Piece {
     }
 
     /**
-     * Adds the piece's image view to the game pane.
+     * Adds the piece's image view to the game pane, unless the Board is drawn by a
+     * BoardCanvas.
      */
     public void addImageViewPane() {
-        this.gamePane.getChildren().add(this.imageView);
+        if (!this.board.isCanvas()) {
+            this.gamePane.getChildren().add(this.imageView);
+        }
     }
 
     /**
      * Removes the piece's image view to the game pane.
      */
     public void removeFromPane() {
-        if (this.imageView != null) {
+        if (this.imageView != null && !this.board.isCanvas()) {
             this.gamePane.getChildren().remove(this.imageView);
         }
     }
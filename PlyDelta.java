@@ -0,0 +1,159 @@
+package indy;
+
+import java.util.ArrayList;
+
+/**
+ * The PlyDelta class stores what one move changed on the Board, so that the move can be
+ * taken back and played again without rebuilding the Board. It holds the squares whose
+ * occupant changed, with the Piece before and after the move. This covers captures,
+ * castling, en passant, and silly shifts, since a shift only moves Pieces to other squares.
+ * A silly transformation replaces a Piece by a new Piece of the other color, and a promotion
+ * replaces a Pawn by a new Piece, so the replaced and the new Pieces are also kept in order
+ * to update the lists of the Board.
+ */
+public class PlyDelta {
+    private final int[] squares;
+    private final Piece[] before;
+    private final Piece[] after;
+    private final ArrayList<Piece> removed;
+    private final ArrayList<Piece> added;
+    private final Piece moved;
+    private final boolean movedFirstMove;
+    private final Piece prevSelectedBefore;
+
+    /**
+     * Constructs a PlyDelta by comparing the occupants of the Board before the move with the
+     * occupants now.
+     *
+     * @param board              The Board after the move.
+     * @param snapshot           The occupant of each square before the move, indexed like Move.
+     * @param moved              The Piece that was moved.
+     * @param movedFirstMove     Whether the moved Piece still had its first move before.
+     * @param prevSelectedBefore The previously selected Piece before the move.
+     */
+    public PlyDelta(Board board, Piece[] snapshot, Piece moved, boolean movedFirstMove, Piece prevSelectedBefore) {
+        this.moved = moved;
+        this.movedFirstMove = movedFirstMove;
+        this.prevSelectedBefore = prevSelectedBefore;
+        int count = 0;
+        int[] changed = new int[snapshot.length];
+        for (int square = 0; square < snapshot.length; square++) {
+            if (snapshot[square] != occupant(board, square)) {
+                changed[count++] = square;
+            }
+        }
+        this.squares = new int[count];
+        this.before = new Piece[count];
+        this.after = new Piece[count];
+        for (int i = 0; i < count; i++) {
+            this.squares[i] = changed[i];
+            this.before[i] = snapshot[changed[i]];
+            this.after[i] = occupant(board, changed[i]);
+        }
+        this.removed = new ArrayList<>();
+        this.added = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (this.before[i] != null && !contains(this.after, this.before[i])) {
+                this.removed.add(this.before[i]);
+            }
+            if (this.after[i] != null && !contains(this.before, this.after[i])) {
+                this.added.add(this.after[i]);
+            }
+        }
+    }
+
+    /**
+     * Fills the array with the occupant of each square of the Board, indexed like Move.
+     */
+    public static void snapshot(Board board, Piece[] snapshot) {
+        for (int square = 0; square < snapshot.length; square++) {
+            snapshot[square] = occupant(board, square);
+        }
+    }
+
+    /**
+     * Returns the Piece occupying the square with the given index, or null.
+     */
+    private static Piece occupant(Board board, int square) {
+        return board.getBoard()[Move.row(square)][Move.col(square)].getOccupying();
+    }
+
+    /**
+     * Returns true if the array holds the Piece.
+     */
+    private static boolean contains(Piece[] pieces, Piece piece) {
+        for (Piece other : pieces) {
+            if (other == piece) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes the move back. Each changed square gets its occupant from before the move, and
+     * captured or transformed Pieces are put back in the lists of the Board.
+     */
+    public void undo(Board board) {
+        this.place(board, this.before);
+        for (Piece piece : this.added) {
+            board.removePieceLogically(piece);
+        }
+        for (Piece piece : this.removed) {
+            board.addPieceLogically(piece);
+        }
+        this.moved.setFirstMove(this.movedFirstMove);
+    }
+
+    /**
+     * Plays the move again after it was taken back.
+     */
+    public void redo(Board board) {
+        this.place(board, this.after);
+        for (Piece piece : this.removed) {
+            board.removePieceLogically(piece);
+        }
+        for (Piece piece : this.added) {
+            board.addPieceLogically(piece);
+        }
+        this.moved.setFirstMove(false);
+    }
+
+    /**
+     * Empties every changed square first, so no image view is added to the pane twice, and
+     * then places the given occupants.
+     */
+    private void place(Board board, Piece[] occupants) {
+        for (int square : this.squares) {
+            board.getBoard()[Move.row(square)][Move.col(square)].removeOccupying();
+        }
+        for (int i = 0; i < this.squares.length; i++) {
+            if (occupants[i] != null) {
+                MySquare square = board.getBoard()[Move.row(this.squares[i])][Move.col(this.squares[i])];
+                occupants[i].removeFromPane();
+                square.setOccupying(occupants[i], square);
+            }
+        }
+    }
+
+    /**
+     * Accessor method for the Piece that was moved.
+     */
+    public Piece getMoved() {
+        return this.moved;
+    }
+
+    /**
+     * Accessor method for the previously selected Piece before the move.
+     */
+    public Piece getPrevSelectedBefore() {
+        return this.prevSelectedBefore;
+    }
+
+    /**
+     * Accessor method for the number of squares the move changed.
+     */
+    public int getChangedCount() {
+        return this.squares.length;
+    }
+}
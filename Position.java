@@ -0,0 +1,887 @@
+package indy;
+
+import java.util.Arrays;
+
+/**
+ * The Position class is the headless rules core. It holds a chess position without any
+ * JavaFX nodes, so it can be used to replay game records, read and write PGN, and search.
+ * Pieces are stored both in a 64 square array of signed piece codes (positive for white,
+ * negative for black) and in bitboards per piece code and per color.
+ * The rules follow the Game and Piece classes: castling is done by moving the King onto a
+ * Rook of its color, and a piece that has not moved yet (including a piece created by a
+ * silly transformation) may castle or make a double pawn step. Silly shifts and
+ * transformations can be applied and undone like moves.
+ */
+public class Position {
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBKQBNR w AHah - 0 1";
+    public static final int MAX_MOVES = 256;
+    // the names of the SHIFT_ directions, kept out of Constants so headless code needs no JavaFX
+    public static final String[] SHIFT_NAMES = {"up", "down", "left", "right"};
+    private static final int SQUARES = Constants.BOARD_WIDTH * Constants.BOARD_WIDTH;
+    private static final int KIND_MOVE = 0;
+    private static final int KIND_SHIFT = 1;
+    private static final int KIND_TRANSFORM = 2;
+    private static final int KIND_NULL = 3;
+    private static final int INITIAL_HISTORY = 128;
+    private static final String PIECE_LETTERS = ".PNBRQK";
+
+    private final int[] squares;
+    private final int[] scratch;
+    private final long[] typeBoards;
+    private final long[] colorBoards;
+    private boolean whiteToMove;
+    private long unmoved;
+    private int epSquare;
+    private int plyCount;
+    private long hash;
+    private int[] historyKind;
+    private int[] historyData;
+    private int[] historyPiece;
+    private int[] historyEp;
+    private long[] historyUnmoved;
+    private long[] historyHash;
+    private int historySize;
+
+    /**
+     * Constructs an empty Position with white to move. Use startPosition or fromFen to get
+     * a Position with pieces on it.
+     */
+    public Position() {
+        this.squares = new int[SQUARES];
+        this.scratch = new int[SQUARES];
+        this.typeBoards = new long[Constants.KING_CODE + 1];
+        this.colorBoards = new long[2];
+        this.whiteToMove = true;
+        this.unmoved = 0L;
+        this.epSquare = -1;
+        this.plyCount = 0;
+        this.hash = 0L;
+        this.historyKind = new int[INITIAL_HISTORY];
+        this.historyData = new int[INITIAL_HISTORY];
+        this.historyPiece = new int[INITIAL_HISTORY];
+        this.historyEp = new int[INITIAL_HISTORY];
+        this.historyUnmoved = new long[INITIAL_HISTORY];
+        this.historyHash = new long[INITIAL_HISTORY];
+        this.historySize = 0;
+    }
+
+    /**
+     * Returns a copy of the Position, including its history, so a search thread can play on
+     * its own Position.
+     */
+    public Position copy() {
+        Position copy = new Position();
+        System.arraycopy(this.squares, 0, copy.squares, 0, SQUARES);
+        System.arraycopy(this.typeBoards, 0, copy.typeBoards, 0, this.typeBoards.length);
+        System.arraycopy(this.colorBoards, 0, copy.colorBoards, 0, this.colorBoards.length);
+        copy.whiteToMove = this.whiteToMove;
+        copy.unmoved = this.unmoved;
+        copy.epSquare = this.epSquare;
+        copy.plyCount = this.plyCount;
+        copy.hash = this.hash;
+        int length = Math.max(INITIAL_HISTORY, this.historyKind.length);
+        copy.historyKind = Arrays.copyOf(this.historyKind, length);
+        copy.historyData = Arrays.copyOf(this.historyData, length);
+        copy.historyPiece = Arrays.copyOf(this.historyPiece, length);
+        copy.historyEp = Arrays.copyOf(this.historyEp, length);
+        copy.historyUnmoved = Arrays.copyOf(this.historyUnmoved, length);
+        copy.historyHash = Arrays.copyOf(this.historyHash, length);
+        copy.historySize = this.historySize;
+        return copy;
+    }
+
+    /**
+     * Returns a new Position set up like the Board at the start of a game.
+     */
+    public static Position startPosition() {
+        return fromFen(START_FEN);
+    }
+
+    /**
+     * Returns a new Position read from a FEN string. Castling rights may be given as KQkq or
+     * as the files of the castling Rooks. Pawns on their starting column are treated as
+     * unmoved, so they may still make a double step.
+     */
+    public static Position fromFen(String fen) {
+        Position position = new Position();
+        String[] fields = fen.trim().split("\\s+");
+        int row = 0;
+        int col = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                row = 0;
+                col++;
+            } else if (Character.isDigit(c)) {
+                row += c - '0';
+            } else {
+                int code = PIECE_LETTERS.indexOf(Character.toUpperCase(c));
+                if (code <= 0 || row >= Constants.BOARD_WIDTH || col >= Constants.BOARD_WIDTH) {
+                    throw new IllegalArgumentException("bad FEN board: " + fen);
+                }
+                position.put(Move.square(row, col), Character.isUpperCase(c) ? code : -code);
+                row++;
+            }
+        }
+        position.whiteToMove = fields.length < 2 || fields[1].equals("w");
+        position.unmoved = position.startingPawns();
+        if (fields.length > 2 && !fields[2].equals("-")) {
+            for (char c : fields[2].toCharArray()) {
+                position.addCastlingRight(c);
+            }
+        }
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            position.epSquare = Move.parseSquare(fields[3]);
+        }
+        if (fields.length > 5) {
+            int moveNumber = Integer.parseInt(fields[5]);
+            position.plyCount = 2 * (moveNumber - 1) + (position.whiteToMove ? 0 : 1);
+        }
+        position.hash = position.computeHash();
+        return position;
+    }
+
+    /**
+     * Clears the Position and places the given pieces, for positions built square by square
+     * like the ones of a tablebase. Pawns on their starting column count as unmoved, nothing
+     * else can castle, there is no en passant square, and the history is emptied.
+     *
+     * @param squares     The square of each piece.
+     * @param pieces      The signed piece code of each piece.
+     * @param count       The number of pieces to place.
+     * @param whiteToMove Whether white is to move.
+     */
+    public void load(int[] squares, int[] pieces, int count, boolean whiteToMove) {
+        long occupied = this.occupied();
+        while (occupied != 0) {
+            this.remove(Long.numberOfTrailingZeros(occupied));
+            occupied &= occupied - 1;
+        }
+        for (int i = 0; i < count; i++) {
+            this.put(squares[i], pieces[i]);
+        }
+        this.whiteToMove = whiteToMove;
+        this.unmoved = this.startingPawns();
+        this.epSquare = -1;
+        this.plyCount = 0;
+        this.historySize = 0;
+        this.hash = this.computeHash();
+    }
+
+    /**
+     * Returns the pawns standing on the starting column of their color.
+     */
+    private long startingPawns() {
+        long pawns = this.typeBoards[Constants.PAWN_CODE];
+        return (pawns & this.colorBoards[0] & (Bitboards.COL_0 << 48))
+                | (pawns & this.colorBoards[1] & (Bitboards.COL_0 << 8));
+    }
+
+    /**
+     * Marks the King and the Rook of a FEN castling right as unmoved.
+     */
+    private void addCastlingRight(char c) {
+        boolean white = Character.isUpperCase(c);
+        int color = white ? 0 : 1;
+        int col = white ? Constants.BOARD_WIDTH - 1 : 0;
+        long king = this.typeBoards[Constants.KING_CODE] & this.colorBoards[color];
+        if (king == 0) {
+            return;
+        }
+        int kingSquare = Long.numberOfTrailingZeros(king);
+        int rookRow = -1;
+        char upper = Character.toUpperCase(c);
+        if (upper == 'K' || upper == 'Q') {
+            // the outermost Rook on the side of the King
+            int step = upper == 'K' ? 1 : -1;
+            for (int row = Move.row(kingSquare) + step; row >= 0 && row < Constants.BOARD_WIDTH; row += step) {
+                if (this.squares[Move.square(row, col)] == (white ? Constants.ROOK_CODE : -Constants.ROOK_CODE)) {
+                    rookRow = row;
+                }
+            }
+        } else {
+            rookRow = upper - 'A';
+        }
+        if (rookRow >= 0 && rookRow < Constants.BOARD_WIDTH) {
+            this.unmoved |= Bitboards.bit(kingSquare) | Bitboards.bit(Move.square(rookRow, col));
+        }
+    }
+
+    /**
+     * Returns the FEN string of the Position. Castling rights are written as the files of the
+     * Rooks that may still castle, since the King does not start on the e file.
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder();
+        for (int col = 0; col < Constants.BOARD_WIDTH; col++) {
+            int empty = 0;
+            for (int row = 0; row < Constants.BOARD_WIDTH; row++) {
+                int piece = this.squares[Move.square(row, col)];
+                if (piece == 0) {
+                    empty++;
+                } else {
+                    if (empty > 0) {
+                        fen.append(empty);
+                        empty = 0;
+                    }
+                    char letter = PIECE_LETTERS.charAt(Math.abs(piece));
+                    fen.append(piece > 0 ? letter : Character.toLowerCase(letter));
+                }
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (col < Constants.BOARD_WIDTH - 1) {
+                fen.append('/');
+            }
+        }
+        fen.append(this.whiteToMove ? " w " : " b ");
+        StringBuilder castling = new StringBuilder();
+        for (int color = 0; color < 2; color++) {
+            long king = this.typeBoards[Constants.KING_CODE] & this.colorBoards[color] & this.unmoved;
+            if (king != 0) {
+                int kingSquare = Long.numberOfTrailingZeros(king);
+                long rooks = this.typeBoards[Constants.ROOK_CODE] & this.colorBoards[color] & this.unmoved
+                        & (Bitboards.COL_0 << (Move.col(kingSquare) * Constants.BOARD_WIDTH));
+                while (rooks != 0) {
+                    char file = (char) ('a' + Move.row(Long.numberOfTrailingZeros(rooks)));
+                    castling.append(color == 0 ? Character.toUpperCase(file) : file);
+                    rooks &= rooks - 1;
+                }
+            }
+        }
+        fen.append(castling.length() == 0 ? "-" : castling.toString());
+        fen.append(' ').append(this.epSquare < 0 ? "-" : Move.squareName(this.epSquare));
+        fen.append(" 0 ").append(this.plyCount / 2 + 1);
+        return fen.toString();
+    }
+
+    /**
+     * Places a piece on an empty square.
+     */
+    private void put(int square, int piece) {
+        this.squares[square] = piece;
+        this.hash ^= Zobrist.piece(piece, square);
+        this.typeBoards[Math.abs(piece)] |= Bitboards.bit(square);
+        this.colorBoards[piece > 0 ? 0 : 1] |= Bitboards.bit(square);
+    }
+
+    /**
+     * Removes the piece on a square and returns it.
+     */
+    private int remove(int square) {
+        int piece = this.squares[square];
+        if (piece != 0) {
+            this.squares[square] = 0;
+            this.hash ^= Zobrist.piece(piece, square);
+            this.typeBoards[Math.abs(piece)] &= ~Bitboards.bit(square);
+            this.colorBoards[piece > 0 ? 0 : 1] &= ~Bitboards.bit(square);
+        }
+        return piece;
+    }
+
+    /**
+     * Applies a move and pushes what is needed to undo it. The move is trusted, so replaying
+     * a recorded move does not check its legality.
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flag = Move.flag(move);
+        int captured = 0;
+        this.push(KIND_MOVE, move, 0);
+        int piece = this.remove(from);
+        boolean white = piece > 0;
+        int newEp = -1;
+        if (flag == Constants.MOVE_CASTLE) {
+            int rook = this.remove(to);
+            int step = Move.row(to) > Move.row(from) ? 1 : -1;
+            this.put(from + 2 * step, piece);
+            this.put(from + step, rook);
+        } else {
+            if (flag == Constants.MOVE_EN_PASSANT) {
+                captured = this.remove(white ? to + Constants.BOARD_WIDTH : to - Constants.BOARD_WIDTH);
+            } else {
+                captured = this.remove(to);
+            }
+            int promotion = Move.promotion(move);
+            this.put(to, promotion == Constants.EMPTY_CODE ? piece : white ? promotion : -promotion);
+            if (Math.abs(piece) == Constants.PAWN_CODE && Math.abs(to - from) == 2 * Constants.BOARD_WIDTH) {
+                newEp = (from + to) / 2;
+            }
+        }
+        this.historyPiece[this.historySize - 1] = captured;
+        this.setUnmoved(this.unmoved & ~(Bitboards.bit(from) | Bitboards.bit(to)));
+        this.setEpSquare(newEp);
+        this.hash ^= Zobrist.SIDE;
+        this.whiteToMove = !this.whiteToMove;
+        this.plyCount++;
+    }
+
+    /**
+     * Passes the turn to the other side without moving. This is not a chess move: the Engine
+     * uses it to see whether a position is so good that even a free move for the opponent
+     * does not save them. It is undone by undo like a move.
+     */
+    public void makeNullMove() {
+        this.push(KIND_NULL, 0, 0);
+        this.setEpSquare(-1);
+        this.hash ^= Zobrist.SIDE;
+        this.whiteToMove = !this.whiteToMove;
+        this.plyCount++;
+    }
+
+    /**
+     * Shifts every piece one square in the given direction. Pieces on the edge wrap to the
+     * opposite side of the board, like Game.shiftBoard.
+     */
+    public void shift(int direction) {
+        this.push(KIND_SHIFT, direction, 0);
+        this.shiftPieces(direction);
+        this.setEpSquare(-1);
+    }
+
+    /**
+     * Replaces the piece on a square by the given signed piece code, like the silly
+     * transformations in Game. The new piece counts as unmoved.
+     */
+    public void transform(int square, int piece) {
+        this.push(KIND_TRANSFORM, square, this.squares[square]);
+        this.remove(square);
+        this.put(square, piece);
+        this.setUnmoved(this.unmoved | Bitboards.bit(square));
+    }
+
+    /**
+     * Undoes the last move, null move, shift, or transformation. Returns false if there is
+     * nothing to undo.
+     */
+    public boolean undo() {
+        if (this.historySize == 0) {
+            return false;
+        }
+        this.historySize--;
+        int kind = this.historyKind[this.historySize];
+        int data = this.historyData[this.historySize];
+        int piece = this.historyPiece[this.historySize];
+        if (kind == KIND_MOVE) {
+            int from = Move.from(data);
+            int to = Move.to(data);
+            int flag = Move.flag(data);
+            if (flag == Constants.MOVE_CASTLE) {
+                int step = Move.row(to) > Move.row(from) ? 1 : -1;
+                int king = this.remove(from + 2 * step);
+                int rook = this.remove(from + step);
+                this.put(from, king);
+                this.put(to, rook);
+            } else {
+                int moved = this.remove(to);
+                if (Move.isPromotion(data)) {
+                    moved = moved > 0 ? Constants.PAWN_CODE : -Constants.PAWN_CODE;
+                }
+                this.put(from, moved);
+                if (piece != 0) {
+                    if (flag == Constants.MOVE_EN_PASSANT) {
+                        this.put(moved > 0 ? to + Constants.BOARD_WIDTH : to - Constants.BOARD_WIDTH, piece);
+                    } else {
+                        this.put(to, piece);
+                    }
+                }
+            }
+            this.whiteToMove = !this.whiteToMove;
+            this.plyCount--;
+        } else if (kind == KIND_NULL) {
+            this.whiteToMove = !this.whiteToMove;
+            this.plyCount--;
+        } else if (kind == KIND_SHIFT) {
+            this.shiftPieces(opposite(data));
+        } else {
+            this.remove(data);
+            if (piece != 0) {
+                this.put(data, piece);
+            }
+        }
+        this.epSquare = this.historyEp[this.historySize];
+        this.unmoved = this.historyUnmoved[this.historySize];
+        this.hash = this.historyHash[this.historySize];
+        return true;
+    }
+
+    /**
+     * Changes the unmoved squares and updates the hash.
+     */
+    private void setUnmoved(long unmoved) {
+        this.hash ^= Zobrist.unmoved(this.unmoved ^ unmoved);
+        this.unmoved = unmoved;
+    }
+
+    /**
+     * Changes the en passant square and updates the hash.
+     */
+    private void setEpSquare(int epSquare) {
+        this.hash ^= Zobrist.ep(this.epSquare) ^ Zobrist.ep(epSquare);
+        this.epSquare = epSquare;
+    }
+
+    /**
+     * Computes the Zobrist hash of the Position from scratch. The hash kept during moves,
+     * shifts, and transformations always equals this value.
+     */
+    public long computeHash() {
+        long key = this.whiteToMove ? 0L : Zobrist.SIDE;
+        for (int square = 0; square < SQUARES; square++) {
+            key ^= Zobrist.piece(this.squares[square], square);
+        }
+        return key ^ Zobrist.ep(this.epSquare) ^ Zobrist.unmoved(this.unmoved);
+    }
+
+    /**
+     * Returns the direction that reverses a shift in the given direction.
+     */
+    public static int opposite(int direction) {
+        switch (direction) {
+            case Constants.SHIFT_UP:
+                return Constants.SHIFT_DOWN;
+            case Constants.SHIFT_DOWN:
+                return Constants.SHIFT_UP;
+            case Constants.SHIFT_LEFT:
+                return Constants.SHIFT_RIGHT;
+            default:
+                return Constants.SHIFT_LEFT;
+        }
+    }
+
+    /**
+     * Moves every piece one square in the direction, wrapping at the edges. Up moves pieces
+     * towards column 0 and left moves pieces towards row 0.
+     */
+    private void shiftPieces(int direction) {
+        System.arraycopy(this.squares, 0, this.scratch, 0, SQUARES);
+        for (int square = 0; square < SQUARES; square++) {
+            this.remove(square);
+        }
+        for (int square = 0; square < SQUARES; square++) {
+            if (this.scratch[square] != 0) {
+                this.put(shiftSquare(square, direction), this.scratch[square]);
+            }
+        }
+        this.setUnmoved(shiftBitboard(this.unmoved, direction));
+    }
+
+    /**
+     * Returns the square a piece on the given square lands on after a shift.
+     */
+    public static int shiftSquare(int square, int direction) {
+        int row = Move.row(square);
+        int col = Move.col(square);
+        int width = Constants.BOARD_WIDTH;
+        switch (direction) {
+            case Constants.SHIFT_UP:
+                return Move.square(row, (col + width - 1) % width);
+            case Constants.SHIFT_DOWN:
+                return Move.square(row, (col + 1) % width);
+            case Constants.SHIFT_LEFT:
+                return Move.square((row + width - 1) % width, col);
+            default:
+                return Move.square((row + 1) % width, col);
+        }
+    }
+
+    /**
+     * Shifts a bitboard one square in the direction, wrapping at the edges.
+     */
+    public static long shiftBitboard(long bitboard, int direction) {
+        switch (direction) {
+            case Constants.SHIFT_UP:
+                return Long.rotateRight(bitboard, Constants.BOARD_WIDTH);
+            case Constants.SHIFT_DOWN:
+                return Long.rotateLeft(bitboard, Constants.BOARD_WIDTH);
+            case Constants.SHIFT_LEFT:
+                return ((bitboard >>> 1) & ~Bitboards.ROW_7) | ((bitboard << 7) & Bitboards.ROW_7);
+            default:
+                return ((bitboard << 1) & ~Bitboards.ROW_0) | ((bitboard >>> 7) & Bitboards.ROW_0);
+        }
+    }
+
+    /**
+     * Returns the squares of the line that wraps around after a shift in the direction. The
+     * silly transformation picks its piece from this line.
+     */
+    public static long wrappedLine(int direction) {
+        switch (direction) {
+            case Constants.SHIFT_UP:
+                return Bitboards.COL_7;
+            case Constants.SHIFT_DOWN:
+                return Bitboards.COL_0;
+            case Constants.SHIFT_LEFT:
+                return Bitboards.ROW_7;
+            default:
+                return Bitboards.ROW_0;
+        }
+    }
+
+    /**
+     * Saves the state needed to undo a move, shift, or transformation.
+     */
+    private void push(int kind, int data, int piece) {
+        if (this.historySize == this.historyKind.length) {
+            int length = this.historySize * 2;
+            this.historyKind = Arrays.copyOf(this.historyKind, length);
+            this.historyData = Arrays.copyOf(this.historyData, length);
+            this.historyPiece = Arrays.copyOf(this.historyPiece, length);
+            this.historyEp = Arrays.copyOf(this.historyEp, length);
+            this.historyUnmoved = Arrays.copyOf(this.historyUnmoved, length);
+            this.historyHash = Arrays.copyOf(this.historyHash, length);
+        }
+        this.historyKind[this.historySize] = kind;
+        this.historyData[this.historySize] = data;
+        this.historyPiece[this.historySize] = piece;
+        this.historyEp[this.historySize] = this.epSquare;
+        this.historyUnmoved[this.historySize] = this.unmoved;
+        this.historyHash[this.historySize] = this.hash;
+        this.historySize++;
+    }
+
+    /**
+     * Fills the array with the pseudo-legal moves of the side to move and returns how many
+     * there are. Pseudo-legal moves may leave the King in check.
+     */
+    public int generateMoves(int[] moves) {
+        return this.generate(moves, false);
+    }
+
+    /**
+     * Fills the array with the pseudo-legal captures (including en passant) of the side to
+     * move and returns how many there are. The Engine's quiescence search only looks at these.
+     */
+    public int generateCaptures(int[] moves) {
+        return this.generate(moves, true);
+    }
+
+    /**
+     * Fills the array with all pseudo-legal moves, or only the captures, and returns how
+     * many there are.
+     */
+    private int generate(int[] moves, boolean capturesOnly) {
+        int count = 0;
+        int color = this.whiteToMove ? 0 : 1;
+        long own = this.colorBoards[color];
+        long enemy = this.colorBoards[1 - color];
+        long occupied = own | enemy;
+        long pieces = own;
+        while (pieces != 0) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            int type = Math.abs(this.squares[from]);
+            long targets;
+            switch (type) {
+                case Constants.PAWN_CODE:
+                    count = this.generatePawnMoves(moves, count, from, enemy, occupied, capturesOnly);
+                    continue;
+                case Constants.KNIGHT_CODE:
+                    targets = Bitboards.KNIGHT_ATTACKS[from];
+                    break;
+                case Constants.BISHOP_CODE:
+                    targets = Bitboards.bishopAttacks(from, occupied);
+                    break;
+                case Constants.ROOK_CODE:
+                    targets = Bitboards.rookAttacks(from, occupied);
+                    break;
+                case Constants.QUEEN_CODE:
+                    targets = Bitboards.queenAttacks(from, occupied);
+                    break;
+                default:
+                    targets = Bitboards.KING_ATTACKS[from];
+                    if (!capturesOnly) {
+                        count = this.generateCastles(moves, count, from, occupied);
+                    }
+                    break;
+            }
+            targets &= capturesOnly ? enemy : ~own;
+            while (targets != 0) {
+                int to = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+                int flag = (enemy & Bitboards.bit(to)) != 0 ? Constants.MOVE_CAPTURE : Constants.MOVE_QUIET;
+                moves[count++] = Move.encode(from, to, flag);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the pushes, double steps, captures, and en passant captures of the pawn, or only
+     * its captures. A pawn that reaches its last column promotes, and only the promotions to
+     * a Queen count as captures, since the Engine's quiescence search has to see them but the
+     * under-promotions almost never matter there.
+     */
+    private int generatePawnMoves(int[] moves, int count, int from, long enemy, long occupied, boolean capturesOnly) {
+        int color = this.whiteToMove ? 0 : 1;
+        int forward = this.whiteToMove ? -Constants.BOARD_WIDTH : Constants.BOARD_WIDTH;
+        int one = from + forward;
+        boolean promotes = one >= 0 && one < SQUARES && Move.col(one) == lastCol(this.whiteToMove);
+        if (promotes) {
+            if ((occupied & Bitboards.bit(one)) == 0) {
+                count = addPromotions(moves, count, from, one, false, capturesOnly);
+            }
+        } else if (!capturesOnly && one >= 0 && one < SQUARES && (occupied & Bitboards.bit(one)) == 0) {
+            moves[count++] = Move.encode(from, one, Constants.MOVE_QUIET);
+            int two = one + forward;
+            if ((this.unmoved & Bitboards.bit(from)) != 0 && two >= 0 && two < SQUARES
+                    && (occupied & Bitboards.bit(two)) == 0) {
+                moves[count++] = Move.encode(from, two, Constants.MOVE_QUIET);
+            }
+        }
+        long attacks = Bitboards.PAWN_ATTACKS[color][from];
+        long captures = attacks & enemy;
+        while (captures != 0) {
+            int to = Long.numberOfTrailingZeros(captures);
+            captures &= captures - 1;
+            if (promotes) {
+                count = addPromotions(moves, count, from, to, true, capturesOnly);
+            } else {
+                moves[count++] = Move.encode(from, to, Constants.MOVE_CAPTURE);
+            }
+        }
+        if (this.epSquare >= 0 && (attacks & Bitboards.bit(this.epSquare)) != 0) {
+            moves[count++] = Move.encode(from, this.epSquare, Constants.MOVE_EN_PASSANT);
+        }
+        return count;
+    }
+
+    /**
+     * Adds the promotions of a pawn moving to the square, the Queen first, or only the one to
+     * a Queen.
+     */
+    private static int addPromotions(int[] moves, int count, int from, int to, boolean capture, boolean queenOnly) {
+        for (int code = Constants.QUEEN_CODE; code >= Constants.KNIGHT_CODE; code--) {
+            moves[count++] = Move.encode(from, to, Move.promotionFlag(code, capture));
+            if (queenOnly) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the column a pawn of the color promotes on. White pawns move towards column 0.
+     */
+    public static int lastCol(boolean white) {
+        return white ? 0 : Constants.BOARD_WIDTH - 1;
+    }
+
+    /**
+     * Adds the castles of an unmoved King that is not in check with each unmoved Rook of its
+     * color in the same column, as long as the squares between them are empty and the
+     * squares the King and Rook land on are free.
+     */
+    private int generateCastles(int[] moves, int count, int from, long occupied) {
+        int color = this.whiteToMove ? 0 : 1;
+        if ((this.unmoved & Bitboards.bit(from)) == 0 || this.isAttacked(from, !this.whiteToMove)) {
+            return count;
+        }
+        long rooks = this.typeBoards[Constants.ROOK_CODE] & this.colorBoards[color] & this.unmoved
+                & (Bitboards.COL_0 << (Move.col(from) * Constants.BOARD_WIDTH));
+        while (rooks != 0) {
+            int rook = Long.numberOfTrailingZeros(rooks);
+            rooks &= rooks - 1;
+            int step = Move.row(rook) > Move.row(from) ? 1 : -1;
+            int kingTo = Move.row(from) + 2 * step;
+            if (kingTo < 0 || kingTo >= Constants.BOARD_WIDTH) {
+                continue;
+            }
+            boolean clear = true;
+            for (int square = from + step; square != rook; square += step) {
+                if ((occupied & Bitboards.bit(square)) != 0) {
+                    clear = false;
+                }
+            }
+            long landing = Bitboards.bit(from + step) | Bitboards.bit(from + 2 * step);
+            if (clear && (landing & occupied & ~Bitboards.bit(rook)) == 0) {
+                moves[count++] = Move.encode(from, rook, Constants.MOVE_CASTLE);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Fills the array with the legal moves of the side to move and returns how many there are.
+     */
+    public int legalMoves(int[] moves) {
+        int count = this.generateMoves(moves);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (this.isLegal(moves[i])) {
+                moves[legal++] = moves[i];
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Returns true if the pseudo-legal move does not leave the mover's King in check.
+     */
+    public boolean isLegal(int move) {
+        boolean white = this.whiteToMove;
+        this.makeMove(move);
+        boolean legal = !this.isInCheck(white);
+        this.undo();
+        return legal;
+    }
+
+    /**
+     * Returns true if the Position appeared before in its history. Positions are compared
+     * by hash, which includes the side to move, castling rights, and en passant square.
+     */
+    public boolean isRepetition() {
+        for (int i = this.historySize - 4; i >= 0; i--) {
+            if (this.historyHash[i] == this.hash) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the King of the given color is attacked. A side without a King is never
+     * in check.
+     */
+    public boolean isInCheck(boolean white) {
+        long king = this.typeBoards[Constants.KING_CODE] & this.colorBoards[white ? 0 : 1];
+        return king != 0 && this.isAttacked(Long.numberOfTrailingZeros(king), !white);
+    }
+
+    /**
+     * Returns true if the side to move is in check.
+     */
+    public boolean isInCheck() {
+        return this.isInCheck(this.whiteToMove);
+    }
+
+    /**
+     * Returns true if the square is attacked by a piece of the given color.
+     */
+    public boolean isAttacked(int square, boolean byWhite) {
+        return this.attackersOf(square, byWhite, this.occupied()) != 0;
+    }
+
+    /**
+     * Returns the pieces of the given color that attack the square, given the occupied squares.
+     */
+    public long attackersOf(int square, boolean byWhite, long occupied) {
+        long attackers = this.colorBoards[byWhite ? 0 : 1];
+        long bishops = this.typeBoards[Constants.BISHOP_CODE] | this.typeBoards[Constants.QUEEN_CODE];
+        long rooks = this.typeBoards[Constants.ROOK_CODE] | this.typeBoards[Constants.QUEEN_CODE];
+        // a pawn attacks the square if a pawn of the other color on the square would attack it
+        long found = Bitboards.PAWN_ATTACKS[byWhite ? 1 : 0][square] & this.typeBoards[Constants.PAWN_CODE];
+        found |= Bitboards.KNIGHT_ATTACKS[square] & this.typeBoards[Constants.KNIGHT_CODE];
+        found |= Bitboards.KING_ATTACKS[square] & this.typeBoards[Constants.KING_CODE];
+        found |= Bitboards.bishopAttacks(square, occupied) & bishops;
+        found |= Bitboards.rookAttacks(square, occupied) & rooks;
+        return found & attackers & occupied;
+    }
+
+    /**
+     * Returns true if the side to move is checkmated.
+     */
+    public boolean isCheckmate() {
+        return this.isInCheck() && !this.hasLegalMove();
+    }
+
+    /**
+     * Returns true if the side to move has no legal move but is not in check.
+     */
+    public boolean isStalemate() {
+        return !this.isInCheck() && !this.hasLegalMove();
+    }
+
+    /**
+     * Returns true if the side to move has at least one legal move.
+     */
+    public boolean hasLegalMove() {
+        int[] moves = new int[MAX_MOVES];
+        int count = this.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (this.isLegal(moves[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the signed piece code on the square, or 0 if the square is empty.
+     */
+    public int pieceAt(int square) {
+        return this.squares[square];
+    }
+
+    /**
+     * Returns the bitboard of the pieces with the given code, of both colors.
+     */
+    public long pieces(int code) {
+        return this.typeBoards[code];
+    }
+
+    /**
+     * Returns the bitboard of the pieces of the given color.
+     */
+    public long pieces(boolean white) {
+        return this.colorBoards[white ? 0 : 1];
+    }
+
+    /**
+     * Returns the bitboard of all occupied squares.
+     */
+    public long occupied() {
+        return this.colorBoards[0] | this.colorBoards[1];
+    }
+
+    /**
+     * Returns true if white is to move.
+     */
+    public boolean isWhiteToMove() {
+        return this.whiteToMove;
+    }
+
+    /**
+     * Returns the en passant square, or -1 if the last move was not a double pawn step.
+     */
+    public int getEpSquare() {
+        return this.epSquare;
+    }
+
+    /**
+     * Returns the bitboard of the pieces that have not moved yet.
+     */
+    public long getUnmoved() {
+        return this.unmoved;
+    }
+
+    /**
+     * Accessor method for the Zobrist hash of the Position.
+     */
+    public long getHash() {
+        return this.hash;
+    }
+
+    /**
+     * Returns the number of moves made since the start of the game.
+     */
+    public int getPlyCount() {
+        return this.plyCount;
+    }
+
+    /**
+     * Returns the letter used for a piece code in FEN and SAN, such as N for a Knight.
+     */
+    public static char pieceLetter(int code) {
+        return PIECE_LETTERS.charAt(Math.abs(code));
+    }
+
+    /**
+     * Returns the piece code of a FEN or SAN letter, or 0 if the letter is not a piece.
+     */
+    public static int pieceCode(char letter) {
+        int code = PIECE_LETTERS.indexOf(Character.toUpperCase(letter));
+        return Math.max(code, 0);
+    }
+}
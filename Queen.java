@@ -30,87 +30,18 @@ public class Queen extends Piece {
      * Takes in the current and intended rows and columns of the piece and checks if
      * the object can move there depending on its specific move rules in chess.
      * This method checks that the new row and new column of the move is a straight or
-     * diagonal move that is not blocked by any pieces. Returns true if satisfied.
+     * diagonal move that is not blocked by any pieces, by looking it up in the squares
+     * Bitboards.queenAttacks finds for the occupied squares of the Board. Returns true if
+     * satisfied.
      */
     @Override
     public boolean moveValidity(int oldRow, int oldCol, int newRow, int newCol) {
-        boolean straight = (oldRow == newRow && oldCol != newCol) || (oldRow != newRow && oldCol == newCol);
-        boolean diagonal = Math.abs(newRow - oldRow) == Math.abs(newCol - oldCol);
-        if (newRow >= 0 && newRow < Constants.BOARD_WIDTH && newCol >= 0 && newCol < Constants.BOARD_WIDTH) {
-            if (straight) {
-                if (oldRow == newRow) {
-                    if (Math.min(oldCol, newCol) == oldCol) {
-                        for (int col = oldCol + 1; col < newCol; col++) {
-                            if (this.board.getBoard()[oldRow][col].getIsOccupied()) {
-                                straight = false;
-                            }
-                        }
-                    }
-                    if (Math.min(oldCol, newCol) == newCol) {
-                        for (int col = oldCol - 1; col > newCol; col--) {
-                            if (this.board.getBoard()[oldRow][col].getIsOccupied()) {
-                                straight = false;
-                            }
-                        }
-                    }
-                }
-                if (oldCol == newCol) {
-                    if (Math.min(oldRow, newRow) == oldRow) {
-                        for (int row = oldRow + 1; row < newRow; row++) {
-                            if (this.board.getBoard()[row][oldCol].getIsOccupied()) {
-                                straight = false;
-                            }
-                        }
-                    }
-                    if (Math.min(oldRow, newRow) == newRow) {
-                        for (int row = oldRow - 1; row > newRow; row--) {
-                            if (this.board.getBoard()[row][oldCol].getIsOccupied()) {
-                                straight = false;
-                            }
-                        }
-                    }
-                }
-            }
-            if (diagonal) {
-                if (Math.min(oldCol, newCol) == oldCol && (Math.min(oldRow, newRow) == oldRow)) {
-                    int row = oldRow;
-                    for (int col = oldCol + 1; col < newCol; col++) {
-                        row++;
-                        if (this.board.getBoard()[row][col].getIsOccupied()) {
-                            diagonal = false;
-                        }
-                    }
-                }
-                if (Math.min(oldCol, newCol) == newCol && (Math.min(oldRow, newRow) == oldRow)) {
-                    int row = oldRow;
-                    for (int col = oldCol - 1; col > newCol; col--) {
-                        row++;
-                        if (this.board.getBoard()[row][col].getIsOccupied()) {
-                            diagonal = false;
-                        }
-                    }
-                }
-                if (Math.min(oldCol, newCol) == oldCol && (Math.min(oldRow, newRow) == newRow)) {
-                    int row = oldRow;
-                    for (int col = oldCol + 1; col < newCol; col++) {
-                        row--;
-                        if (this.board.getBoard()[row][col].getIsOccupied()) {
-                            diagonal = false;
-                        }
-                    }
-                }
-                if (Math.min(oldCol, newCol) == newCol && (Math.min(oldRow, newRow) == newRow)) {
-                    int row = oldRow;
-                    for (int col = oldCol - 1; col > newCol; col--) {
-                        row--;
-                        if (this.board.getBoard()[row][col].getIsOccupied()) {
-                            diagonal = false;
-                        }
-                    }
-                }
-            }
+        boolean inBounds = newRow >= 0 && newRow < Constants.BOARD_WIDTH && newCol >= 0 && newCol < Constants.BOARD_WIDTH;
+        if (!inBounds) {
+            return false;
         }
-        return this.captureValidity(newRow, newCol) && (diagonal || straight);
+        long attacks = Bitboards.queenAttacks(Move.square(oldRow, oldCol), this.board.getOccupied());
+        return (attacks & Bitboards.bit(Move.square(newRow, newCol))) != 0 && this.captureValidity(newRow, newCol);
     }
 
     /**
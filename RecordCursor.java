@@ -0,0 +1,142 @@
+package indy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The RecordCursor class decodes the events of a single game, either from an in-memory
+ * GameRecord or from a slice of a memory-mapped archive. It does not allocate while
+ * decoding, so the same cursor can be reused for every game of an archive scan.
+ * Call next to advance to the next event, then read its payload with the accessor that
+ * matches the returned tag.
+ */
+public class RecordCursor {
+    private ByteBuffer buffer;
+    private int end;
+    private int move;
+    private int direction;
+    private int transform;
+    private int result;
+    private int setupStart;
+    private int setupLength;
+
+    /**
+     * Points the cursor at the events between the buffer's position and limit.
+     */
+    public void reset(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.end = buffer.limit();
+    }
+
+    /**
+     * Points the cursor at the events between the given absolute offsets of the buffer.
+     */
+    public void reset(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.buffer.position(start);
+        this.end = end;
+    }
+
+    /**
+     * Decodes the next event and returns its tag, or 0 once all events have been read.
+     */
+    public int next() {
+        if (this.buffer.position() >= this.end) {
+            return 0;
+        }
+        int tag = readVarInt(this.buffer);
+        switch (tag) {
+            case Constants.TAG_MOVE:
+                this.move = ((this.buffer.get() & 0xFF) << 8) | (this.buffer.get() & 0xFF);
+                break;
+            case Constants.TAG_SHIFT:
+                this.direction = readVarInt(this.buffer);
+                break;
+            case Constants.TAG_TRANSFORM:
+                this.transform = readVarInt(this.buffer);
+                break;
+            case Constants.TAG_RESULT:
+                this.result = readVarInt(this.buffer);
+                break;
+            case Constants.TAG_SETUP:
+                this.setupLength = readVarInt(this.buffer);
+                this.setupStart = this.buffer.position();
+                this.buffer.position(this.setupStart + this.setupLength);
+                break;
+            default:
+                // unknown events from newer writers still carry a single varint payload
+                readVarInt(this.buffer);
+                break;
+        }
+        return tag;
+    }
+
+    /**
+     * Returns the 16-bit move of the last move event.
+     */
+    public int getMove() {
+        return this.move;
+    }
+
+    /**
+     * Returns the direction of the last shift event.
+     */
+    public int getDirection() {
+        return this.direction;
+    }
+
+    /**
+     * Returns the square of the last transformation event.
+     */
+    public int getSquare() {
+        return this.transform & 0x3F;
+    }
+
+    /**
+     * Returns the piece code of the last transformation event.
+     */
+    public int getCode() {
+        return (this.transform >>> GameRecord.CODE_SHIFT) & 0x7;
+    }
+
+    /**
+     * Returns true if the piece of the last transformation event is white.
+     */
+    public boolean isWhite() {
+        return ((this.transform >>> GameRecord.COLOR_SHIFT) & 1) == 1;
+    }
+
+    /**
+     * Returns the result of the last result event.
+     */
+    public int getResult() {
+        return this.result;
+    }
+
+    /**
+     * Returns the FEN string of the last setup event. Unlike the other accessors, this
+     * allocates, but a game holds at most one setup event.
+     */
+    public String getSetup() {
+        byte[] bytes = new byte[this.setupLength];
+        for (int i = 0; i < this.setupLength; i++) {
+            bytes[i] = this.buffer.get(this.setupStart + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads an unsigned varint from the buffer.
+     */
+    public static int readVarInt(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
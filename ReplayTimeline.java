@@ -0,0 +1,142 @@
+package indy;
+
+import java.util.Arrays;
+
+/**
+ * The ReplayTimeline class turns a GameRecord into the boards after each of its moves, for the
+ * ReplayViewer to scrub through. The record is replayed once on a Position. For every move,
+ * the squares it changed (counting the silly shift and transformation that followed it) are
+ * kept as a delta, and every REPLAY_KEYFRAME_INTERVAL moves the whole board is kept as a
+ * keyframe. Seeking to a ply copies the keyframe at or before it and applies the few deltas
+ * after the keyframe, so it takes the same time anywhere in a game, however long the game is.
+ * Boards are arrays of signed piece codes indexed like Move.
+ */
+public class ReplayTimeline {
+    private static final int SQUARES = Constants.BOARD_WIDTH * Constants.BOARD_WIDTH;
+    private final int plyCount;
+    private final int[][] keyframes;
+    private final int[] moves;
+    private final int[] shifts;
+    private final int[] deltaStarts;
+    private int[] deltaSquares;
+    private int[] deltaPieces;
+    private int deltaSize;
+    private final int[] current;
+
+    /**
+     * Constructs the ReplayTimeline of a GameRecord by replaying it once.
+     */
+    public ReplayTimeline(GameRecord record) {
+        this.plyCount = record.getPlyCount();
+        this.keyframes = new int[this.plyCount / Constants.REPLAY_KEYFRAME_INTERVAL + 1][];
+        this.moves = new int[this.plyCount];
+        this.shifts = new int[this.plyCount];
+        Arrays.fill(this.shifts, -1);
+        this.deltaStarts = new int[this.plyCount + 1];
+        this.deltaSquares = new int[this.plyCount * 2 + 1];
+        this.deltaPieces = new int[this.deltaSquares.length];
+        this.deltaSize = 0;
+        this.current = new int[SQUARES];
+        Position position = Position.startPosition();
+        RecordCursor cursor = record.cursor();
+        int played = 0;
+        int tag = cursor.next();
+        while (tag != 0) {
+            switch (tag) {
+                case Constants.TAG_SETUP:
+                    position = Position.fromFen(cursor.getSetup());
+                    break;
+                case Constants.TAG_MOVE:
+                    this.finishPly(position, played);
+                    this.moves[played] = cursor.getMove();
+                    position.makeMove(this.moves[played]);
+                    played++;
+                    break;
+                case Constants.TAG_SHIFT:
+                    position.shift(cursor.getDirection());
+                    if (played > 0) {
+                        this.shifts[played - 1] = cursor.getDirection();
+                    }
+                    break;
+                case Constants.TAG_TRANSFORM:
+                    position.transform(cursor.getSquare(), cursor.isWhite() ? cursor.getCode() : -cursor.getCode());
+                    break;
+            }
+            tag = cursor.next();
+        }
+        this.finishPly(position, played);
+    }
+
+    /**
+     * Stores the board of the Position as it stands after the given number of moves: the
+     * squares that changed since the last ply as its delta, and the whole board if the ply
+     * starts a keyframe.
+     */
+    private void finishPly(Position position, int ply) {
+        if (ply > 0) {
+            for (int square = 0; square < SQUARES; square++) {
+                int piece = position.pieceAt(square);
+                if (piece != this.current[square]) {
+                    this.addDelta(square, piece);
+                    this.current[square] = piece;
+                }
+            }
+            this.deltaStarts[ply] = this.deltaSize;
+        } else {
+            for (int square = 0; square < SQUARES; square++) {
+                this.current[square] = position.pieceAt(square);
+            }
+        }
+        if (ply % Constants.REPLAY_KEYFRAME_INTERVAL == 0) {
+            this.keyframes[ply / Constants.REPLAY_KEYFRAME_INTERVAL] = this.current.clone();
+        }
+    }
+
+    /**
+     * Appends a changed square and its new piece to the deltas.
+     */
+    private void addDelta(int square, int piece) {
+        if (this.deltaSize == this.deltaSquares.length) {
+            this.deltaSquares = Arrays.copyOf(this.deltaSquares, this.deltaSize * 2);
+            this.deltaPieces = Arrays.copyOf(this.deltaPieces, this.deltaSize * 2);
+        }
+        this.deltaSquares[this.deltaSize] = square;
+        this.deltaPieces[this.deltaSize] = piece;
+        this.deltaSize++;
+    }
+
+    /**
+     * Fills the board with the pieces after the given number of moves, clamped to the game.
+     */
+    public void seek(int ply, int[] board) {
+        int target = Math.max(0, Math.min(ply, this.plyCount));
+        int keyframe = target / Constants.REPLAY_KEYFRAME_INTERVAL;
+        System.arraycopy(this.keyframes[keyframe], 0, board, 0, SQUARES);
+        int start = this.deltaStarts[keyframe * Constants.REPLAY_KEYFRAME_INTERVAL];
+        for (int i = start; i < this.deltaStarts[target]; i++) {
+            board[this.deltaSquares[i]] = this.deltaPieces[i];
+        }
+    }
+
+    /**
+     * Accessor method for the number of moves in the game.
+     */
+    public int getPlyCount() {
+        return this.plyCount;
+    }
+
+    /**
+     * Returns the move that leads to the given ply, from 1 to getPlyCount.
+     */
+    public int getMove(int ply) {
+        return this.moves[ply - 1];
+    }
+
+    /**
+     * Returns the direction of the silly shift after the move that leads to the given ply, or
+     * -1 if the board did not shift.
+     */
+    public int getShift(int ply) {
+        return this.shifts[ply - 1];
+    }
+}
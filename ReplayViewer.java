@@ -0,0 +1,300 @@
+package indy;
+
+import javafx.animation.AnimationTimer;
+import javafx.event.ActionEvent;
+import javafx.scene.Scene;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.VBox;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.stage.Stage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+/**
+ * The ReplayViewer class is a window that plays back recorded games, silly shifts and
+ * transformations included, at REPLAY_SPEEDS from one to hundreds of plies per second, with
+ * a slider to scrub through the game. Each game is turned into a ReplayTimeline, so jumping
+ * to any ply only costs a keyframe and a few deltas.
+ * The board is drawn apart from the Board of the Game: one Rectangle and one ImageView per
+ * square, made once. Nothing is drawn when the ply changes; instead an AnimationTimer runs
+ * once per frame, seeks the ply the frame should show, and only sets the images of the
+ * squares that changed since the last frame. So at hundreds of plies per second the plies
+ * between two frames are skipped, and the scene is updated once per frame in one batch.
+ */
+public class ReplayViewer {
+    private static final int SQUARES = Constants.BOARD_WIDTH * Constants.BOARD_WIDTH;
+    private final Stage stage;
+    private final ArrayList<GameRecord> games;
+    private final ImageView[] views;
+    private final int[] shown;
+    private final int[] board;
+    private final Slider slider;
+    private final Label gameLabel;
+    private final Label plyLabel;
+    private final Label speedLabel;
+    private final AnimationTimer timer;
+    private ReplayTimeline timeline;
+    private int gameIndex;
+    private int speedIndex;
+    private boolean playing;
+    private boolean movingSlider;
+    private double ply;
+    private int shownPly;
+    private long lastFrame;
+
+    /**
+     * Constructs a ReplayViewer over the games and shows the last one, from its start.
+     *
+     * @param games The games to play back, at least one.
+     */
+    public ReplayViewer(ArrayList<GameRecord> games) {
+        this.games = games;
+        this.views = new ImageView[SQUARES];
+        this.shown = new int[SQUARES];
+        this.board = new int[SQUARES];
+        this.speedIndex = Constants.REPLAY_DEFAULT_SPEED;
+        this.slider = new Slider(0, 1, 0);
+        this.slider.setPrefWidth(Constants.REPLAY_SLIDER_WIDTH);
+        this.slider.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (!this.movingSlider) {
+                this.ply = newValue.doubleValue();
+            }
+        });
+        this.gameLabel = this.createLabel();
+        this.plyLabel = this.createLabel();
+        this.speedLabel = this.createLabel();
+        this.timer = new AnimationTimer() {
+            /**
+             * Shows the ply the frame should show.
+             */
+            @Override
+            public void handle(long now) {
+                ReplayViewer.this.frame(now);
+            }
+        };
+        BorderPane root = new BorderPane();
+        root.setStyle(Constants.SCENE_COLOR);
+        root.setTop(this.createBoard());
+        root.setBottom(this.createControls());
+        this.stage = new Stage();
+        this.stage.setTitle("replay");
+        this.stage.setScene(new Scene(root, Constants.SCENE_WIDTH, Constants.SCENE_HEIGHT));
+        this.stage.setOnHidden(e -> this.timer.stop());
+        this.showGame(games.size() - 1);
+    }
+
+    /**
+     * Opens a ReplayViewer over the games of the archive, followed by the unfinished game if
+     * it has any moves. Does nothing if there is no game to show.
+     *
+     * @param archive The path of a game archive, which may not exist yet.
+     * @param current The game being played, or null.
+     */
+    public static void open(String archive, GameRecord current) {
+        ArrayList<GameRecord> games = new ArrayList<>();
+        if (Files.exists(Paths.get(archive))) {
+            try (GameRecordReader reader = new GameRecordReader(archive)) {
+                while (reader.nextGame()) {
+                    games.add(reader.readGame());
+                }
+            } catch (IOException e) {
+                System.err.println("could not read " + archive + ": " + e.getMessage());
+            }
+        }
+        if (current != null && current.getPlyCount() > 0) {
+            games.add(current);
+        }
+        if (!games.isEmpty()) {
+            new ReplayViewer(games).show();
+        }
+    }
+
+    /**
+     * Shows the window and starts drawing frames.
+     */
+    public void show() {
+        this.stage.show();
+        this.lastFrame = System.nanoTime();
+        this.timer.start();
+    }
+
+    /**
+     * Instantiates the squares, colored like the Board, and an empty ImageView on each.
+     */
+    private Pane createBoard() {
+        Pane pane = new Pane();
+        pane.setStyle(Constants.GAME_PANE_COLOR);
+        for (int square = 0; square < SQUARES; square++) {
+            int row = Move.row(square);
+            int col = Move.col(square);
+            Rectangle rectangle = new Rectangle(row * Constants.SQUARE_WIDTH, col * Constants.SQUARE_WIDTH,
+                    Constants.SQUARE_WIDTH, Constants.SQUARE_WIDTH);
+            rectangle.setFill(row % Constants.IS_EVEN == col % Constants.IS_EVEN
+                    ? Constants.BOARD_COLOR.darker().saturate() : Constants.BOARD_COLOR);
+            ImageView view = new ImageView();
+            view.setFitWidth(Constants.SQUARE_WIDTH - 10);
+            view.setFitHeight(Constants.SQUARE_WIDTH - 10);
+            view.setX(row * Constants.SQUARE_WIDTH);
+            view.setY(col * Constants.SQUARE_WIDTH);
+            view.setMouseTransparent(true);
+            this.views[square] = view;
+            pane.getChildren().add(rectangle);
+        }
+        pane.getChildren().addAll(this.views);
+        return pane;
+    }
+
+    /**
+     * Instantiates the rows of Buttons, the slider, and the Labels below the board.
+     */
+    private VBox createControls() {
+        HBox buttons = new HBox();
+        buttons.setSpacing(Constants.NAV_BUTTON_SPACING);
+        buttons.getChildren().addAll(
+                this.createButton("<<", () -> this.showGame(this.gameIndex - 1)),
+                this.createButton("|<", () -> this.jump(0)),
+                this.createButton("<", () -> this.jump(this.shownPly - 1)),
+                this.createButton(">/||", this::togglePlaying),
+                this.createButton(">", () -> this.jump(this.shownPly + 1)),
+                this.createButton(">|", () -> this.jump(this.timeline.getPlyCount())),
+                this.createButton(">>", () -> this.showGame(this.gameIndex + 1)),
+                this.createButton("-", () -> this.setSpeed(this.speedIndex - 1)),
+                this.createButton("+", () -> this.setSpeed(this.speedIndex + 1)),
+                this.speedLabel);
+        HBox labels = new HBox();
+        labels.setSpacing(Constants.HBOX_SPACING);
+        labels.getChildren().addAll(this.gameLabel, this.plyLabel);
+        VBox controls = new VBox();
+        controls.setSpacing(Constants.NAV_BUTTON_SPACING);
+        controls.setStyle(Constants.BOTTOM_PANE_COLOR);
+        controls.getChildren().addAll(buttons, this.slider, labels);
+        this.setSpeed(this.speedIndex);
+        return controls;
+    }
+
+    /**
+     * Instantiates a small Button with the given text that runs the action when clicked.
+     */
+    private Button createButton(String text, Runnable action) {
+        Button button = new Button(text);
+        button.setFont(Font.font("Courier New"));
+        button.setMinWidth(Constants.NAV_BUTTON_WIDTH);
+        button.setPrefHeight(Constants.BUTTON_HEIGHT);
+        button.setOnAction((ActionEvent e) -> action.run());
+        button.setFocusTraversable(false);
+        return button;
+    }
+
+    /**
+     * Instantiates an empty Label in the font of the Game.
+     */
+    private Label createLabel() {
+        Label label = new Label("");
+        label.setFont(Font.font("Courier New"));
+        return label;
+    }
+
+    /**
+     * Shows the start of the game with the given index, if there is one, and pauses.
+     */
+    private void showGame(int index) {
+        if (index < 0 || index >= this.games.size()) {
+            return;
+        }
+        this.gameIndex = index;
+        GameRecord record = this.games.get(index);
+        this.timeline = new ReplayTimeline(record);
+        this.gameLabel.setText("game " + (index + 1) + "/" + this.games.size()
+                + (record.isSilly() ? " silly" : " basic"));
+        this.movingSlider = true;
+        this.slider.setMax(Math.max(1, this.timeline.getPlyCount()));
+        this.movingSlider = false;
+        this.playing = false;
+        this.shownPly = -1;
+        this.jump(0);
+    }
+
+    /**
+     * Pauses and moves to the ply. The board follows on the next frame.
+     */
+    private void jump(int target) {
+        this.playing = false;
+        this.ply = Math.max(0, Math.min(target, this.timeline.getPlyCount()));
+    }
+
+    /**
+     * Starts or pauses the playback. Playing at the end of the game starts it over.
+     */
+    private void togglePlaying() {
+        this.playing = !this.playing;
+        if (this.playing && this.ply >= this.timeline.getPlyCount()) {
+            this.ply = 0;
+        }
+    }
+
+    /**
+     * Sets the playback speed to the REPLAY_SPEEDS entry with the index, if there is one.
+     */
+    private void setSpeed(int index) {
+        this.speedIndex = Math.max(0, Math.min(index, Constants.REPLAY_SPEEDS.length - 1));
+        this.speedLabel.setText(Constants.REPLAY_SPEEDS[this.speedIndex] + " ply/s");
+    }
+
+    /**
+     * Advances the playback by the time since the last frame and shows the ply it reached.
+     * The playback pauses at the end of the game.
+     */
+    private void frame(long now) {
+        double seconds = (now - this.lastFrame) / 1e9;
+        this.lastFrame = now;
+        int plyCount = this.timeline.getPlyCount();
+        if (this.playing) {
+            this.ply = Math.min(this.ply + seconds * Constants.REPLAY_SPEEDS[this.speedIndex], plyCount);
+            if (this.ply >= plyCount) {
+                this.playing = false;
+            }
+        }
+        this.render((int) this.ply);
+    }
+
+    /**
+     * Shows the board after the given number of moves, if it is not already shown. Only the
+     * squares whose piece differs from what they show are changed.
+     */
+    private void render(int target) {
+        if (target == this.shownPly) {
+            return;
+        }
+        this.timeline.seek(target, this.board);
+        for (int square = 0; square < SQUARES; square++) {
+            int piece = this.board[square];
+            if (piece != this.shown[square] || this.shownPly < 0) {
+                this.views[square].setImage(piece == Constants.EMPTY_CODE ? null
+                        : Piece.image((piece > 0 ? Constants.WHITE : Constants.BLACK) + GameRecord.typeName(piece)));
+                this.shown[square] = piece;
+            }
+        }
+        this.shownPly = target;
+        this.movingSlider = true;
+        this.slider.setValue(target);
+        this.movingSlider = false;
+        String text = "ply " + target + "/" + this.timeline.getPlyCount();
+        if (target > 0) {
+            text += " " + Move.toString(this.timeline.getMove(target));
+            int shift = this.timeline.getShift(target);
+            if (shift >= 0) {
+                text += " shift " + Position.SHIFT_NAMES[shift];
+            }
+        }
+        this.plyLabel.setText(text);
+    }
+}
@@ -27,56 +27,19 @@ public class Rook extends Piece {
     /**
      * Takes in the current and intended rows and columns of the piece and checks if
      * the object can move there depending on its specific move rules in chess.
-     * First, checks that the new location is within the board bounds and is a straight move.
-     * Then, if the path between the new and old location is occupied, returns false.
+     * First, checks that the new location is within the board bounds. Then, the squares the
+     * Rook attacks from its old location, stopping at the first occupied square in each
+     * straight direction, are looked up in Bitboards, so the new location must be one of them.
      * Returns true if satisfied conditions.
      */
     @Override
     public boolean moveValidity(int oldRow, int oldCol, int newRow, int newCol) {
-        boolean check = true;
         boolean inBounds = newRow >= 0 && newRow < Constants.BOARD_WIDTH && newCol >= 0 && newCol < Constants.BOARD_WIDTH;
-
-        if ((oldRow != newRow || oldCol == newCol) && (oldRow == newRow || oldCol != newCol)) {
-            check = false;
-        }
-
-        if (oldRow == newRow) {
-            if (Math.min(oldCol, newCol) == oldCol) {
-                for (int col = oldCol + 1; col < newCol; col++) {
-                    if (this.board.getBoard()[oldRow][col].getIsOccupied()) {
-                        check = false;
-                    }
-                }
-            }
-            if (Math.min(oldCol, newCol) == newCol) {
-                for (int col = oldCol - 1; col > newCol; col--) {
-                    if (this.board.getBoard()[oldRow][col].getIsOccupied()) {
-                        check = false;
-                    }
-                }
-
-            }
-        }
-        if (oldCol == newCol) {
-            if (Math.min(oldRow, newRow) == oldRow) {
-                for (int row = oldRow + 1; row < newRow; row++) {
-                    if (this.board.getBoard()[row][oldCol].getIsOccupied()) {
-                        check = false;
-                    }
-                }
-            }
-            if (Math.min(oldRow, newRow) == newRow) {
-                for (int row = oldRow - 1; row > newRow; row--) {
-                    if (this.board.getBoard()[row][oldCol].getIsOccupied()) {
-                        check = false;
-                    }
-                }
-            }
-        }
-        if (!this.captureValidity(newRow, newCol)) {
-            check = false;
+        if (!inBounds) {
+            return false;
         }
-        return inBounds && check;
+        long attacks = Bitboards.rookAttacks(Move.square(oldRow, oldCol), this.board.getOccupied());
+        return (attacks & Bitboards.bit(Move.square(newRow, newCol))) != 0 && this.captureValidity(newRow, newCol);
     }
 
     /**
@@ -0,0 +1,60 @@
+package indy;
+
+/**
+ * The Searcher interface is what the rest of the program needs from an engine, so the
+ * alpha-beta Engine and the MctsEngine can be used in each other's place: by the analysis of
+ * a Game, by Uci, and by the Tournament that plays them against each other. Both report to
+ * an Engine.Listener while they search.
+ */
+public interface Searcher {
+
+    /**
+     * Searches the Position and returns the best move, or 0 if there is no legal move. The
+     * Position itself is not changed.
+     *
+     * @param position The Position to search.
+     * @param maxDepth The deepest depth to search, at most MAX_PLY - 1.
+     * @param millis   The time to search, or 0 for no time limit.
+     * @param maxNodes The nodes to search, or 0 for no node limit.
+     * @param listener The Listener told about the progress of the search, or null.
+     */
+    int search(Position position, int maxDepth, long millis, long maxNodes, Engine.Listener listener);
+
+    /**
+     * Stops the search as soon as possible. The best move found so far is returned by search.
+     */
+    void stop();
+
+    /**
+     * Forgets everything learned from the positions of the last game.
+     */
+    void newGame();
+
+    /**
+     * Returns the nodes searched by all threads during the last search.
+     */
+    long getNodes();
+
+    /**
+     * Sets the number of search threads.
+     */
+    void setThreads(int threads);
+
+    /**
+     * Sets the memory the search may use for what it remembers, in megabytes.
+     */
+    void setHash(int megabytes);
+
+    /**
+     * Sets whether positions are played with silly rules.
+     */
+    void setSilly(boolean isSilly);
+
+    /**
+     * Returns a new Searcher of the named kind: ENGINE_MCTS for an MctsEngine, and anything
+     * else for the alpha-beta Engine.
+     */
+    static Searcher create(String kind) {
+        return Constants.ENGINE_MCTS.equals(kind) ? new MctsEngine() : new Engine();
+    }
+}
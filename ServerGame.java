@@ -0,0 +1,197 @@
+package indy;
+
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ServerGame class is one game hosted by the GameServer. It is a small state machine
+ * around a Position: the game is playing until a move mates, stalemates, or a side resigns,
+ * and then its result is fixed and further moves are refused. Sessions on different threads
+ * may share a game, so every method takes the game's lock. The lock is a ReentrantLock
+ * rather than synchronized so a virtual thread waiting on it does not pin its carrier.
+ */
+public class ServerGame {
+    private static final String[] RESULT_NAMES = {"playing", "white", "black", "draw"};
+    private final int id;
+    private final boolean isSilly;
+    private final Position position;
+    private final GameRecord record;
+    private final Random random;
+    private final ReentrantLock lock;
+    private final int[] moves;
+    private int result;
+
+    /**
+     * Constructs a ServerGame at the start position.
+     *
+     * @param id      The number of the game on the server.
+     * @param isSilly Whether the game is played with silly rules.
+     * @param seed    The seed of the random numbers for silly shifts.
+     */
+    public ServerGame(int id, boolean isSilly, long seed) {
+        this.id = id;
+        this.isSilly = isSilly;
+        this.position = Position.startPosition();
+        this.record = new GameRecord(isSilly);
+        this.random = new Random(seed);
+        this.lock = new ReentrantLock();
+        this.moves = new int[Position.MAX_MOVES];
+        this.result = Constants.RESULT_UNFINISHED;
+    }
+
+    /**
+     * Plays a move written in coordinate notation and returns what happened: the move, any
+     * silly shift and transformation, and the result if the game ended. Throws an
+     * IllegalStateException if the game is over and an IllegalArgumentException if the move
+     * is not legal.
+     */
+    public String play(String text) {
+        this.lock.lock();
+        try {
+            if (this.result != Constants.RESULT_UNFINISHED) {
+                throw new IllegalStateException("game " + this.id + " is over");
+            }
+            int move = Move.parse(this.position, text, this.moves);
+            if (move == 0) {
+                throw new IllegalArgumentException("illegal move " + text);
+            }
+            StringBuilder reply = new StringBuilder(Move.toString(move));
+            if (this.isSilly) {
+                if (SillyRules.play(this.position, move, this.random, this.record)) {
+                    this.describeSillyEvents(reply);
+                }
+            } else {
+                this.position.makeMove(move);
+                this.record.addMove(move);
+            }
+            this.updateResult();
+            if (this.result != Constants.RESULT_UNFINISHED) {
+                reply.append(" result ").append(RESULT_NAMES[this.result]);
+            }
+            return reply.toString();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Adds the shift and the transformation that the last silly move caused to the reply.
+     */
+    private void describeSillyEvents(StringBuilder reply) {
+        RecordCursor cursor = this.record.cursor(this.record.getPlyCount() - 1);
+        int tag = cursor.next();
+        int direction = -1;
+        int square = -1;
+        int code = 0;
+        while (tag != 0) {
+            if (tag == Constants.TAG_SHIFT) {
+                direction = cursor.getDirection();
+            } else if (tag == Constants.TAG_TRANSFORM) {
+                square = cursor.getSquare();
+                code = cursor.isWhite() ? cursor.getCode() : -cursor.getCode();
+            }
+            tag = cursor.next();
+        }
+        reply.append(" shift ").append(Position.SHIFT_NAMES[direction]);
+        if (square >= 0) {
+            reply.append(" transform ").append(Move.squareName(square)).append(' ')
+                    .append(code > 0 ? Position.pieceLetter(code) : Character.toLowerCase(Position.pieceLetter(code)));
+        }
+    }
+
+    /**
+     * Ends the game if the side to move has no legal move: checkmate wins for the other
+     * side and stalemate is a draw.
+     */
+    private void updateResult() {
+        if (!this.position.hasLegalMove()) {
+            if (!this.position.isInCheck()) {
+                this.result = Constants.RESULT_DRAW;
+            } else {
+                this.result = this.position.isWhiteToMove() ? Constants.RESULT_BLACK_WINS : Constants.RESULT_WHITE_WINS;
+            }
+            this.record.setResult(this.result);
+        }
+    }
+
+    /**
+     * The side to move resigns. Throws an IllegalStateException if the game is already over.
+     */
+    public void resign() {
+        this.lock.lock();
+        try {
+            if (this.result != Constants.RESULT_UNFINISHED) {
+                throw new IllegalStateException("game " + this.id + " is over");
+            }
+            this.result = this.position.isWhiteToMove() ? Constants.RESULT_BLACK_WINS : Constants.RESULT_WHITE_WINS;
+            this.record.setResult(this.result);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the position of the game as a FEN string.
+     */
+    public String fen() {
+        this.lock.lock();
+        try {
+            return this.position.toFen();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the legal moves of the side to move in coordinate notation, separated by spaces.
+     */
+    public String legalMoves() {
+        this.lock.lock();
+        try {
+            StringBuilder text = new StringBuilder();
+            if (this.result == Constants.RESULT_UNFINISHED) {
+                int count = this.position.legalMoves(this.moves);
+                for (int i = 0; i < count; i++) {
+                    text.append(i == 0 ? "" : " ").append(Move.toString(this.moves[i]));
+                }
+            }
+            return text.toString();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the state of the game: playing, or the winner, or draw.
+     */
+    public String state() {
+        this.lock.lock();
+        try {
+            return RESULT_NAMES[this.result];
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Accessor method for the number of the game.
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Accessor method for whether the game uses silly rules.
+     */
+    public boolean isSilly() {
+        return this.isSilly;
+    }
+
+    /**
+     * Accessor method for the record of the game. The record must not be read while a move
+     * is being played.
+     */
+    public GameRecord getRecord() {
+        return this.record;
+    }
+}
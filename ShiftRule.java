@@ -0,0 +1,70 @@
+package indy;
+
+/**
+ * The ShiftRule interface is how the pieces move in a silly shift of a Variant: WrapShift
+ * wraps them around the edges like the standard game, EdgeShift pushes them against the
+ * edge without wrapping, and DiagonalShift wraps them around diagonally. A shift rule only
+ * works out where the pieces go; VariantPosition moves them and keeps what is needed to undo
+ * the shift.
+ */
+public interface ShiftRule {
+    // the row and column steps of SHIFT_UP, SHIFT_DOWN, SHIFT_LEFT, and SHIFT_RIGHT
+    int[] ROW_STEPS = {0, 0, -1, 1};
+    int[] COL_STEPS = {-1, 1, 0, 0};
+
+    /**
+     * Returns the name of the rule, as written in a Variant.
+     */
+    String getName();
+
+    /**
+     * Returns the number of directions the board may shift in. A shift picks one of them at
+     * random, from 0 to this number minus 1.
+     */
+    int getDirections();
+
+    /**
+     * Works out where every piece goes when the board shifts in the direction. The square
+     * each piece lands on is written into targets at the square it comes from; empty
+     * squares are left alone. The squares after the shift whose pieces may be transformed
+     * are written into edge in increasing order, and their number is returned.
+     *
+     * @param squares The signed piece codes by square, col * size + row. Not changed.
+     * @param size    The width of the board.
+     * @param dir     The direction of the shift.
+     * @param targets The square each piece lands on, filled in by the rule.
+     * @param edge    The squares the transformation picks from, filled in by the rule.
+     */
+    int shift(int[] squares, int size, int dir, int[] targets, int[] edge);
+
+    /**
+     * Returns the shift rule with the name, or throws an IllegalArgumentException if there is
+     * none.
+     */
+    static ShiftRule forName(String name) {
+        switch (name) {
+            case Constants.SHIFT_WRAP:
+                return WrapShift.RULE;
+            case Constants.SHIFT_NO_WRAP:
+                return EdgeShift.RULE;
+            case Constants.SHIFT_DIAGONAL:
+                return DiagonalShift.RULE;
+            default:
+                throw new IllegalArgumentException("unknown shift rule: " + name);
+        }
+    }
+
+    /**
+     * Writes the squares of a row, a column, or both into edge in increasing order and
+     * returns how many there are. A row or column of -1 is left out.
+     */
+    static int lineSquares(int size, int row, int col, int[] edge) {
+        int count = 0;
+        for (int square = 0; square < size * size; square++) {
+            if (square % size == row || square / size == col) {
+                edge[count++] = square;
+            }
+        }
+        return count;
+    }
+}
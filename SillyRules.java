@@ -0,0 +1,175 @@
+package indy;
+
+import java.util.Random;
+
+/**
+ * The SillyRules class plays silly mode on a Position, the same way Game does on the Board.
+ * After a move captures a piece that is not a Pawn, every piece shifts one square in a
+ * random direction with wrap-around, and a random piece other than a King in the line that
+ * wrapped around is replaced by a lower piece of the other color.
+ * A VariantPosition is played the same way, but with the shift rule and demotion table of
+ * its Variant.
+ */
+public final class SillyRules {
+    private static final int OUTCOME_DIRECTION_MASK = 0x3;
+    private static final int OUTCOME_SQUARE_SHIFT = 2;
+    private static final int OUTCOME_SQUARE_MASK = 0x7F;
+    private static final int OUTCOME_PIECE_SHIFT = 9;
+
+    /**
+     * The SillyRules class only contains static methods and is never instantiated.
+     */
+    private SillyRules() {
+    }
+
+    /**
+     * Plays a move and, if it captured a piece that is not a Pawn, the silly shift and
+     * transformation that follow. Every event is added to the record if there is one.
+     * Returns true if the board shifted.
+     *
+     * @param position The Position to play on.
+     * @param move     The move to play.
+     * @param random   The random numbers for the shift and the transformation.
+     * @param record   The GameRecord to add the events to, or null.
+     */
+    public static boolean play(Position position, int move, Random random, GameRecord record) {
+        boolean shifts = isShiftingCapture(position, move);
+        position.makeMove(move);
+        if (record != null) {
+            record.addMove(move);
+        }
+        if (!shifts) {
+            return false;
+        }
+        applyOutcome(position, randomOutcome(position, random), record);
+        return true;
+    }
+
+    /**
+     * Returns true if the move, not yet played, captures a piece that is not a Pawn, so a
+     * silly shift follows it.
+     */
+    public static boolean isShiftingCapture(Position position, int move) {
+        if (!Move.isCapture(move) || Move.flag(move) == Constants.MOVE_EN_PASSANT) {
+            return false;
+        }
+        int captured = Math.abs(position.pieceAt(Move.to(move)));
+        return captured != Constants.EMPTY_CODE && captured != Constants.PAWN_CODE;
+    }
+
+    /**
+     * Draws what a silly shift of the Position does, without doing it: the direction, and the
+     * square (after the shift) and lower piece of the transformation, if the line that wraps
+     * around holds a piece other than a King. The random numbers are drawn in the same order
+     * as play always drew them. The result is packed into one int for applyOutcome.
+     */
+    public static int randomOutcome(Position position, Random random) {
+        int direction = random.nextInt(Constants.DIRECTIONS);
+        long occupied = Position.shiftBitboard(position.occupied(), direction);
+        long kings = Position.shiftBitboard(position.pieces(Constants.KING_CODE), direction);
+        long line = Position.wrappedLine(direction) & occupied & ~kings;
+        if (line == 0) {
+            return direction;
+        }
+        for (int skip = random.nextInt(Long.bitCount(line)); skip > 0; skip--) {
+            line &= line - 1;
+        }
+        int square = Long.numberOfTrailingZeros(line);
+        int piece = position.pieceAt(Position.shiftSquare(square, Position.opposite(direction)));
+        int lower = lowerPiece(Math.abs(piece), random);
+        return direction | (square + 1) << OUTCOME_SQUARE_SHIFT | lower << OUTCOME_PIECE_SHIFT;
+    }
+
+    /**
+     * Shifts the Position and transforms a piece as an outcome of randomOutcome says, and
+     * adds both events to the record if there is one.
+     */
+    public static void applyOutcome(Position position, int outcome, GameRecord record) {
+        int direction = outcome & OUTCOME_DIRECTION_MASK;
+        position.shift(direction);
+        if (record != null) {
+            record.addShift(direction);
+        }
+        int square = (outcome >>> OUTCOME_SQUARE_SHIFT & OUTCOME_SQUARE_MASK) - 1;
+        if (square >= 0) {
+            int piece = position.pieceAt(square);
+            int lower = outcome >>> OUTCOME_PIECE_SHIFT;
+            position.transform(square, piece > 0 ? -lower : lower);
+            if (record != null) {
+                record.addTransform(square, lower, piece < 0);
+            }
+        }
+    }
+
+    /**
+     * Returns a random piece code below the given one, like Game.generateLowerHierarchyPiece:
+     * a Queen may become a Pawn, Knight, Bishop, or Rook, and a Knight or Pawn becomes a Pawn.
+     */
+    public static int lowerPiece(int code, Random random) {
+        return DemotionTable.STANDARD.lower(code, random);
+    }
+
+    /**
+     * Returns how much material changes hands on average when the transformation picks a
+     * piece of the given code (see DemotionTable.swing).
+     */
+    public static int demotionSwing(int code) {
+        return DemotionTable.STANDARD.swing(code);
+    }
+
+    /**
+     * Plays a move on a VariantPosition and, if it captured a piece that is not a Pawn, the
+     * silly shift of the Variant's shift rule and the transformation of a random piece other
+     * than a King on the edge the rule gives, picked from the Variant's demotion table.
+     * The random numbers are drawn in the same order as for a Position, so the standard
+     * Variant plays the same games. Returns true if the board shifted.
+     */
+    public static boolean play(VariantPosition position, int move, Random random) {
+        boolean shifts = isShiftingCapture(position, move);
+        position.makeMove(move);
+        if (!shifts) {
+            return false;
+        }
+        Variant variant = position.getVariant();
+        int count = position.shift(random.nextInt(variant.getShiftRule().getDirections()));
+        int candidates = 0;
+        for (int i = 0; i < count; i++) {
+            if (isTransformable(position.pieceAt(position.getEdge(i)))) {
+                candidates++;
+            }
+        }
+        if (candidates == 0) {
+            return true;
+        }
+        int skip = random.nextInt(candidates);
+        for (int i = 0; i < count; i++) {
+            int square = position.getEdge(i);
+            int piece = position.pieceAt(square);
+            if (isTransformable(piece) && skip-- == 0) {
+                int lower = variant.getDemotions().lower(Math.abs(piece), random);
+                position.transform(square, piece > 0 ? -lower : lower);
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if the move, not yet played on the VariantPosition, captures a piece that
+     * is not a Pawn.
+     */
+    public static boolean isShiftingCapture(VariantPosition position, int move) {
+        if (!VariantMove.isCapture(move) || VariantMove.flag(move) == Constants.MOVE_EN_PASSANT) {
+            return false;
+        }
+        int captured = Math.abs(position.pieceAt(VariantMove.to(move)));
+        return captured != Constants.EMPTY_CODE && captured != Constants.PAWN_CODE;
+    }
+
+    /**
+     * Returns true if a silly transformation may pick the piece: any piece but a King.
+     */
+    private static boolean isTransformable(int piece) {
+        return piece != Constants.EMPTY_CODE && Math.abs(piece) != Constants.KING_CODE;
+    }
+}
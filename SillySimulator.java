@@ -0,0 +1,336 @@
+package indy;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The SillySimulator class plays many quick games of silly mode to see how the shift and
+ * transformation rules (SillyRules, like Game.sillyShift and generateLowerHierarchyPiece)
+ * change the balance of the game. Each playout starts from the start position and picks its
+ * moves either at random or with a light policy that usually takes the most valuable piece
+ * it can, until a checkmate, a stalemate, a King left to be captured after a shift, bare
+ * Kings, or the move limit (SIM_MAX_PLY). The results are collected in a SimulationStats.
+ * The playouts are split between threads that share nothing: each has its own Random, seeded
+ * from the simulator's seed and its number so a run can be repeated, its own Position and
+ * move array, and its own SimulationStats, which are merged once every thread is done.
+ * A playout does not list the legal moves: it picks a pseudo-legal move and only tests that
+ * one, and tries another only if it leaves the King in check. If a thread fails, the others
+ * stop early and run throws the thread's exception.
+ * The playouts are of the standard game on a Position unless another Variant is given, in
+ * which case they are played on a VariantPosition with the Variant's board size, shifts,
+ * and demotions.
+ * Running the main method prints the statistics:
+ * SillySimulator playouts [threads] [random|light] [seed] [variant]
+ */
+public class SillySimulator {
+    private final int threads;
+    private final boolean isLight;
+    private final long seed;
+    private final Variant variant;
+    private final AtomicReference<Throwable> failure;
+
+    /**
+     * Constructs a SillySimulator.
+     *
+     * @param threads The number of threads to split the playouts between.
+     * @param isLight Whether the light policy picks the moves instead of pure chance.
+     * @param seed    The seed of the threads' random numbers.
+     * @param variant The rules of the playouts.
+     */
+    public SillySimulator(int threads, boolean isLight, long seed, Variant variant) {
+        this.threads = Math.max(1, threads);
+        this.isLight = isLight;
+        this.seed = seed;
+        this.variant = variant;
+        this.failure = new AtomicReference<>();
+    }
+
+    /**
+     * Plays the playouts and returns their statistics. Returns once every thread is done, and
+     * throws the exception of the first thread that failed, if one did.
+     */
+    public SimulationStats run(long playouts) throws InterruptedException {
+        this.failure.set(null);
+        Thread[] workers = new Thread[this.threads];
+        SimulationStats[] results = new SimulationStats[this.threads];
+        for (int i = 0; i < this.threads; i++) {
+            long share = playouts / this.threads + (i < playouts % this.threads ? 1 : 0);
+            Random random = new Random(this.seed + i * Constants.SIM_SEED_STEP);
+            SimulationStats stats = new SimulationStats();
+            results[i] = stats;
+            workers[i] = new Thread(() -> {
+                try {
+                    this.work(share, random, stats);
+                } catch (Throwable e) {
+                    this.failure.compareAndSet(null, e);
+                }
+            }, "simulate-" + i);
+            workers[i].start();
+        }
+        SimulationStats total = new SimulationStats();
+        for (int i = 0; i < this.threads; i++) {
+            workers[i].join();
+            total.merge(results[i]);
+        }
+        Throwable failed = this.failure.get();
+        if (failed instanceof RuntimeException) {
+            throw (RuntimeException) failed;
+        } else if (failed instanceof Error) {
+            throw (Error) failed;
+        } else if (failed != null) {
+            throw new IllegalStateException(failed);
+        }
+        return total;
+    }
+
+    /**
+     * Plays one thread's share of the playouts, stopping early if another thread failed.
+     */
+    private void work(long playouts, Random random, SimulationStats stats) {
+        if (!this.variant.isStandard()) {
+            VariantPosition start = VariantPosition.startPosition(this.variant);
+            int[] moves = new int[Constants.VARIANT_MAX_MOVES];
+            for (long i = 0; i < playouts && this.failure.get() == null; i++) {
+                this.playout(start.copy(), moves, random, stats);
+            }
+            return;
+        }
+        Position start = Position.startPosition();
+        int[] moves = new int[Position.MAX_MOVES];
+        for (long i = 0; i < playouts && this.failure.get() == null; i++) {
+            this.playout(start.copy(), moves, random, stats);
+        }
+    }
+
+    /**
+     * Plays one game to its end and counts it.
+     */
+    private void playout(Position position, int[] moves, Random random, SimulationStats stats) {
+        int flips = 0;
+        for (int ply = 0; ply < Constants.SIM_MAX_PLY; ply++) {
+            boolean white = position.isWhiteToMove();
+            if (position.isInCheck(!white)) {
+                // a shift left the other King attacked, and it is taken
+                stats.addPlayout(Constants.SIM_KING_CAPTURE, white, ply, flips);
+                return;
+            }
+            if (position.occupied() == position.pieces(Constants.KING_CODE)) {
+                stats.addPlayout(Constants.SIM_BARE_KINGS, white, ply, flips);
+                return;
+            }
+            int move = this.isLight && random.nextInt(Constants.SIM_LIGHT_ODDS) != 0
+                    ? bestCapture(position, moves) : 0;
+            if (move == 0) {
+                move = randomMove(position, moves, random);
+            }
+            if (move == 0) {
+                boolean mate = position.isInCheck();
+                stats.addPlayout(mate ? Constants.SIM_CHECKMATE : Constants.SIM_STALEMATE, !white, ply, flips);
+                return;
+            }
+            int gain = captureGain(position, move);
+            int before = material(position);
+            if (SillyRules.play(position, move, random, null)) {
+                int swing = (material(position) - before) * (white ? 1 : -1) - gain;
+                stats.addShift(swing);
+                if (swing != 0) {
+                    flips++;
+                }
+            }
+        }
+        stats.addPlayout(Constants.SIM_PLY_LIMIT, true, Constants.SIM_MAX_PLY, flips);
+    }
+
+    /**
+     * Plays one game of a Variant to its end and counts it, the same way as on a Position.
+     */
+    private void playout(VariantPosition position, int[] moves, Random random, SimulationStats stats) {
+        int flips = 0;
+        for (int ply = 0; ply < Constants.SIM_MAX_PLY; ply++) {
+            boolean white = position.isWhiteToMove();
+            if (position.isInCheck(!white)) {
+                stats.addPlayout(Constants.SIM_KING_CAPTURE, white, ply, flips);
+                return;
+            }
+            if (position.isBareKings()) {
+                stats.addPlayout(Constants.SIM_BARE_KINGS, white, ply, flips);
+                return;
+            }
+            int move = this.isLight && random.nextInt(Constants.SIM_LIGHT_ODDS) != 0
+                    ? bestCapture(position, moves) : 0;
+            if (move == 0) {
+                move = randomMove(position, moves, random);
+            }
+            if (move == 0) {
+                boolean mate = position.isInCheck();
+                stats.addPlayout(mate ? Constants.SIM_CHECKMATE : Constants.SIM_STALEMATE, !white, ply, flips);
+                return;
+            }
+            int gain = captureGain(position, move);
+            int before = material(position);
+            if (SillyRules.play(position, move, random)) {
+                int swing = (material(position) - before) * (white ? 1 : -1) - gain;
+                stats.addShift(swing);
+                if (swing != 0) {
+                    flips++;
+                }
+            }
+        }
+        stats.addPlayout(Constants.SIM_PLY_LIMIT, true, Constants.SIM_MAX_PLY, flips);
+    }
+
+    /**
+     * Returns a random legal move, or 0 if there is none. Pseudo-legal moves are drawn
+     * without putting them back until one is legal. MctsEngine plays its playouts with this
+     * and bestCapture too.
+     */
+    public static int randomMove(Position position, int[] moves, Random random) {
+        int count = position.generateMoves(moves);
+        while (count > 0) {
+            int i = random.nextInt(count);
+            int move = moves[i];
+            if (position.isLegal(move)) {
+                return move;
+            }
+            count--;
+            moves[i] = moves[count];
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the legal capture of the most valuable piece, or 0 if there is no legal capture.
+     */
+    public static int bestCapture(Position position, int[] moves) {
+        int count = position.generateCaptures(moves);
+        int best = 0;
+        int bestValue = -1;
+        for (int i = 0; i < count; i++) {
+            int value = captureGain(position, moves[i]);
+            if (value > bestValue && position.isLegal(moves[i])) {
+                best = moves[i];
+                bestValue = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the material the move wins by itself: the piece it captures and what a
+     * promotion adds to the Pawn.
+     */
+    private static int captureGain(Position position, int move) {
+        int gain = 0;
+        if (Move.flag(move) == Constants.MOVE_EN_PASSANT) {
+            gain = Evaluation.PIECE_VALUES[Constants.PAWN_CODE];
+        } else if (Move.isCapture(move)) {
+            gain = Evaluation.PIECE_VALUES[Math.abs(position.pieceAt(Move.to(move)))];
+        }
+        int promotion = Move.promotion(move);
+        if (promotion != Constants.EMPTY_CODE) {
+            gain += Evaluation.PIECE_VALUES[promotion] - Evaluation.PIECE_VALUES[Constants.PAWN_CODE];
+        }
+        return gain;
+    }
+
+    /**
+     * Returns a random legal move of the VariantPosition, or 0 if there is none.
+     */
+    private static int randomMove(VariantPosition position, int[] moves, Random random) {
+        int count = position.generateMoves(moves);
+        while (count > 0) {
+            int i = random.nextInt(count);
+            int move = moves[i];
+            if (position.isLegal(move)) {
+                return move;
+            }
+            count--;
+            moves[i] = moves[count];
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the legal capture of the most valuable piece on the VariantPosition, or 0 if
+     * there is no legal capture.
+     */
+    private static int bestCapture(VariantPosition position, int[] moves) {
+        int count = position.generateCaptures(moves);
+        int best = 0;
+        int bestValue = -1;
+        for (int i = 0; i < count; i++) {
+            int value = captureGain(position, moves[i]);
+            if (value > bestValue && position.isLegal(moves[i])) {
+                best = moves[i];
+                bestValue = value;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the material the move wins by itself on the VariantPosition.
+     */
+    private static int captureGain(VariantPosition position, int move) {
+        int gain = 0;
+        if (VariantMove.flag(move) == Constants.MOVE_EN_PASSANT) {
+            gain = Evaluation.PIECE_VALUES[Constants.PAWN_CODE];
+        } else if (VariantMove.isCapture(move)) {
+            gain = Evaluation.PIECE_VALUES[Math.abs(position.pieceAt(VariantMove.to(move)))];
+        }
+        int promotion = VariantMove.promotion(move);
+        if (promotion != Constants.EMPTY_CODE) {
+            gain += Evaluation.PIECE_VALUES[promotion] - Evaluation.PIECE_VALUES[Constants.PAWN_CODE];
+        }
+        return gain;
+    }
+
+    /**
+     * Returns white's material minus black's on the VariantPosition, by PIECE_VALUES.
+     */
+    private static int material(VariantPosition position) {
+        int material = 0;
+        for (int code = Constants.PAWN_CODE; code < Constants.KING_CODE; code++) {
+            int count = position.count(code, true) - position.count(code, false);
+            material += count * Evaluation.PIECE_VALUES[code];
+        }
+        return material;
+    }
+
+    /**
+     * Returns white's material minus black's, by PIECE_VALUES.
+     */
+    private static int material(Position position) {
+        long white = position.pieces(true);
+        int material = 0;
+        for (int code = Constants.PAWN_CODE; code < Constants.KING_CODE; code++) {
+            long pieces = position.pieces(code);
+            int count = Long.bitCount(pieces & white) * 2 - Long.bitCount(pieces);
+            material += count * Evaluation.PIECE_VALUES[code];
+        }
+        return material;
+    }
+
+    /**
+     * Plays the playouts and prints their statistics and how fast they were played.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 1) {
+            System.err.println("usage: SillySimulator playouts [threads] [random|light] [seed] [variant]");
+            return;
+        }
+        long playouts = Long.parseLong(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        boolean isLight = args.length > 2 && args[2].equals(Constants.SIM_LIGHT);
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        Variant variant = args.length > 4 ? Variant.parse(args[4]) : Variant.STANDARD;
+        SillySimulator simulator = new SillySimulator(threads, isLight, seed, variant);
+        long start = System.currentTimeMillis();
+        SimulationStats stats = simulator.run(playouts);
+        long millis = Math.max(1, System.currentTimeMillis() - start);
+        stats.print(System.out);
+        System.out.println();
+        System.out.println(stats.getPlayouts() + " playouts of " + variant + " on " + threads + " threads, seed " + seed
+                + ", " + millis + " ms, " + stats.getPlayouts() * 60000 / millis + " playouts/min");
+    }
+}
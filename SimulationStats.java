@@ -0,0 +1,204 @@
+package indy;
+
+import java.io.PrintStream;
+
+/**
+ * The SimulationStats class counts what happened in the playouts of a SillySimulator: how
+ * each game ended and after how many moves, how many pieces changed color in each game, and
+ * how much material each silly shift moved from one side to the other. Every simulator thread
+ * fills its own SimulationStats, and they are added together with merge at the end, so the
+ * threads never share a counter.
+ */
+public class SimulationStats {
+    private static final int PERCENT = 100;
+    private long playouts;
+    private long whiteMates;
+    private long blackMates;
+    private long whiteKingCaptures;
+    private long blackKingCaptures;
+    private long stalemates;
+    private long bareKings;
+    private long plyLimits;
+    private long plies;
+    private long shifts;
+    private long swingTotal;
+    private final long[] mateLengths;
+    private final long[] flips;
+    private final long[] swings;
+
+    /**
+     * Constructs an empty SimulationStats.
+     */
+    public SimulationStats() {
+        this.mateLengths = new long[Constants.SIM_MAX_PLY / Constants.SIM_MATE_BUCKET + 1];
+        this.flips = new long[Constants.SIM_MAX_FLIPS + 1];
+        this.swings = new long[2 * Constants.SIM_SWING_BUCKETS + 1];
+    }
+
+    /**
+     * Counts a finished playout.
+     *
+     * @param result How it ended, one of the SIM_ constants.
+     * @param white  Whether white won, for a checkmate or King capture.
+     * @param ply    The moves played.
+     * @param flips  The pieces that changed color.
+     */
+    public void addPlayout(int result, boolean white, int ply, int flips) {
+        this.playouts++;
+        this.plies += ply;
+        this.flips[Math.min(flips, Constants.SIM_MAX_FLIPS)]++;
+        switch (result) {
+            case Constants.SIM_CHECKMATE:
+                if (white) {
+                    this.whiteMates++;
+                } else {
+                    this.blackMates++;
+                }
+                this.mateLengths[Math.min(ply, Constants.SIM_MAX_PLY) / Constants.SIM_MATE_BUCKET]++;
+                break;
+            case Constants.SIM_KING_CAPTURE:
+                if (white) {
+                    this.whiteKingCaptures++;
+                } else {
+                    this.blackKingCaptures++;
+                }
+                break;
+            case Constants.SIM_STALEMATE:
+                this.stalemates++;
+                break;
+            case Constants.SIM_BARE_KINGS:
+                this.bareKings++;
+                break;
+            default:
+                this.plyLimits++;
+                break;
+        }
+    }
+
+    /**
+     * Counts a silly shift and the material it moved to the side that made the capture
+     * (negative if that side lost material).
+     */
+    public void addShift(int swing) {
+        this.shifts++;
+        this.swingTotal += swing;
+        int bucket = Math.floorDiv(swing + Constants.SIM_SWING_STEP / 2, Constants.SIM_SWING_STEP);
+        bucket = Math.max(-Constants.SIM_SWING_BUCKETS, Math.min(bucket, Constants.SIM_SWING_BUCKETS));
+        this.swings[bucket + Constants.SIM_SWING_BUCKETS]++;
+    }
+
+    /**
+     * Adds the counts of another SimulationStats to this one.
+     */
+    public void merge(SimulationStats other) {
+        this.playouts += other.playouts;
+        this.whiteMates += other.whiteMates;
+        this.blackMates += other.blackMates;
+        this.whiteKingCaptures += other.whiteKingCaptures;
+        this.blackKingCaptures += other.blackKingCaptures;
+        this.stalemates += other.stalemates;
+        this.bareKings += other.bareKings;
+        this.plyLimits += other.plyLimits;
+        this.plies += other.plies;
+        this.shifts += other.shifts;
+        this.swingTotal += other.swingTotal;
+        addAll(this.mateLengths, other.mateLengths);
+        addAll(this.flips, other.flips);
+        addAll(this.swings, other.swings);
+    }
+
+    /**
+     * Adds every count of one histogram to the same bucket of another.
+     */
+    private static void addAll(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += from[i];
+        }
+    }
+
+    /**
+     * Accessor method for the number of playouts.
+     */
+    public long getPlayouts() {
+        return this.playouts;
+    }
+
+    /**
+     * Accessor method for the number of silly shifts over all playouts.
+     */
+    public long getShifts() {
+        return this.shifts;
+    }
+
+    /**
+     * Returns white's score out of 1 over all playouts: a win counts 1, and a stalemate, bare
+     * Kings, or reaching the move limit count 1/2. Above 1/2 means moving first is an advantage.
+     */
+    public double getWhiteScore() {
+        if (this.playouts == 0) {
+            return 0.5;
+        }
+        long wins = this.whiteMates + this.whiteKingCaptures;
+        long draws = this.stalemates + this.bareKings + this.plyLimits;
+        return (wins + draws / 2.0) / this.playouts;
+    }
+
+    /**
+     * Prints the results and the three histograms as tab separated tables.
+     */
+    public void print(PrintStream out) {
+        out.println("playouts\t" + this.playouts);
+        out.println("white checkmates\t" + this.whiteMates + "\t" + this.percent(this.whiteMates));
+        out.println("black checkmates\t" + this.blackMates + "\t" + this.percent(this.blackMates));
+        out.println("white king captures\t" + this.whiteKingCaptures + "\t" + this.percent(this.whiteKingCaptures));
+        out.println("black king captures\t" + this.blackKingCaptures + "\t" + this.percent(this.blackKingCaptures));
+        out.println("stalemates\t" + this.stalemates + "\t" + this.percent(this.stalemates));
+        out.println("bare kings\t" + this.bareKings + "\t" + this.percent(this.bareKings));
+        out.println("move limit\t" + this.plyLimits + "\t" + this.percent(this.plyLimits));
+        out.println("white score\t" + String.format("%.4f", this.getWhiteScore()));
+        out.println("average plies\t" + (this.playouts == 0 ? 0 : this.plies / this.playouts));
+        out.println("shifts\t" + this.shifts + "\t" + String.format("%.2f", this.perPlayout(this.shifts)) + " per playout");
+        out.println("average swing\t" + (this.shifts == 0 ? 0 : this.swingTotal / this.shifts));
+        out.println();
+        out.println("checkmate after plies\tplayouts");
+        long mates = this.whiteMates + this.blackMates;
+        for (int i = 0; i < this.mateLengths.length; i++) {
+            out.println(i * Constants.SIM_MATE_BUCKET + "-" + ((i + 1) * Constants.SIM_MATE_BUCKET - 1) + "\t"
+                    + this.mateLengths[i] + "\t" + percent(this.mateLengths[i], mates));
+        }
+        out.println();
+        out.println("color flips\tplayouts");
+        for (int i = 0; i < this.flips.length; i++) {
+            out.println((i == Constants.SIM_MAX_FLIPS ? i + "+" : String.valueOf(i)) + "\t" + this.flips[i] + "\t"
+                    + this.percent(this.flips[i]));
+        }
+        out.println();
+        out.println("swing per shift\tshifts");
+        for (int i = 0; i < this.swings.length; i++) {
+            int swing = (i - Constants.SIM_SWING_BUCKETS) * Constants.SIM_SWING_STEP;
+            String label = i == 0 ? "<=" + swing : i == this.swings.length - 1 ? ">=" + swing : String.valueOf(swing);
+            out.println(label + "\t" + this.swings[i] + "\t" + percent(this.swings[i], this.shifts));
+        }
+    }
+
+    /**
+     * Returns a count as a percentage of the playouts.
+     */
+    private String percent(long count) {
+        return percent(count, this.playouts);
+    }
+
+    /**
+     * Returns a count as a percentage of a total.
+     */
+    private static String percent(long count, long total) {
+        return String.format("%.2f%%", total == 0 ? 0.0 : count * (double) PERCENT / total);
+    }
+
+    /**
+     * Returns a count divided by the number of playouts.
+     */
+    private double perPlayout(long count) {
+        return this.playouts == 0 ? 0.0 : count / (double) this.playouts;
+    }
+}
@@ -0,0 +1,85 @@
+package indy;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+/**
+ * The SpriteSheet class copies the twelve piece images (see Piece.image) side by side into one
+ * image, so a BoardCanvas draws every piece from a single texture. The sheet is built once
+ * and shared by every BoardCanvas, however many boards a window shows. It also tells whether
+ * a point of a drawn piece is opaque, so a click on the transparent part of a piece can go
+ * to the square below it, like a click on a piece's ImageView does.
+ */
+public final class SpriteSheet {
+    private static final String[] COLORS = {Constants.WHITE, Constants.BLACK};
+    private static SpriteSheet shared;
+    private final WritableImage sheet;
+    private final PixelReader pixels;
+    private final int[] widths;
+    private final int[] heights;
+
+    /**
+     * Constructs the SpriteSheet by copying the pixels of each piece image into its cell, one
+     * PIECE_WIDTH wide cell per color and piece code.
+     */
+    private SpriteSheet() {
+        int cells = COLORS.length * Constants.KING_CODE;
+        this.sheet = new WritableImage(cells * Constants.PIECE_WIDTH, Constants.PIECE_WIDTH);
+        this.widths = new int[cells];
+        this.heights = new int[cells];
+        for (int color = 0; color < COLORS.length; color++) {
+            for (int code = Constants.PAWN_CODE; code <= Constants.KING_CODE; code++) {
+                int cell = cell(color == 0 ? code : -code);
+                Image image = Piece.image(COLORS[color] + GameRecord.typeName(code));
+                this.widths[cell] = (int) Math.min(image.getWidth(), Constants.PIECE_WIDTH);
+                this.heights[cell] = (int) Math.min(image.getHeight(), Constants.PIECE_WIDTH);
+                this.sheet.getPixelWriter().setPixels(cell * Constants.PIECE_WIDTH, 0, this.widths[cell],
+                        this.heights[cell], image.getPixelReader(), 0, 0);
+            }
+        }
+        this.pixels = this.sheet.getPixelReader();
+    }
+
+    /**
+     * Returns the shared SpriteSheet, building it on the first call. Only called on the
+     * JavaFX thread.
+     */
+    public static SpriteSheet shared() {
+        if (shared == null) {
+            shared = new SpriteSheet();
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the cell of a signed piece code: white pieces first, then black ones.
+     */
+    private static int cell(int piece) {
+        return (piece > 0 ? 0 : Constants.KING_CODE) + Math.abs(piece) - 1;
+    }
+
+    /**
+     * Draws the piece as a square of the given size with its top left corner at x, y.
+     */
+    public void draw(GraphicsContext graphics, int piece, double x, double y, double size) {
+        int cell = cell(piece);
+        graphics.drawImage(this.sheet, cell * Constants.PIECE_WIDTH, 0, this.widths[cell], this.heights[cell],
+                x, y, size, size);
+    }
+
+    /**
+     * Returns true if the piece drawn as a square of the given size is opaque at the point,
+     * given relative to the top left corner of the piece.
+     */
+    public boolean isOpaque(int piece, double x, double y, double size) {
+        if (x < 0 || y < 0 || x >= size || y >= size) {
+            return false;
+        }
+        int cell = cell(piece);
+        int pixelX = cell * Constants.PIECE_WIDTH + (int) (x / size * this.widths[cell]);
+        int pixelY = (int) (y / size * this.heights[cell]);
+        return (this.pixels.getArgb(pixelX, pixelY) >>> 24) != 0;
+    }
+}
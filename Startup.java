@@ -0,0 +1,94 @@
+package indy;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import javafx.application.Platform;
+import javafx.scene.Scene;
+
+/**
+ * The Startup class keeps work that the first frame does not need until after it is shown.
+ * App watches the scene for its first frame (see watchFirstFrame), and everything handed to
+ * afterFirstFrame before that runs right after it, on the JavaFX thread. The first frame
+ * also starts a background thread that sets up the tables of the rules and the Engine
+ * (the magic bitboards, Zobrist keys, and piece-square tables), which the JVM would
+ * otherwise set up the first time they are used, in the middle of a click or a search.
+ * When the program is run with -Dindy.startup.benchmark=true (see StartupBenchmark), the time
+ * from the start of the JVM to the first frame is printed and the program exits, which also
+ * makes it a training run for a class-data-sharing archive (see the README).
+ */
+public final class Startup {
+    private static final ArrayList<Runnable> AFTER_FIRST_FRAME = new ArrayList<>();
+    private static boolean firstFrameShown = false;
+
+    /**
+     * The Startup class only contains static members and is never instantiated.
+     */
+    private Startup() {
+    }
+
+    /**
+     * Runs the task on the JavaFX thread once the first frame has been shown, or at once if
+     * it already has. Only called on the JavaFX thread.
+     */
+    public static void afterFirstFrame(Runnable task) {
+        if (firstFrameShown) {
+            task.run();
+        } else {
+            AFTER_FIRST_FRAME.add(task);
+        }
+    }
+
+    /**
+     * Waits for the first layout pass of the scene. The frame it lays out is drawn at the end
+     * of the same pulse, so the waiting tasks are queued behind that pulse with runLater.
+     */
+    public static void watchFirstFrame(Scene scene) {
+        Runnable[] listener = new Runnable[1];
+        listener[0] = () -> {
+            scene.removePostLayoutPulseListener(listener[0]);
+            Platform.runLater(Startup::firstFrame);
+        };
+        scene.addPostLayoutPulseListener(listener[0]);
+    }
+
+    /**
+     * Runs the waiting tasks and starts setting up the tables in the background, or reports
+     * the time to the first frame and exits when benchmarking.
+     */
+    private static void firstFrame() {
+        long shown = System.currentTimeMillis();
+        firstFrameShown = true;
+        if (Boolean.getBoolean(Constants.STARTUP_BENCHMARK_PROPERTY)) {
+            System.out.println("first frame: " + sinceLaunch(shown) + " ms after the JVM started");
+            Platform.exit();
+            return;
+        }
+        Thread warmUp = new Thread(Startup::warmUp, "startup-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.setPriority(Thread.MIN_PRIORITY);
+        warmUp.start();
+        for (Runnable task : AFTER_FIRST_FRAME) {
+            task.run();
+        }
+        AFTER_FIRST_FRAME.clear();
+    }
+
+    /**
+     * Sets up the tables the rules and the Engine use by using each of them once: generating
+     * the legal moves of the start position fills the magic bitboards and Zobrist keys, and
+     * evaluating it fills the piece-square tables.
+     */
+    public static void warmUp() {
+        Position position = Position.startPosition();
+        position.legalMoves(new int[Position.MAX_MOVES]);
+        Evaluation.evaluate(position);
+    }
+
+    /**
+     * Returns the milliseconds from the start of the JVM to the given time. The management
+     * classes are only loaded here, after the time was taken, so they do not count.
+     */
+    public static long sinceLaunch(long time) {
+        return time - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+}
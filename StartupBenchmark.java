@@ -0,0 +1,47 @@
+package indy;
+
+import javafx.application.Application;
+
+/**
+ * The StartupBenchmark class measures how long the program takes to become usable, counted
+ * from the start of the JVM, so changes to startup can be compared. Running the main method
+ * prints:
+ * headless -> the time until the legal moves of the start position are generated, which is
+ * what the Engine, Uci, and the batch tools need before they can do anything
+ * gui -> the time until App has shown its first frame (see Startup), after which it exits
+ * With no arguments headless is run. Each run is a fresh JVM, so the times include class
+ * loading, and running with a class-data-sharing archive shows what the archive saves.
+ */
+public final class StartupBenchmark {
+
+    /**
+     * The StartupBenchmark class only contains static methods and is never instantiated.
+     */
+    private StartupBenchmark() {
+    }
+
+    /**
+     * Generates the legal moves of the start position and prints how long after the start
+     * of the JVM they were ready.
+     */
+    private static void benchHeadless() {
+        int[] moves = new int[Position.MAX_MOVES];
+        int count = Position.startPosition().legalMoves(moves);
+        long ready = System.currentTimeMillis();
+        System.out.println("first legal move list: " + count + " moves, " + Startup.sinceLaunch(ready)
+                + " ms after the JVM started");
+    }
+
+    /**
+     * Runs the benchmark named by the first argument.
+     */
+    public static void main(String[] args) {
+        String which = args.length > 0 ? args[0] : "headless";
+        if (which.equals("gui")) {
+            System.setProperty(Constants.STARTUP_BENCHMARK_PROPERTY, "true");
+            Application.launch(App.class, args);
+        } else {
+            benchHeadless();
+        }
+    }
+}
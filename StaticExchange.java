@@ -0,0 +1,162 @@
+package indy;
+
+/**
+ * The StaticExchange class works out what a capture is worth without searching it. The
+ * static exchange evaluation (SEE) plays out every capture on the target square, each side
+ * always taking with its least valuable piece and stopping when taking again would lose,
+ * using the attackers of the square on the bitboards. Removing a capturing piece from the
+ * occupied squares uncovers the sliders behind it, so batteries count too.
+ * In silly mode a capture of a piece that is not a Pawn shifts the board, and the piece
+ * that then changes color may be the capturer's own. sillyPenalty is the material the
+ * capturing side expects to lose to that, averaged over the four shift directions and over
+ * the pieces in the line that wraps around.
+ */
+public final class StaticExchange {
+    private static final int DIRECTION_COUNT = Constants.DIRECTIONS;
+
+    /**
+     * The StaticExchange class only contains static methods and is never instantiated.
+     */
+    private StaticExchange() {
+    }
+
+    /**
+     * Returns true if the move wins at least the threshold in the exchange on its target
+     * square, in centipawns. This needs no list of the captures, since it only asks which
+     * side of the threshold the exchange ends on.
+     *
+     * @param position  The position the move is played from.
+     * @param move      The move, which may be quiet (it then risks the moving piece). A
+     *                  promotion gains its new piece and risks it instead of the Pawn.
+     * @param threshold The gain to reach.
+     */
+    public static boolean seeAtLeast(Position position, int move, int threshold) {
+        int flag = Move.flag(move);
+        if (flag == Constants.MOVE_CASTLE) {
+            return threshold <= 0;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean white = position.pieceAt(from) > 0;
+        long occupied = position.occupied() ^ Bitboards.bit(from);
+        int victim = Math.abs(position.pieceAt(to));
+        if (flag == Constants.MOVE_EN_PASSANT) {
+            victim = Constants.PAWN_CODE;
+            occupied ^= Bitboards.bit(white ? to + Constants.BOARD_WIDTH : to - Constants.BOARD_WIDTH);
+        }
+        int promotion = Move.promotion(move);
+        int moved = Math.abs(position.pieceAt(from));
+        int gain = Evaluation.PIECE_VALUES[victim];
+        if (promotion != Constants.EMPTY_CODE) {
+            gain += Evaluation.PIECE_VALUES[promotion] - Evaluation.PIECE_VALUES[moved];
+            moved = promotion;
+        }
+        // swap is what the side that just captured must still win back to reach the threshold
+        int swap = gain - threshold;
+        if (swap < 0) {
+            return false;
+        }
+        swap = Evaluation.PIECE_VALUES[moved] - swap;
+        if (swap <= 0) {
+            return true;
+        }
+        occupied |= Bitboards.bit(to);
+        boolean side = white;
+        boolean moverWins = true;
+        while (true) {
+            side = !side;
+            long attackers = position.attackersOf(to, side, occupied);
+            if (attackers == 0) {
+                break;
+            }
+            moverWins = !moverWins;
+            int code = leastValuable(position, attackers);
+            if (code == Constants.KING_CODE) {
+                // the King may only take if the square is no longer defended
+                return position.attackersOf(to, !side, occupied) != 0 ? !moverWins : moverWins;
+            }
+            swap = Evaluation.PIECE_VALUES[code] - swap;
+            if (swap < (moverWins ? 1 : 0)) {
+                break;
+            }
+            occupied ^= Bitboards.bit(Long.numberOfTrailingZeros(attackers & position.pieces(code)));
+        }
+        return moverWins;
+    }
+
+    /**
+     * Returns true if the capture loses material: it loses in the exchange, or, in silly
+     * mode, it does not win enough to pay for the expected silly transformation. A plain
+     * capture of a piece worth at least as much as the capturer (plus the penalty) cannot
+     * lose, so only the others need the full exchange.
+     */
+    public static boolean isLosing(Position position, int move, boolean isSilly) {
+        int threshold = isSilly ? Math.max(sillyPenalty(position, move), 0) : 0;
+        if (Move.flag(move) == Constants.MOVE_CAPTURE) {
+            int capturer = Math.abs(position.pieceAt(Move.from(move)));
+            int captured = Math.abs(position.pieceAt(Move.to(move)));
+            // even if the capturer is taken back, the capture gains captured minus capturer
+            if (capturer != Constants.KING_CODE
+                    && Evaluation.PIECE_VALUES[captured] - Evaluation.PIECE_VALUES[capturer] >= threshold) {
+                return false;
+            }
+        }
+        return !seeAtLeast(position, move, threshold);
+    }
+
+    /**
+     * Returns the material the side playing the move expects to lose to the silly shift and
+     * transformation that follow it, in centipawns. It is 0 unless the move captures a piece
+     * that is not a Pawn, and negative if the transformation is more likely to hit the other
+     * side's pieces.
+     */
+    public static int sillyPenalty(Position position, int move) {
+        int to = Move.to(move);
+        int captured = Math.abs(position.pieceAt(to));
+        if (!Move.isCapture(move) || captured <= Constants.PAWN_CODE) {
+            return 0;
+        }
+        int from = Move.from(move);
+        int piece = position.pieceAt(from);
+        boolean white = piece > 0;
+        int arriving = Move.isPromotion(move) ? Move.promotion(move) : Math.abs(piece);
+        long own = position.pieces(white) & ~Bitboards.bit(from) | Bitboards.bit(to);
+        long occupied = position.occupied() & ~Bitboards.bit(from) | Bitboards.bit(to);
+        long kings = position.pieces(Constants.KING_CODE) & ~Bitboards.bit(to);
+        if (Math.abs(piece) == Constants.KING_CODE) {
+            kings = kings & ~Bitboards.bit(from) | Bitboards.bit(to);
+        }
+        int expected = 0;
+        for (int direction = 0; direction < DIRECTION_COUNT; direction++) {
+            // the pieces that wrap around start on the edge opposite the wrapped line
+            long line = Position.shiftBitboard(Position.wrappedLine(direction), Position.opposite(direction));
+            long candidates = line & occupied & ~kings;
+            int count = Long.bitCount(candidates);
+            if (count == 0) {
+                continue;
+            }
+            int loss = 0;
+            while (candidates != 0) {
+                int square = Long.numberOfTrailingZeros(candidates);
+                int code = square == to ? arriving : Math.abs(position.pieceAt(square));
+                int swing = SillyRules.demotionSwing(code);
+                loss += (own & Bitboards.bit(square)) != 0 ? swing : -swing;
+                candidates &= candidates - 1;
+            }
+            expected += loss / count;
+        }
+        return expected / DIRECTION_COUNT;
+    }
+
+    /**
+     * Returns the code of the least valuable piece among the attackers.
+     */
+    private static int leastValuable(Position position, long attackers) {
+        for (int code = Constants.PAWN_CODE; code < Constants.KING_CODE; code++) {
+            if ((attackers & position.pieces(code)) != 0) {
+                return code;
+            }
+        }
+        return Constants.KING_CODE;
+    }
+}
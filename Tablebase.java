@@ -0,0 +1,256 @@
+package indy;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The Tablebase class reads one endgame table written by TablebaseGenerator. A table covers
+ * one set of pieces, named like KQK or KBNK: the white pieces from the first King, then the
+ * black pieces from the second King. Every placement of the pieces with either side to move
+ * has an index, and the file holds, after a header of TABLEBASE_HEADER_SIZE bytes, the
+ * win/draw/loss of every index packed 2 bits each, followed by one distance to mate byte
+ * per index. Both sections are read straight from a memory mapping.
+ * A distance code is DTM_DRAW, DTM_ILLEGAL, or the number of plies to mate plus one, seen
+ * from the side to move: an odd number of plies is a win and an even number is a loss.
+ */
+public class Tablebase {
+    private static final String VALUES = "KQRBNP";
+    private static final int[] VALUE_POINTS = {0, 9, 5, 3, 3, 1};
+    private static final int SQUARE_BITS = 6;
+    private static final int MIRROR = 56;
+    private final String name;
+    private final int[] pieces;
+    private final int size;
+    private final int maxDistance;
+    private final MappedByteBuffer data;
+    private final int dtmOffset;
+
+    /**
+     * Opens the table at the given path and maps it into memory.
+     *
+     * @param path The path of the table file.
+     * @param name The name of the table, like KQK.
+     */
+    public Tablebase(String path, String name) throws IOException {
+        this.name = name;
+        this.pieces = parse(name);
+        this.size = sizeOf(this.pieces);
+        this.dtmOffset = Constants.TABLEBASE_HEADER_SIZE + wdlBytes(this.size);
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            if (channel.size() != (long) this.dtmOffset + this.size) {
+                throw new IOException(path + " is not a " + name + " table");
+            }
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (this.data.getInt(0) != Constants.TABLEBASE_MAGIC || this.data.getInt(Integer.BYTES) != this.size) {
+            throw new IOException(path + " is not a " + name + " table");
+        }
+        this.maxDistance = this.data.getInt(2 * Integer.BYTES);
+    }
+
+    /**
+     * Returns the signed piece codes of a table name, white pieces first.
+     */
+    public static int[] parse(String name) {
+        int blackKing = name.indexOf('K', 1);
+        if (!name.startsWith("K") || blackKing < 0 || name.length() > Constants.TABLEBASE_MAX_MEN) {
+            throw new IllegalArgumentException("bad table name: " + name);
+        }
+        int[] pieces = new int[name.length()];
+        for (int i = 0; i < name.length(); i++) {
+            int code = Position.pieceCode(name.charAt(i));
+            if (code == 0 || (code == Constants.KING_CODE && i != 0 && i != blackKing)) {
+                throw new IllegalArgumentException("bad table name: " + name);
+            }
+            pieces[i] = i < blackKing ? code : -code;
+        }
+        return pieces;
+    }
+
+    /**
+     * Returns the number of indexes of a table with the given pieces.
+     */
+    public static int sizeOf(int[] pieces) {
+        return 2 << (SQUARE_BITS * pieces.length);
+    }
+
+    /**
+     * Returns the number of bytes of the packed win/draw/loss section.
+     */
+    public static int wdlBytes(int size) {
+        return (size + 3) / 4;
+    }
+
+    /**
+     * Returns the name of the table that covers the Position, or null if a side does not
+     * have exactly one King.
+     */
+    public static String nameOf(Position position) {
+        StringBuilder name = new StringBuilder();
+        for (int color = 0; color < 2; color++) {
+            long side = position.pieces(color == 0);
+            if (Long.bitCount(position.pieces(Constants.KING_CODE) & side) != 1) {
+                return null;
+            }
+            for (int i = 0; i < VALUES.length(); i++) {
+                int code = Position.pieceCode(VALUES.charAt(i));
+                int count = Long.bitCount(position.pieces(code) & side);
+                for (int j = 0; j < count; j++) {
+                    name.append(VALUES.charAt(i));
+                }
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Returns the table name with a Pawn (by its index in the name) replaced by the piece of
+     * the given letter, with that side's pieces back in table name order, so promoting the
+     * Pawn of KPK to a Queen gives KQK.
+     */
+    public static String promote(String name, int index, char letter) {
+        int blackKing = name.indexOf('K', 1);
+        String changed = name.substring(0, index) + letter + name.substring(index + 1);
+        return sortSide(changed.substring(0, blackKing)) + sortSide(changed.substring(blackKing));
+    }
+
+    /**
+     * Returns the letters of one side of a table name sorted by VALUES, King first.
+     */
+    private static String sortSide(String side) {
+        StringBuilder sorted = new StringBuilder();
+        for (int i = 0; i < VALUES.length(); i++) {
+            for (int j = 0; j < side.length(); j++) {
+                if (side.charAt(j) == VALUES.charAt(i)) {
+                    sorted.append(VALUES.charAt(i));
+                }
+            }
+        }
+        return sorted.toString();
+    }
+
+    /**
+     * Returns the name of the table with the colors swapped, so KQK becomes KKQ.
+     */
+    public static String flip(String name) {
+        int blackKing = name.indexOf('K', 1);
+        return name.substring(blackKing) + name.substring(0, blackKing);
+    }
+
+    /**
+     * Returns true if the name is the one tables are stored under: white has at least as much
+     * material as black. A Position with the colors the other way round is looked up in the
+     * flipped table.
+     */
+    public static boolean isCanonical(String name) {
+        String flipped = flip(name);
+        int difference = points(name) - points(flipped);
+        return difference > 0 || (difference == 0 && name.compareTo(flipped) >= 0);
+    }
+
+    /**
+     * Returns the material points of the white pieces of a table name.
+     */
+    private static int points(String name) {
+        int total = 0;
+        for (int i = 1; i < name.indexOf('K', 1); i++) {
+            total += VALUE_POINTS[VALUES.indexOf(name.charAt(i))];
+        }
+        return total;
+    }
+
+    /**
+     * Returns the index of the Position in a table with the given pieces, or -1 if the
+     * pieces do not match. A flipped lookup swaps the colors and mirrors the columns, so
+     * white pawns still move towards column 0.
+     */
+    public static int index(int[] pieces, Position position, boolean flipped) {
+        long used = 0L;
+        int index = 0;
+        for (int i = pieces.length - 1; i >= 0; i--) {
+            int piece = flipped ? -pieces[i] : pieces[i];
+            long candidates = position.pieces(Math.abs(piece)) & position.pieces(piece > 0) & ~used;
+            if (candidates == 0) {
+                return -1;
+            }
+            int square = Long.numberOfTrailingZeros(candidates);
+            used |= Bitboards.bit(square);
+            index = (index << SQUARE_BITS) | (flipped ? square ^ MIRROR : square);
+        }
+        boolean whiteToMove = position.isWhiteToMove() != flipped;
+        return (index << 1) | (whiteToMove ? 0 : 1);
+    }
+
+    /**
+     * Returns the index of the Position in this table.
+     */
+    public int index(Position position, boolean flipped) {
+        return index(this.pieces, position, flipped);
+    }
+
+    /**
+     * Returns the win/draw/loss of an index for the side to move, as TB_WIN, TB_DRAW,
+     * TB_LOSS, or TB_ILLEGAL.
+     */
+    public int wdl(int index) {
+        int packed = this.data.get(Constants.TABLEBASE_HEADER_SIZE + (index >>> 2));
+        return (packed >>> ((index & 3) * 2)) & 3;
+    }
+
+    /**
+     * Returns the distance code of an index.
+     */
+    public int dtm(int index) {
+        return this.data.get(this.dtmOffset + index) & 0xFF;
+    }
+
+    /**
+     * Returns the win/draw/loss of a distance code.
+     */
+    public static int wdlOf(int code) {
+        if (code == Constants.DTM_DRAW) {
+            return Constants.TB_DRAW;
+        } else if (code == Constants.DTM_ILLEGAL) {
+            return Constants.TB_ILLEGAL;
+        }
+        return isWin(code) ? Constants.TB_WIN : Constants.TB_LOSS;
+    }
+
+    /**
+     * Returns true if the distance code is a win for the side to move.
+     */
+    public static boolean isWin(int code) {
+        return code != Constants.DTM_ILLEGAL && code != Constants.DTM_DRAW && code % 2 == 0;
+    }
+
+    /**
+     * Returns true if the distance code is a loss for the side to move.
+     */
+    public static boolean isLoss(int code) {
+        return code != Constants.DTM_ILLEGAL && code % 2 == 1;
+    }
+
+    /**
+     * Accessor method for the name of the table.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Accessor method for the number of indexes of the table.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Accessor method for the longest distance code of the table.
+     */
+    public int getMaxDistance() {
+        return this.maxDistance;
+    }
+}
@@ -0,0 +1,378 @@
+package indy;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The TablebaseGenerator class builds endgame tables for basic mode by retrograde analysis
+ * on the Position rules core. The table is solved backwards from the mates: pass n finds the
+ * positions that are mate in exactly n plies, using the results of the earlier passes and
+ * of the smaller tables a capture or a promotion leads to. Only the predecessors of the
+ * positions found by the previous pass are candidates, which are found by moving the pieces
+ * of the side that just moved backwards. Each pass splits the indexes over a fork-join pool
+ * and sets up the candidates as Positions to check them. When a pass finds nothing new, the
+ * remaining positions are draws.
+ * Running the main method builds tables and the smaller tables they need:
+ * TablebaseGenerator directory KQK KRK KBNK KPK
+ */
+public class TablebaseGenerator {
+    private static final String PROMOTION_LETTERS = "QRBN";
+    private final Tablebases tables;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs a TablebaseGenerator that writes its tables to the given directory.
+     *
+     * @param directory The directory for the table files.
+     */
+    public TablebaseGenerator(String directory) {
+        new File(directory).mkdirs();
+        this.tables = new Tablebases(directory);
+        this.pool = ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Builds the table with the given name unless the directory already has it. The tables
+     * reached by capturing a piece or promoting a Pawn are built first.
+     */
+    public void generate(String name) throws IOException {
+        if (!Tablebase.isCanonical(name)) {
+            name = Tablebase.flip(name);
+        }
+        int[] pieces = Tablebase.parse(name);
+        if (pieces.length == 2 || new File(this.tables.pathOf(name)).isFile()) {
+            return;
+        }
+        int maxSubDistance = 0;
+        for (int i = 0; i < name.length(); i++) {
+            if (pieces[i] != Constants.KING_CODE && pieces[i] != -Constants.KING_CODE) {
+                maxSubDistance = Math.max(maxSubDistance, this.generateSub(name.substring(0, i) + name.substring(i + 1)));
+            }
+            if (Math.abs(pieces[i]) == Constants.PAWN_CODE) {
+                for (char letter : PROMOTION_LETTERS.toCharArray()) {
+                    maxSubDistance = Math.max(maxSubDistance, this.generateSub(Tablebase.promote(name, i, letter)));
+                }
+            }
+        }
+        long start = System.currentTimeMillis();
+        byte[] codes = this.solve(pieces, maxSubDistance);
+        this.write(this.tables.pathOf(name), codes);
+        System.out.println(name + " done in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Builds a table another one leads to and returns its longest distance, or 0 if it has
+     * no table (a table of the two Kings alone).
+     */
+    private int generateSub(String sub) throws IOException {
+        String canonical = Tablebase.isCanonical(sub) ? sub : Tablebase.flip(sub);
+        this.generate(canonical);
+        Tablebase table = this.tables.get(canonical);
+        return table == null ? 0 : table.getMaxDistance();
+    }
+
+    /**
+     * Solves every index of a table and returns the distance codes.
+     */
+    private byte[] solve(int[] pieces, int maxSubDistance) {
+        byte[] codes = new byte[Tablebase.sizeOf(pieces)];
+        byte[] candidates = new byte[codes.length];
+        byte[] next = new byte[codes.length];
+        LongAdder found = new LongAdder();
+        this.pool.invoke(new Pass(pieces, codes, 0, null, next, 0, codes.length, found));
+        int pass = 1;
+        while (pass < Constants.DTM_ILLEGAL - 1 && (found.sum() > 0 || pass <= maxSubDistance + 1)) {
+            byte[] swap = candidates;
+            candidates = next;
+            next = swap;
+            Arrays.fill(next, (byte) 0);
+            found.reset();
+            boolean allIndexes = pass <= maxSubDistance + 1;
+            this.pool.invoke(new Pass(pieces, codes, pass, allIndexes ? null : candidates, next, 0, codes.length, found));
+            pass++;
+        }
+        return codes;
+    }
+
+    /**
+     * Writes the header, the packed win/draw/loss section, and the distance codes.
+     */
+    private void write(String path, byte[] codes) throws IOException {
+        int maxDistance = 0;
+        byte[] wdl = new byte[Tablebase.wdlBytes(codes.length)];
+        for (int index = 0; index < codes.length; index++) {
+            int code = codes[index] & 0xFF;
+            if (code != Constants.DTM_ILLEGAL) {
+                maxDistance = Math.max(maxDistance, code);
+            }
+            wdl[index >>> 2] |= (byte) (Tablebase.wdlOf(code) << ((index & 3) * 2));
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(Constants.TABLEBASE_MAGIC);
+            out.writeInt(codes.length);
+            out.writeInt(maxDistance);
+            out.write(wdl);
+            out.write(codes);
+        }
+    }
+
+    /**
+     * The Pass class runs one pass over a range of indexes, splitting it in half until it is
+     * at most TABLEBASE_CHUNK indexes long. Pass 0 marks illegal positions and mates. Pass n
+     * only sets positions that are still unsolved to mate in n, and every position it sets
+     * has the parity of n, which the other positions of the same pass never look for, so
+     * the workers can share the codes without locking. Marking a candidate for the next
+     * pass only ever writes a 1, so the workers share those marks the same way.
+     */
+    private class Pass extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] pieces;
+        private final byte[] codes;
+        private final int pass;
+        private final byte[] candidates;
+        private final byte[] next;
+        private final int from;
+        private final int to;
+        private final LongAdder found;
+
+        /**
+         * Constructs a Pass over the indexes from (inclusive) to (exclusive).
+         *
+         * @param pieces     The signed piece codes of the table.
+         * @param codes      The distance codes solved so far.
+         * @param pass       The number of the pass.
+         * @param candidates The indexes to check, or null to check every unsolved index.
+         * @param next       The candidates of the next pass, which this pass marks.
+         * @param from       The first index of the range.
+         * @param to         The index after the range.
+         * @param found      The counter of positions solved by the pass.
+         */
+        Pass(int[] pieces, byte[] codes, int pass, byte[] candidates, byte[] next, int from, int to, LongAdder found) {
+            this.pieces = pieces;
+            this.codes = codes;
+            this.pass = pass;
+            this.candidates = candidates;
+            this.next = next;
+            this.from = from;
+            this.to = to;
+            this.found = found;
+        }
+
+        /**
+         * Splits the range or solves it.
+         */
+        @Override
+        protected void compute() {
+            if (this.to - this.from > Constants.TABLEBASE_CHUNK) {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new Pass(this.pieces, this.codes, this.pass, this.candidates, this.next, this.from, middle, this.found),
+                        new Pass(this.pieces, this.codes, this.pass, this.candidates, this.next, middle, this.to, this.found));
+                return;
+            }
+            Position position = new Position();
+            int[] squares = new int[this.pieces.length];
+            int[] scratch = new int[this.pieces.length];
+            int[] moves = new int[Position.MAX_MOVES];
+            int count = 0;
+            for (int index = this.from; index < this.to; index++) {
+                if (this.codes[index] != Constants.DTM_DRAW || (this.candidates != null && this.candidates[index] == 0)) {
+                    continue;
+                }
+                if (!this.setUp(position, squares, index)) {
+                    this.codes[index] = (byte) Constants.DTM_ILLEGAL;
+                    continue;
+                }
+                int code = this.pass == 0 ? this.firstCode(position, moves) : this.passCode(position, moves);
+                if (code != Constants.DTM_DRAW) {
+                    this.codes[index] = (byte) code;
+                    count++;
+                    if (code != Constants.DTM_ILLEGAL) {
+                        this.markPredecessors(squares, scratch, (index & 1) != 0);
+                    }
+                }
+            }
+            this.found.add(count);
+        }
+
+        /**
+         * Sets up the Position of an index. Returns false if two pieces share a square or a
+         * Pawn stands on the first or last column, where no Pawn can ever be.
+         */
+        private boolean setUp(Position position, int[] squares, int index) {
+            long used = 0L;
+            int rest = index >>> 1;
+            for (int i = 0; i < this.pieces.length; i++) {
+                squares[i] = rest & 63;
+                rest >>>= 6;
+                if ((used & Bitboards.bit(squares[i])) != 0) {
+                    return false;
+                }
+                if (Math.abs(this.pieces[i]) == Constants.PAWN_CODE) {
+                    int col = Move.col(squares[i]);
+                    boolean white = this.pieces[i] > 0;
+                    if (col == Position.lastCol(white) || col == Position.lastCol(!white)) {
+                        return false;
+                    }
+                }
+                used |= Bitboards.bit(squares[i]);
+            }
+            position.load(squares, this.pieces, this.pieces.length, (index & 1) == 0);
+            return true;
+        }
+
+        /**
+         * Returns DTM_ILLEGAL for positions that cannot happen, the code of mate in 0 for a
+         * checkmated side to move, and DTM_DRAW otherwise.
+         */
+        private int firstCode(Position position, int[] moves) {
+            if (position.isInCheck(!position.isWhiteToMove())) {
+                return Constants.DTM_ILLEGAL;
+            }
+            if (position.isInCheck() && position.legalMoves(moves) == 0) {
+                return 1;
+            }
+            return Constants.DTM_DRAW;
+        }
+
+        /**
+         * Returns the code of mate in exactly this pass, or DTM_DRAW. An odd pass wins if a
+         * move reaches a loss one ply shorter, and an even pass loses if every move reaches a
+         * win and the longest of them is one ply shorter.
+         */
+        private int passCode(Position position, int[] moves) {
+            int count = position.legalMoves(moves);
+            if (count == 0) {
+                return Constants.DTM_DRAW;
+            }
+            boolean odd = this.pass % 2 == 1;
+            int longest = 0;
+            for (int i = 0; i < count; i++) {
+                position.makeMove(moves[i]);
+                int code = this.childCode(position, moves[i]);
+                position.undo();
+                if (odd && code == this.pass) {
+                    return this.pass + 1;
+                }
+                if (!odd) {
+                    if (!Tablebase.isWin(code)) {
+                        return Constants.DTM_DRAW;
+                    }
+                    longest = Math.max(longest, code);
+                }
+            }
+            return !odd && longest == this.pass ? this.pass + 1 : Constants.DTM_DRAW;
+        }
+
+        /**
+         * Marks every position one quiet move before this one as a candidate. The side that
+         * just moved is the one not to move now, and each of its pieces is moved backwards to
+         * every empty square it could have come from.
+         */
+        private void markPredecessors(int[] squares, int[] scratch, boolean whiteMoved) {
+            long occupied = 0L;
+            for (int square : squares) {
+                occupied |= Bitboards.bit(square);
+            }
+            for (int i = 0; i < this.pieces.length; i++) {
+                if (this.pieces[i] > 0 != whiteMoved) {
+                    continue;
+                }
+                int square = squares[i];
+                long origins = unmoveOrigins(this.pieces[i], square, occupied);
+                while (origins != 0) {
+                    squares[i] = Long.numberOfTrailingZeros(origins);
+                    origins &= origins - 1;
+                    this.next[canonicalIndex(this.pieces, squares, scratch, whiteMoved)] = 1;
+                }
+                squares[i] = square;
+            }
+        }
+
+        /**
+         * Returns the distance code of the Position reached by a move. A capture leads to a
+         * smaller table and a promotion to another table, and any other move stays in this one.
+         */
+        private int childCode(Position position, int move) {
+            if (Move.isCapture(move) || Move.isPromotion(move)) {
+                int code = TablebaseGenerator.this.tables.probeDtm(position);
+                return code == Constants.TB_UNKNOWN ? Constants.DTM_DRAW : code;
+            }
+            return this.codes[Tablebase.index(this.pieces, position, false)] & 0xFF;
+        }
+    }
+
+    /**
+     * Returns the empty squares a piece on the square could have come from with a quiet move.
+     * White pawns move towards column 0, and a pawn on its fourth column may have made a
+     * double step from its starting column.
+     */
+    private static long unmoveOrigins(int piece, int square, long occupied) {
+        switch (Math.abs(piece)) {
+            case Constants.KNIGHT_CODE:
+                return Bitboards.KNIGHT_ATTACKS[square] & ~occupied;
+            case Constants.BISHOP_CODE:
+                return Bitboards.bishopAttacks(square, occupied) & ~occupied;
+            case Constants.ROOK_CODE:
+                return Bitboards.rookAttacks(square, occupied) & ~occupied;
+            case Constants.QUEEN_CODE:
+                return Bitboards.queenAttacks(square, occupied) & ~occupied;
+            case Constants.KING_CODE:
+                return Bitboards.KING_ATTACKS[square] & ~occupied;
+            default:
+                int back = piece > 0 ? Constants.BOARD_WIDTH : -Constants.BOARD_WIDTH;
+                int one = square + back;
+                if (one < 0 || one >= Constants.BOARD_WIDTH * Constants.BOARD_WIDTH || (occupied & Bitboards.bit(one)) != 0) {
+                    return 0L;
+                }
+                long origins = Bitboards.bit(one);
+                int doubleStepCol = piece > 0 ? Constants.BOARD_WIDTH / 2 : Constants.BOARD_WIDTH / 2 - 1;
+                if (Move.col(square) == doubleStepCol && (occupied & Bitboards.bit(one + back)) == 0) {
+                    origins |= Bitboards.bit(one + back);
+                }
+                return origins;
+        }
+    }
+
+    /**
+     * Returns the index Tablebase.index gives the position with the pieces on the squares.
+     * Identical pieces stand next to each other in a table name, and Tablebase.index gives
+     * the lowest square to the last of them, so their squares are sorted from high to low.
+     */
+    private static int canonicalIndex(int[] pieces, int[] squares, int[] scratch, boolean whiteToMove) {
+        for (int i = 0; i < pieces.length; i++) {
+            int square = squares[i];
+            int j = i;
+            while (j > 0 && pieces[j - 1] == pieces[i] && scratch[j - 1] < square) {
+                scratch[j] = scratch[j - 1];
+                j--;
+            }
+            scratch[j] = square;
+        }
+        int index = 0;
+        for (int i = pieces.length - 1; i >= 0; i--) {
+            index = (index << 6) | scratch[i];
+        }
+        return (index << 1) | (whiteToMove ? 0 : 1);
+    }
+
+    /**
+     * Builds the tables named on the command line.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: TablebaseGenerator directory KQK KRK KBNK KPK");
+            return;
+        }
+        TablebaseGenerator generator = new TablebaseGenerator(args[0]);
+        for (int i = 1; i < args.length; i++) {
+            generator.generate(args[i]);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package indy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The Tablebases class probes the endgame tables of a directory for any Position. Tables
+ * are opened the first time a Position needs them and stay mapped afterwards. A Position
+ * whose colors are the other way round from the stored table is probed through the flipped
+ * table, and a Position with only the two Kings left is always a draw. The tables only know
+ * basic mode, since a silly shift can change any position after a capture.
+ */
+public class Tablebases {
+    private final String directory;
+    private final ConcurrentHashMap<String, Optional<Tablebase>> tables;
+
+    /**
+     * Constructs a Tablebases that reads tables from the given directory.
+     *
+     * @param directory The directory holding the table files.
+     */
+    public Tablebases(String directory) {
+        this.directory = directory;
+        this.tables = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the path of the file of a table.
+     */
+    public String pathOf(String name) {
+        return this.directory + File.separator + name + Constants.TABLEBASE_EXTENSION;
+    }
+
+    /**
+     * Returns the table with the given name, or null if the directory does not have it.
+     */
+    public Tablebase get(String name) {
+        return this.tables.computeIfAbsent(name, key -> {
+            if (!new File(this.pathOf(key)).isFile()) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(new Tablebase(this.pathOf(key), key));
+            } catch (IOException e) {
+                System.err.println("could not open table " + key + ": " + e.getMessage());
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    /**
+     * Returns the distance code of the Position for the side to move, or TB_UNKNOWN if there
+     * is no table for it.
+     */
+    public int probeDtm(Position position) {
+        String name = Tablebase.nameOf(position);
+        if (name == null || name.length() > Constants.TABLEBASE_MAX_MEN) {
+            return Constants.TB_UNKNOWN;
+        }
+        if (name.equals("KK")) {
+            return Constants.DTM_DRAW;
+        }
+        boolean flipped = !Tablebase.isCanonical(name);
+        Tablebase table = this.get(flipped ? Tablebase.flip(name) : name);
+        if (table == null) {
+            return Constants.TB_UNKNOWN;
+        }
+        return table.dtm(table.index(position, flipped));
+    }
+
+    /**
+     * Returns the win/draw/loss of the Position for the side to move, or TB_UNKNOWN if there
+     * is no table for it. Only the packed section of the table is read.
+     */
+    public int probeWdl(Position position) {
+        String name = Tablebase.nameOf(position);
+        if (name == null || name.length() > Constants.TABLEBASE_MAX_MEN) {
+            return Constants.TB_UNKNOWN;
+        }
+        if (name.equals("KK")) {
+            return Constants.TB_DRAW;
+        }
+        boolean flipped = !Tablebase.isCanonical(name);
+        Tablebase table = this.get(flipped ? Tablebase.flip(name) : name);
+        if (table == null) {
+            return Constants.TB_UNKNOWN;
+        }
+        return table.wdl(table.index(position, flipped));
+    }
+
+    /**
+     * Returns the best move of the Position, or 0 if a table is missing or there is no legal
+     * move. A won Position mates as fast as possible, and a lost one holds out the longest.
+     *
+     * @param position The Position to play a move in.
+     * @param moves    A scratch array of at least MAX_MOVES moves.
+     */
+    public int bestMove(Position position, int[] moves) {
+        int count = position.legalMoves(moves);
+        int best = 0;
+        int bestScore = Integer.MIN_VALUE;
+        for (int i = 0; i < count; i++) {
+            position.makeMove(moves[i]);
+            int code = this.probeDtm(position);
+            position.undo();
+            if (code == Constants.TB_UNKNOWN) {
+                return 0;
+            }
+            int score;
+            if (Tablebase.isLoss(code)) {
+                score = Constants.DTM_ILLEGAL - code;
+            } else if (Tablebase.isWin(code)) {
+                score = code - Constants.DTM_ILLEGAL;
+            } else {
+                score = 0;
+            }
+            if (score > bestScore) {
+                best = moves[i];
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+}
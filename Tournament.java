@@ -0,0 +1,216 @@
+package indy;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The Tournament class plays two kinds of engine against each other (see Searcher.create),
+ * by default the MctsEngine against the alpha-beta Engine in silly mode, to tell which one
+ * plays better. Games are played in pairs: both games of a pair start from the same short
+ * opening and use the same seed for the silly shifts, and the engines swap colors, so
+ * neither engine is luckier with the openings or the shifts than the other. A game ends in
+ * checkmate, in a King left to be taken after a shift (a win for the side to move), or in a
+ * draw by stalemate, bare Kings, repetition in basic mode, or TOURNAMENT_MAX_PLY moves.
+ * Several games are played at once, each on its own thread with its own pair of engines
+ * searching on one thread, and every game is appended to the tournament archive so it can
+ * be replayed or exported to PGN.
+ * Running the main method plays a match and prints the score of the first engine:
+ * Tournament games millis [silly|basic] [concurrency] [first] [second] [seed]
+ */
+public class Tournament {
+    private static final String[] OPENINGS = {"e2e4 e7e5", "d2d4 d7d5", "c2c4 e7e5", "g1f3 d7d5", "e2e4 c7c5",
+            "d2d4 g8f6", "b1c3 d7d5", "e2e3 b7b6"};
+    private static final String[] RESULT_TEXT = {"*", "1-0", "0-1", "1/2-1/2"};
+    private final String first;
+    private final String second;
+    private final boolean isSilly;
+    private final long millis;
+    private final int concurrency;
+    private final long seed;
+    private final AtomicInteger next;
+    private final AtomicInteger firstWins;
+    private final AtomicInteger secondWins;
+    private final AtomicInteger draws;
+
+    /**
+     * Constructs a Tournament between two kinds of engine.
+     *
+     * @param first       The kind of the first engine, ENGINE_MCTS or ENGINE_ALPHA_BETA.
+     * @param second      The kind of the second engine.
+     * @param isSilly     Whether the games are played with silly rules.
+     * @param millis      The time each engine searches each move.
+     * @param concurrency The number of games played at once.
+     * @param seed        The seed of the silly shifts of the first pair of games.
+     */
+    public Tournament(String first, String second, boolean isSilly, long millis, int concurrency, long seed) {
+        this.first = first;
+        this.second = second;
+        this.isSilly = isSilly;
+        this.millis = Math.max(1, millis);
+        this.concurrency = Math.max(1, concurrency);
+        this.seed = seed;
+        this.next = new AtomicInteger();
+        this.firstWins = new AtomicInteger();
+        this.secondWins = new AtomicInteger();
+        this.draws = new AtomicInteger();
+    }
+
+    /**
+     * Plays the games and appends them to the archive. Returns once every game is over.
+     */
+    public void play(int games, String archive) throws IOException, InterruptedException {
+        try (GameRecordWriter writer = new GameRecordWriter(archive)) {
+            Thread[] players = new Thread[this.concurrency];
+            for (int i = 0; i < this.concurrency; i++) {
+                players[i] = new Thread(() -> this.work(games, writer), "tournament-" + i);
+                players[i].start();
+            }
+            for (Thread player : players) {
+                player.join();
+            }
+        }
+    }
+
+    /**
+     * Takes the next game to play until all of them are taken, with one engine of each kind
+     * kept for all the games of the thread.
+     */
+    private void work(int games, GameRecordWriter writer) {
+        Searcher firstEngine = this.newEngine(this.first);
+        Searcher secondEngine = this.newEngine(this.second);
+        int game = this.next.getAndIncrement();
+        while (game < games) {
+            firstEngine.newGame();
+            secondEngine.newGame();
+            GameRecord record = this.playGame(game, firstEngine, secondEngine);
+            synchronized (writer) {
+                try {
+                    writer.append(record);
+                } catch (IOException e) {
+                    System.err.println("could not archive game " + game + ": " + e.getMessage());
+                }
+            }
+            game = this.next.getAndIncrement();
+        }
+    }
+
+    /**
+     * Returns a new engine of the kind, searching on one thread.
+     */
+    private Searcher newEngine(String kind) {
+        Searcher engine = Searcher.create(kind);
+        engine.setThreads(1);
+        engine.setHash(Constants.TOURNAMENT_HASH);
+        engine.setSilly(this.isSilly);
+        return engine;
+    }
+
+    /**
+     * Plays one game, counts its result, prints it, and returns its record. The first
+     * engine has white in the even games.
+     */
+    private GameRecord playGame(int game, Searcher firstEngine, Searcher secondEngine) {
+        boolean firstIsWhite = game % 2 == 0;
+        Random random = new Random(this.seed + game / 2);
+        Position position = Position.startPosition();
+        GameRecord record = new GameRecord(this.isSilly);
+        int[] moves = new int[Position.MAX_MOVES];
+        for (String text : OPENINGS[game / 2 % OPENINGS.length].split(" ")) {
+            int move = Move.parse(position, text, moves);
+            position.makeMove(move);
+            record.addMove(move);
+        }
+        int result = this.result(position);
+        while (result == Constants.RESULT_UNFINISHED) {
+            Searcher engine = position.isWhiteToMove() == firstIsWhite ? firstEngine : secondEngine;
+            int move = engine.search(position, Constants.MAX_PLY - 1, this.millis, 0, null);
+            if (this.isSilly) {
+                SillyRules.play(position, move, random, record);
+            } else {
+                position.makeMove(move);
+                record.addMove(move);
+            }
+            result = this.result(position);
+        }
+        record.setResult(result);
+        boolean whiteWins = result == Constants.RESULT_WHITE_WINS;
+        if (result == Constants.RESULT_DRAW) {
+            this.draws.incrementAndGet();
+        } else if (whiteWins == firstIsWhite) {
+            this.firstWins.incrementAndGet();
+        } else {
+            this.secondWins.incrementAndGet();
+        }
+        System.out.println("game " + game + " " + (firstIsWhite ? this.first + "-" + this.second
+                : this.second + "-" + this.first) + " " + RESULT_TEXT[result] + " after " + position.getPlyCount()
+                + " plies");
+        return record;
+    }
+
+    /**
+     * Returns how the game stands in the Position: RESULT_UNFINISHED while it goes on, or
+     * the result once it is over.
+     */
+    private int result(Position position) {
+        boolean white = position.isWhiteToMove();
+        if (this.isSilly && position.isInCheck(!white)) {
+            return white ? Constants.RESULT_WHITE_WINS : Constants.RESULT_BLACK_WINS;
+        }
+        if (!position.hasLegalMove()) {
+            if (!position.isInCheck()) {
+                return Constants.RESULT_DRAW;
+            }
+            return white ? Constants.RESULT_BLACK_WINS : Constants.RESULT_WHITE_WINS;
+        }
+        if (position.occupied() == position.pieces(Constants.KING_CODE)
+                || (!this.isSilly && position.isRepetition())
+                || position.getPlyCount() >= Constants.TOURNAMENT_MAX_PLY) {
+            return Constants.RESULT_DRAW;
+        }
+        return Constants.RESULT_UNFINISHED;
+    }
+
+    /**
+     * Returns the score of the first engine so far, from 0 to 1, a draw counting 1/2.
+     */
+    public double getScore() {
+        int games = this.firstWins.get() + this.secondWins.get() + this.draws.get();
+        return games == 0 ? 0.5 : (this.firstWins.get() + this.draws.get() / 2.0) / games;
+    }
+
+    /**
+     * Returns the Elo rating difference that would make the first engine expect its score,
+     * capped at TOURNAMENT_MAX_ELO either way when one engine won everything.
+     */
+    public int getEloDifference() {
+        double score = this.getScore();
+        if (score <= 0.0 || score >= 1.0) {
+            return score <= 0.0 ? -Constants.TOURNAMENT_MAX_ELO : Constants.TOURNAMENT_MAX_ELO;
+        }
+        return (int) Math.round(-Constants.ELO_SCALE * Math.log10(1.0 / score - 1.0));
+    }
+
+    /**
+     * Plays a match and prints its wins, losses, draws, score, and Elo difference.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.err.println("usage: Tournament games millis [silly|basic] [concurrency] [first] [second] [seed]");
+            return;
+        }
+        int games = Integer.parseInt(args[0]);
+        long millis = Long.parseLong(args[1]);
+        boolean isSilly = args.length <= 2 || !args[2].equals("basic");
+        int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        String first = args.length > 4 ? args[4] : Constants.ENGINE_MCTS;
+        String second = args.length > 5 ? args[5] : Constants.ENGINE_ALPHA_BETA;
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : System.nanoTime();
+        Tournament tournament = new Tournament(first, second, isSilly, millis, concurrency, seed);
+        tournament.play(games, Constants.TOURNAMENT_ARCHIVE);
+        System.out.println(first + " vs " + second + (isSilly ? " (silly)" : " (basic)") + ": +"
+                + tournament.firstWins.get() + " -" + tournament.secondWins.get() + " =" + tournament.draws.get()
+                + ", score " + String.format("%.3f", tournament.getScore()) + ", elo "
+                + tournament.getEloDifference() + ", seed " + seed);
+    }
+}
@@ -0,0 +1,112 @@
+package indy;
+
+import java.util.Arrays;
+
+/**
+ * The TranspositionTable class remembers the results of the Engine's search by Zobrist hash,
+ * so a position reached again through other moves is not searched twice. Each entry is two
+ * longs: the hash XOR the data, and the data, which packs the best move, the score, the
+ * depth, and whether the score is exact or a bound. Search threads share one table without
+ * locking. A torn write by two threads leaves a key that no longer matches its data, so the
+ * entry is simply missed.
+ */
+public final class TranspositionTable {
+    private static final int ENTRY_SIZE = 2 * Long.BYTES; // (UNITS: bytes)
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private long[] keys;
+    private long[] data;
+    private int mask;
+
+    /**
+     * Constructs a TranspositionTable of the given size.
+     *
+     * @param megabytes The size of the table in megabytes.
+     */
+    public TranspositionTable(int megabytes) {
+        this.resize(megabytes);
+    }
+
+    /**
+     * Replaces the table by an empty one of the given size, rounded down to a power of two
+     * number of entries.
+     */
+    public void resize(int megabytes) {
+        long entries = Math.max(1L, (long) megabytes * 1024 * 1024 / ENTRY_SIZE);
+        int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+        this.keys = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Empties the table.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, 0L);
+        Arrays.fill(this.data, 0L);
+    }
+
+    /**
+     * Returns the data stored for the hash, or 0 if there is none.
+     */
+    public long probe(long key) {
+        int index = (int) key & this.mask;
+        long entry = this.data[index];
+        return (this.keys[index] ^ entry) == key ? entry : 0L;
+    }
+
+    /**
+     * Stores a search result. An entry for another position is always replaced, and an entry
+     * for the same position is kept only if it was searched deeper and this result is not
+     * exact.
+     *
+     * @param key   The hash of the position.
+     * @param move  The best move found, or 0.
+     * @param score The score, with mate scores counted from this position.
+     * @param depth The depth searched.
+     * @param bound BOUND_EXACT, BOUND_LOWER, or BOUND_UPPER.
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & this.mask;
+        long old = this.data[index];
+        if ((this.keys[index] ^ old) == key && depth(old) > depth && bound != Constants.BOUND_EXACT) {
+            return;
+        }
+        long entry = (move & 0xFFFFL)
+                | ((long) (score & 0xFFFF) << SCORE_SHIFT)
+                | ((long) depth << DEPTH_SHIFT)
+                | ((long) bound << BOUND_SHIFT);
+        this.data[index] = entry;
+        this.keys[index] = key ^ entry;
+    }
+
+    /**
+     * Returns the move of an entry.
+     */
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    /**
+     * Returns the score of an entry.
+     */
+    public static int score(long entry) {
+        return (short) (entry >>> SCORE_SHIFT);
+    }
+
+    /**
+     * Returns the depth of an entry.
+     */
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    /**
+     * Returns the bound of an entry.
+     */
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 3;
+    }
+}
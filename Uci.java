@@ -0,0 +1,359 @@
+package indy;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+/**
+ * The Uci class lets chess GUIs and test harnesses play against the Engine through the UCI
+ * protocol on stdin and stdout. Commands are read on the main thread and each search runs on
+ * its own thread, so stop is seen while the Engine is thinking and the Engine returns its
+ * best move at once. Castles are written as the King moving onto its Rook, like Chess960,
+ * since the start position has the King and Queen swapped.
+ * The Engine option picks the alpha-beta Engine (alphabeta, the default) or the MctsEngine
+ * (mcts); the pruning, book, and tablebase options only apply to the alpha-beta Engine.
+ * The Silly option turns on silly mode. The shifts and transformations are random, so the
+ * GUI passes the ones that happened in the moves list of the position command, after the
+ * move that caused them: shift:up and transform:c3:n (a lower case letter is a black piece).
+ * Running the main method starts the engine.
+ */
+public class Uci {
+    private static final String NAME = "Silly Chess";
+    private final Engine alphaBeta;
+    private final MctsEngine mcts;
+    private Searcher engine;
+    private Position position;
+    private Thread searchThread;
+    private String bookFile;
+    private boolean ownBook;
+
+    /**
+     * Constructs a Uci at the start position. The tablebase directory is used if it exists.
+     */
+    public Uci() {
+        this.alphaBeta = new Engine();
+        this.mcts = new MctsEngine();
+        this.engine = this.alphaBeta;
+        this.position = Position.startPosition();
+        this.bookFile = Constants.OPENING_BOOK;
+        this.ownBook = false;
+        if (new File(Constants.TABLEBASE_DIRECTORY).isDirectory()) {
+            this.alphaBeta.setTablebases(new Tablebases(Constants.TABLEBASE_DIRECTORY));
+        }
+    }
+
+    /**
+     * Reads commands until quit or the end of the input.
+     */
+    public void run(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        while (line != null && !line.trim().equals("quit")) {
+            try {
+                this.handle(line.trim());
+            } catch (IllegalArgumentException e) {
+                send("info string bad command " + line);
+            }
+            line = in.readLine();
+        }
+        this.stopSearch();
+    }
+
+    /**
+     * Carries out one command.
+     */
+    private void handle(String line) {
+        String[] words = line.split("\\s+");
+        switch (words[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author silly chess authors");
+                send("option name Hash type spin default " + Constants.DEFAULT_HASH + " min 1 max " + Constants.MAX_HASH);
+                send("option name Threads type spin default 1 min 1 max " + Constants.MAX_THREADS);
+                send("option name Engine type combo default " + Constants.ENGINE_ALPHA_BETA + " var "
+                        + Constants.ENGINE_ALPHA_BETA + " var " + Constants.ENGINE_MCTS);
+                send("option name Silly type check default false");
+                send("option name OwnBook type check default false");
+                send("option name BookFile type string default " + Constants.OPENING_BOOK);
+                send("option name TablebasePath type string default " + Constants.TABLEBASE_DIRECTORY);
+                send("option name Quiescence type check default true");
+                send("option name NullMove type check default true");
+                send("option name LateMoveReductions type check default true");
+                send("option name Futility type check default true");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                this.stopSearch();
+                this.setOption(line);
+                break;
+            case "ucinewgame":
+                this.stopSearch();
+                this.engine.newGame();
+                break;
+            case "position":
+                this.stopSearch();
+                this.setPosition(words);
+                break;
+            case "go":
+                this.stopSearch();
+                this.go(words);
+                break;
+            case "stop":
+                this.stopSearch();
+                break;
+            case "d":
+                send("info string " + this.position.toFen());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Reads a setoption command: setoption name N [value V].
+     */
+    private void setOption(String line) {
+        int nameStart = line.indexOf(" name ");
+        int valueStart = line.indexOf(" value ");
+        if (nameStart < 0) {
+            return;
+        }
+        String name = (valueStart < 0 ? line.substring(nameStart + 6) : line.substring(nameStart + 6, valueStart)).trim();
+        String value = valueStart < 0 ? "" : line.substring(valueStart + 7).trim();
+        try {
+            switch (name.toLowerCase()) {
+                case "engine":
+                    this.engine = value.equalsIgnoreCase(Constants.ENGINE_MCTS) ? this.mcts : this.alphaBeta;
+                    break;
+                case "hash":
+                    this.alphaBeta.setHash(Integer.parseInt(value));
+                    this.mcts.setHash(Integer.parseInt(value));
+                    break;
+                case "threads":
+                    this.alphaBeta.setThreads(Integer.parseInt(value));
+                    this.mcts.setThreads(Integer.parseInt(value));
+                    break;
+                case "silly":
+                    this.alphaBeta.setSilly(Boolean.parseBoolean(value));
+                    this.mcts.setSilly(Boolean.parseBoolean(value));
+                    break;
+                case "ownbook":
+                    this.ownBook = Boolean.parseBoolean(value);
+                    this.loadBook();
+                    break;
+                case "bookfile":
+                    this.bookFile = value;
+                    this.loadBook();
+                    break;
+                case "tablebasepath":
+                    this.alphaBeta.setTablebases(value.isEmpty() ? null : new Tablebases(value));
+                    break;
+                case "quiescence":
+                    this.alphaBeta.setQuiescence(Boolean.parseBoolean(value));
+                    break;
+                case "nullmove":
+                    this.alphaBeta.setNullMove(Boolean.parseBoolean(value));
+                    break;
+                case "latemovereductions":
+                    this.alphaBeta.setLateMoveReductions(Boolean.parseBoolean(value));
+                    break;
+                case "futility":
+                    this.alphaBeta.setFutility(Boolean.parseBoolean(value));
+                    break;
+                default:
+                    send("info string unknown option " + name);
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            send("info string bad value " + value + " for " + name);
+        }
+    }
+
+    /**
+     * Opens the book if OwnBook is on, or drops it.
+     */
+    private void loadBook() {
+        this.alphaBeta.setBook(null);
+        if (this.ownBook) {
+            try {
+                this.alphaBeta.setBook(new OpeningBook(this.bookFile));
+            } catch (IOException e) {
+                send("info string could not open book " + this.bookFile);
+            }
+        }
+    }
+
+    /**
+     * Reads a position command: position startpos|fen F [moves M...].
+     */
+    private void setPosition(String[] words) {
+        int index = 1;
+        Position next;
+        try {
+            if (words.length > 1 && words[1].equals("fen")) {
+                StringBuilder fen = new StringBuilder();
+                index = 2;
+                while (index < words.length && !words[index].equals("moves")) {
+                    fen.append(words[index++]).append(' ');
+                }
+                next = Position.fromFen(fen.toString());
+            } else {
+                next = Position.startPosition();
+                index = 2;
+            }
+            int[] moves = new int[Position.MAX_MOVES];
+            for (index++; index < words.length; index++) {
+                this.playToken(next, words[index], moves);
+            }
+        } catch (IllegalArgumentException e) {
+            send("info string " + e.getMessage());
+            return;
+        }
+        this.position = next;
+    }
+
+    /**
+     * Plays one token of the moves list: a move, or a silly shift or transformation.
+     */
+    private void playToken(Position position, String token, int[] moves) {
+        String[] parts = token.split(":");
+        if (parts[0].equals("shift") && parts.length == 2) {
+            int direction = Arrays.asList(Position.SHIFT_NAMES).indexOf(parts[1]);
+            if (direction < 0) {
+                throw new IllegalArgumentException("bad shift " + token);
+            }
+            position.shift(direction);
+        } else if (parts[0].equals("transform") && parts.length == 3 && parts[2].length() == 1) {
+            int square = Move.parseSquare(parts[1]);
+            int code = Position.pieceCode(parts[2].charAt(0));
+            if (square < 0 || code == 0) {
+                throw new IllegalArgumentException("bad transform " + token);
+            }
+            position.transform(square, Character.isUpperCase(parts[2].charAt(0)) ? code : -code);
+        } else {
+            int move = Move.parse(position, token, moves);
+            if (move == 0) {
+                throw new IllegalArgumentException("illegal move " + token);
+            }
+            position.makeMove(move);
+        }
+    }
+
+    /**
+     * Reads a go command and starts the search on its own thread.
+     */
+    private void go(String[] words) {
+        int depth = Constants.MAX_PLY - 1;
+        long nodes = 0;
+        long moveTime = 0;
+        long time = 0;
+        long increment = 0;
+        int movesToGo = Constants.DEFAULT_MOVES_TO_GO;
+        boolean white = this.position.isWhiteToMove();
+        for (int i = 1; i + 1 < words.length; i++) {
+            switch (words[i]) {
+                case "depth":
+                    depth = Integer.parseInt(words[++i]);
+                    break;
+                case "nodes":
+                    nodes = Long.parseLong(words[++i]);
+                    break;
+                case "movetime":
+                    moveTime = Long.parseLong(words[++i]);
+                    break;
+                case "wtime":
+                case "btime":
+                    if (words[i].equals(white ? "wtime" : "btime")) {
+                        time = Long.parseLong(words[i + 1]);
+                    }
+                    i++;
+                    break;
+                case "winc":
+                case "binc":
+                    if (words[i].equals(white ? "winc" : "binc")) {
+                        increment = Long.parseLong(words[i + 1]);
+                    }
+                    i++;
+                    break;
+                case "movestogo":
+                    movesToGo = Math.max(1, Integer.parseInt(words[++i]));
+                    break;
+                default:
+                    break;
+            }
+        }
+        long millis = moveTime;
+        if (millis == 0 && time > 0) {
+            millis = Math.min(time / movesToGo + increment * 3 / 4, time - Constants.MOVE_OVERHEAD);
+            millis = Math.max(1, millis);
+        }
+        Position root = this.position;
+        int maxDepth = depth;
+        long maxNodes = nodes;
+        long searchMillis = millis;
+        this.searchThread = new Thread(() -> {
+            // the GUI waits for a bestmove, so one is sent even if the search fails
+            int best = 0;
+            try {
+                best = this.engine.search(root, maxDepth, searchMillis, maxNodes, Uci::sendInfo);
+            } catch (Throwable e) {
+                send("info string search failed: " + e);
+            }
+            send("bestmove " + (best == 0 ? "0000" : Move.toString(best)));
+        }, "search");
+        this.searchThread.start();
+    }
+
+    /**
+     * Stops the running search, if any, and waits for it to print its best move.
+     */
+    private void stopSearch() {
+        if (this.searchThread != null) {
+            this.engine.stop();
+            try {
+                this.searchThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.searchThread = null;
+        }
+    }
+
+    /**
+     * Prints the info line of a finished depth.
+     */
+    private static void sendInfo(int depth, int score, long nodes, long millis, int[] pv, int pvLength) {
+        StringBuilder info = new StringBuilder("info depth ").append(depth);
+        if (Math.abs(score) > Constants.MATE_SCORE - Constants.MAX_PLY) {
+            int plies = Constants.MATE_SCORE - Math.abs(score);
+            info.append(" score mate ").append(score > 0 ? (plies + 1) / 2 : -(plies / 2));
+        } else {
+            info.append(" score cp ").append(score);
+        }
+        info.append(" nodes ").append(nodes).append(" time ").append(millis)
+                .append(" nps ").append(nodes * 1000 / Math.max(1, millis)).append(" pv");
+        for (int i = 0; i < pvLength; i++) {
+            info.append(' ').append(Move.toString(pv[i]));
+        }
+        send(info.toString());
+    }
+
+    /**
+     * Prints one line to the GUI.
+     */
+    private static synchronized void send(String line) {
+        System.out.println(line);
+        System.out.flush();
+    }
+
+    /**
+     * Starts the engine on stdin and stdout.
+     */
+    public static void main(String[] args) throws IOException {
+        new Uci().run(new BufferedReader(new InputStreamReader(System.in)));
+    }
+}
@@ -0,0 +1,115 @@
+package indy;
+
+/**
+ * The Variant class describes the rules of a silly game: the width of the square board,
+ * from VARIANT_MIN_SIZE to VARIANT_MAX_SIZE, the ShiftRule of the silly shifts, and the
+ * DemotionTable of the transformations. A Variant is written as size/shift/demotions, such
+ * as 10/nowrap/onestep, and the parts left out are those of STANDARD, the 8x8 game with
+ * wrap-around shifts and the standard demotions.
+ * The standard Variant is played on Position, whose one-long bitboards and magic attacks are
+ * the fast path; every other Variant is played on a VariantPosition.
+ * The back rank of a bigger or smaller board keeps the King and Queen in the middle, with
+ * the King on the left for white like on the standard board, Rooks in the corners, and
+ * Knights and Bishops taking turns in between. Black's back rank mirrors white's.
+ */
+public final class Variant {
+    public static final Variant STANDARD = new Variant(Constants.BOARD_WIDTH, WrapShift.RULE, DemotionTable.STANDARD);
+    private final int size;
+    private final ShiftRule shiftRule;
+    private final DemotionTable demotions;
+
+    /**
+     * Constructs a Variant, or throws an IllegalArgumentException if the size is not
+     * supported.
+     *
+     * @param size      The width of the board.
+     * @param shiftRule The rule of the silly shifts.
+     * @param demotions The table of the silly transformations.
+     */
+    public Variant(int size, ShiftRule shiftRule, DemotionTable demotions) {
+        if (size < Constants.VARIANT_MIN_SIZE || size > Constants.VARIANT_MAX_SIZE) {
+            throw new IllegalArgumentException("board size must be from " + Constants.VARIANT_MIN_SIZE + " to "
+                    + Constants.VARIANT_MAX_SIZE + ": " + size);
+        }
+        this.size = size;
+        this.shiftRule = shiftRule;
+        this.demotions = demotions;
+    }
+
+    /**
+     * Returns the Variant written as size/shift/demotions. Throws an IllegalArgumentException
+     * if a part is not understood.
+     */
+    public static Variant parse(String text) {
+        String[] parts = text.trim().split(Constants.VARIANT_SEPARATOR);
+        int size;
+        try {
+            size = parts[0].isEmpty() ? STANDARD.size : Integer.parseInt(parts[0]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad board size: " + parts[0]);
+        }
+        ShiftRule shiftRule = parts.length > 1 ? ShiftRule.forName(parts[1]) : STANDARD.shiftRule;
+        DemotionTable demotions = parts.length > 2 ? DemotionTable.forName(parts[2]) : STANDARD.demotions;
+        return new Variant(size, shiftRule, demotions);
+    }
+
+    /**
+     * Returns true if the Variant has the rules of the standard game, so it can be played on
+     * a Position.
+     */
+    public boolean isStandard() {
+        return this.size == STANDARD.size && this.shiftRule == STANDARD.shiftRule
+                && this.demotions == STANDARD.demotions;
+    }
+
+    /**
+     * Returns white's back rank, the piece codes from row 0 to the last row.
+     */
+    public int[] backRank() {
+        int[] rank = new int[this.size];
+        int king = this.size / 2 - 1;
+        for (int row = 0; row < this.size; row++) {
+            int fromEdge = Math.min(row, this.size - 1 - row);
+            if (row == king) {
+                rank[row] = Constants.KING_CODE;
+            } else if (row == king + 1) {
+                rank[row] = Constants.QUEEN_CODE;
+            } else if (fromEdge == 0) {
+                rank[row] = Constants.ROOK_CODE;
+            } else {
+                rank[row] = fromEdge % 2 == 1 ? Constants.KNIGHT_CODE : Constants.BISHOP_CODE;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Accessor method for the width of the board.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Accessor method for the rule of the silly shifts.
+     */
+    public ShiftRule getShiftRule() {
+        return this.shiftRule;
+    }
+
+    /**
+     * Accessor method for the table of the silly transformations.
+     */
+    public DemotionTable getDemotions() {
+        return this.demotions;
+    }
+
+    /**
+     * Returns the Variant written as size/shift/demotions.
+     */
+    @Override
+    public String toString() {
+        return this.size + Constants.VARIANT_SEPARATOR + this.shiftRule.getName() + Constants.VARIANT_SEPARATOR
+                + this.demotions.getName();
+    }
+}
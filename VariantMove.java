@@ -0,0 +1,77 @@
+package indy;
+
+/**
+ * The VariantMove class packs a move of a VariantPosition into an int, like Move does for
+ * the standard board. A board of up to 12x12 squares does not fit 6 bits per square, so the
+ * low 8 bits hold the origin square, the next 8 bits the target square, and the 4 bits above
+ * them the flag, which takes the same MOVE_ values as in Move. Squares are indexed as
+ * col * size + row.
+ */
+public final class VariantMove {
+    private static final int SQUARE_BITS = 8;
+    private static final int SQUARE_MASK = 0xFF;
+    private static final int FLAG_SHIFT = 16;
+    private static final int FLAG_MASK = 0xF;
+
+    /**
+     * The VariantMove class only contains static helpers and is never instantiated.
+     */
+    private VariantMove() {
+    }
+
+    /**
+     * Packs the origin square, target square, and flag into a move.
+     */
+    public static int encode(int from, int to, int flag) {
+        return (from & SQUARE_MASK) | ((to & SQUARE_MASK) << SQUARE_BITS) | ((flag & FLAG_MASK) << FLAG_SHIFT);
+    }
+
+    /**
+     * Returns the origin square of the move.
+     */
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the target square of the move.
+     */
+    public static int to(int move) {
+        return (move >>> SQUARE_BITS) & SQUARE_MASK;
+    }
+
+    /**
+     * Returns the flag of the move.
+     */
+    public static int flag(int move) {
+        return (move >>> FLAG_SHIFT) & FLAG_MASK;
+    }
+
+    /**
+     * Returns true if the move is a promotion.
+     */
+    public static boolean isPromotion(int move) {
+        return flag(move) >= Constants.MOVE_PROMOTION;
+    }
+
+    /**
+     * Returns the piece code the move promotes to, or EMPTY_CODE if it is not a promotion.
+     */
+    public static int promotion(int move) {
+        int flag = flag(move);
+        if (flag < Constants.MOVE_PROMOTION) {
+            return Constants.EMPTY_CODE;
+        }
+        int base = flag >= Constants.MOVE_PROMOTION_CAPTURE ? Constants.MOVE_PROMOTION_CAPTURE : Constants.MOVE_PROMOTION;
+        return flag - base + Constants.KNIGHT_CODE;
+    }
+
+    /**
+     * Returns true if the move captures a piece, including en passant and capturing promotions.
+     */
+    public static boolean isCapture(int move) {
+        int flag = flag(move);
+        return flag == Constants.MOVE_CAPTURE || flag == Constants.MOVE_EN_PASSANT
+                || flag >= Constants.MOVE_PROMOTION_CAPTURE;
+    }
+}
@@ -0,0 +1,590 @@
+package indy;
+
+import java.util.Arrays;
+
+/**
+ * The VariantPosition class is the rules core of a Variant, on a square board from 6x6 to
+ * 12x12. It follows Position: pieces are stored both in a square array of signed piece codes
+ * and in bitboards per piece code and per color, a piece that has not moved yet (including
+ * one created by a transformation) may make a double pawn step, and moves, shifts, and
+ * transformations can all be undone. The bitboards are the multi-word ones of WideBitboards,
+ * so a board of up to 8x8 squares still uses a single long per bitboard.
+ * There is no castling, since where the King and Rook land is not clear on every size, and
+ * moves are packed by VariantMove. Shifts are done by the Variant's ShiftRule; since a shift
+ * without wrap-around cannot be undone by shifting back, the board before each shift is
+ * kept to undo it.
+ */
+public class VariantPosition {
+    private static final int KIND_MOVE = 0;
+    private static final int KIND_SHIFT = 1;
+    private static final int KIND_TRANSFORM = 2;
+    private static final int INITIAL_HISTORY = 128;
+
+    private final Variant variant;
+    private final int size;
+    private final int squareCount;
+    private final int words;
+    private final WideBitboards tables;
+    private final int[] squares;
+    private final int[] targets;
+    private final int[] edge;
+    private final long[][] typeBoards;
+    private final long[][] colorBoards;
+    private final long[] occupied;
+    private final long[] unmoved;
+    private boolean whiteToMove;
+    private int epSquare;
+    private int plyCount;
+    private int[] historyKind;
+    private int[] historyData;
+    private int[] historyPiece;
+    private int[] historyEp;
+    private long[] historyUnmoved;
+    private int[][] historySquares;
+    private int historySize;
+
+    /**
+     * Constructs an empty VariantPosition with white to move. Use startPosition to get one
+     * with pieces on it.
+     */
+    public VariantPosition(Variant variant) {
+        this.variant = variant;
+        this.size = variant.getSize();
+        this.squareCount = this.size * this.size;
+        this.tables = WideBitboards.forSize(this.size);
+        this.words = this.tables.getWords();
+        this.squares = new int[this.squareCount];
+        this.targets = new int[this.squareCount];
+        this.edge = new int[this.squareCount];
+        this.typeBoards = new long[Constants.KING_CODE + 1][this.words];
+        this.colorBoards = new long[2][this.words];
+        this.occupied = new long[this.words];
+        this.unmoved = new long[this.words];
+        this.whiteToMove = true;
+        this.epSquare = -1;
+        this.plyCount = 0;
+        this.historyKind = new int[INITIAL_HISTORY];
+        this.historyData = new int[INITIAL_HISTORY];
+        this.historyPiece = new int[INITIAL_HISTORY];
+        this.historyEp = new int[INITIAL_HISTORY];
+        this.historyUnmoved = new long[INITIAL_HISTORY * this.words];
+        this.historySquares = new int[INITIAL_HISTORY][];
+        this.historySize = 0;
+    }
+
+    /**
+     * Returns a new VariantPosition of the Variant set up for the start of a game: the back
+     * ranks of Variant.backRank on the first and last columns, with a column of unmoved
+     * Pawns in front of each.
+     */
+    public static VariantPosition startPosition(Variant variant) {
+        VariantPosition position = new VariantPosition(variant);
+        int size = variant.getSize();
+        int[] rank = variant.backRank();
+        for (int row = 0; row < size; row++) {
+            position.put((size - 1) * size + row, rank[row]);
+            position.put((size - 2) * size + row, Constants.PAWN_CODE);
+            position.put(size + row, -Constants.PAWN_CODE);
+            position.put(row, -rank[size - 1 - row]);
+        }
+        System.arraycopy(position.occupied, 0, position.unmoved, 0, position.words);
+        return position;
+    }
+
+    /**
+     * Returns a copy of the VariantPosition, including its history.
+     */
+    public VariantPosition copy() {
+        VariantPosition copy = new VariantPosition(this.variant);
+        System.arraycopy(this.squares, 0, copy.squares, 0, this.squareCount);
+        for (int code = 0; code <= Constants.KING_CODE; code++) {
+            System.arraycopy(this.typeBoards[code], 0, copy.typeBoards[code], 0, this.words);
+        }
+        for (int color = 0; color < 2; color++) {
+            System.arraycopy(this.colorBoards[color], 0, copy.colorBoards[color], 0, this.words);
+        }
+        System.arraycopy(this.occupied, 0, copy.occupied, 0, this.words);
+        System.arraycopy(this.unmoved, 0, copy.unmoved, 0, this.words);
+        copy.whiteToMove = this.whiteToMove;
+        copy.epSquare = this.epSquare;
+        copy.plyCount = this.plyCount;
+        int length = Math.max(INITIAL_HISTORY, this.historyKind.length);
+        copy.historyKind = Arrays.copyOf(this.historyKind, length);
+        copy.historyData = Arrays.copyOf(this.historyData, length);
+        copy.historyPiece = Arrays.copyOf(this.historyPiece, length);
+        copy.historyEp = Arrays.copyOf(this.historyEp, length);
+        copy.historyUnmoved = Arrays.copyOf(this.historyUnmoved, length * this.words);
+        copy.historySquares = new int[length][];
+        for (int i = 0; i < this.historySize; i++) {
+            if (this.historySquares[i] != null) {
+                copy.historySquares[i] = this.historySquares[i].clone();
+            }
+        }
+        copy.historySize = this.historySize;
+        return copy;
+    }
+
+    /**
+     * Puts a piece on an empty square.
+     */
+    private void put(int square, int piece) {
+        this.squares[square] = piece;
+        WideBitboards.set(this.typeBoards[Math.abs(piece)], square);
+        WideBitboards.set(this.colorBoards[piece > 0 ? 0 : 1], square);
+        WideBitboards.set(this.occupied, square);
+    }
+
+    /**
+     * Removes the piece on a square and returns it, or returns 0 if the square is empty.
+     */
+    private int remove(int square) {
+        int piece = this.squares[square];
+        if (piece != 0) {
+            this.squares[square] = 0;
+            WideBitboards.clear(this.typeBoards[Math.abs(piece)], square);
+            WideBitboards.clear(this.colorBoards[piece > 0 ? 0 : 1], square);
+            WideBitboards.clear(this.occupied, square);
+        }
+        return piece;
+    }
+
+    /**
+     * Applies a move and pushes what is needed to undo it. The move is trusted.
+     */
+    public void makeMove(int move) {
+        int from = VariantMove.from(move);
+        int to = VariantMove.to(move);
+        this.push(KIND_MOVE, move, 0);
+        int piece = this.remove(from);
+        boolean white = piece > 0;
+        int captured;
+        if (VariantMove.flag(move) == Constants.MOVE_EN_PASSANT) {
+            captured = this.remove(white ? to + this.size : to - this.size);
+        } else {
+            captured = this.remove(to);
+        }
+        int promotion = VariantMove.promotion(move);
+        this.put(to, promotion == Constants.EMPTY_CODE ? piece : white ? promotion : -promotion);
+        this.historyPiece[this.historySize - 1] = captured;
+        WideBitboards.clear(this.unmoved, from);
+        WideBitboards.clear(this.unmoved, to);
+        boolean doubleStep = Math.abs(piece) == Constants.PAWN_CODE && Math.abs(to - from) == 2 * this.size;
+        this.epSquare = doubleStep ? (from + to) / 2 : -1;
+        this.whiteToMove = !this.whiteToMove;
+        this.plyCount++;
+    }
+
+    /**
+     * Shifts the pieces by the Variant's ShiftRule in one of its directions and returns the
+     * number of squares the transformation may pick from (see getEdge).
+     */
+    public int shift(int direction) {
+        this.push(KIND_SHIFT, direction, 0);
+        int index = this.historySize - 1;
+        if (this.historySquares[index] == null) {
+            this.historySquares[index] = new int[this.squareCount];
+        }
+        int[] before = this.historySquares[index];
+        System.arraycopy(this.squares, 0, before, 0, this.squareCount);
+        int count = this.variant.getShiftRule().shift(before, this.size, direction, this.targets, this.edge);
+        for (int square = 0; square < this.squareCount; square++) {
+            this.remove(square);
+        }
+        Arrays.fill(this.unmoved, 0L);
+        for (int square = 0; square < this.squareCount; square++) {
+            if (before[square] != 0) {
+                this.put(this.targets[square], before[square]);
+                if (this.wasUnmoved(index, square)) {
+                    WideBitboards.set(this.unmoved, this.targets[square]);
+                }
+            }
+        }
+        this.epSquare = -1;
+        return count;
+    }
+
+    /**
+     * Returns the i-th square the transformation may pick from after the last shift.
+     */
+    public int getEdge(int i) {
+        return this.edge[i];
+    }
+
+    /**
+     * Replaces the piece on a square by the given signed piece code. The new piece counts as
+     * unmoved.
+     */
+    public void transform(int square, int piece) {
+        this.push(KIND_TRANSFORM, square, this.squares[square]);
+        this.remove(square);
+        this.put(square, piece);
+        WideBitboards.set(this.unmoved, square);
+    }
+
+    /**
+     * Undoes the last move, shift, or transformation. Returns false if there is nothing to
+     * undo.
+     */
+    public boolean undo() {
+        if (this.historySize == 0) {
+            return false;
+        }
+        this.historySize--;
+        int kind = this.historyKind[this.historySize];
+        int data = this.historyData[this.historySize];
+        int piece = this.historyPiece[this.historySize];
+        if (kind == KIND_MOVE) {
+            int from = VariantMove.from(data);
+            int to = VariantMove.to(data);
+            int moved = this.remove(to);
+            if (VariantMove.isPromotion(data)) {
+                moved = moved > 0 ? Constants.PAWN_CODE : -Constants.PAWN_CODE;
+            }
+            this.put(from, moved);
+            if (piece != 0) {
+                if (VariantMove.flag(data) == Constants.MOVE_EN_PASSANT) {
+                    this.put(moved > 0 ? to + this.size : to - this.size, piece);
+                } else {
+                    this.put(to, piece);
+                }
+            }
+            this.whiteToMove = !this.whiteToMove;
+            this.plyCount--;
+        } else if (kind == KIND_SHIFT) {
+            int[] before = this.historySquares[this.historySize];
+            for (int square = 0; square < this.squareCount; square++) {
+                this.remove(square);
+                if (before[square] != 0) {
+                    this.put(square, before[square]);
+                }
+            }
+        } else {
+            this.remove(data);
+            if (piece != 0) {
+                this.put(data, piece);
+            }
+        }
+        this.epSquare = this.historyEp[this.historySize];
+        System.arraycopy(this.historyUnmoved, this.historySize * this.words, this.unmoved, 0, this.words);
+        return true;
+    }
+
+    /**
+     * Returns true if the square was unmoved before the history entry.
+     */
+    private boolean wasUnmoved(int index, int square) {
+        return (this.historyUnmoved[index * this.words + (square >>> 6)] & 1L << square) != 0;
+    }
+
+    /**
+     * Saves the state needed to undo a move, shift, or transformation.
+     */
+    private void push(int kind, int data, int piece) {
+        if (this.historySize == this.historyKind.length) {
+            int length = this.historySize * 2;
+            this.historyKind = Arrays.copyOf(this.historyKind, length);
+            this.historyData = Arrays.copyOf(this.historyData, length);
+            this.historyPiece = Arrays.copyOf(this.historyPiece, length);
+            this.historyEp = Arrays.copyOf(this.historyEp, length);
+            this.historyUnmoved = Arrays.copyOf(this.historyUnmoved, length * this.words);
+            this.historySquares = Arrays.copyOf(this.historySquares, length);
+        }
+        this.historyKind[this.historySize] = kind;
+        this.historyData[this.historySize] = data;
+        this.historyPiece[this.historySize] = piece;
+        this.historyEp[this.historySize] = this.epSquare;
+        System.arraycopy(this.unmoved, 0, this.historyUnmoved, this.historySize * this.words, this.words);
+        this.historySize++;
+    }
+
+    /**
+     * Fills the array with the pseudo-legal moves of the side to move and returns how many
+     * there are. The array needs room for VARIANT_MAX_MOVES moves.
+     */
+    public int generateMoves(int[] moves) {
+        return this.generate(moves, false);
+    }
+
+    /**
+     * Fills the array with the pseudo-legal captures (including en passant) and promotions to
+     * a Queen of the side to move and returns how many there are.
+     */
+    public int generateCaptures(int[] moves) {
+        return this.generate(moves, true);
+    }
+
+    /**
+     * Fills the array with all pseudo-legal moves, or only the captures, and returns how
+     * many there are.
+     */
+    private int generate(int[] moves, boolean capturesOnly) {
+        int count = 0;
+        int color = this.whiteToMove ? 0 : 1;
+        long[] own = this.colorBoards[color];
+        for (int w = 0; w < this.words; w++) {
+            long pieces = own[w];
+            while (pieces != 0) {
+                int from = w * Long.SIZE + Long.numberOfTrailingZeros(pieces);
+                pieces &= pieces - 1;
+                switch (Math.abs(this.squares[from])) {
+                    case Constants.PAWN_CODE:
+                        count = this.generatePawnMoves(moves, count, from, capturesOnly);
+                        break;
+                    case Constants.KNIGHT_CODE:
+                        count = this.addTargets(moves, count, from, this.tables.knightAttacks(from), null, capturesOnly);
+                        break;
+                    case Constants.BISHOP_CODE:
+                        count = this.addSlides(moves, count, from, 4, 8, capturesOnly);
+                        break;
+                    case Constants.ROOK_CODE:
+                        count = this.addSlides(moves, count, from, 0, 4, capturesOnly);
+                        break;
+                    case Constants.QUEEN_CODE:
+                        count = this.addSlides(moves, count, from, 0, 8, capturesOnly);
+                        break;
+                    default:
+                        count = this.addTargets(moves, count, from, this.tables.kingAttacks(from), null, capturesOnly);
+                        break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the moves of a slider along the directions first to last - 1 of
+     * WideBitboards.DIRECTIONS: the rook directions are 0 to 3 and the bishop ones 4 to 7.
+     */
+    private int addSlides(int[] moves, int count, int from, int first, int last, boolean capturesOnly) {
+        for (int direction = first; direction < last; direction++) {
+            int blocker = this.tables.firstBlocker(direction, from, this.occupied);
+            long[] beyond = blocker < 0 ? null : this.tables.ray(direction, blocker);
+            count = this.addTargets(moves, count, from, this.tables.ray(direction, from), beyond, capturesOnly);
+        }
+        return count;
+    }
+
+    /**
+     * Adds a move from the square to each target that is empty or holds an enemy piece, or
+     * only to the enemy pieces, leaving out the squares beyond if there are any.
+     */
+    private int addTargets(int[] moves, int count, int from, long[] targets, long[] beyond, boolean capturesOnly) {
+        long[] own = this.colorBoards[this.whiteToMove ? 0 : 1];
+        long[] enemy = this.colorBoards[this.whiteToMove ? 1 : 0];
+        for (int w = 0; w < this.words; w++) {
+            long bits = targets[w] & (capturesOnly ? enemy[w] : ~own[w]);
+            if (beyond != null) {
+                bits &= ~beyond[w];
+            }
+            while (bits != 0) {
+                int to = w * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                int flag = WideBitboards.test(enemy, to) ? Constants.MOVE_CAPTURE : Constants.MOVE_QUIET;
+                moves[count++] = VariantMove.encode(from, to, flag);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Adds the pushes, double steps, captures, and en passant captures of the pawn, or only
+     * its captures and its promotion to a Queen, like Position.generatePawnMoves.
+     */
+    private int generatePawnMoves(int[] moves, int count, int from, boolean capturesOnly) {
+        long[] enemy = this.colorBoards[this.whiteToMove ? 1 : 0];
+        int forward = this.whiteToMove ? -this.size : this.size;
+        int one = from + forward;
+        boolean onBoard = one >= 0 && one < this.squareCount;
+        boolean promotes = onBoard && one / this.size == this.lastCol(this.whiteToMove);
+        if (promotes) {
+            if (!WideBitboards.test(this.occupied, one)) {
+                count = addPromotions(moves, count, from, one, false, capturesOnly);
+            }
+        } else if (!capturesOnly && onBoard && !WideBitboards.test(this.occupied, one)) {
+            moves[count++] = VariantMove.encode(from, one, Constants.MOVE_QUIET);
+            int two = one + forward;
+            if (WideBitboards.test(this.unmoved, from) && two >= 0 && two < this.squareCount
+                    && !WideBitboards.test(this.occupied, two)) {
+                moves[count++] = VariantMove.encode(from, two, Constants.MOVE_QUIET);
+            }
+        }
+        long[] attacks = this.tables.pawnAttacks(this.whiteToMove, from);
+        for (int w = 0; w < this.words; w++) {
+            long captures = attacks[w] & enemy[w];
+            while (captures != 0) {
+                int to = w * Long.SIZE + Long.numberOfTrailingZeros(captures);
+                captures &= captures - 1;
+                if (promotes) {
+                    count = addPromotions(moves, count, from, to, true, capturesOnly);
+                } else {
+                    moves[count++] = VariantMove.encode(from, to, Constants.MOVE_CAPTURE);
+                }
+            }
+        }
+        if (this.epSquare >= 0 && WideBitboards.test(attacks, this.epSquare)) {
+            moves[count++] = VariantMove.encode(from, this.epSquare, Constants.MOVE_EN_PASSANT);
+        }
+        return count;
+    }
+
+    /**
+     * Adds the promotions of a pawn moving to the square, the Queen first, or only the one to
+     * a Queen.
+     */
+    private static int addPromotions(int[] moves, int count, int from, int to, boolean capture, boolean queenOnly) {
+        for (int code = Constants.QUEEN_CODE; code >= Constants.KNIGHT_CODE; code--) {
+            moves[count++] = VariantMove.encode(from, to, Move.promotionFlag(code, capture));
+            if (queenOnly) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the column a pawn of the color promotes on. White pawns move towards column 0.
+     */
+    public int lastCol(boolean white) {
+        return white ? 0 : this.size - 1;
+    }
+
+    /**
+     * Fills the array with the legal moves of the side to move and returns how many there are.
+     */
+    public int legalMoves(int[] moves) {
+        int count = this.generateMoves(moves);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (this.isLegal(moves[i])) {
+                moves[legal++] = moves[i];
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Returns true if the pseudo-legal move does not leave the mover's King in check.
+     */
+    public boolean isLegal(int move) {
+        boolean white = this.whiteToMove;
+        this.makeMove(move);
+        boolean legal = !this.isInCheck(white);
+        this.undo();
+        return legal;
+    }
+
+    /**
+     * Returns true if the side to move has at least one legal move.
+     */
+    public boolean hasLegalMove() {
+        int[] moves = new int[Constants.VARIANT_MAX_MOVES];
+        int count = this.generateMoves(moves);
+        for (int i = 0; i < count; i++) {
+            if (this.isLegal(moves[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the King of the given color is attacked. A side without a King is never
+     * in check.
+     */
+    public boolean isInCheck(boolean white) {
+        long[] kings = this.typeBoards[Constants.KING_CODE];
+        long[] color = this.colorBoards[white ? 0 : 1];
+        for (int w = 0; w < this.words; w++) {
+            long king = kings[w] & color[w];
+            if (king != 0) {
+                return this.isAttacked(w * Long.SIZE + Long.numberOfTrailingZeros(king), !white);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the side to move is in check.
+     */
+    public boolean isInCheck() {
+        return this.isInCheck(this.whiteToMove);
+    }
+
+    /**
+     * Returns true if the square is attacked by a piece of the given color. Along each
+     * direction only the first piece can attack, so it is the only one looked at.
+     */
+    public boolean isAttacked(int square, boolean byWhite) {
+        long[] attackers = this.colorBoards[byWhite ? 0 : 1];
+        // a pawn attacks the square if a pawn of the other color on the square would attack it
+        if (WideBitboards.intersects(this.tables.pawnAttacks(!byWhite, square), this.typeBoards[Constants.PAWN_CODE],
+                attackers)
+                || WideBitboards.intersects(this.tables.knightAttacks(square), this.typeBoards[Constants.KNIGHT_CODE],
+                attackers)
+                || WideBitboards.intersects(this.tables.kingAttacks(square), this.typeBoards[Constants.KING_CODE],
+                attackers)) {
+            return true;
+        }
+        for (int direction = 0; direction < WideBitboards.DIRECTIONS.length; direction++) {
+            int blocker = this.tables.firstBlocker(direction, square, this.occupied);
+            if (blocker < 0 || this.squares[blocker] > 0 != byWhite) {
+                continue;
+            }
+            int code = Math.abs(this.squares[blocker]);
+            int slider = direction < 4 ? Constants.ROOK_CODE : Constants.BISHOP_CODE;
+            if (code == slider || code == Constants.QUEEN_CODE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if only the Kings are left on the board.
+     */
+    public boolean isBareKings() {
+        return Arrays.equals(this.occupied, this.typeBoards[Constants.KING_CODE]);
+    }
+
+    /**
+     * Returns the number of pieces with the code of the given color.
+     */
+    public int count(int code, boolean white) {
+        return WideBitboards.countBoth(this.typeBoards[code], this.colorBoards[white ? 0 : 1]);
+    }
+
+    /**
+     * Returns the signed piece code on the square, or 0 if the square is empty.
+     */
+    public int pieceAt(int square) {
+        return this.squares[square];
+    }
+
+    /**
+     * Returns true if white is to move.
+     */
+    public boolean isWhiteToMove() {
+        return this.whiteToMove;
+    }
+
+    /**
+     * Returns the number of moves made since the start of the game.
+     */
+    public int getPlyCount() {
+        return this.plyCount;
+    }
+
+    /**
+     * Accessor method for the Variant being played.
+     */
+    public Variant getVariant() {
+        return this.variant;
+    }
+
+    /**
+     * Returns the width of the board.
+     */
+    public int getSize() {
+        return this.size;
+    }
+}
@@ -0,0 +1,213 @@
+package indy;
+
+/**
+ * The WideBitboards class holds the attack tables of one board size for VariantPosition, and
+ * the helpers that work on its bitboards. A board of up to 8x8 squares fits one long, like
+ * the bitboards of Position; a bigger board (up to 12x12, 144 squares) needs a bitboard of
+ * several longs (words), where square s is bit s % 64 of word s / 64. Every helper checks
+ * for a single word first and then does plain long operations, so boards up to 8x8 pay
+ * nothing for the bigger ones.
+ * Sliding attacks use rays instead of magics, which would need tables far too big for 144
+ * squares: the attacks along a direction are the ray up to and including the first occupied
+ * square on it, found with one bit scan per word.
+ * The tables of each size are built the first time that size is asked for (see forSize).
+ */
+public final class WideBitboards {
+    public static final int[][] DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    private static final int[][] KNIGHT_STEPS = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final WideBitboards[] SIZES = new WideBitboards[Constants.VARIANT_MAX_SIZE + 1];
+    private final int size;
+    private final int words;
+    private final long[][] knightAttacks;
+    private final long[][] kingAttacks;
+    private final long[][][] pawnAttacks;
+    private final long[][][] rays;
+    private final boolean[] forward;
+
+    /**
+     * Constructs the tables of one board size.
+     */
+    private WideBitboards(int size) {
+        this.size = size;
+        this.words = wordsFor(size);
+        int squares = size * size;
+        this.knightAttacks = new long[squares][this.words];
+        this.kingAttacks = new long[squares][this.words];
+        this.pawnAttacks = new long[2][squares][this.words];
+        this.rays = new long[DIRECTIONS.length][squares][this.words];
+        this.forward = new boolean[DIRECTIONS.length];
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            this.forward[d] = DIRECTIONS[d][1] * size + DIRECTIONS[d][0] > 0;
+        }
+        for (int square = 0; square < squares; square++) {
+            int row = square % size;
+            int col = square / size;
+            for (int[] step : KNIGHT_STEPS) {
+                this.setIfOnBoard(this.knightAttacks[square], row + step[0], col + step[1]);
+            }
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                this.setIfOnBoard(this.kingAttacks[square], row + DIRECTIONS[d][0], col + DIRECTIONS[d][1]);
+                for (int r = row + DIRECTIONS[d][0], c = col + DIRECTIONS[d][1]; this.isOnBoard(r, c);
+                     r += DIRECTIONS[d][0], c += DIRECTIONS[d][1]) {
+                    set(this.rays[d][square], c * size + r);
+                }
+            }
+            // white Pawns move towards column 0, black Pawns towards the last column
+            this.setIfOnBoard(this.pawnAttacks[0][square], row - 1, col - 1);
+            this.setIfOnBoard(this.pawnAttacks[0][square], row + 1, col - 1);
+            this.setIfOnBoard(this.pawnAttacks[1][square], row - 1, col + 1);
+            this.setIfOnBoard(this.pawnAttacks[1][square], row + 1, col + 1);
+        }
+    }
+
+    /**
+     * Returns the tables of the board size, building them on the first call.
+     */
+    public static synchronized WideBitboards forSize(int size) {
+        if (SIZES[size] == null) {
+            SIZES[size] = new WideBitboards(size);
+        }
+        return SIZES[size];
+    }
+
+    /**
+     * Returns the number of longs a bitboard of the board size needs.
+     */
+    public static int wordsFor(int size) {
+        return (size * size + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /**
+     * Returns true if the row and column are on the board.
+     */
+    private boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < this.size && col >= 0 && col < this.size;
+    }
+
+    /**
+     * Sets the bit of the row and column if it is on the board.
+     */
+    private void setIfOnBoard(long[] bitboard, int row, int col) {
+        if (this.isOnBoard(row, col)) {
+            set(bitboard, col * this.size + row);
+        }
+    }
+
+    /**
+     * Accessor method for the number of longs in a bitboard.
+     */
+    public int getWords() {
+        return this.words;
+    }
+
+    /**
+     * Returns the squares a Knight on the square attacks.
+     */
+    public long[] knightAttacks(int square) {
+        return this.knightAttacks[square];
+    }
+
+    /**
+     * Returns the squares a King on the square attacks.
+     */
+    public long[] kingAttacks(int square) {
+        return this.kingAttacks[square];
+    }
+
+    /**
+     * Returns the squares a Pawn of the color on the square attacks.
+     */
+    public long[] pawnAttacks(boolean white, int square) {
+        return this.pawnAttacks[white ? 0 : 1][square];
+    }
+
+    /**
+     * Returns the squares from the square to the edge of the board in a direction of
+     * DIRECTIONS, not counting the square itself.
+     */
+    public long[] ray(int direction, int square) {
+        return this.rays[direction][square];
+    }
+
+    /**
+     * Returns the first occupied square from the square in the direction, or -1 if there is
+     * none before the edge of the board.
+     */
+    public int firstBlocker(int direction, int square, long[] occupied) {
+        long[] ray = this.rays[direction][square];
+        if (this.words == 1) {
+            long blockers = ray[0] & occupied[0];
+            if (blockers == 0) {
+                return -1;
+            }
+            return this.forward[direction] ? Long.numberOfTrailingZeros(blockers)
+                    : Long.SIZE - 1 - Long.numberOfLeadingZeros(blockers);
+        }
+        if (this.forward[direction]) {
+            for (int w = 0; w < this.words; w++) {
+                long blockers = ray[w] & occupied[w];
+                if (blockers != 0) {
+                    return w * Long.SIZE + Long.numberOfTrailingZeros(blockers);
+                }
+            }
+        } else {
+            for (int w = this.words - 1; w >= 0; w--) {
+                long blockers = ray[w] & occupied[w];
+                if (blockers != 0) {
+                    return w * Long.SIZE + Long.SIZE - 1 - Long.numberOfLeadingZeros(blockers);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the bit of the square.
+     */
+    public static void set(long[] bitboard, int square) {
+        bitboard[square >>> 6] |= 1L << square;
+    }
+
+    /**
+     * Clears the bit of the square.
+     */
+    public static void clear(long[] bitboard, int square) {
+        bitboard[square >>> 6] &= ~(1L << square);
+    }
+
+    /**
+     * Returns true if the bit of the square is set.
+     */
+    public static boolean test(long[] bitboard, int square) {
+        return (bitboard[square >>> 6] & 1L << square) != 0;
+    }
+
+    /**
+     * Returns true if the three bitboards have a square in common.
+     */
+    public static boolean intersects(long[] a, long[] b, long[] c) {
+        if (a.length == 1) {
+            return (a[0] & b[0] & c[0]) != 0;
+        }
+        for (int w = 0; w < a.length; w++) {
+            if ((a[w] & b[w] & c[w]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of squares set in both bitboards.
+     */
+    public static int countBoth(long[] a, long[] b) {
+        if (a.length == 1) {
+            return Long.bitCount(a[0] & b[0]);
+        }
+        int count = 0;
+        for (int w = 0; w < a.length; w++) {
+            count += Long.bitCount(a[w] & b[w]);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,51 @@
+package indy;
+
+/**
+ * The WrapShift class is the shift rule of the standard game (see Game.shiftBoard and
+ * Position.shift): every piece moves one square up, down, left, or right, and the pieces on
+ * the edge wrap around to the opposite side. The transformation picks from the line that
+ * wrapped around.
+ */
+public final class WrapShift implements ShiftRule {
+    public static final WrapShift RULE = new WrapShift();
+
+    /**
+     * The only WrapShift is RULE.
+     */
+    private WrapShift() {
+    }
+
+    /**
+     * Returns the name of the rule.
+     */
+    @Override
+    public String getName() {
+        return Constants.SHIFT_WRAP;
+    }
+
+    /**
+     * Returns the four directions, SHIFT_UP to SHIFT_RIGHT.
+     */
+    @Override
+    public int getDirections() {
+        return Constants.DIRECTIONS;
+    }
+
+    /**
+     * Moves every piece one square in the direction with wrap-around. Up moves pieces towards
+     * column 0 and left moves pieces towards row 0, like Position.shiftSquare.
+     */
+    @Override
+    public int shift(int[] squares, int size, int dir, int[] targets, int[] edge) {
+        for (int square = 0; square < size * size; square++) {
+            if (squares[square] != 0) {
+                int row = (square % size + ROW_STEPS[dir] + size) % size;
+                int col = (square / size + COL_STEPS[dir] + size) % size;
+                targets[square] = col * size + row;
+            }
+        }
+        int row = ROW_STEPS[dir] == 0 ? -1 : ROW_STEPS[dir] < 0 ? size - 1 : 0;
+        int col = COL_STEPS[dir] == 0 ? -1 : COL_STEPS[dir] < 0 ? size - 1 : 0;
+        return ShiftRule.lineSquares(size, row, col, edge);
+    }
+}
@@ -0,0 +1,73 @@
+package indy;
+
+/**
+ * The Zobrist class holds the random keys used to hash a Position. The hash of a Position
+ * is the XOR of a key for each piece on its square, a key for the side to move, a key for
+ * the en passant square, and a key for each square whose piece has not moved yet (which
+ * covers castling rights and double pawn steps). The keys come from a fixed seed, so hashes
+ * stay the same between runs and can be stored in files such as the OpeningBook.
+ */
+public final class Zobrist {
+    public static final long SIDE;
+    private static final long SEED = 0x5EED5111C4E55L;
+    private static final long[][] PIECES = new long[2 * Constants.KING_CODE + 1][64];
+    private static final long[] EP = new long[64];
+    private static final long[] UNMOVED = new long[64];
+    private static long state = SEED;
+
+    static {
+        for (int piece = 0; piece < PIECES.length; piece++) {
+            for (int square = 0; square < 64; square++) {
+                PIECES[piece][square] = piece == Constants.KING_CODE ? 0L : nextKey();
+            }
+        }
+        for (int square = 0; square < 64; square++) {
+            EP[square] = nextKey();
+            UNMOVED[square] = nextKey();
+        }
+        SIDE = nextKey();
+    }
+
+    /**
+     * The Zobrist class only contains static keys and is never instantiated.
+     */
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a signed piece code on a square. An empty square has no key.
+     */
+    public static long piece(int piece, int square) {
+        return PIECES[piece + Constants.KING_CODE][square];
+    }
+
+    /**
+     * Returns the key of an en passant square, or 0 if there is no en passant square.
+     */
+    public static long ep(int square) {
+        return square < 0 ? 0L : EP[square];
+    }
+
+    /**
+     * Returns the XOR of the unmoved keys of every square in the bitboard.
+     */
+    public static long unmoved(long squares) {
+        long key = 0L;
+        while (squares != 0) {
+            key ^= UNMOVED[Long.numberOfTrailingZeros(squares)];
+            squares &= squares - 1;
+        }
+        return key;
+    }
+
+    /**
+     * Returns the next key of a splitmix64 sequence.
+     */
+    private static long nextKey() {
+        state += 0x9E3779B97F4A7C15L;
+        long z = state;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}